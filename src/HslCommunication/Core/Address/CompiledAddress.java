@@ -0,0 +1,97 @@
+package HslCommunication.Core.Address;
+
+/**
+ * 预先编译好的读取地址，地址和长度只解析一次，并生成好所有分批读取的完整报文，之后每次读取直接把报文发送到设备，不再解析地址及生成报文。
+ * 对象创建之后不能修改，可以在多个线程之间共享，但是只能用于编译它的设备对象。编译时使用的站号，网络号等参数会保存在报文里，修改这些参数后需要重新编译。<br />
+ * A pre-compiled read address, the address and length are parsed only once, and the complete messages of all batch reads are generated.
+ * After that, each read directly sends the messages to the device, and no longer parses the address and generates the messages.
+ * The object cannot be modified after it is created and can be shared between multiple threads, but it can only be used for the device object that compiled it.
+ * Parameters such as the station number and network number used during compilation are saved in the messages, and need to be recompiled after modifying these parameters.
+ */
+public class CompiledAddress {
+
+    /**
+     * 使用编译的结果实例化一个对象，通常由设备对象的 CompileAddress 方法调用<br />
+     * Instantiate an object with the result of the compilation, usually called by the CompileAddress method of the device object
+     * @param owner 编译地址的设备对象
+     * @param address 原始的地址
+     * @param length 原始的长度
+     * @param commands 每一批读取的完整报文
+     * @param lengths 每一批读取的数据长度，单位和设备的读取长度一致
+     */
+    public CompiledAddress(Object owner, String address, short length, byte[][] commands, short[] lengths) {
+        this.owner = owner;
+        this.address = address;
+        this.length = length;
+        this.commands = commands;
+        this.lengths = lengths;
+    }
+
+    /**
+     * 获取原始的地址<br />
+     * Get the original address
+     * @return 地址
+     */
+    public String getAddress() {
+        return address;
+    }
+
+    /**
+     * 获取原始的读取长度<br />
+     * Get the original read length
+     * @return 长度
+     */
+    public short getLength() {
+        return length;
+    }
+
+    /**
+     * 获取分批读取的次数<br />
+     * Get the number of batch reads
+     * @return 次数
+     */
+    public int getCommandCount() {
+        return commands.length;
+    }
+
+    /**
+     * 获取指定批次的完整报文，返回的是内部的数组，调用方不能修改<br />
+     * Get the complete message of the specified batch, the internal array is returned, and the caller cannot modify it
+     * @param index 批次的索引
+     * @return 完整的报文
+     */
+    public byte[] GetCommand(int index) {
+        return commands[index];
+    }
+
+    /**
+     * 获取指定批次的读取长度<br />
+     * Get the read length of the specified batch
+     * @param index 批次的索引
+     * @return 读取长度
+     */
+    public short GetCommandLength(int index) {
+        return lengths[index];
+    }
+
+    /**
+     * 判断当前的地址是否由指定的设备对象编译<br />
+     * Determine whether the current address is compiled by the specified device object
+     * @param device 设备对象
+     * @return 是否由该设备编译
+     */
+    public boolean IsCompiledBy(Object device) {
+        return owner == device;
+    }
+
+    @Override
+    public String toString() {
+        return "CompiledAddress[" + address + ":" + length + "]";
+    }
+
+    private final Object owner;                // 编译地址的设备对象
+    private final String address;              // 原始的地址
+    private final short length;                // 原始的长度
+    private final byte[][] commands;           // 每一批的完整报文
+    private final short[] lengths;             // 每一批的读取长度
+}
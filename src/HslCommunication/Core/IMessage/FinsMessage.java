@@ -28,7 +28,9 @@ public class FinsMessage implements INetMessage {
     }
 
     public int GetHeadBytesIdentity() {
-        return 0;
+        // Fins头之后依次为命令码，错误码及10个字节的Fins报文头，SID位于Fins报文头的最后一个字节
+        if (ContentBytes == null || ContentBytes.length < 18) return 0;
+        return ContentBytes[17] & 0xff;
     }
 
     public byte[] getHeadBytes() {
@@ -0,0 +1,57 @@
+package HslCommunication.Core.IMessage;
+
+/**
+ * 三菱的Qna兼容4E帧协议的二进制消息对象，报文头为13个字节，包含了请求的序列号，返回的报文携带相同的序列号，可以在一个连接上同时等待多个请求<br />
+ * The binary message object of Mitsubishi's Qna compatible 4E frame protocol. The message head is 13 bytes, including the serial number of the request,
+ * and the returned message carries the same serial number, so multiple requests can be waited on one connection at the same time
+ */
+public class MelsecQnA4EBinaryMessage implements INetMessage {
+    public int ProtocolHeadBytesLength() {
+        return 13;
+    }
+
+    public int GetContentLengthByHeadBytes() {
+        if (HeadBytes == null) return 0;
+        return (HeadBytes[11] & 0xff) + (HeadBytes[12] & 0xff) * 256;
+    }
+
+    public boolean CheckHeadBytesLegal(byte[] token) {
+        if (HeadBytes == null) return false;
+        return (HeadBytes[0] & 0xff) == 0xd4 && HeadBytes[1] == 0x00;
+    }
+
+    public int GetHeadBytesIdentity() {
+        if (HeadBytes == null || HeadBytes.length < 4) return 0;
+        return (HeadBytes[2] & 0xff) + (HeadBytes[3] & 0xff) * 256;
+    }
+
+    public byte[] getHeadBytes() {
+        return HeadBytes;
+    }
+
+    public byte[] getContentBytes() {
+        return ContentBytes;
+    }
+
+    public byte[] getSendBytes() {
+        return SendBytes;
+    }
+
+    public void setHeadBytes(byte[] headBytes) {
+        HeadBytes = headBytes;
+    }
+
+    public void setContentBytes(byte[] contentBytes) {
+        ContentBytes = contentBytes;
+    }
+
+    public void setSendBytes(byte[] sendBytes) {
+        SendBytes = sendBytes;
+    }
+
+    private byte[] HeadBytes = null;
+
+    private byte[] ContentBytes = null;
+
+    private byte[] SendBytes = null;
+}
@@ -36,7 +36,8 @@ public class ModbusTcpMessage implements INetMessage {
     }
 
     public int GetHeadBytesIdentity() {
-        return 0;
+        if (HeadBytes == null || HeadBytes.length < 2) return 0;
+        return (HeadBytes[0] & 0xff) * 256 + (HeadBytes[1] & 0xff);
     }
 
     public byte[] getHeadBytes() {
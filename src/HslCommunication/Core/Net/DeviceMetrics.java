@@ -0,0 +1,282 @@
+package HslCommunication.Core.Net;
+
+import HslCommunication.Core.Types.OperateResult;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个设备的通信统计信息，包括连接耗时，发送耗时，首字节耗时，完整的往返耗时的直方图，以及收发的字节数，请求次数，按照错误码分类的错误次数，
+ * 所有的记录操作都不需要加锁，可以随时获取快照用于输出或是监控。<br />
+ * The communication statistics of a single device, including the histograms of the connection time, the sending time, the time to first byte,
+ * and the complete round-trip time, as well as the number of bytes sent and received, the number of requests, and the number of errors classified by error code.
+ * All recording operations do not need to be locked, and snapshots can be obtained at any time for output or monitoring.
+ */
+public class DeviceMetrics {
+
+    /**
+     * 实例化一个统计对象<br />
+     * Instantiate a statistics object
+     * @param name 设备的名称，通常为设备对象的 toString() 的结果
+     */
+    public DeviceMetrics(String name) {
+        this.name = name;
+        this.startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 获取设备的名称<br />
+     * Get the name of the device
+     * @return 设备名称
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 设置设备的名称<br />
+     * Set the name of the device
+     * @param name 设备名称
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * 连接耗时的直方图，包含了连接及初始化握手的时间<br />
+     * Histogram of connection time, including the time of connection and initial handshake
+     * @return 直方图
+     */
+    public LatencyHistogram getConnectTime() {
+        return connectTime;
+    }
+
+    /**
+     * 发送耗时的直方图，从开始发送到报文全部写入网络的时间<br />
+     * Histogram of sending time, the time from the start of sending to all the messages being written to the network
+     * @return 直方图
+     */
+    public LatencyHistogram getSendTime() {
+        return sendTime;
+    }
+
+    /**
+     * 首字节耗时的直方图，从发送完成到接收完报文头的时间，基本等于设备的处理时间加上网络的延时<br />
+     * Histogram of time to first byte, the time from the completion of sending to the completion of receiving the message head,
+     * which is basically equal to the processing time of the device plus the network delay
+     * @return 直方图
+     */
+    public LatencyHistogram getFirstByteTime() {
+        return firstByteTime;
+    }
+
+    /**
+     * 往返耗时的直方图，从开始发送到接收完完整报文的时间<br />
+     * Histogram of round-trip time, the time from the start of sending to the completion of receiving the complete message
+     * @return 直方图
+     */
+    public LatencyHistogram getRoundTripTime() {
+        return roundTripTime;
+    }
+
+    /**
+     * 记录一次连接的结果，成功时记录耗时，失败时累加连接失败的次数<br />
+     * Record the result of a connection, record the time-consuming when it succeeds, and accumulate the number of connection failures when it fails
+     * @param startNanos 开始连接的时间，来自 {@link System#nanoTime()}
+     * @param isSuccess 是否连接成功
+     */
+    public void RecordConnect(long startNanos, boolean isSuccess) {
+        if (isSuccess) {
+            connectTime.Record(System.nanoTime() - startNanos);
+        } else {
+            connectFailures.increment();
+        }
+    }
+
+    /**
+     * 记录一次成功的报文交互，各个时间点都来自 {@link System#nanoTime()}，不知道首字节时间的时候传入0<br />
+     * Record a successful message interaction, each time point comes from {@link System#nanoTime()}, pass in 0 when the time of the first byte is unknown
+     * @param startNanos 开始发送的时间
+     * @param sentNanos 发送完成的时间
+     * @param headNanos 接收完报文头的时间，未知时为0
+     * @param endNanos 接收完成的时间
+     * @param sendLength 发送的字节数
+     * @param receiveLength 接收的字节数
+     */
+    public void RecordExchange(long startNanos, long sentNanos, long headNanos, long endNanos, int sendLength, int receiveLength) {
+        sendTime.Record(sentNanos - startNanos);
+        if (headNanos != 0) firstByteTime.Record(headNanos - sentNanos);
+        roundTripTime.Record(endNanos - startNanos);
+        bytesSent.add(sendLength);
+        bytesReceived.add(receiveLength);
+    }
+
+    /**
+     * 记录一次读写请求的最终结果，失败的时候按照 {@link OperateResult#ErrorCode} 分类统计<br />
+     * Record the final result of a read and write request, and classify statistics according to {@link OperateResult#ErrorCode} when it fails
+     * @param result 请求的结果
+     */
+    public void RecordResult(OperateResult result) {
+        requestCount.increment();
+        if (result == null || result.IsSuccess) return;
+
+        errorCount.increment();
+        LongAdder adder = errorCodes.get(result.ErrorCode);
+        if (adder == null) {
+            LongAdder created = new LongAdder();
+            adder = errorCodes.putIfAbsent(result.ErrorCode, created);
+            if (adder == null) adder = created;
+        }
+        adder.increment();
+    }
+
+    /**
+     * 清空所有的统计信息，并重新开始计算吞吐量的时间<br />
+     * Clear all statistics and restart the time for calculating throughput
+     */
+    public void Reset() {
+        connectTime.Reset();
+        sendTime.Reset();
+        firstByteTime.Reset();
+        roundTripTime.Reset();
+        connectFailures.reset();
+        requestCount.reset();
+        errorCount.reset();
+        bytesSent.reset();
+        bytesReceived.reset();
+        errorCodes.clear();
+        startTime = System.currentTimeMillis();
+    }
+
+    /**
+     * 获取当前统计信息的快照，快照的数据不会再变化，可以直接输出<br />
+     * Get a snapshot of the current statistics, the data of the snapshot will not change anymore and can be output directly
+     * @return 统计信息的快照
+     */
+    public Snapshot GetSnapshot() {
+        Snapshot snapshot = new Snapshot();
+        snapshot.Name = name;
+        snapshot.ElapsedTime = Math.max(1, System.currentTimeMillis() - startTime);
+        snapshot.ConnectTime = connectTime.GetSnapshot();
+        snapshot.SendTime = sendTime.GetSnapshot();
+        snapshot.FirstByteTime = firstByteTime.GetSnapshot();
+        snapshot.RoundTripTime = roundTripTime.GetSnapshot();
+        snapshot.ConnectFailures = connectFailures.sum();
+        snapshot.RequestCount = requestCount.sum();
+        snapshot.ErrorCount = errorCount.sum();
+        snapshot.BytesSent = bytesSent.sum();
+        snapshot.BytesReceived = bytesReceived.sum();
+        for (Map.Entry<Integer, LongAdder> entry : errorCodes.entrySet()) snapshot.ErrorCodes.put(entry.getKey(), entry.getValue().sum());
+        return snapshot;
+    }
+
+    @Override
+    public String toString() {
+        return "DeviceMetrics[" + name + "]";
+    }
+
+    private volatile String name;                                                              // 设备的名称
+    private volatile long startTime;                                                           // 开始统计的时间
+    private final LatencyHistogram connectTime = new LatencyHistogram();                       // 连接耗时
+    private final LatencyHistogram sendTime = new LatencyHistogram();                          // 发送耗时
+    private final LatencyHistogram firstByteTime = new LatencyHistogram();                     // 首字节耗时
+    private final LatencyHistogram roundTripTime = new LatencyHistogram();                     // 往返耗时
+    private final LongAdder connectFailures = new LongAdder();                                 // 连接失败的次数
+    private final LongAdder requestCount = new LongAdder();                                    // 请求的次数
+    private final LongAdder errorCount = new LongAdder();                                      // 失败的次数
+    private final LongAdder bytesSent = new LongAdder();                                       // 发送的字节数
+    private final LongAdder bytesReceived = new LongAdder();                                   // 接收的字节数
+    private final ConcurrentHashMap<Integer, LongAdder> errorCodes = new ConcurrentHashMap<>(); // 按照错误码分类的次数
+
+    /**
+     * 设备统计信息的快照<br />
+     * Snapshot of device statistics
+     */
+    public static class Snapshot {
+
+        /**
+         * 设备的名称
+         */
+        public String Name = null;
+
+        /**
+         * 开始统计到现在的时间，单位毫秒
+         */
+        public long ElapsedTime = 0;
+
+        /**
+         * 连接耗时
+         */
+        public LatencyHistogram.Snapshot ConnectTime = null;
+
+        /**
+         * 发送耗时
+         */
+        public LatencyHistogram.Snapshot SendTime = null;
+
+        /**
+         * 首字节耗时
+         */
+        public LatencyHistogram.Snapshot FirstByteTime = null;
+
+        /**
+         * 往返耗时
+         */
+        public LatencyHistogram.Snapshot RoundTripTime = null;
+
+        /**
+         * 连接失败的次数
+         */
+        public long ConnectFailures = 0;
+
+        /**
+         * 请求的次数
+         */
+        public long RequestCount = 0;
+
+        /**
+         * 失败的请求次数
+         */
+        public long ErrorCount = 0;
+
+        /**
+         * 发送的字节数
+         */
+        public long BytesSent = 0;
+
+        /**
+         * 接收的字节数
+         */
+        public long BytesReceived = 0;
+
+        /**
+         * 按照错误码分类的失败次数，按照错误码排序
+         */
+        public TreeMap<Integer, Long> ErrorCodes = new TreeMap<>();
+
+        /**
+         * 获取每秒的请求次数<br />
+         * Get the number of requests per second
+         * @return 请求次数
+         */
+        public double getRequestsPerSecond() {
+            return RequestCount * 1000.0 / ElapsedTime;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(Name).append("\r\n");
+            sb.append(String.format("requests=%d errors=%d connectFailures=%d rps=%.1f sent=%dB received=%dB",
+                    RequestCount, ErrorCount, ConnectFailures, getRequestsPerSecond(), BytesSent, BytesReceived)).append("\r\n");
+            sb.append("connect    : ").append(ConnectTime).append("\r\n");
+            sb.append("send       : ").append(SendTime).append("\r\n");
+            sb.append("first byte : ").append(FirstByteTime).append("\r\n");
+            sb.append("round trip : ").append(RoundTripTime);
+            if (!ErrorCodes.isEmpty()) sb.append("\r\n").append("error codes: ").append(ErrorCodes);
+            return sb.toString();
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package HslCommunication.Core.Net;
 
+import HslCommunication.Core.Net.NetworkBase.NetworkBase;
 import HslCommunication.Core.Types.IDataTransfer;
 import HslCommunication.Core.Types.OperateResult;
 import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.LogNet.Core.ILogNet;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 /**
  * 所有的和设备或是交互类统一读写标准，公开了如何读写对方的一些api接口，并支持基于特性的读写操作<br />
  * All unified read and write standards for devices and interaction classes,
@@ -391,4 +395,514 @@ public interface IReadWriteNet {
      */
     <T extends IDataTransfer> OperateResult WriteCustomer(String address, T value);
 
+    // region Async Read Write
+
+    // 以下的异步方法默认在系统共享的后台线程池上调用同步的方法，已有的实现类不需要修改，NetworkDeviceBase 及 NetworkUdpDeviceBase 重写为非阻塞的实现
+
+    /**
+     * 异步批量读取字节数组信息，需要指定地址和长度，等待设备返回的时候不阻塞调用方的线程<br />
+     * Asynchronously batch read byte array information, need to specify the address and length, the calling thread is not blocked while waiting for the device to return
+     * @param address 数据地址
+     * @param length 数据长度
+     * @return 带有成功标识的byte[]数组的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<byte[]>> ReadAsync( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> get() {
+                return Read(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入原始的byte数组数据到指定的地址，等待设备返回的时候不阻塞调用方的线程<br />
+     * Asynchronously write the original byte array data to the specified address, the calling thread is not blocked while waiting for the device to return
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final byte[] value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步批量读取bool数组信息，需要指定地址和长度<br />
+     * Asynchronously batch read bool array information, need to specify the address and length
+     * @param address 数据地址
+     * @param length 数据长度
+     * @return 带有成功标识的bool[]数组的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<boolean[]>> ReadBoolAsync( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<boolean[]>>() {
+            @Override
+            public OperateResultExOne<boolean[]> get() {
+                return ReadBool(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取单个的bool数据信息<br />
+     * Asynchronously read a single bool data information
+     * @param address 数据地址
+     * @return 带有成功标识的bool值的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<Boolean>> ReadBoolAsync( final String address ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<Boolean>>() {
+            @Override
+            public OperateResultExOne<Boolean> get() {
+                return ReadBool(address);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步批量写入bool数组数据<br />
+     * Asynchronously batch write bool array data
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final boolean[] value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入单个的bool数据<br />
+     * Asynchronously write a single bool data
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final boolean value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取16位的有符号整型数据<br />
+     * Asynchronously read 16-bit signed integer data
+     * @param address 起始地址
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<Short>> ReadInt16Async( final String address ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<Short>>() {
+            @Override
+            public OperateResultExOne<Short> get() {
+                return ReadInt16(address);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取16位的有符号整型数组<br />
+     * Asynchronously read 16-bit signed integer array
+     * @param address 起始地址
+     * @param length 数组长度
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<short[]>> ReadInt16Async( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<short[]>>() {
+            @Override
+            public OperateResultExOne<short[]> get() {
+                return ReadInt16(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取16位的无符号整型数据<br />
+     * Asynchronously read 16-bit unsigned integer data
+     * @param address 起始地址
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<Integer>> ReadUInt16Async( final String address ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<Integer>>() {
+            @Override
+            public OperateResultExOne<Integer> get() {
+                return ReadUInt16(address);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取16位的无符号整型数组<br />
+     * Asynchronously read 16-bit unsigned integer array
+     * @param address 起始地址
+     * @param length 数组长度
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<int[]>> ReadUInt16Async( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<int[]>>() {
+            @Override
+            public OperateResultExOne<int[]> get() {
+                return ReadUInt16(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取32位的有符号整型数据<br />
+     * Asynchronously read 32-bit signed integer data
+     * @param address 起始地址
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<Integer>> ReadInt32Async( final String address ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<Integer>>() {
+            @Override
+            public OperateResultExOne<Integer> get() {
+                return ReadInt32(address);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取32位的有符号整型数组<br />
+     * Asynchronously read 32-bit signed integer array
+     * @param address 起始地址
+     * @param length 数组长度
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<int[]>> ReadInt32Async( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<int[]>>() {
+            @Override
+            public OperateResultExOne<int[]> get() {
+                return ReadInt32(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取32位的无符号整型数据<br />
+     * Asynchronously read 32-bit unsigned integer data
+     * @param address 起始地址
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<Long>> ReadUInt32Async( final String address ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<Long>>() {
+            @Override
+            public OperateResultExOne<Long> get() {
+                return ReadUInt32(address);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取32位的无符号整型数组<br />
+     * Asynchronously read 32-bit unsigned integer array
+     * @param address 起始地址
+     * @param length 数组长度
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<long[]>> ReadUInt32Async( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<long[]>>() {
+            @Override
+            public OperateResultExOne<long[]> get() {
+                return ReadUInt32(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取64位的有符号整型数据<br />
+     * Asynchronously read 64-bit signed integer data
+     * @param address 起始地址
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<Long>> ReadInt64Async( final String address ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<Long>>() {
+            @Override
+            public OperateResultExOne<Long> get() {
+                return ReadInt64(address);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取64位的有符号整型数组<br />
+     * Asynchronously read 64-bit signed integer array
+     * @param address 起始地址
+     * @param length 数组长度
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<long[]>> ReadInt64Async( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<long[]>>() {
+            @Override
+            public OperateResultExOne<long[]> get() {
+                return ReadInt64(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取单精度的浮点数数据<br />
+     * Asynchronously read single-precision floating point data
+     * @param address 起始地址
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<Float>> ReadFloatAsync( final String address ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<Float>>() {
+            @Override
+            public OperateResultExOne<Float> get() {
+                return ReadFloat(address);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取单精度的浮点数数组<br />
+     * Asynchronously read single-precision floating point array
+     * @param address 起始地址
+     * @param length 数组长度
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<float[]>> ReadFloatAsync( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<float[]>>() {
+            @Override
+            public OperateResultExOne<float[]> get() {
+                return ReadFloat(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取双精度的浮点数数据<br />
+     * Asynchronously read double-precision floating point data
+     * @param address 起始地址
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<Double>> ReadDoubleAsync( final String address ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<Double>>() {
+            @Override
+            public OperateResultExOne<Double> get() {
+                return ReadDouble(address);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取双精度的浮点数数组<br />
+     * Asynchronously read double-precision floating point array
+     * @param address 起始地址
+     * @param length 数组长度
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<double[]>> ReadDoubleAsync( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<double[]>>() {
+            @Override
+            public OperateResultExOne<double[]> get() {
+                return ReadDouble(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步读取字符串数据，默认为最常见的ASCII编码<br />
+     * Asynchronously read string data, the default is the most common ASCII encoding
+     * @param address 起始地址
+     * @param length 数据长度
+     * @return 带有成功标识的异步结果
+     */
+    default CompletableFuture<OperateResultExOne<String>> ReadStringAsync( final String address, final short length ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResultExOne<String>>() {
+            @Override
+            public OperateResultExOne<String> get() {
+                return ReadString(address, length);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入16位的有符号整型数据<br />
+     * Asynchronously write 16-bit signed integer data
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final short value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入16位的有符号整型数组<br />
+     * Asynchronously write 16-bit signed integer array
+     * @param address 起始地址
+     * @param values 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final short[] values ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, values);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入32位的有符号整型数据<br />
+     * Asynchronously write 32-bit signed integer data
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final int value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入32位的有符号整型数组<br />
+     * Asynchronously write 32-bit signed integer array
+     * @param address 起始地址
+     * @param values 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final int[] values ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, values);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入64位的有符号整型数据<br />
+     * Asynchronously write 64-bit signed integer data
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final long value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入64位的有符号整型数组<br />
+     * Asynchronously write 64-bit signed integer array
+     * @param address 起始地址
+     * @param values 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final long[] values ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, values);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入单精度的浮点数数据<br />
+     * Asynchronously write single-precision floating point data
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final float value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入单精度的浮点数数组<br />
+     * Asynchronously write single-precision floating point array
+     * @param address 起始地址
+     * @param values 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final float[] values ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, values);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入双精度的浮点数数据<br />
+     * Asynchronously write double-precision floating point data
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final double value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入双精度的浮点数数组<br />
+     * Asynchronously write double-precision floating point array
+     * @param address 起始地址
+     * @param values 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final double[] values ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, values);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    /**
+     * 异步写入字符串数据，默认为最常见的ASCII编码<br />
+     * Asynchronously write string data, the default is the most common ASCII encoding
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    default CompletableFuture<OperateResult> WriteAsync( final String address, final String value ) {
+        return CompletableFuture.supplyAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        }, NetworkBase.GetDefaultAsyncExecutor());
+    }
+
+    // endregion
+
 }
@@ -0,0 +1,181 @@
+package HslCommunication.Core.Net;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 固定刻度的延时直方图，以微秒为单位记录，每个2的幂次的区间再平均分成8个刻度，相对误差不超过12.5%，记录的过程不需要加锁，
+ * 适合在每次和设备交互的时候记录耗时，然后统计p50，p99等分位数。<br />
+ * A latency histogram with fixed buckets, recorded in microseconds, each power-of-two range is divided into 8 buckets evenly,
+ * the relative error does not exceed 12.5%, and no lock is required during recording. It is suitable for recording the time-consuming
+ * every time you interact with the device, and then counting quantiles such as p50 and p99.
+ */
+public class LatencyHistogram {
+
+    /**
+     * 实例化一个空的直方图<br />
+     * Instantiate an empty histogram
+     */
+    public LatencyHistogram() {
+        buckets = new AtomicLongArray(BucketCount);
+    }
+
+    /**
+     * 记录一次耗时，单位纳秒，负数按照0处理，本方法是线程安全的<br />
+     * Record a time-consuming, in nanoseconds, negative numbers are treated as 0, this method is thread-safe
+     * @param nanos 耗时，单位纳秒
+     */
+    public void Record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        buckets.incrementAndGet(IndexOf(micros));
+        count.increment();
+        sum.add(micros);
+
+        long current = max.get();
+        while (micros > current && !max.compareAndSet(current, micros)) current = max.get();
+    }
+
+    /**
+     * 获取记录的总次数<br />
+     * Get the total number of records
+     * @return 记录的次数
+     */
+    public long getCount() {
+        return count.sum();
+    }
+
+    /**
+     * 清空所有的记录<br />
+     * Clear all records
+     */
+    public void Reset() {
+        for (int i = 0; i < BucketCount; i++) buckets.set(i, 0);
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    /**
+     * 获取当前直方图的快照，包含了次数，平均值，最大值以及常用的分位数，单位毫秒<br />
+     * Get the snapshot of the current histogram, including the count, mean, maximum and commonly used quantiles, in milliseconds
+     * @return 直方图的快照
+     */
+    public Snapshot GetSnapshot() {
+        long[] counts = new long[BucketCount];
+        long total = 0;
+        for (int i = 0; i < BucketCount; i++) {
+            counts[i] = buckets.get(i);
+            total += counts[i];
+        }
+
+        Snapshot snapshot = new Snapshot();
+        snapshot.Count = total;
+        if (total == 0) return snapshot;
+
+        long maxMicros = max.get();
+        snapshot.Mean = sum.sum() / 1000.0 / Math.max(1, count.sum());
+        snapshot.Max = maxMicros / 1000.0;
+        snapshot.P50 = Percentile(counts, total, 0.50, maxMicros);
+        snapshot.P90 = Percentile(counts, total, 0.90, maxMicros);
+        snapshot.P99 = Percentile(counts, total, 0.99, maxMicros);
+        snapshot.P999 = Percentile(counts, total, 0.999, maxMicros);
+        return snapshot;
+    }
+
+    /**
+     * 计算指定的分位数，返回所在刻度的上限，但是不超过记录的最大值
+     */
+    private static double Percentile(long[] counts, long total, double quantile, long maxMicros) {
+        long rank = (long) Math.ceil(total * quantile);
+        long accumulate = 0;
+        for (int i = 0; i < counts.length; i++) {
+            accumulate += counts[i];
+            if (accumulate >= rank) return Math.min(UpperBoundOf(i), maxMicros) / 1000.0;
+        }
+        return maxMicros / 1000.0;
+    }
+
+    private static int IndexOf(long micros) {
+        if (micros < LinearCount) return (int) micros;
+
+        int exponent = 63 - Long.numberOfLeadingZeros(micros);
+        if (exponent > MaxExponent) return BucketCount - 1;
+        int sub = (int) (micros >> (exponent - SubBits)) & (SubCount - 1);
+        return LinearCount + (exponent - LinearBits) * SubCount + sub;
+    }
+
+    private static long UpperBoundOf(int index) {
+        if (index < LinearCount) return index;
+
+        int exponent = (index - LinearCount) / SubCount + LinearBits;
+        int sub = (index - LinearCount) % SubCount;
+        return ((long) (SubCount + sub + 1) << (exponent - SubBits)) - 1;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyHistogram[" + getCount() + "]";
+    }
+
+    private static final int SubBits = 3;                                                     // 每个区间细分的位数
+    private static final int SubCount = 1 << SubBits;                                         // 每个区间的刻度数量
+    private static final int LinearBits = 4;                                                  // 线性刻度的位数
+    private static final int LinearCount = 1 << LinearBits;                                   // 小于16微秒的值每微秒一个刻度
+    private static final int MaxExponent = 35;                                                // 最大可以区分约9.5小时
+    private static final int BucketCount = LinearCount + (MaxExponent - LinearBits + 1) * SubCount;
+
+    private final AtomicLongArray buckets;                    // 每个刻度的次数
+    private final LongAdder count = new LongAdder();          // 总次数
+    private final LongAdder sum = new LongAdder();            // 总耗时，单位微秒
+    private final AtomicLong max = new AtomicLong();          // 最大耗时，单位微秒
+
+    /**
+     * 直方图的快照信息，所有的时间单位都是毫秒<br />
+     * Snapshot information of the histogram, all time units are milliseconds
+     */
+    public static class Snapshot {
+
+        /**
+         * 记录的次数
+         */
+        public long Count = 0;
+
+        /**
+         * 平均值
+         */
+        public double Mean = 0;
+
+        /**
+         * 最大值
+         */
+        public double Max = 0;
+
+        /**
+         * 50%分位数
+         */
+        public double P50 = 0;
+
+        /**
+         * 90%分位数
+         */
+        public double P90 = 0;
+
+        /**
+         * 99%分位数
+         */
+        public double P99 = 0;
+
+        /**
+         * 99.9%分位数
+         */
+        public double P999 = 0;
+
+        @Override
+        public String toString() {
+            return String.format("count=%d mean=%.3fms p50=%.3fms p90=%.3fms p99=%.3fms p999=%.3fms max=%.3fms",
+                    Count, Mean, P50, P90, P99, P999, Max);
+        }
+    }
+}
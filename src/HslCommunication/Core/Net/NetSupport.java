@@ -34,23 +34,37 @@ public class NetSupport {
      */
     public static byte[] ReadBytesFromSocket(Socket socket, int receive, ActionOperateExTwo<Long, Long> reportProgress) throws IOException, RemoteCloseException {
         byte[] bytes_receive = new byte[receive];
+        ReadBytesFromSocket(socket, bytes_receive, 0, receive, reportProgress);
+        return bytes_receive;
+    }
+
+    /**
+     * 从socket的网络中读取指定长度的数据内容，直接存放到指定的数组的偏移位置，用于将报文接收到重复使用的缓存中，不会产生新的数组。<br />
+     * Read the data content of the specified length from the socket network and store it directly at the offset position of the specified array,
+     * which is used to receive the message into a reused buffer without generating a new array.
+     *
+     * @param socket         网络套接字
+     * @param buffer         存放数据的数组
+     * @param offset         存放数据的偏移位置
+     * @param receive        接收的长度
+     * @param reportProgress 当前接收数据的进度报告
+     * @throws IOException          网络套接字的异常信息
+     * @throws RemoteCloseException 远程关闭的异常信息
+     */
+    public static void ReadBytesFromSocket(Socket socket, byte[] buffer, int offset, int receive, ActionOperateExTwo<Long, Long> reportProgress) throws IOException, RemoteCloseException {
+        InputStream input = socket.getInputStream();
         int count_receive = 0;
         while (count_receive < receive) {
             // 分割成8KB来接收数据
             int receive_length = Math.min((receive - count_receive), SocketBufferSize);
 
-            //socket.setSoTimeout(10_000);
-            InputStream input = socket.getInputStream();
-            int count = input.read(bytes_receive, count_receive, receive_length);
-            if (count < 0) throw new RemoteCloseException();
-            count_receive += count;
-
+            int count = input.read(buffer, offset + count_receive, receive_length);
             if (count <= 0) throw new RemoteCloseException();
+            count_receive += count;
 
             if (reportProgress != null) {
                 reportProgress.Action((long) count_receive, (long) receive);
             }
         }
-        return bytes_receive;
     }
 }
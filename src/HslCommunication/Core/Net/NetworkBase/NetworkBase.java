@@ -4,6 +4,9 @@ import HslCommunication.BasicFramework.SoftBasic;
 import HslCommunication.Core.IMessage.INetMessage;
 import HslCommunication.Core.Net.HslProtocol;
 import HslCommunication.Core.Net.NetSupport;
+import HslCommunication.Core.Net.Nio.NioEventLoop;
+import HslCommunication.Core.Net.ReceiveFrame;
+import HslCommunication.Core.Thread.HashedWheelTimer;
 import HslCommunication.Core.Types.*;
 import HslCommunication.Enthernet.Redis.RedisHelper;
 import HslCommunication.LogNet.Core.ILogNet;
@@ -16,9 +19,22 @@ import java.io.*;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 
 /**
@@ -71,33 +87,210 @@ public abstract class NetworkBase {
 
     // endregion
 
+    // region Async Support
+
+    /**
+     * 获取异步方法在无法使用非阻塞传输时使用的线程池，默认为系统共享的后台线程池。阻塞的传输模式下，每个还没有完成的异步请求都会占用线程池的一个线程，
+     * 共享的线程池最多 {@link #DefaultAsyncThreads} 个线程，超过的请求排队等待，大量设备并发读取的时候请使用非阻塞的传输模式<br />
+     * Get the thread pool used by asynchronous methods when non-blocking transport is not available, the default is the shared background thread pool of the system.
+     * In blocking transport mode, each outstanding asynchronous request occupies a thread of the thread pool. The shared thread pool has at most
+     * {@link #DefaultAsyncThreads} threads, and the requests that exceed are queued. Please use non-blocking transport mode when a large number of devices read concurrently
+     * @return 线程池
+     */
+    public Executor getAsyncExecutor() {
+        Executor executor = asyncExecutor;
+        return executor == null ? GetDefaultAsyncExecutor() : executor;
+    }
+
+    /**
+     * 设置异步方法在无法使用非阻塞传输时使用的线程池，设置为空时使用系统共享的后台线程池<br />
+     * Set the thread pool used by asynchronous methods when non-blocking transport is not available, and use the shared background thread pool of the system when it is set to null
+     * @param asyncExecutor 线程池
+     */
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * 在异步的线程池上执行一个同步的方法，用于阻塞的传输模式或是还没有非阻塞实现的异步方法，等待设备返回的期间会一直占用线程池的一个线程<br />
+     * Execute a synchronous method on the asynchronous thread pool, used for blocking transport mode or asynchronous methods that do not yet have a non-blocking implementation,
+     * a thread of the thread pool is occupied all the time while waiting for the device to return
+     * @param supplier 同步的方法
+     * @param <T> 结果的类型
+     * @return 异步的结果对象
+     */
+    protected <T> CompletableFuture<T> RunAsync(Supplier<T> supplier) {
+        return CompletableFuture.supplyAsync(supplier, getAsyncExecutor());
+    }
+
+    /**
+     * 等待异步的结果，同步的方法使用异步的实现时调用。结果还没有完成并且当前是事件循环的线程时直接返回失败，
+     * 因为结果需要由事件循环完成，在事件循环的线程上等待会使整个事件循环卡死<br />
+     * Wait for the asynchronous result, called when the synchronous method uses the asynchronous implementation. When the result has not been completed
+     * and the current thread is the thread of the event loop, the failure is returned directly, because the result needs to be completed by the event loop,
+     * and waiting on the thread of the event loop will hang the entire event loop
+     * @param future 异步的结果
+     * @param <T> 结果的类型
+     * @return 结果对象
+     */
+    protected static <T> OperateResultExOne<T> JoinResult(CompletableFuture<OperateResultExOne<T>> future) {
+        if (!future.isDone() && NioEventLoop.IsEventLoopThread())
+            return new OperateResultExOne<T>(StringResources.Language.BlockingCallInEventLoop());
+        return future.join();
+    }
+
+    /**
+     * 当异步的读取成功时，继续使用指定的方法解析数据，失败时直接返回失败的结果<br />
+     * When the asynchronous read is successful, continue to use the specified method to analyze the data, and directly return the failed result when it fails
+     * @param read 异步读取的结果
+     * @param analysis 数据的解析方法
+     * @param <T> 解析后的类型
+     * @return 解析后的异步结果
+     */
+    protected static <T> CompletableFuture<OperateResultExOne<T>> ThenAnalysis(CompletableFuture<OperateResultExOne<byte[]>> read, final FunctionOperateExOne<byte[], OperateResultExOne<T>> analysis) {
+        return read.thenApply(new Function<OperateResultExOne<byte[]>, OperateResultExOne<T>>() {
+            @Override
+            public OperateResultExOne<T> apply(OperateResultExOne<byte[]> result) {
+                if (!result.IsSuccess) return OperateResultExOne.CreateFailedResult(result);
+                return analysis.Action(result.Content);
+            }
+        });
+    }
+
+    /**
+     * 当异步的读取成功时，继续使用指定的方法检查数据，失败时直接返回失败的结果，通常用于写入的操作<br />
+     * When the asynchronous read is successful, continue to use the specified method to check the data, and directly return the failed result when it fails,
+     * usually used for write operations
+     * @param read 异步读取的结果
+     * @param check 数据的检查方法
+     * @return 检查后的异步结果
+     */
+    protected static CompletableFuture<OperateResult> ThenCheck(CompletableFuture<OperateResultExOne<byte[]>> read, final FunctionOperateExOne<byte[], OperateResult> check) {
+        return read.thenApply(new Function<OperateResultExOne<byte[]>, OperateResult>() {
+            @Override
+            public OperateResult apply(OperateResultExOne<byte[]> result) {
+                if (!result.IsSuccess) return result;
+                return check.Action(result.Content);
+            }
+        });
+    }
+
+    /**
+     * 按照先后顺序依次执行多次异步的读取，上一次成功之后才开始下一次，并将所有的结果拼接成一个数组，任意一次失败则返回失败的结果<br />
+     * Execute multiple asynchronous reads in sequence, the next one starts after the previous one succeeds,
+     * and all the results are spliced into one array, if any one fails, the failed result is returned
+     * @param count 读取的次数
+     * @param step 根据索引生成每一次读取的方法
+     * @return 拼接后的异步结果
+     */
+    protected static CompletableFuture<OperateResultExOne<byte[]>> ReadSequenceAsync(int count, FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>> step) {
+        return ReadSequenceAsync(0, count, step, new ByteArrayOutputStream());
+    }
+
+    private static CompletableFuture<OperateResultExOne<byte[]>> ReadSequenceAsync(final int index, final int count,
+            final FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>> step, final ByteArrayOutputStream stream) {
+        if (index >= count) return CompletableFuture.completedFuture(OperateResultExOne.CreateSuccessResult(stream.toByteArray()));
+
+        return step.Action(index).thenCompose(new Function<OperateResultExOne<byte[]>, CompletionStage<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletionStage<OperateResultExOne<byte[]>> apply(OperateResultExOne<byte[]> read) {
+                if (!read.IsSuccess) return CompletableFuture.completedFuture(read);
+
+                stream.write(read.Content, 0, read.Content.length);
+                return ReadSequenceAsync(index + 1, count, step, stream);
+            }
+        });
+    }
+
+    /**
+     * 同时发起多次异步的读取，并按照索引的顺序将所有的结果拼接成一个数组，任意一次失败则返回失败的结果，通常用于可以同时发送多个请求的连接<br />
+     * Initiate multiple asynchronous reads at the same time, and splice all the results into one array in the order of the index,
+     * if any one fails, the failed result is returned, usually used for connections that can send multiple requests at the same time
+     * @param count 读取的次数
+     * @param step 根据索引生成每一次读取的方法
+     * @return 拼接后的异步结果
+     */
+    protected static CompletableFuture<OperateResultExOne<byte[]>> ReadConcurrentAsync(int count, FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>> step) {
+        final List<CompletableFuture<OperateResultExOne<byte[]>>> reads = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) reads.add(step.Action(i));
+
+        return CompletableFuture.allOf(reads.toArray(new CompletableFuture<?>[0])).thenApply(new Function<Void, OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> apply(Void unused) {
+                ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                for (CompletableFuture<OperateResultExOne<byte[]>> future : reads) {
+                    OperateResultExOne<byte[]> read = future.join();
+                    if (!read.IsSuccess) return read;
+                    stream.write(read.Content, 0, read.Content.length);
+                }
+                return OperateResultExOne.CreateSuccessResult(stream.toByteArray());
+            }
+        });
+    }
+
+    /**
+     * 获取系统共享的后台线程池，线程数量最多为 {@link #DefaultAsyncThreads} 个，超过的任务排队等待，{@link HslCommunication.Core.Net.IReadWriteNet} 接口的默认异步方法也使用本线程池<br />
+     * Get the shared background thread pool of the system, the number of threads is at most {@link #DefaultAsyncThreads}, and the tasks that exceed are queued.
+     * The default asynchronous methods of the {@link HslCommunication.Core.Net.IReadWriteNet} interface also use this thread pool
+     * @return 线程池
+     */
+    public static synchronized Executor GetDefaultAsyncExecutor() {
+        if (defaultAsyncExecutor == null) {
+            final AtomicInteger count = new AtomicInteger();
+            // 线程数量固定上限，空闲的线程一分钟之后回收，超过上限的任务排队
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(DefaultAsyncThreads, DefaultAsyncThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "HslAsync-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+            defaultAsyncExecutor = executor;
+        }
+        return defaultAsyncExecutor;
+    }
+
+    /**
+     * 系统共享的后台线程池的最大线程数量<br />
+     * The maximum number of threads in the shared background thread pool of the system
+     */
+    public static final int DefaultAsyncThreads = Math.max(16, Runtime.getRuntime().availableProcessors() * 4);
+
+    private Executor asyncExecutor = null;                           // 异步方法使用的线程池
+    private static ExecutorService defaultAsyncExecutor = null;      // 系统共享的后台线程池
+
+    // endregion
+
     // region Protect Method
 
     /**
-     * 检查网络套接字是否操作超时，传入的参数需要是 {@link HslTimeOut} 类型，封装socket操作。<br />
+     * 检查网络套接字是否操作超时，传入的参数需要是 {@link HslTimeOut} 类型，封装socket操作。超时的检测由系统共享的 {@link HashedWheelTimer} 完成，
+     * 本方法会立即返回，不再占用线程，操作成功后调用 {@link HslTimeOut#SetSuccessful()} 即可取消检测，超时的时候关闭 {@link HslTimeOut#WorkSocket} 套接字。<br />
      * Check if the operation of the network socket has timed out. The parameters passed in need to be of type {@link HslTimeOut} to encapsulate the socket operation.
+     * The timeout detection is completed by the shared {@link HashedWheelTimer} of the system, this method returns immediately and no longer occupies a thread.
+     * Call {@link HslTimeOut#SetSuccessful()} to cancel the detection after the operation is successful, and the {@link HslTimeOut#WorkSocket} is closed when it times out.
      * @param timeout HslTimeOut的对象
      */
-    protected void ThreadPoolCheckTimeOut( HslTimeOut timeout ) {
-        System.out.println("进入超时检测:" + timeout.DelayTime);
-        while (!timeout.IsSuccessful) {
-            try {
-                Thread.sleep(100);
-            } catch (InterruptedException ex) {
-            }
-            if (new Date().getTime() - timeout.StartTime.getTime() > timeout.DelayTime) {
+    protected void ThreadPoolCheckTimeOut( final HslTimeOut timeout ) {
+        long delay = timeout.DelayTime - (System.currentTimeMillis() - timeout.StartTime.getTime());
+        timeout.WheelTimeout = HashedWheelTimer.getDefault().Schedule(new Runnable() {
+            @Override
+            public void run() {
                 // 连接超时或是验证超时
-                if (!timeout.IsSuccessful) {
-                    System.out.println("检测到超时信息");
-                    timeout.IsTimeout = true;
-                    ILogNet logNet = LogNet;
-                    if (logNet != null)
-                        logNet.WriteWarn(toString(), "Wait Time Out : " + timeout.DelayTime);
-                    CloseSocket(timeout.WorkSocket);
-                }
-                break;
+                if (timeout.IsSuccessful) return;
+
+                timeout.IsTimeout = true;
+                ILogNet logNet = LogNet;
+                if (logNet != null) logNet.WriteWarn(NetworkBase.this.toString(), "Wait Time Out : " + timeout.DelayTime);
+                CloseSocket(timeout.WorkSocket);
             }
-        }
+        }, delay);
+
+        // 在添加到定时器之前已经成功的时候，直接取消
+        if (timeout.IsSuccessful) timeout.WheelTimeout.Cancel();
     }
 
     // endregion
@@ -276,19 +469,12 @@ public abstract class NetworkBase {
     protected OperateResultExOne<byte[]> ReceiveByMessage( Socket socket, int timeOut, INetMessage netMessage, ActionOperateExTwo<Long, Long> reportProgress ) {
         if (netMessage == null) return Receive(socket, -1, timeOut);
 
-        // 接收指令头
-        OperateResultExOne<byte[]> headResult = Receive(socket, netMessage.ProtocolHeadBytesLength(), timeOut);
-        if (!headResult.IsSuccess) return headResult;
-
-        netMessage.setHeadBytes(headResult.Content);
-        int contentLength = netMessage.GetContentLengthByHeadBytes();
-        if (contentLength <= 0) return headResult;
+        OperateResultExOne<ReceiveFrame> frame = ReceiveFrameByMessage(socket, timeOut, netMessage, reportProgress);
+        if (!frame.IsSuccess) return OperateResultExOne.CreateFailedResult(frame);
 
-        OperateResultExOne<byte[]> contentResult = Receive(socket, contentLength, timeOut, reportProgress);
-        if (!contentResult.IsSuccess) return contentResult;
-
-        netMessage.setContentBytes(contentResult.Content);
-        return OperateResultExOne.CreateSuccessResult(SoftBasic.SpliceTwoByteArray(headResult.Content, contentResult.Content));
+        byte[] buffer = frame.Content.ToArray();
+        frame.Content.Release();
+        return OperateResultExOne.CreateSuccessResult(buffer);
     }
 
     /**
@@ -303,6 +489,66 @@ public abstract class NetworkBase {
         return ReceiveByMessage(socket, timeOut, netMessage, null);
     }
 
+    /**
+     * 接收一条完整的 {@link INetMessage} 数据内容到池中租用的缓存里，报文头和内容连续的存放，除了设置给消息对象的内容数组之外，接收的过程中不会产生新的数组，
+     * 使用完成后需要调用 {@link ReceiveFrame#Release()} 方法归还缓存。<br />
+     * Receive a complete {@link INetMessage} data content into the buffer rented from the pool, the head and content are stored continuously,
+     * no new array is generated during the receiving process except the content array set to the message object,
+     * and the {@link ReceiveFrame#Release()} method needs to be called to return the buffer after use.
+     * @param socket 网络的套接字
+     * @param timeOut 超时时间，单位：毫秒
+     * @param netMessage 消息的格式定义，不能为空
+     * @param reportProgress 接收消息的时候的进度报告
+     * @return 包含了完整报文的缓存对象
+     */
+    protected OperateResultExOne<ReceiveFrame> ReceiveFrameByMessage( Socket socket, int timeOut, INetMessage netMessage, ActionOperateExTwo<Long, Long> reportProgress ) {
+        int headLength = netMessage.ProtocolHeadBytesLength();
+        ReceiveFrame frame = ReceiveFrame.Rent(headLength);
+        try {
+            socket.setSoTimeout(Math.max(timeOut, 0));
+
+            // 接收指令头
+            byte[] head = frame.GetHeadArray(headLength);
+            NetSupport.ReadBytesFromSocket(socket, head, 0, headLength, null);
+            frame.setHeadReceivedTime(System.nanoTime());
+            netMessage.setHeadBytes(head);
+            int contentLength = netMessage.GetContentLengthByHeadBytes();
+
+            // 有些消息在计算长度的时候会重新调整报文头，此处以调整之后的报文头为准
+            head = netMessage.getHeadBytes();
+            frame.setLength(head.length + Math.max(contentLength, 0));
+            System.arraycopy(head, 0, frame.getBuffer(), 0, head.length);
+
+            if (contentLength > 0) {
+                NetSupport.ReadBytesFromSocket(socket, frame.getBuffer(), head.length, contentLength, reportProgress);
+                // 消息对象依然需要独立的内容数据，比如根据内容里的消息标识匹配请求
+                netMessage.setContentBytes(frame.CopyRange(head.length, contentLength));
+            }
+            return OperateResultExOne.CreateSuccessResult(frame);
+        } catch (RemoteCloseException ex) {
+            frame.Release();
+            CloseSocket(socket);
+            return new OperateResultExOne<ReceiveFrame>(StringResources.Language.RemoteClosedConnection());
+        } catch (IOException ex) {
+            frame.Release();
+            CloseSocket(socket);
+            return new OperateResultExOne<ReceiveFrame>(ex.getMessage());
+        }
+    }
+
+    /**
+     * 接收一条完整的 {@link INetMessage} 数据内容到池中租用的缓存里，使用完成后需要调用 {@link ReceiveFrame#Release()} 方法归还缓存。<br />
+     * Receive a complete {@link INetMessage} data content into the buffer rented from the pool,
+     * and the {@link ReceiveFrame#Release()} method needs to be called to return the buffer after use.
+     * @param socket 网络的套接字
+     * @param timeOut 超时时间，单位：毫秒
+     * @param netMessage 消息的格式定义，不能为空
+     * @return 包含了完整报文的缓存对象
+     */
+    protected OperateResultExOne<ReceiveFrame> ReceiveFrameByMessage( Socket socket, int timeOut, INetMessage netMessage ) {
+        return ReceiveFrameByMessage(socket, timeOut, netMessage, null);
+    }
+
     // endregion
 
     // region Send Content
@@ -389,6 +635,28 @@ public abstract class NetworkBase {
         return CreateSocketAndConnect(endPoint,10000);
     }
 
+    /**
+     * 创建一个新的 {@link SocketChannel} 对象并连接到远程的地址，连接成功后通道处于阻塞模式，可以通过 {@link SocketChannel#socket()} 进行初始化的握手<br />
+     * Create a new {@link SocketChannel} object and connect to the remote address. After the connection is successful, the channel is in blocking mode,
+     * and the initial handshake can be performed through {@link SocketChannel#socket()}
+     * @param endPoint 目标节点
+     * @param timeOut 超时时间，单位毫秒
+     * @return 连接成功的标志
+     */
+    protected OperateResultExOne<SocketChannel> CreateSocketChannelAndConnect(SocketAddress endPoint, int timeOut) {
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().connect(endPoint, timeOut);
+            return OperateResultExOne.CreateSuccessResult(channel);
+        } catch (IOException ex) {
+            if (LogNet != null) LogNet.WriteException("CreateSocketChannelAndConnect", ex);
+            if (channel != null) CloseSocket(channel.socket());
+            return new OperateResultExOne<>(ex.getMessage());
+        }
+    }
+
     // endregion
 
     // region Read Write Stream
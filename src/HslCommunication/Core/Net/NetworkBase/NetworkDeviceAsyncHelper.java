@@ -0,0 +1,162 @@
+package HslCommunication.Core.Net.NetworkBase;
+
+import HslCommunication.Core.Transfer.ByteTransformHelper;
+import HslCommunication.Core.Transfer.IByteTransform;
+import HslCommunication.Core.Types.FunctionOperateExOne;
+import HslCommunication.Core.Types.OperateResultExOne;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * 设备类的异步读取的辅助方法，将异步读取的原始字节转换成各种类型的数据，供 {@link NetworkDeviceBase} 及 {@link NetworkUdpDeviceBase} 共用<br />
+ * The auxiliary methods of asynchronous reading of the device classes, which convert the original bytes of the asynchronous reading into various types of data,
+ * shared by {@link NetworkDeviceBase} and {@link NetworkUdpDeviceBase}
+ */
+class NetworkDeviceAsyncHelper {
+
+    static CompletableFuture<OperateResultExOne<Boolean>> GetBoolResult(CompletableFuture<OperateResultExOne<boolean[]>> read) {
+        return read.thenApply(new Function<OperateResultExOne<boolean[]>, OperateResultExOne<Boolean>>() {
+            @Override
+            public OperateResultExOne<Boolean> apply(OperateResultExOne<boolean[]> result) {
+                if (!result.IsSuccess) return OperateResultExOne.CreateFailedResult(result);
+                return OperateResultExOne.CreateSuccessResult(result.Content[0]);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<Short>> GetInt16Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], Short>() {
+            @Override
+            public Short Action(byte[] content) {
+                return transform.TransInt16(content, 0);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<short[]>> GetInt16Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform, final short length) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], short[]>() {
+            @Override
+            public short[] Action(byte[] content) {
+                return transform.TransInt16(content, 0, length);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<Integer>> GetUInt16Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], Integer>() {
+            @Override
+            public Integer Action(byte[] content) {
+                return transform.TransUInt16(content, 0);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<int[]>> GetUInt16Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform, final short length) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], int[]>() {
+            @Override
+            public int[] Action(byte[] content) {
+                return transform.TransUInt16(content, 0, length);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<Integer>> GetInt32Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], Integer>() {
+            @Override
+            public Integer Action(byte[] content) {
+                return transform.TransInt32(content, 0);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<int[]>> GetInt32Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform, final short length) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], int[]>() {
+            @Override
+            public int[] Action(byte[] content) {
+                return transform.TransInt32(content, 0, length);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<Long>> GetUInt32Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], Long>() {
+            @Override
+            public Long Action(byte[] content) {
+                return transform.TransUInt32(content, 0);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<long[]>> GetUInt32Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform, final short length) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], long[]>() {
+            @Override
+            public long[] Action(byte[] content) {
+                return transform.TransUInt32(content, 0, length);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<Long>> GetInt64Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], Long>() {
+            @Override
+            public Long Action(byte[] content) {
+                return transform.TransInt64(content, 0);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<long[]>> GetInt64Result(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform, final short length) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], long[]>() {
+            @Override
+            public long[] Action(byte[] content) {
+                return transform.TransInt64(content, 0, length);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<Float>> GetFloatResult(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], Float>() {
+            @Override
+            public Float Action(byte[] content) {
+                return transform.TransSingle(content, 0);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<float[]>> GetFloatResult(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform, final short length) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], float[]>() {
+            @Override
+            public float[] Action(byte[] content) {
+                return transform.TransSingle(content, 0, length);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<Double>> GetDoubleResult(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], Double>() {
+            @Override
+            public Double Action(byte[] content) {
+                return transform.TransDouble(content, 0);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<double[]>> GetDoubleResult(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform, final short length) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], double[]>() {
+            @Override
+            public double[] Action(byte[] content) {
+                return transform.TransDouble(content, 0, length);
+            }
+        });
+    }
+
+    static CompletableFuture<OperateResultExOne<String>> GetStringResult(CompletableFuture<OperateResultExOne<byte[]>> read, final IByteTransform transform) {
+        return ByteTransformHelper.GetResultFromBytesAsync(read, new FunctionOperateExOne<byte[], String>() {
+            @Override
+            public String Action(byte[] content) {
+                return transform.TransString(content, 0, content.length, "ascii");
+            }
+        });
+    }
+}
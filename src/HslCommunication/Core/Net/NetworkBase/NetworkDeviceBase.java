@@ -1,6 +1,7 @@
 package HslCommunication.Core.Net.NetworkBase;
 
 import HslCommunication.BasicFramework.SoftBasic;
+import HslCommunication.Core.Address.CompiledAddress;
 import HslCommunication.Core.Net.IReadWriteNet;
 import HslCommunication.Core.Transfer.ByteTransformHelper;
 import HslCommunication.Core.Types.FunctionOperateExOne;
@@ -10,6 +11,14 @@ import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.StringResources;
 import HslCommunication.Utilities;
 
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
 
 /**
  * 设备交互类的基类，实现了 {@link IReadWriteNet} 接口的基础方法方法，需要使用继承重写来实现字节读写，bool读写操作。<br />
@@ -63,7 +72,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
         } catch (Exception ex) {
             Content = null;
         }
-        OperateResultExOne<byte[]> read = Read(address, Content.getReadCount());
+        OperateResultExOne<byte[]> read = ReadCoalesced(address, Content.getReadCount());
         if (read.IsSuccess) {
             Content.ParseSource(read.Content);
             result.Content = Content;
@@ -88,7 +97,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<short[]> ReadInt16(String address, final short length) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, (short) (length * WordLength)), new FunctionOperateExOne<byte[], short[]>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, (short) (length * WordLength)), new FunctionOperateExOne<byte[], short[]>() {
             @Override
             public short[] Action(byte[] content) {
                 return getByteTransform().TransInt16(content, 0, length);
@@ -105,7 +114,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<int[]> ReadUInt16(String address, final short length) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, (short) (length * WordLength)), new FunctionOperateExOne<byte[], int[]>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, (short) (length * WordLength)), new FunctionOperateExOne<byte[], int[]>() {
             @Override
             public int[] Action(byte[] content) {
                 return getByteTransform().TransUInt16(content, 0, length);
@@ -122,7 +131,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<int[]> ReadInt32(String address, final short length) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, (short) (length * WordLength * 2)), new FunctionOperateExOne<byte[], int[]>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, (short) (length * WordLength * 2)), new FunctionOperateExOne<byte[], int[]>() {
             @Override
             public int[] Action(byte[] content) {
                 return getByteTransform().TransInt32(content, 0, length);
@@ -139,7 +148,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<long[]> ReadUInt32(String address, final short length) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, (short) (length * WordLength * 2)), new FunctionOperateExOne<byte[], long[]>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, (short) (length * WordLength * 2)), new FunctionOperateExOne<byte[], long[]>() {
             @Override
             public long[] Action(byte[] content) {
                 return getByteTransform().TransUInt32(content, 0, length);
@@ -156,7 +165,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<float[]> ReadFloat(String address, final short length) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, (short) (length * WordLength * 2)), new FunctionOperateExOne<byte[], float[]>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, (short) (length * WordLength * 2)), new FunctionOperateExOne<byte[], float[]>() {
             @Override
             public float[] Action(byte[] content) {
                 return getByteTransform().TransSingle(content, 0, length);
@@ -173,7 +182,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<long[]> ReadInt64(String address, final short length) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, (short) (length * WordLength * 4)), new FunctionOperateExOne<byte[], long[]>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, (short) (length * WordLength * 4)), new FunctionOperateExOne<byte[], long[]>() {
             @Override
             public long[] Action(byte[] content) {
                 return getByteTransform().TransInt64(content, 0, length);
@@ -190,7 +199,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<double[]> ReadDouble(String address, final short length) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, (short) (length * WordLength * 4)), new FunctionOperateExOne<byte[], double[]>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, (short) (length * WordLength * 4)), new FunctionOperateExOne<byte[], double[]>() {
             @Override
             public double[] Action(byte[] content) {
                 return getByteTransform().TransDouble(content, 0, length);
@@ -199,7 +208,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<String> ReadString(String address, short length) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, length), new FunctionOperateExOne<byte[], String>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, length), new FunctionOperateExOne<byte[], String>() {
             @Override
             public String Action(byte[] content) {
                 return getByteTransform().TransString(content, 0, content.length, "ascii");
@@ -208,7 +217,7 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
     }
 
     public OperateResultExOne<String> ReadString(String address, short length, final String encoding) {
-        return ByteTransformHelper.GetResultFromBytes(Read(address, length), new FunctionOperateExOne<byte[], String>() {
+        return ByteTransformHelper.GetResultFromBytes(ReadCoalesced(address, length), new FunctionOperateExOne<byte[], String>() {
             @Override
             public String Action(byte[] content) {
                 return getByteTransform().TransString(content, 0, content.length, encoding);
@@ -288,6 +297,422 @@ public class NetworkDeviceBase extends NetworkDoubleBase implements IReadWriteNe
         return Write(address, temp);
     }
 
+    // region Compiled Address
+
+    /**
+     * 将地址和长度预先编译成一个 {@link CompiledAddress} 对象，地址的解析及报文的生成只执行一次，之后使用 {@link #Read(CompiledAddress)} 读取时直接发送编译好的报文，
+     * 适合固定地址的周期性轮询，默认不支持，支持的设备类需要重写本方法<br />
+     * Pre-compile the address and length into a {@link CompiledAddress} object, the parsing of the address and the generation of the messages are executed only once,
+     * and then the compiled messages are sent directly when reading with {@link #Read(CompiledAddress)}, which is suitable for periodic polling of fixed addresses.
+     * It is not supported by default, and device classes that support it need to override this method
+     * @param address 数据地址
+     * @param length 数据长度
+     * @return 编译好的地址对象
+     */
+    public OperateResultExOne<CompiledAddress> CompileAddress(String address, short length) {
+        return new OperateResultExOne<CompiledAddress>(StringResources.Language.NotSupportedFunction());
+    }
+
+    /**
+     * 使用预先编译好的地址读取字节数组信息，结果和 {@link #Read(String, short)} 一致，但是不再解析地址及生成报文<br />
+     * Use the pre-compiled address to read the byte array information, the result is the same as {@link #Read(String, short)},
+     * but the address is no longer parsed and the messages are no longer generated
+     * @param compiled 编译好的地址对象
+     * @return 带有成功标识的byte[]数组
+     */
+    public OperateResultExOne<byte[]> Read(CompiledAddress compiled) {
+        OperateResult check = CheckCompiledAddress(compiled);
+        if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
+
+        // 可以同时发送多个请求的时候，所有的分批请求一起发送
+        if (compiled.getCommandCount() > 1 && isPipelined()) return JoinResult(ReadAsync(compiled));
+        if (compiled.getCommandCount() == 1) return ReadCompiledCommand(compiled, 0);
+
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < compiled.getCommandCount(); i++) {
+            OperateResultExOne<byte[]> read = ReadCompiledCommand(compiled, i);
+            if (!read.IsSuccess) return read;
+            stream.write(read.Content, 0, read.Content.length);
+        }
+        return OperateResultExOne.CreateSuccessResult(stream.toByteArray());
+    }
+
+    /**
+     * 使用预先编译好的地址异步读取字节数组信息，在非阻塞的传输模式下不占用调用方的线程，设置了大于1的请求窗口时，所有的分批请求同时发送<br />
+     * Use the pre-compiled address to asynchronously read the byte array information, the calling thread is not occupied in non-blocking transport mode,
+     * and all batch requests are sent at the same time when a request window greater than 1 is set
+     * @param compiled 编译好的地址对象
+     * @return 带有成功标识的byte[]数组的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync(final CompiledAddress compiled) {
+        OperateResult check = CheckCompiledAddress(compiled);
+        if (!check.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[]>CreateFailedResult(check));
+
+        FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>> step = new FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletableFuture<OperateResultExOne<byte[]>> Action(final Integer index) {
+                return ThenAnalysis(ReadFromCoreServerAsync(PrepareCompiledCommand(compiled.GetCommand(index))), new FunctionOperateExOne<byte[], OperateResultExOne<byte[]>>() {
+                    @Override
+                    public OperateResultExOne<byte[]> Action(byte[] content) {
+                        return ExtractCompiledResponse(compiled, index, content);
+                    }
+                });
+            }
+        };
+        return isPipelined() ? ReadConcurrentAsync(compiled.getCommandCount(), step) : ReadSequenceAsync(compiled.getCommandCount(), step);
+    }
+
+    /**
+     * 按照先后顺序依次异步发送写入的报文，每个报文的返回使用指定的方法检查，任意一次失败则返回失败的结果，通常用于分批写入的操作<br />
+     * Asynchronously send the write messages in sequence, the return of each message is checked with the specified method,
+     * and if any one fails, the failed result is returned, usually used for batch write operations
+     * @param commands 完整的写入报文
+     * @param check 返回报文的检查方法
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    protected CompletableFuture<OperateResult> WriteSequenceAsync(final List<byte[]> commands, final FunctionOperateExOne<byte[], OperateResult> check) {
+        FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>> step = new FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletableFuture<OperateResultExOne<byte[]>> Action(Integer index) {
+                return ThenAnalysis(ReadFromCoreServerAsync(commands.get(index)), new FunctionOperateExOne<byte[], OperateResultExOne<byte[]>>() {
+                    @Override
+                    public OperateResultExOne<byte[]> Action(byte[] content) {
+                        OperateResult result = check.Action(content);
+                        if (!result.IsSuccess) return OperateResultExOne.CreateFailedResult(result);
+                        return OperateResultExOne.CreateSuccessResult(new byte[0]);
+                    }
+                });
+            }
+        };
+        return ThenCheck(ReadSequenceAsync(commands.size(), step), new FunctionOperateExOne<byte[], OperateResult>() {
+            @Override
+            public OperateResult Action(byte[] content) {
+                return OperateResult.CreateSuccessResult();
+            }
+        });
+    }
+
+    /**
+     * 在发送之前对编译好的报文做最后的处理，比如填入自增的消息号，默认直接返回原始的报文，需要修改的时候必须复制一份新的数组<br />
+     * Perform the final processing on the compiled message before sending, such as filling in the self-increasing message number,
+     * the original message is returned directly by default, and a new array must be copied when it needs to be modified
+     * @param command 编译好的报文
+     * @return 实际发送的报文
+     */
+    protected byte[] PrepareCompiledCommand(byte[] command) {
+        return command;
+    }
+
+    /**
+     * 从设备返回的报文中检查并提取出指定批次的实际数据，支持编译地址的设备类需要重写本方法<br />
+     * Check and extract the actual data of the specified batch from the message returned by the device,
+     * device classes that support compiled addresses need to override this method
+     * @param compiled 编译好的地址对象
+     * @param index 批次的索引
+     * @param response 设备返回的完整报文
+     * @return 实际的数据
+     */
+    protected OperateResultExOne<byte[]> ExtractCompiledResponse(CompiledAddress compiled, int index, byte[] response) {
+        return new OperateResultExOne<byte[]>(StringResources.Language.NotSupportedFunction());
+    }
+
+    private OperateResultExOne<byte[]> ReadCompiledCommand(CompiledAddress compiled, int index) {
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PrepareCompiledCommand(compiled.GetCommand(index)));
+        if (!read.IsSuccess) return read;
+
+        return ExtractCompiledResponse(compiled, index, read.Content);
+    }
+
+    private OperateResult CheckCompiledAddress(CompiledAddress compiled) {
+        if (compiled == null || !compiled.IsCompiledBy(this)) return new OperateResult(StringResources.Language.NotSupportedFunction() + " The address is not compiled by this device");
+        return OperateResult.CreateSuccessResult();
+    }
+
+    // endregion
+
+    // region Read Coalescing
+
+    /**
+     * 获取是否合并相同的并发读取请求<br />
+     * Get whether to merge the same concurrent read requests
+     * @return 是否合并
+     */
+    public boolean isReadCoalescing() {
+        return readCoalescing;
+    }
+
+    /**
+     * 设置是否合并相同的并发读取请求，默认不合并。开启之后，多个线程同时读取相同的地址和长度时，只有第一个请求发送到设备，其他的请求等待并共享它的结果，
+     * 可以减少多个客户端轮询相同数据时PLC的负载以及锁的竞争。需要注意的是，等待中的请求拿到的数据可能是在它调用之前就已经发出的请求的结果，
+     * 对写入之后立即读取并要求读到新值的场景，应该关闭本功能或是直接调用 {@link #Read(String, short)}。<br />
+     * Set whether to merge the same concurrent read requests, the default is not to merge. After it is turned on, when multiple threads read the same address and length at the same time,
+     * only the first request is sent to the device, and other requests wait and share its result, which can reduce the load of the PLC and the lock contention
+     * when multiple clients poll the same data. It should be noted that the data obtained by the waiting request may be the result of a request that was sent before it was called.
+     * For scenarios that need to read the new value immediately after writing, you should turn off this function or call {@link #Read(String, short)} directly.
+     * @param readCoalescing 是否合并
+     */
+    public void setReadCoalescing(boolean readCoalescing) {
+        this.readCoalescing = readCoalescing;
+    }
+
+    /**
+     * 读取字节数组信息，开启了 {@link #setReadCoalescing(boolean)} 时，和正在进行中的相同地址及长度的读取请求共享同一个结果，否则直接调用 {@link #Read(String, short)}，
+     * 本类里的所有类型的读取方法都使用本方法读取原始的数据<br />
+     * Read the byte array information. When {@link #setReadCoalescing(boolean)} is turned on, share the same result with the ongoing read request of the same address and length,
+     * otherwise call {@link #Read(String, short)} directly. All types of read methods in this class use this method to read the original data
+     * @param address 数据地址
+     * @param length 数据长度
+     * @return 带有成功标识的byte[]数组
+     */
+    public OperateResultExOne<byte[]> ReadCoalesced(String address, short length) {
+        if (!readCoalescing) return Read(address, length);
+
+        String key = address + "#" + length;
+        CompletableFuture<OperateResultExOne<byte[]>> created = new CompletableFuture<>();
+        CompletableFuture<OperateResultExOne<byte[]>> flight = inFlightReads.putIfAbsent(key, created);
+        if (flight != null) return CopyCoalescedResult(flight.join());
+
+        OperateResultExOne<byte[]> read;
+        try {
+            read = Read(address, length);
+        } catch (RuntimeException ex) {
+            inFlightReads.remove(key, created);
+            created.complete(new OperateResultExOne<byte[]>(ex.getMessage()));
+            throw ex;
+        }
+
+        // 先移除再完成，之后到达的请求重新发起读取，不会拿到已经结束的结果，共享的结果不交给任何调用方，发起的请求也使用复制的数据
+        inFlightReads.remove(key, created);
+        created.complete(read);
+        return CopyCoalescedResult(read);
+    }
+
+    /**
+     * 异步读取字节数组信息，开启了 {@link #setReadCoalescing(boolean)} 时，和正在进行中的相同地址及长度的读取请求共享同一个结果，否则直接调用 {@link #ReadAsync(String, short)}<br />
+     * Asynchronously read the byte array information. When {@link #setReadCoalescing(boolean)} is turned on, share the same result with the ongoing read request of the same address and length,
+     * otherwise call {@link #ReadAsync(String, short)} directly
+     * @param address 数据地址
+     * @param length 数据长度
+     * @return 带有成功标识的byte[]数组的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadCoalescedAsync(String address, short length) {
+        if (!readCoalescing) return ReadAsync(address, length);
+
+        final String key = address + "#" + length;
+        final CompletableFuture<OperateResultExOne<byte[]>> created = new CompletableFuture<>();
+        CompletableFuture<OperateResultExOne<byte[]>> flight = inFlightReads.putIfAbsent(key, created);
+        if (flight != null) return flight.thenApply(copyCoalescedResult);
+
+        ReadAsync(address, length).whenComplete(new BiConsumer<OperateResultExOne<byte[]>, Throwable>() {
+            @Override
+            public void accept(OperateResultExOne<byte[]> read, Throwable throwable) {
+                inFlightReads.remove(key, created);
+                if (throwable != null) {
+                    created.complete(new OperateResultExOne<byte[]>(throwable.getMessage()));
+                } else {
+                    created.complete(read);
+                }
+            }
+        });
+        return created.thenApply(copyCoalescedResult);
+    }
+
+    /**
+     * 共享的结果给每个请求（包括发起读取的请求）复制一份数据，防止调用方修改数组之后互相影响
+     */
+    private static OperateResultExOne<byte[]> CopyCoalescedResult(OperateResultExOne<byte[]> read) {
+        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+        return OperateResultExOne.CreateSuccessResult(read.Content == null ? null : read.Content.clone());
+    }
+
+    private static final Function<OperateResultExOne<byte[]>, OperateResultExOne<byte[]>> copyCoalescedResult = new Function<OperateResultExOne<byte[]>, OperateResultExOne<byte[]>>() {
+        @Override
+        public OperateResultExOne<byte[]> apply(OperateResultExOne<byte[]> read) {
+            return CopyCoalescedResult(read);
+        }
+    };
+
+    private volatile boolean readCoalescing = false;                                                                     // 是否合并相同的读取请求
+    private final ConcurrentHashMap<String, CompletableFuture<OperateResultExOne<byte[]>>> inFlightReads = new ConcurrentHashMap<>();  // 正在进行中的读取请求
+
+    // endregion
+
+    // region Async Read Write
+
+    /**
+     * 异步批量读取字节数组信息，在非阻塞的传输模式下，支持 {@link #CompileAddress(String, short)} 的地址直接使用编译好的报文异步收发，不占用任何线程，
+     * 其他的情况只是在异步的线程池上调用阻塞的 {@link #Read(String, short)}，等待期间占用线程池的一个线程<br />
+     * Asynchronously batch read byte array information. In non-blocking transport mode, the addresses supported by {@link #CompileAddress(String, short)}
+     * are sent and received asynchronously with the compiled messages without occupying any thread. In other cases, the blocking {@link #Read(String, short)}
+     * is just called on the asynchronous thread pool, and one thread of the pool is occupied while waiting
+     * @param address 数据地址
+     * @param length 数据长度
+     * @return 带有成功标识的byte[]数组的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync(final String address, final short length) {
+        if (isNioTransport()) {
+            OperateResultExOne<CompiledAddress> compiled = CompileAddress(address, length);
+            if (compiled.IsSuccess) return ReadAsync(compiled.Content);
+        }
+        return RunAsync(new Supplier<OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> get() {
+                return Read(address, length);
+            }
+        });
+    }
+
+    /**
+     * 异步写入原始的byte数组数据，默认只是在异步的线程池上调用阻塞的 {@link #Write(String, byte[])}，等待期间占用线程池的一个线程，支持非阻塞传输的设备类应该重写本方法<br />
+     * Asynchronously write the original byte array data, by default the blocking {@link #Write(String, byte[])} is just called on the asynchronous thread pool,
+     * and one thread of the pool is occupied while waiting, device classes that support non-blocking transport should override this method
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    public CompletableFuture<OperateResult> WriteAsync(final String address, final byte[] value) {
+        return RunAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        });
+    }
+
+    public CompletableFuture<OperateResultExOne<boolean[]>> ReadBoolAsync(final String address, final short length) {
+        return RunAsync(new Supplier<OperateResultExOne<boolean[]>>() {
+            @Override
+            public OperateResultExOne<boolean[]> get() {
+                return ReadBool(address, length);
+            }
+        });
+    }
+
+    public CompletableFuture<OperateResultExOne<Boolean>> ReadBoolAsync(String address) {
+        return NetworkDeviceAsyncHelper.GetBoolResult(ReadBoolAsync(address, (short) 1));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(final String address, final boolean[] value) {
+        return RunAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        });
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, boolean value) {
+        return WriteAsync(address, new boolean[]{value});
+    }
+
+    public CompletableFuture<OperateResultExOne<Short>> ReadInt16Async(String address) {
+        return NetworkDeviceAsyncHelper.GetInt16Result(ReadCoalescedAsync(address, WordLength), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<short[]>> ReadInt16Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetInt16Result(ReadCoalescedAsync(address, (short) (length * WordLength)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Integer>> ReadUInt16Async(String address) {
+        return NetworkDeviceAsyncHelper.GetUInt16Result(ReadCoalescedAsync(address, WordLength), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<int[]>> ReadUInt16Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetUInt16Result(ReadCoalescedAsync(address, (short) (length * WordLength)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Integer>> ReadInt32Async(String address) {
+        return NetworkDeviceAsyncHelper.GetInt32Result(ReadCoalescedAsync(address, (short) (WordLength * 2)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<int[]>> ReadInt32Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetInt32Result(ReadCoalescedAsync(address, (short) (length * WordLength * 2)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Long>> ReadUInt32Async(String address) {
+        return NetworkDeviceAsyncHelper.GetUInt32Result(ReadCoalescedAsync(address, (short) (WordLength * 2)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<long[]>> ReadUInt32Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetUInt32Result(ReadCoalescedAsync(address, (short) (length * WordLength * 2)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Long>> ReadInt64Async(String address) {
+        return NetworkDeviceAsyncHelper.GetInt64Result(ReadCoalescedAsync(address, (short) (WordLength * 4)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<long[]>> ReadInt64Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetInt64Result(ReadCoalescedAsync(address, (short) (length * WordLength * 4)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Float>> ReadFloatAsync(String address) {
+        return NetworkDeviceAsyncHelper.GetFloatResult(ReadCoalescedAsync(address, (short) (WordLength * 2)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<float[]>> ReadFloatAsync(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetFloatResult(ReadCoalescedAsync(address, (short) (length * WordLength * 2)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Double>> ReadDoubleAsync(String address) {
+        return NetworkDeviceAsyncHelper.GetDoubleResult(ReadCoalescedAsync(address, (short) (WordLength * 4)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<double[]>> ReadDoubleAsync(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetDoubleResult(ReadCoalescedAsync(address, (short) (length * WordLength * 4)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<String>> ReadStringAsync(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetStringResult(ReadCoalescedAsync(address, length), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, short[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, short value) {
+        return WriteAsync(address, new short[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, int[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, int value) {
+        return WriteAsync(address, new int[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, long[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, long value) {
+        return WriteAsync(address, new long[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, float[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, float value) {
+        return WriteAsync(address, new float[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, double[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, double value) {
+        return WriteAsync(address, new double[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, String value) {
+        byte[] temp = getByteTransform().TransByte(value, "US-ASCII");
+        if (WordLength == 1) temp = SoftBasic.ArrayExpandToLengthEven(temp);
+        return WriteAsync(address, temp);
+    }
+
+    // endregion
+
     @Override
     public String toString() {
         return "NetworkDeviceBase<" + GetNewNetMessage().getClass().toString() + ", " +
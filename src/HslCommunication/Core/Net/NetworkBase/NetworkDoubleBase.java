@@ -2,10 +2,19 @@ package HslCommunication.Core.Net.NetworkBase;
 
 import HslCommunication.BasicFramework.SoftBasic;
 import HslCommunication.Core.IMessage.INetMessage;
+import HslCommunication.Core.Net.DeviceMetrics;
+import HslCommunication.Core.Net.Nio.NioEventLoop;
+import HslCommunication.Core.Net.Nio.NioEventLoopGroup;
+import HslCommunication.Core.Net.ReceiveFrame;
+import HslCommunication.Core.Net.ReconnectPolicy;
+import HslCommunication.Core.Net.SocketPool;
+import HslCommunication.Core.Net.Nio.NioSession;
 import HslCommunication.Core.Net.StateOne.AlienSession;
 import HslCommunication.Core.Thread.SimpleHybirdLock;
 import HslCommunication.Core.Transfer.ByteTransformHelper;
 import HslCommunication.Core.Transfer.IByteTransform;
+import HslCommunication.Core.Types.ActionOperateExOne;
+import HslCommunication.Core.Types.FunctionOperate;
 import HslCommunication.Core.Types.OperateResult;
 import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.Core.Types.OperateResultExTwo;
@@ -13,8 +22,17 @@ import HslCommunication.LogNet.Core.ILogNet;
 import HslCommunication.StringResources;
 import HslCommunication.Utilities;
 
+import java.io.IOException;
 import java.lang.reflect.ParameterizedType;
+import java.net.InetSocketAddress;
 import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * 支持长连接，短连接两个模式的通用客户端基类 <br />
@@ -40,6 +58,13 @@ public class NetworkDoubleBase extends NetworkBase {
     private boolean isUseSpecifiedSocket = false;         // 指示是否使用指定的网络套接字访问数据
     private String connectionId = "";                     // 当前连接
     private int sleepTime = 0;                            // 获取或设置在正式接收对方返回数据前的时候，需要休息的时间，当设置为0的时候，不需要休息。
+    private NioEventLoopGroup nioEventLoopGroup = null;   // 非阻塞传输模式下使用的事件循环组，为空时使用阻塞的套接字
+    private volatile NioSession nioSession = null;        // 非阻塞传输模式下的会话
+    private final AtomicReference<CompletableFuture<OperateResultExOne<NioSession>>> nioConnecting = new AtomicReference<>();  // 正在进行中的异步连接
+    private int pipelineWindow = 1;                       // 非阻塞传输模式下同时等待返回的请求数量
+    private volatile SocketPool socketPool = null;        // 连接池模式下使用的连接池，为空时使用单个的套接字
+    private volatile ReconnectPolicy reconnectPolicy = null;  // 重连的策略，为空时每次都直接重连
+    private final DeviceMetrics metrics = new DeviceMetrics(null);  // 当前设备的通信统计信息
 
     /**
      * 获取一个新的消息对象的方法，需要在继承类里面进行重写<br />
@@ -197,6 +222,9 @@ public class NetworkDoubleBase extends NetworkBase {
      * @return 返回连接结果，如果失败的话（也即IsSuccess为False），包含失败信息
      */
     public OperateResult ConnectServer() {
+        if (isNioTransport()) return ConnectNioServer();
+        if (isConnectionPool()) return ConnectPoolServer();
+
         isPersistentConn = true;
         OperateResult result = new OperateResult();
 
@@ -263,11 +291,18 @@ public class NetworkDoubleBase extends NetworkBase {
 
         simpleHybirdLock.Enter();
 
-        // 额外操作
-        result = ExtraOnDisconnect(CoreSocket);
-        // 关闭信息
-        CloseSocket(CoreSocket);
-        CoreSocket = null;
+        if (nioSession != null) {
+            result = CloseNioSession();
+        } else if (socketPool != null) {
+            socketPool.Close();
+            result = OperateResult.CreateSuccessResult();
+        } else {
+            // 额外操作
+            result = ExtraOnDisconnect(CoreSocket);
+            // 关闭信息
+            CloseSocket(CoreSocket);
+            CoreSocket = null;
+        }
 
         simpleHybirdLock.Leave();
 
@@ -365,6 +400,549 @@ public class NetworkDoubleBase extends NetworkBase {
 
     // endregion
 
+    // region Reconnect Policy
+
+    /**
+     * 设置设备的重连策略，连接失败之后按照指数退避的时间快速失败，不再每次读写都等待连接超时，到达重试时间后在后台重新连接，设置为空时恢复每次都直接重连的方式。
+     * 每个设备对象需要使用独立的策略对象。<br />
+     * Set the reconnection policy of the device. After the connection fails, it fails fast according to the exponential backoff time,
+     * and no longer waits for the connection timeout for each read and write. When the retry time is reached, it reconnects in the background.
+     * When it is set to null, the way of reconnecting directly every time is restored. Each device object needs to use an independent policy object.
+     * @param policy 重连的策略
+     */
+    public void SetReconnectPolicy(ReconnectPolicy policy) {
+        ReconnectPolicy old = reconnectPolicy;
+        if (old != null) old.setReconnectAction(null);
+
+        if (policy != null) {
+            policy.setReconnectAction(new Runnable() {
+                @Override
+                public void run() {
+                    // 定时器的线程上不能执行耗时的连接操作
+                    getAsyncExecutor().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            ReconnectInBackground();
+                        }
+                    });
+                }
+            });
+        }
+        reconnectPolicy = policy;
+    }
+
+    /**
+     * 获取当前设备的重连策略，为空时表示没有设置<br />
+     * Get the reconnection policy of the current device, null means it is not set
+     * @return 重连的策略
+     */
+    public ReconnectPolicy getReconnectPolicy() {
+        return reconnectPolicy;
+    }
+
+    /**
+     * 按照重连策略连接服务器，断路器打开的时候直接返回失败的结果，不再等待连接超时
+     * @return 连接的结果
+     */
+    private OperateResult ConnectServerWithPolicy() {
+        ReconnectPolicy policy = reconnectPolicy;
+        if (policy == null) return ConnectServer();
+
+        OperateResult allow = policy.BeginConnect();
+        if (!allow.IsSuccess) return allow;
+
+        OperateResult connect = ConnectServer();
+        policy.EndConnect(connect.IsSuccess);
+        return connect;
+    }
+
+    /**
+     * 按照重连策略创建一个新的连接并完成初始化，断路器打开的时候直接返回失败的结果
+     * @return 新的连接
+     */
+    private OperateResultExOne<Socket> CreateSocketWithPolicy() {
+        ReconnectPolicy policy = reconnectPolicy;
+        if (policy == null) return CreateSocketAndInitialication();
+
+        OperateResult allow = policy.BeginConnect();
+        if (!allow.IsSuccess) return OperateResultExOne.CreateFailedResult(allow);
+
+        OperateResultExOne<Socket> create = CreateSocketAndInitialication();
+        policy.EndConnect(create.IsSuccess);
+        return create;
+    }
+
+    /**
+     * 断路器到达重试时间之后，在后台线程上尝试重新连接，阻塞模式下在锁的外面完成连接，不影响其他线程的快速失败
+     */
+    private void ReconnectInBackground() {
+        if (reconnectPolicy == null || !isPersistentConn || isUseSpecifiedSocket) return;
+
+        if (isConnectionPool()) {
+            socketPool.Prepare();
+            return;
+        }
+
+        if (isNioTransport()) {
+            GetAvailableNioSessionAsync();
+            return;
+        }
+
+        OperateResultExOne<Socket> create = CreateSocketWithPolicy();
+        if (!create.IsSuccess) return;
+
+        Socket socket = create.Content;
+        simpleHybirdLock.Enter();
+        if (isPersistentConn && !isNioTransport() && !isConnectionPool() && (IsSocketError || CoreSocket == null)) {
+            CloseSocket(CoreSocket);
+            CoreSocket = socket;
+            IsSocketError = false;
+            socket = null;
+        }
+        simpleHybirdLock.Leave();
+
+        // 连接已经被其他的线程恢复了，关闭多余的连接
+        if (socket != null) CloseSocket(socket);
+    }
+
+    // endregion
+
+    // region Connection Pool
+
+    /**
+     * 切换到连接池的模式，同一个设备对象同时维持多个网络连接，多个线程的读写请求分散到不同的连接上并行的执行，适用于支持多个并发连接的PLC，切换后总是使用长连接。
+     * 每个连接都独立的完成 {@link #InitializationOnConnect(Socket)} 的握手，所以握手过程中在对象上保存连接相关状态的协议不能使用本模式。<br />
+     * Switch to the connection pool mode, the same device object maintains multiple network connections at the same time,
+     * and the read and write requests of multiple threads are distributed to different connections for parallel execution,
+     * which is suitable for PLCs that support multiple concurrent connections, and always use long connection after switching.
+     * Each connection completes the handshake of {@link #InitializationOnConnect(Socket)} independently,
+     * so protocols that save connection-related state on the object during the handshake cannot use this mode.
+     * @param minConnections 最少保持的连接数量
+     * @param maxConnections 最多允许的连接数量
+     * @param idleTimeOut 空闲连接的存活时间，单位毫秒，超过最少连接数量的空闲连接在超时后关闭，小于等于0时不关闭
+     * @return 是否切换成功
+     */
+    public OperateResult SetConnectionPool(int minConnections, int maxConnections, int idleTimeOut) {
+        if (isUseSpecifiedSocket || nioEventLoopGroup != null) return new OperateResult(StringResources.Language.NotSupportedFunction());
+
+        SocketPool pool = new SocketPool(new FunctionOperate<OperateResultExOne<Socket>>() {
+            @Override
+            public OperateResultExOne<Socket> Action() {
+                return CreateSocketWithPolicy();
+            }
+        }, new ActionOperateExOne<Socket>() {
+            @Override
+            public void Action(Socket content) {
+                ExtraOnDisconnect(content);
+                CloseSocket(content);
+            }
+        }, minConnections, maxConnections, idleTimeOut);
+
+        simpleHybirdLock.Enter();
+        CloseSocket(CoreSocket);
+        CoreSocket = null;
+        SocketPool old = socketPool;
+        socketPool = pool;
+        isPersistentConn = true;
+        simpleHybirdLock.Leave();
+
+        if (old != null) old.Close();
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 获取当前是否处于连接池的模式<br />
+     * Get whether it is currently in connection pool mode
+     * @return 是否连接池的模式
+     */
+    public boolean isConnectionPool() {
+        return socketPool != null && !isUseSpecifiedSocket;
+    }
+
+    /**
+     * 获取当前使用的连接池，不是连接池的模式时返回空<br />
+     * Get the connection pool currently in use, return null when it is not in connection pool mode
+     * @return 连接池对象
+     */
+    public SocketPool getSocketPool() {
+        return socketPool;
+    }
+
+    private OperateResult ConnectPoolServer() {
+        isPersistentConn = true;
+        OperateResult prepare = socketPool.Prepare();
+        IsSocketError = !prepare.IsSuccess;
+        if (prepare.IsSuccess) {
+            ILogNet logNet = LogNet;
+            if (logNet != null) logNet.WriteDebug(toString(), StringResources.Language.NetEngineStart());
+        }
+        return prepare;
+    }
+
+    /**
+     * 在连接池的模式下，从连接池获取一个连接完成数据的交互，交互期间不持有 {@link #simpleHybirdLock} 锁，出现错误的连接在归还的时候关闭<br />
+     * In the connection pool mode, get a connection from the connection pool to complete the data interaction, the {@link #simpleHybirdLock} lock is not held during the interaction,
+     * and the connection with error is closed when it is returned
+     * @param send 发送的完整的报文信息
+     * @return 接收的完整的报文信息
+     */
+    private OperateResultExOne<byte[]> ReadFromSocketPool(byte[] send) {
+        SocketPool pool = socketPool;
+        OperateResultExOne<SocketPool.PooledSocket> socket = pool.Acquire(connectTimeOut);
+        if (!socket.IsSuccess) {
+            IsSocketError = true;
+            OperateResultExOne<byte[]> failed = OperateResultExOne.CreateFailedResult(socket);
+            RecordReadResult(failed);
+            ExtraAfterReadFromCoreServer(failed);
+            return failed;
+        }
+
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(socket.Content.getSocket(), send);
+        pool.Release(socket.Content, !read.IsSuccess);
+        IsSocketError = !read.IsSuccess;
+        RecordReadResult(read);
+        ExtraAfterReadFromCoreServer(read);
+        return read;
+    }
+
+    // endregion
+
+    // region Device Metrics
+
+    /**
+     * 获取当前设备的通信统计信息，包括连接，发送，首字节及往返耗时的直方图，收发的字节数以及按照错误码分类的错误次数，
+     * 可以调用 {@link DeviceMetrics#GetSnapshot()} 获取p99等分位数，用于找出响应慢的设备。<br />
+     * Get the communication statistics of the current device, including the histograms of connection, sending, first byte and round-trip time,
+     * the number of bytes sent and received, and the number of errors classified by error code. You can call {@link DeviceMetrics#GetSnapshot()}
+     * to get quantiles such as p99, which is used to find slow devices.
+     * @return 通信统计信息
+     */
+    public DeviceMetrics getMetrics() {
+        metrics.setName(toString());
+        return metrics;
+    }
+
+    /**
+     * 记录一次读写请求的最终结果，在所有的传输模式下，每个请求只记录一次
+     * @param read 请求的结果
+     */
+    private void RecordReadResult(OperateResult read) {
+        metrics.RecordResult(read);
+    }
+
+    // endregion
+
+    // region Nio Transport
+
+    /**
+     * 切换到基于 {@link java.nio.channels.Selector} 的非阻塞传输模式，使用系统默认共享的事件循环组，切换后总是使用长连接。<br />
+     * Switch to the non-blocking transport mode based on {@link java.nio.channels.Selector}, using the default shared event loop group of the system,
+     * and always use long connection after switching.
+     * @return 是否切换成功
+     */
+    public OperateResult SetNioTransport() {
+        try {
+            return SetNioTransport(NioEventLoopGroup.getDefault());
+        } catch (IOException ex) {
+            return new OperateResult(ex.getMessage());
+        }
+    }
+
+    /**
+     * 切换到基于 {@link java.nio.channels.Selector} 的非阻塞传输模式，使用指定的事件循环组，切换后总是使用长连接。
+     * 等待设备返回的时候不再持有 {@link #simpleHybirdLock} 锁，也不再占用调用方以外的线程，连接时的握手仍然使用 {@link #InitializationOnConnect(Socket)} 完成，所以设备类的报文生成不需要修改。<br />
+     * Switch to the non-blocking transport mode based on {@link java.nio.channels.Selector}, using the specified event loop group,
+     * and always use long connection after switching. The {@link #simpleHybirdLock} lock is no longer held while waiting for the device to return,
+     * the handshake is still completed with {@link #InitializationOnConnect(Socket)}, so the command builders of the device classes do not need to be modified.
+     * @param group 事件循环组，多个设备对象可以共享
+     * @return 是否切换成功
+     */
+    public OperateResult SetNioTransport(NioEventLoopGroup group) {
+        if (group == null) return new OperateResult(StringResources.Language.NotSupportedFunction());
+        if (isUseSpecifiedSocket || socketPool != null) return new OperateResult(StringResources.Language.NotSupportedFunction());
+
+        simpleHybirdLock.Enter();
+        CloseSocket(CoreSocket);
+        CoreSocket = null;
+        nioEventLoopGroup = group;
+        isPersistentConn = true;
+        simpleHybirdLock.Leave();
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 获取当前是否处于非阻塞的传输模式<br />
+     * Get whether it is currently in non-blocking transport mode
+     * @return 是否非阻塞的传输模式
+     */
+    public boolean isNioTransport() {
+        return nioEventLoopGroup != null && !isUseSpecifiedSocket;
+    }
+
+    /**
+     * 获取非阻塞传输模式下同时等待设备返回的最大请求数量，默认为1<br />
+     * Get the maximum number of requests waiting for the device to return at the same time in non-blocking transport mode, the default is 1
+     * @return 请求的窗口大小
+     */
+    public int getPipelineWindow() {
+        return pipelineWindow;
+    }
+
+    /**
+     * 设置非阻塞传输模式下同时等待设备返回的最大请求数量，只对 {@link #GetMessageIdentity(byte[])} 能提取出消息标识的协议生效，
+     * 多个请求在同一个连接上连续发送，设备返回的报文按照消息标识匹配，可以大幅减少高延迟网络下的扫描时间。<br />
+     * Set the maximum number of requests waiting for the device to return at the same time in non-blocking transport mode,
+     * only effective for protocols whose message identity can be extracted by {@link #GetMessageIdentity(byte[])}.
+     * Multiple requests are sent continuously on the same connection, and the messages returned by the device are matched according to the message identity,
+     * which can greatly reduce the scan time under high-latency networks.
+     * @param pipelineWindow 请求的窗口大小
+     */
+    public void setPipelineWindow(int pipelineWindow) {
+        this.pipelineWindow = Math.max(1, pipelineWindow);
+        NioSession session = nioSession;
+        if (session != null) session.setPipelineWindow(this.pipelineWindow);
+    }
+
+    /**
+     * 获取当前是否可以同时发送多个请求，需要处于非阻塞的传输模式，并且窗口大于1<br />
+     * Get whether multiple requests can be sent at the same time currently, it needs to be in non-blocking transport mode and the window is greater than 1
+     * @return 是否可以同时发送多个请求
+     */
+    public boolean isPipelined() {
+        return isNioTransport() && pipelineWindow > 1;
+    }
+
+    /**
+     * 从发送的报文中提取出消息标识，设备返回的报文中的 {@link INetMessage#GetHeadBytesIdentity()} 需要和它一致，返回负数表示协议没有消息标识，默认返回-1<br />
+     * Extract the message identity from the sent message, the {@link INetMessage#GetHeadBytesIdentity()} in the message returned by the device needs to be consistent with it,
+     * a negative number means that the protocol has no message identity, and the default is -1
+     * @param send 发送的完整的报文
+     * @return 消息标识
+     */
+    protected int GetMessageIdentity(byte[] send) {
+        return -1;
+    }
+
+    /**
+     * 在非阻塞的传输模式下连接服务器，先使用阻塞的方式完成连接及初始化的握手，然后将通道注册到事件循环上<br />
+     * Connect to the server in non-blocking transport mode, first complete the connection and the initial handshake in blocking mode,
+     * and then register the channel on the event loop
+     * @return 连接的结果
+     */
+    private OperateResult ConnectNioServer() {
+        isPersistentConn = true;
+
+        // 重新连接之前，先将旧的会话关闭
+        NioSession old = nioSession;
+        nioSession = null;
+        if (old != null) old.Close();
+
+        long startTime = System.nanoTime();
+        OperateResultExOne<SocketChannel> rChannel = CreateSocketChannelAndConnect(new InetSocketAddress(ipAddress, port), connectTimeOut);
+        if (!rChannel.IsSuccess) {
+            IsSocketError = true;
+            metrics.RecordConnect(startTime, false);
+            return rChannel;
+        }
+
+        return OpenNioSession(nioEventLoopGroup.Next(), rChannel.Content, startTime);
+    }
+
+    /**
+     * 在非阻塞的传输模式下异步的连接服务器，TCP的连接在事件循环上完成，不占用调用方的线程，连接之后的 {@link #InitializationOnConnect(Socket)} 握手仍然是阻塞的，
+     * 在 {@link #getAsyncExecutor()} 的线程池上完成，既不阻塞调用方，也不阻塞事件循环
+     * @return 新的会话
+     */
+    private CompletableFuture<OperateResultExOne<NioSession>> ConnectNioServerAsync() {
+        final ReconnectPolicy policy = reconnectPolicy;
+        if (policy != null) {
+            OperateResult allow = policy.BeginConnect();
+            if (!allow.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<NioSession>CreateFailedResult(allow));
+        }
+
+        isPersistentConn = true;
+        final long startTime = System.nanoTime();
+        final SocketChannel channel;
+        try {
+            channel = SocketChannel.open();
+            channel.socket().setTcpNoDelay(true);
+        } catch (IOException ex) {
+            IsSocketError = true;
+            if (policy != null) policy.EndConnect(false);
+            return CompletableFuture.completedFuture(new OperateResultExOne<NioSession>(ex.getMessage()));
+        }
+
+        final NioEventLoop eventLoop = nioEventLoopGroup.Next();
+        return eventLoop.Connect(channel, new InetSocketAddress(ipAddress, port), connectTimeOut).thenApplyAsync(new Function<OperateResult, OperateResultExOne<NioSession>>() {
+            @Override
+            public OperateResultExOne<NioSession> apply(OperateResult connect) {
+                OperateResultExOne<NioSession> open;
+                if (connect.IsSuccess) {
+                    OperateResult initi = OpenNioSession(eventLoop, channel, startTime);
+                    open = initi.IsSuccess ? OperateResultExOne.CreateSuccessResult(nioSession) : OperateResultExOne.<NioSession>CreateFailedResult(initi);
+                } else {
+                    IsSocketError = true;
+                    metrics.RecordConnect(startTime, false);
+                    open = OperateResultExOne.CreateFailedResult(connect);
+                }
+
+                if (policy != null) policy.EndConnect(open.IsSuccess);
+                return open;
+            }
+        }, getAsyncExecutor());
+    }
+
+    /**
+     * 在已经连接的通道上完成初始化的握手，然后将通道注册到事件循环上，作为当前的会话
+     * @param eventLoop 会话使用的事件循环
+     * @param channel 已经连接的阻塞模式的通道
+     * @param startTime 开始连接的时间
+     * @return 是否成功
+     */
+    private OperateResult OpenNioSession(NioEventLoop eventLoop, SocketChannel channel, long startTime) {
+        OperateResult initi = InitializationOnConnect(channel.socket());
+        if (!initi.IsSuccess) {
+            IsSocketError = true;
+            metrics.RecordConnect(startTime, false);
+            CloseSocket(channel.socket());
+            return initi;
+        }
+        metrics.RecordConnect(startTime, true);
+
+        NioSession session = new NioSession(eventLoop, channel, Utilities.UUID2Byte(Token));
+        session.setPipelineWindow(pipelineWindow);
+        session.setMetrics(metrics);
+        OperateResult open = session.Open();
+        if (!open.IsSuccess) {
+            IsSocketError = true;
+            return open;
+        }
+
+        nioSession = session;
+        IsSocketError = false;
+        ILogNet logNet = LogNet;
+        if (logNet != null) logNet.WriteDebug(toString(), StringResources.Language.NetEngineStart());
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 关闭非阻塞模式下的会话，需要先将通道切换回阻塞模式，再调用 {@link #ExtraOnDisconnect(Socket)} 方法<br />
+     * Close the session in non-blocking mode, need to switch the channel back to blocking mode first, and then call the {@link #ExtraOnDisconnect(Socket)} method
+     * @return 关闭的结果
+     */
+    private OperateResult CloseNioSession() {
+        NioSession session = nioSession;
+        nioSession = null;
+        if (session == null) return OperateResult.CreateSuccessResult();
+
+        if (NioEventLoop.IsEventLoopThread()) {
+            // 分离通道需要事件循环完成，在事件循环的线程上直接关闭，不再发送断开连接的报文
+            session.Close();
+            return new OperateResult(StringResources.Language.BlockingCallInEventLoop());
+        }
+        OperateResultExOne<SocketChannel> detach = session.Detach().join();
+        if (!detach.IsSuccess) return detach;
+
+        OperateResult result = ExtraOnDisconnect(detach.Content.socket());
+        CloseSocket(detach.Content.socket());
+        return result;
+    }
+
+    /**
+     * 获取非阻塞模式下可用的会话，如果会话不存在或是已经关闭，就重新连接服务器，并等待连接完成，在事件循环的线程上调用时，连接还没有完成就直接返回失败<br />
+     * Get the available session in non-blocking mode, if the session does not exist or has been closed, reconnect to the server and wait for the connection to complete.
+     * When called on the thread of the event loop, it returns failure directly if the connection has not been completed
+     * @return 可用的会话
+     */
+    protected OperateResultExOne<NioSession> GetAvailableNioSession() {
+        return JoinResult(GetAvailableNioSessionAsync());
+    }
+
+    /**
+     * 异步获取非阻塞模式下可用的会话，如果会话不存在或是已经关闭，就异步的重新连接服务器，同一时间只有一个连接的操作，其他的请求等待同一个连接的结果，
+     * 不会阻塞调用方的线程<br />
+     * Asynchronously get the available session in non-blocking mode, if the session does not exist or has been closed, reconnect to the server asynchronously.
+     * There is only one connection operation at the same time, and other requests wait for the result of the same connection, and the calling thread is not blocked
+     * @return 可用的会话的异步结果
+     */
+    protected CompletableFuture<OperateResultExOne<NioSession>> GetAvailableNioSessionAsync() {
+        NioSession session = nioSession;
+        if (session != null && !session.IsClosed()) return CompletableFuture.completedFuture(OperateResultExOne.CreateSuccessResult(session));
+
+        // 断路器打开的时候，不再发起连接，直接返回失败
+        ReconnectPolicy policy = reconnectPolicy;
+        if (policy != null) {
+            OperateResult check = policy.CheckFastFail();
+            if (!check.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<NioSession>CreateFailedResult(check));
+        }
+
+        final CompletableFuture<OperateResultExOne<NioSession>> created = new CompletableFuture<>();
+        while (true) {
+            CompletableFuture<OperateResultExOne<NioSession>> connecting = nioConnecting.get();
+            if (connecting != null) return connecting;
+            if (nioConnecting.compareAndSet(null, created)) break;
+        }
+
+        // 进入之前其他的请求可能已经完成了连接
+        session = nioSession;
+        if (session != null && !session.IsClosed()) {
+            nioConnecting.set(null);
+            created.complete(OperateResultExOne.CreateSuccessResult(session));
+            return created;
+        }
+
+        ConnectNioServerAsync().whenComplete(new BiConsumer<OperateResultExOne<NioSession>, Throwable>() {
+            @Override
+            public void accept(OperateResultExOne<NioSession> connect, Throwable throwable) {
+                nioConnecting.set(null);
+                created.complete(throwable == null ? connect : new OperateResultExOne<NioSession>(throwable.getMessage()));
+            }
+        });
+        return created;
+    }
+
+    /**
+     * 在非阻塞的传输模式下，将报文发送到设备并接收一条 {@link INetMessage} 指定的完整的报文，返回的对象在设备返回时完成，不会阻塞调用方的线程。<br />
+     * In non-blocking transport mode, send the message to the device and receive a complete message specified by {@link INetMessage},
+     * the returned object is completed when the device returns, and will not block the calling thread.
+     * @param send 发送的完整的报文信息
+     * @return 接收的完整的报文信息
+     */
+    protected CompletableFuture<OperateResultExOne<byte[]>> ReadFromNioSession(final byte[] send) {
+        NioSession current = nioSession;
+        if (current != null && !current.IsClosed()) return RequestNioSession(current, send);
+
+        // 需要连接的时候，请求在连接完成之后再发送，不会等待连接
+        return GetAvailableNioSessionAsync().thenCompose(new Function<OperateResultExOne<NioSession>, CompletionStage<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletionStage<OperateResultExOne<byte[]>> apply(OperateResultExOne<NioSession> session) {
+                if (!session.IsSuccess) {
+                    IsSocketError = true;
+                    OperateResultExOne<byte[]> failed = OperateResultExOne.CreateFailedResult(session);
+                    RecordReadResult(failed);
+                    ExtraAfterReadFromCoreServer(failed);
+                    return CompletableFuture.completedFuture(failed);
+                }
+                return RequestNioSession(session.Content, send);
+            }
+        });
+    }
+
+    private CompletableFuture<OperateResultExOne<byte[]>> RequestNioSession(NioSession session, byte[] send) {
+        return session.Request(send, GetNewNetMessage(), receiveTimeOut, GetMessageIdentity(send)).thenApply(
+                new Function<OperateResultExOne<byte[]>, OperateResultExOne<byte[]>>() {
+                    @Override
+                    public OperateResultExOne<byte[]> apply(OperateResultExOne<byte[]> read) {
+                        IsSocketError = !read.IsSuccess;
+                        RecordReadResult(read);
+                        ExtraAfterReadFromCoreServer(read);
+                        return read;
+                    }
+                });
+    }
+
+    // endregion
+
     /***************************************************************************************
      *
      *    主要的数据交互分为4步
@@ -395,7 +973,7 @@ public class NetworkDoubleBase extends NetworkBase {
             } else {
                 // 长连接模式
                 if (IsSocketError || CoreSocket == null) {
-                    OperateResult connect = ConnectServer();
+                    OperateResult connect = ConnectServerWithPolicy();
                     if (!connect.IsSuccess) {
                         IsSocketError = true;
                         OperateResultExOne<Socket> rSocket = new OperateResultExOne<>();
@@ -412,7 +990,7 @@ public class NetworkDoubleBase extends NetworkBase {
             }
         } else {
             // 短连接模式
-            return CreateSocketAndInitialication();
+            return CreateSocketWithPolicy();
         }
     }
 
@@ -421,6 +999,7 @@ public class NetworkDoubleBase extends NetworkBase {
      * @return 最终的连接对象
      */
     private OperateResultExOne<Socket> CreateSocketAndInitialication() {
+        long startTime = System.nanoTime();
         OperateResultExOne<Socket> result = CreateSocketAndConnect(ipAddress, port, connectTimeOut);
         if (result.IsSuccess) {
             // 初始化
@@ -431,6 +1010,7 @@ public class NetworkDoubleBase extends NetworkBase {
                 result.CopyErrorFromOther(initi);
             }
         }
+        metrics.RecordConnect(startTime, result.IsSuccess);
         return result;
     }
 
@@ -443,13 +1023,27 @@ public class NetworkDoubleBase extends NetworkBase {
      */
     public OperateResultExOne<byte[]> ReadFromCoreServer(Socket socket, byte[] send) {
         INetMessage netMessage = GetNewNetMessage();
+        if (netMessage != null && receiveTimeOut >= 0) {
+            // 有消息格式的时候，和接收到缓存里的方式完全一致，只是最后复制成新的数组
+            OperateResultExOne<ReceiveFrame> frame = ReadFrameFromCoreServer(socket, send);
+            if (!frame.IsSuccess) return OperateResultExOne.CreateFailedResult(frame);
+
+            byte[] receive = frame.Content.ToArray();
+            frame.Content.Release();
+            return OperateResultExOne.CreateSuccessResult(receive);
+        }
         if (netMessage != null) netMessage.setSendBytes(send);
 
         // send data
+        long startTime = System.nanoTime();
         OperateResult resultSend = Send(socket, send);
         if (!resultSend.IsSuccess) return OperateResultExOne.CreateFailedResult(resultSend);
+        long sentTime = System.nanoTime();
 
-        if (receiveTimeOut < 0) return OperateResultExOne.CreateSuccessResult(new byte[0]);
+        if (receiveTimeOut < 0) {
+            metrics.RecordExchange(startTime, sentTime, 0, sentTime, send == null ? 0 : send.length, 0);
+            return OperateResultExOne.CreateSuccessResult(new byte[0]);
+        }
         try {
             if (sleepTime > 0) Thread.sleep( sleepTime );
         }
@@ -462,12 +1056,114 @@ public class NetworkDoubleBase extends NetworkBase {
         OperateResultExOne<byte[]> resultReceive = ReceiveByMessage(socket, receiveTimeOut, netMessage);
         if (!resultReceive.IsSuccess) return OperateResultExOne.CreateFailedResult(resultReceive);
 
-        if (netMessage != null && !netMessage.CheckHeadBytesLegal(Utilities.UUID2Byte(Token))) {
+        metrics.RecordExchange(startTime, sentTime, 0, System.nanoTime(), send == null ? 0 : send.length, resultReceive.Content.length);
+        return OperateResultExOne.CreateSuccessResult(resultReceive.Content);
+    }
+
+    /**
+     * 将数据报文发送指定的网络通道上，并将返回的完整报文接收到池中租用的缓存里，解析的时候可以直接使用偏移访问数据，
+     * 使用完成后需要调用 {@link ReceiveFrame#Release()} 方法归还缓存。<br />
+     * Send the data message to the specified network channel, and receive the returned complete message into the buffer rented from the pool,
+     * the data can be accessed directly using the offset when parsing, and the {@link ReceiveFrame#Release()} method needs to be called to return the buffer after use.
+     * @param socket 指定的套接字
+     * @param send   发送的完整的报文信息
+     * @return 包含了完整报文的缓存对象
+     */
+    public OperateResultExOne<ReceiveFrame> ReadFrameFromCoreServer(Socket socket, byte[] send) {
+        INetMessage netMessage = GetNewNetMessage();
+        if (netMessage == null || receiveTimeOut < 0) {
+            OperateResultExOne<byte[]> read = ReadFromCoreServer(socket, send);
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+            return OperateResultExOne.CreateSuccessResult(ReceiveFrame.Wrap(read.Content));
+        }
+        netMessage.setSendBytes(send);
+
+        // send data
+        long startTime = System.nanoTime();
+        OperateResult resultSend = Send(socket, send);
+        if (!resultSend.IsSuccess) return OperateResultExOne.CreateFailedResult(resultSend);
+        long sentTime = System.nanoTime();
+
+        try {
+            if (sleepTime > 0) Thread.sleep( sleepTime );
+        }
+        catch (Exception ex){
+
+        }
+
+        OperateResultExOne<ReceiveFrame> resultReceive = ReceiveFrameByMessage(socket, receiveTimeOut, netMessage);
+        if (!resultReceive.IsSuccess) return resultReceive;
+
+        if (!netMessage.CheckHeadBytesLegal(Utilities.UUID2Byte(Token))) {
+            resultReceive.Content.Release();
             CloseSocket(socket);
             return new OperateResultExOne<>(StringResources.Language.CommandHeadCodeCheckFailed());
         }
 
-        return OperateResultExOne.CreateSuccessResult(resultReceive.Content);
+        metrics.RecordExchange(startTime, sentTime, resultReceive.Content.getHeadReceivedTime(), System.nanoTime(),
+                send == null ? 0 : send.length, resultReceive.Content.getLength());
+        return resultReceive;
+    }
+
+    /**
+     * 将数据发送到当前的网络通道中，并将返回的完整报文接收到池中租用的缓存里，和 {@link #ReadFromCoreServer(byte[])} 相比，接收的过程中不再产生临时的数组，
+     * 使用完成后需要调用 {@link ReceiveFrame#Release()} 方法归还缓存，本方法是线程安全的。<br />
+     * Send data to the current network channel, and receive the returned complete message into the buffer rented from the pool. Compared with {@link #ReadFromCoreServer(byte[])},
+     * no temporary array is generated during the receiving process, and the {@link ReceiveFrame#Release()} method needs to be called to return the buffer after use. This method is thread-safe.
+     * @param send 发送的完整的报文信息
+     * @return 包含了完整报文的缓存对象
+     */
+    public OperateResultExOne<ReceiveFrame> ReadFrameFromCoreServer(byte[] send) {
+        if (isNioTransport()) {
+            OperateResultExOne<byte[]> read = JoinResult(ReadFromNioSession(send));
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+            return OperateResultExOne.CreateSuccessResult(ReceiveFrame.Wrap(read.Content));
+        }
+
+        if (isConnectionPool()) {
+            SocketPool pool = socketPool;
+            OperateResultExOne<SocketPool.PooledSocket> socket = pool.Acquire(connectTimeOut);
+            if (!socket.IsSuccess) {
+                IsSocketError = true;
+                RecordReadResult(socket);
+                ExtraAfterReadFromCoreServer(socket);
+                return OperateResultExOne.CreateFailedResult(socket);
+            }
+
+            OperateResultExOne<ReceiveFrame> read = ReadFrameFromCoreServer(socket.Content.getSocket(), send);
+            pool.Release(socket.Content, !read.IsSuccess);
+            IsSocketError = !read.IsSuccess;
+            RecordReadResult(read);
+            ExtraAfterReadFromCoreServer(read);
+            return read;
+        }
+
+        simpleHybirdLock.Enter();
+
+        // 获取有用的网络通道，如果没有，就建立新的连接
+        OperateResultExOne<Socket> resultSocket = GetAvailableSocket();
+        if (!resultSocket.IsSuccess) {
+            IsSocketError = true;
+            if (AlienSession != null) AlienSession.setIsStatusOk(false);
+            simpleHybirdLock.Leave();
+            RecordReadResult(resultSocket);
+            return OperateResultExOne.CreateFailedResult(resultSocket);
+        }
+
+        OperateResultExOne<ReceiveFrame> read = ReadFrameFromCoreServer(resultSocket.Content, send);
+        if (read.IsSuccess) {
+            IsSocketError = false;
+        } else {
+            IsSocketError = true;
+            if (AlienSession != null) AlienSession.setIsStatusOk(false);
+        }
+
+        RecordReadResult(read);
+        ExtraAfterReadFromCoreServer(read);
+
+        simpleHybirdLock.Leave();
+        if (!isPersistentConn) CloseSocket(resultSocket.Content);
+        return read;
     }
 
     /**
@@ -478,6 +1174,9 @@ public class NetworkDoubleBase extends NetworkBase {
      * @return 接收的完整的报文信息
      */
     public OperateResultExOne<byte[]> ReadFromCoreServer(byte[] send) {
+        if (isNioTransport()) return JoinResult(ReadFromNioSession(send));
+        if (isConnectionPool()) return ReadFromSocketPool(send);
+
         OperateResultExOne<byte[]> result = new OperateResultExOne<byte[]>();
         // string tmp1 = BasicFramework.SoftBasic.ByteToHexString( send, '-' );
 
@@ -490,6 +1189,7 @@ public class NetworkDoubleBase extends NetworkBase {
             if (AlienSession != null) AlienSession.setIsStatusOk(false);
             simpleHybirdLock.Leave();
             result.CopyErrorFromOther(resultSocket);
+            RecordReadResult(result);
             return result;
         }
 
@@ -506,6 +1206,7 @@ public class NetworkDoubleBase extends NetworkBase {
             result.CopyErrorFromOther(read);
         }
 
+        RecordReadResult(read);
         ExtraAfterReadFromCoreServer(read);
 
         simpleHybirdLock.Leave();
@@ -513,6 +1214,26 @@ public class NetworkDoubleBase extends NetworkBase {
         return result;
     }
 
+    /**
+     * 异步的将数据发送到当前的网络通道中，并接收一个 {@link INetMessage} 指定的完整的报文。在非阻塞的传输模式下，等待设备返回的时候不占用任何线程，
+     * 否则在 {@link #getAsyncExecutor()} 的线程池上调用 {@link #ReadFromCoreServer(byte[])} 方法。<br />
+     * Asynchronously send data to the current network channel and receive a complete message specified by {@link INetMessage}.
+     * In non-blocking transport mode, no thread is occupied while waiting for the device to return,
+     * otherwise the {@link #ReadFromCoreServer(byte[])} method is called on the thread pool of {@link #getAsyncExecutor()}.
+     * @param send 发送的完整的报文信息
+     * @return 接收的完整的报文信息
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadFromCoreServerAsync(final byte[] send) {
+        if (isNioTransport()) return ReadFromNioSession(send);
+
+        return RunAsync(new Supplier<OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> get() {
+                return ReadFromCoreServer(send);
+            }
+        });
+    }
+
     @Override
     public String toString() {
         return "NetworkDoubleBase<" + GetNewNetMessage().getClass().getTypeName() + ">[" + getIpAddress() + ":" + getPort() + "]";
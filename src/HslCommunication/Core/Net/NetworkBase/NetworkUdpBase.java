@@ -1,13 +1,26 @@
 package HslCommunication.Core.Net.NetworkBase;
 
 import HslCommunication.BasicFramework.SoftBasic;
+import HslCommunication.Core.Net.Nio.UdpMultiplexer;
 import HslCommunication.Core.Thread.SimpleHybirdLock;
+import HslCommunication.Core.Types.FunctionOperateExOne;
+import HslCommunication.Core.Types.OperateResult;
 import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.StringResources;
 
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 public class NetworkUdpBase extends NetworkBase {
     /**
@@ -36,6 +49,7 @@ public class NetworkUdpBase extends NetworkBase {
      */
     public void setIpAddress(String ipAddress) {
         this.ipAddress = ipAddress;
+        endPoint = null;
     }
 
     /**
@@ -56,6 +70,7 @@ public class NetworkUdpBase extends NetworkBase {
      */
     public void setPort(int port) {
         this.port = port;
+        endPoint = null;
     }
 
     /**
@@ -110,52 +125,446 @@ public class NetworkUdpBase extends NetworkBase {
     public void setReceiveCacheLength(int receiveCacheLength) {
         this.receiveCacheLength = receiveCacheLength;
     }
+
+    /**
+     * 获取批量交互时同时等待设备返回的最大请求数量，默认为1，表示发送一个请求之后等待返回再发送下一个<br />
+     * Get the maximum number of requests waiting for the device to return at the same time during batch interaction. The default is 1,
+     * which means that one request is sent and the next one is sent after waiting for the return
+     * @return 请求的窗口大小
+     */
+    public int getPipelineWindow() {
+        return pipelineWindow;
+    }
+
+    /**
+     * 设置批量交互时同时等待设备返回的最大请求数量，只对 {@link #GetMessageIdentity(byte[])} 能提取出消息标识的协议生效，
+     * 设备返回的报文按照消息标识匹配，可以大幅减少高延迟网络下的扫描时间<br />
+     * Set the maximum number of requests waiting for the device to return at the same time during batch interaction,
+     * only effective for protocols whose message identity can be extracted by {@link #GetMessageIdentity(byte[])}.
+     * The messages returned by the device are matched according to the message identity, which can greatly reduce the scan time under high-latency networks
+     * @param pipelineWindow 请求的窗口大小
+     */
+    public void setPipelineWindow(int pipelineWindow) {
+        this.pipelineWindow = Math.max(1, pipelineWindow);
+    }
+
+    /**
+     * 获取当前是否可以同时发送多个请求，窗口大于1的时候即可<br />
+     * Get whether multiple requests can be sent at the same time currently, when the window is greater than 1
+     * @return 是否可以同时发送多个请求
+     */
+    public boolean isPipelined() {
+        return pipelineWindow > 1;
+    }
+
+    /**
+     * 从发送的报文中提取出消息标识，设备返回的报文中的 {@link #GetResponseIdentity(byte[])} 需要和它一致，返回负数表示协议没有消息标识，默认返回-1<br />
+     * Extract the message identity from the sent message, the {@link #GetResponseIdentity(byte[])} of the message returned by the device needs to be consistent with it,
+     * a negative number means that the protocol has no message identity, and the default is -1
+     * @param send 发送的完整的报文
+     * @return 消息标识
+     */
+    protected int GetMessageIdentity(byte[] send) {
+        return -1;
+    }
+
+    /**
+     * 从设备返回的报文中提取出消息标识，返回负数表示无法识别的报文，默认返回-1<br />
+     * Extract the message identity from the message returned by the device, a negative number means an unrecognized message, and the default is -1
+     * @param receive 设备返回的完整的报文
+     * @return 消息标识
+     */
+    protected int GetResponseIdentity(byte[] receive) {
+        return -1;
+    }
+
+    /**
+     * 将多个请求发送到设备并接收全部的返回，设置了大于1的请求窗口并且协议支持消息标识时，多个请求同时等待返回，返回的报文按照消息标识匹配，
+     * 已经超时或是无法匹配的报文直接丢弃，否则依次调用 {@link #ReadFromCoreServer(byte[])}<br />
+     * Send multiple requests to the device and receive all the returns. When a request window greater than 1 is set and the protocol supports message identity,
+     * multiple requests wait for the return at the same time, and the returned messages are matched according to the message identity.
+     * Messages that have timed out or cannot be matched are discarded directly, otherwise {@link #ReadFromCoreServer(byte[])} is called in turn
+     * @param values 所有的请求报文
+     * @return 和请求顺序一致的返回报文
+     */
+    public OperateResultExOne<byte[][]> ReadFromCoreServer(byte[][] values ) {
+        byte[][] receives = new byte[values.length][];
+        int[] identities = new int[values.length];
+        boolean pipelined = isPipelined() && values.length > 1 && getReceiveTimeOut() >= 0;
+        for (int i = 0; i < values.length; i++) {
+            identities[i] = GetMessageIdentity(values[i]);
+            if (identities[i] < 0) pipelined = false;
+        }
+
+        UdpMultiplexer multiplexer = udpMultiplexer;
+        if (pipelined && multiplexer != null) return JoinResult(ReadFromMultiplexer(multiplexer, values, identities));
+
+        if (!pipelined) {
+            for (int i = 0; i < values.length; i++) {
+                OperateResultExOne<byte[]> read = ReadFromCoreServer(values[i]);
+                if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+                receives[i] = read.Content;
+            }
+            return OperateResultExOne.CreateSuccessResult(receives);
+        }
+
+        simpleHybirdLock.Enter();
+        try {
+            DatagramChannel channel = GetDatagramChannel();
+            DiscardDatagrams(channel);
+
+            HashMap<Integer, Integer> pending = new HashMap<>();                 // 消息标识 -> 请求的索引
+            long[] deadlines = new long[values.length];
+            int next = 0, finish = 0;
+            while (finish < values.length) {
+                // 窗口未满的时候继续发送，消息标识被占用的请求等待前面的返回
+                while (next < values.length && pending.size() < pipelineWindow && !pending.containsKey(identities[next])) {
+                    if (LogNet != null)
+                        LogNet.WriteDebug(toString(), StringResources.Language.Send() + " : " + SoftBasic.ByteToHexString(values[next]));
+                    channel.write(ByteBuffer.wrap(values[next]));
+                    pending.put(identities[next], next);
+                    deadlines[next] = getReceiveTimeOut() == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + getReceiveTimeOut();
+                    next++;
+                }
+
+                long earliest = Long.MAX_VALUE;
+                for (int index : pending.values()) earliest = Math.min(earliest, deadlines[index]);
+
+                byte[] receive = ReceiveDatagram(channel, earliest);
+                if (receive == null) return new OperateResultExOne<byte[][]>(StringResources.Language.ReceiveDataTimeout() + getReceiveTimeOut());
+
+                Integer index = pending.remove(GetResponseIdentity(receive));
+                if (index == null) continue;                                     // 已经超时的请求的返回或是无法识别的报文，直接丢弃
+
+                if (LogNet != null)
+                    LogNet.WriteDebug(toString(), StringResources.Language.Receive() + " : " + SoftBasic.ByteToHexString(receive));
+                receives[index] = receive;
+                finish++;
+            }
+            return OperateResultExOne.CreateSuccessResult(receives);
+        } catch (Exception ex) {
+            CloseDatagramChannel();
+            return new OperateResultExOne<byte[][]>(ex.getMessage());
+        } finally {
+            simpleHybirdLock.Leave();
+        }
+    }
+
+    /**
+     * 发送报文到设备并接收设备的返回，所有的请求共用一个绑定了本地端口的UDP通道，发送之前丢弃通道里残留的报文，
+     * 协议支持消息标识的时候，和请求不匹配的报文也会被丢弃，比如已经超时的请求的返回<br />
+     * Send the message to the device and receive the return of the device. All requests share a UDP channel bound to a local port.
+     * The remaining messages in the channel are discarded before sending. When the protocol supports message identity,
+     * messages that do not match the request will also be discarded, such as the return of a request that has timed out
+     * @param value 发送的报文
+     * @return 设备返回的报文
+     */
     public OperateResultExOne<byte[]> ReadFromCoreServer(byte[] value ) {
         if (LogNet != null)
             LogNet.WriteDebug(toString(), StringResources.Language.Send() + " : " + SoftBasic.ByteToHexString(value));
+
+        UdpMultiplexer multiplexer = udpMultiplexer;
+        if (multiplexer != null) return JoinResult(RequestMultiplexer(multiplexer, value, GetMessageIdentity(value)));
+
         simpleHybirdLock.Enter();
         try {
-            datagramSocket = new DatagramSocket();
-            InetAddress address = InetAddress.getByName(getIpAddress());
-            datagramPacket = new DatagramPacket(value, value.length, address, getPort());
-            datagramSocket.send(datagramPacket);
-            if(getReceiveTimeOut() > 0) datagramSocket.setSoTimeout(getReceiveTimeOut());
-
-            if (getReceiveTimeOut() < 0) {
-                simpleHybirdLock.Leave();
-                return OperateResultExOne.CreateSuccessResult(new byte[0]);
-            }
+            DatagramChannel channel = GetDatagramChannel();
+            DiscardDatagrams(channel);
+            channel.write(ByteBuffer.wrap(value));
 
-            // 对于不存在的IP地址，加入此行代码后，可以在指定时间内解除阻塞模式限制
-            byte[] buffer = new byte[getReceiveCacheLength()];
-            DatagramPacket recePacket = new DatagramPacket(buffer, buffer.length);
-            datagramSocket.receive(recePacket);
+            if (getReceiveTimeOut() < 0) return OperateResultExOne.CreateSuccessResult(new byte[0]);
 
-            byte[] receive = SoftBasic.BytesArraySelectBegin(buffer, recePacket.getLength());
+            int identity = GetMessageIdentity(value);
+            long deadline = getReceiveTimeOut() == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + getReceiveTimeOut();
+            while (true) {
+                byte[] receive = ReceiveDatagram(channel, deadline);
+                if (receive == null) return new OperateResultExOne<byte[]>(StringResources.Language.ReceiveDataTimeout() + getReceiveTimeOut());
+                if (identity >= 0 && GetResponseIdentity(receive) != identity) continue;     // 不是当前请求的返回，直接丢弃
 
+                if (LogNet != null)
+                    LogNet.WriteDebug(toString(), StringResources.Language.Receive() + " : " + SoftBasic.ByteToHexString(receive));
+                return OperateResultExOne.CreateSuccessResult(receive);
+            }
+        } catch (Exception ex) {
+            CloseDatagramChannel();
+            return new OperateResultExOne<byte[]>(ex.getMessage());
+        } finally {
             simpleHybirdLock.Leave();
+        }
+    }
 
+    /**
+     * 异步的发送报文到设备并接收设备的返回，设置了多路复用对象的时候，直接返回多路复用对象的异步结果，等待设备返回的时候不占用任何线程，
+     * 否则在 {@link #getAsyncExecutor()} 的线程池上调用 {@link #ReadFromCoreServer(byte[])} 方法<br />
+     * Asynchronously send the message to the device and receive the return of the device. When the multiplexing object is set,
+     * the asynchronous result of the multiplexing object is returned directly, and no thread is occupied while waiting for the device to return,
+     * otherwise the {@link #ReadFromCoreServer(byte[])} method is called on the thread pool of {@link #getAsyncExecutor()}
+     * @param value 发送的报文
+     * @return 设备返回的报文的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadFromCoreServerAsync(final byte[] value) {
+        UdpMultiplexer multiplexer = udpMultiplexer;
+        if (multiplexer != null) {
             if (LogNet != null)
-                LogNet.WriteDebug(toString(), StringResources.Language.Receive() + " : " + SoftBasic.ByteToHexString(receive));
-            // connectErrorCount = 0;
-            return OperateResultExOne.CreateSuccessResult(receive);
-        } catch (Exception ex) {
+                LogNet.WriteDebug(toString(), StringResources.Language.Send() + " : " + SoftBasic.ByteToHexString(value));
+            return RequestMultiplexer(multiplexer, value, GetMessageIdentity(value));
+        }
+
+        return RunAsync(new Supplier<OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> get() {
+                return ReadFromCoreServer(value);
+            }
+        });
+    }
+
+    /**
+     * 异步的将多个请求发送到设备并接收全部的返回，设置了多路复用对象的时候，按照请求的窗口发送，等待设备返回的时候不占用任何线程，
+     * 否则在 {@link #getAsyncExecutor()} 的线程池上调用 {@link #ReadFromCoreServer(byte[][])} 方法<br />
+     * Asynchronously send multiple requests to the device and receive all the returns. When the multiplexing object is set,
+     * the requests are sent according to the request window, and no thread is occupied while waiting for the device to return,
+     * otherwise the {@link #ReadFromCoreServer(byte[][])} method is called on the thread pool of {@link #getAsyncExecutor()}
+     * @param values 所有的请求报文
+     * @return 和请求顺序一致的返回报文的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[][]>> ReadFromCoreServerAsync(final byte[][] values) {
+        UdpMultiplexer multiplexer = udpMultiplexer;
+        if (multiplexer != null) {
+            int[] identities = new int[values.length];
+            for (int i = 0; i < values.length; i++) identities[i] = GetMessageIdentity(values[i]);
+            return ReadFromMultiplexer(multiplexer, values, identities);
+        }
+
+        return RunAsync(new Supplier<OperateResultExOne<byte[][]>>() {
+            @Override
+            public OperateResultExOne<byte[][]> get() {
+                return ReadFromCoreServer(values);
+            }
+        });
+    }
+
+    /**
+     * 关闭当前使用的UDP通道，释放本地的端口，之后的请求会自动重新打开通道<br />
+     * Close the currently used UDP channel and release the local port, and subsequent requests will automatically reopen the channel
+     * @return 是否关闭成功
+     */
+    public OperateResult ConnectClose() {
+        simpleHybirdLock.Enter();
+        try {
+            CloseDatagramChannel();
+        } finally {
             simpleHybirdLock.Leave();
-            // if (connectErrorCount < 1_0000_0000) connectErrorCount++;
-            return new OperateResultExOne<byte[]>(ex.getMessage());
         }
+        return OperateResult.CreateSuccessResult();
     }
 
+    // region Udp Multiplexer
+
+    /**
+     * 获取当前使用的UDP多路复用对象，为null时使用设备自己的UDP通道<br />
+     * Get the currently used UDP multiplexing object, when it is null, the device's own UDP channel is used
+     * @return 多路复用对象
+     */
+    public UdpMultiplexer getUdpMultiplexer() {
+        return udpMultiplexer;
+    }
+
+    /**
+     * 设置UDP多路复用对象，设置之后，所有的请求通过多路复用对象共用的通道收发，不再占用本地的端口及等待的线程，适合大量的UDP设备，
+     * 比如设置为 {@link UdpMultiplexer#getDefault()}，设置为null时恢复使用设备自己的UDP通道<br />
+     * Set the UDP multiplexing object. After setting, all requests are sent and received through the shared channel of the multiplexing object,
+     * and no longer occupy the local port and the waiting thread, which is suitable for a large number of UDP devices,
+     * such as set to {@link UdpMultiplexer#getDefault()}, and set to null to restore the use of the device's own UDP channel
+     * @param udpMultiplexer 多路复用对象
+     */
+    public void setUdpMultiplexer(UdpMultiplexer udpMultiplexer) {
+        this.udpMultiplexer = udpMultiplexer;
+        if (udpMultiplexer != null) ConnectClose();
+    }
+
+    private CompletableFuture<OperateResultExOne<byte[]>> RequestMultiplexer(UdpMultiplexer multiplexer, byte[] value, int identity) {
+        InetSocketAddress remote;
+        try {
+            remote = GetEndPoint();
+        } catch (IOException ex) {
+            return CompletableFuture.completedFuture(new OperateResultExOne<byte[]>(ex.getMessage()));
+        }
+        CompletableFuture<OperateResultExOne<byte[]>> read = multiplexer.Request(remote, value, identity, responseIdentity, getReceiveTimeOut());
+        if (LogNet == null) return read;
+        return read.thenApply(new Function<OperateResultExOne<byte[]>, OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> apply(OperateResultExOne<byte[]> result) {
+                if (result.IsSuccess && LogNet != null)
+                    LogNet.WriteDebug(NetworkUdpBase.this.toString(), StringResources.Language.Receive() + " : " + SoftBasic.ByteToHexString(result.Content));
+                return result;
+            }
+        });
+    }
+
+    private CompletableFuture<OperateResultExOne<byte[][]>> ReadFromMultiplexer(final UdpMultiplexer multiplexer, final byte[][] values, final int[] identities) {
+        // 窗口已满的时候，任意一个请求返回之后再发送下一个，没有消息标识的协议一次只发送一个
+        final CompletableFuture<OperateResultExOne<byte[][]>> future = new CompletableFuture<>();
+        final byte[][] receives = new byte[values.length][];
+        final AtomicInteger next = new AtomicInteger(0);
+        final AtomicInteger finish = new AtomicInteger(0);
+        if (values.length == 0) {
+            future.complete(OperateResultExOne.CreateSuccessResult(receives));
+            return future;
+        }
+
+        int window = isPipelined() ? pipelineWindow : 1;
+        for (int i = 0; i < values.length; i++) {
+            if (identities[i] < 0) window = 1;
+        }
+        for (int i = 0; i < Math.min(window, values.length); i++) RequestNext(multiplexer, values, identities, receives, next, finish, future);
+        return future;
+    }
+
+    private void RequestNext(final UdpMultiplexer multiplexer, final byte[][] values, final int[] identities, final byte[][] receives,
+                             final AtomicInteger next, final AtomicInteger finish, final CompletableFuture<OperateResultExOne<byte[][]>> future) {
+        final int index = next.getAndIncrement();
+        if (index >= values.length || future.isDone()) return;
+
+        RequestMultiplexer(multiplexer, values[index], identities[index]).thenAccept(new Consumer<OperateResultExOne<byte[]>>() {
+            @Override
+            public void accept(OperateResultExOne<byte[]> read) {
+                if (!read.IsSuccess) {
+                    future.complete(OperateResultExOne.<byte[][]>CreateFailedResult(read));
+                    return;
+                }
+                receives[index] = read.Content;
+                if (finish.incrementAndGet() == values.length) future.complete(OperateResultExOne.CreateSuccessResult(receives));
+                else RequestNext(multiplexer, values, identities, receives, next, finish, future);
+            }
+        });
+    }
+
+    // endregion
+
+    // region Datagram Channel
+
+    private InetSocketAddress GetEndPoint() throws IOException {
+        InetSocketAddress remote = endPoint;
+        if (remote != null) return remote;
+
+        remote = new InetSocketAddress(getIpAddress(), getPort());
+        if (remote.isUnresolved()) throw new UnknownHostException(getIpAddress());
+        endPoint = remote;
+        return remote;
+    }
+
+    /**
+     * 获取当前的UDP通道，还没有打开或是远程的地址已经修改的时候，重新解析远程地址并打开一个新的通道，通道连接到远程地址后，只会收到设备返回的报文<br />
+     * Get the current UDP channel. When it has not been opened or the remote address has been modified, re-resolve the remote address and open a new channel.
+     * After the channel is connected to the remote address, only the messages returned by the device will be received
+     * @return UDP通道
+     * @throws IOException 打开通道失败或是地址无法解析
+     */
+    private DatagramChannel GetDatagramChannel() throws IOException {
+        InetSocketAddress remote = GetEndPoint();
+        if (datagramChannel != null && remote == channelEndPoint) return datagramChannel;
+
+        CloseDatagramChannel();
+
+        DatagramChannel channel = DatagramChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.connect(remote);
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        datagramChannel = channel;
+        channelEndPoint = remote;
+        return channel;
+    }
+
+    /**
+     * 接收一个报文，在截止时间之前没有收到报文的时候返回null，接收缓存在多次接收之间复用<br />
+     * Receive a message, return null if no message is received before the deadline, and the receive buffer is reused between multiple receptions
+     * @param channel UDP通道
+     * @param deadline 截止的时间，Long.MAX_VALUE表示一直等待
+     * @return 收到的报文
+     * @throws IOException 接收失败，比如设备的端口不可达
+     */
+    private byte[] ReceiveDatagram(DatagramChannel channel, long deadline) throws IOException {
+        if (receiveBuffer == null || receiveBuffer.capacity() != getReceiveCacheLength())
+            receiveBuffer = ByteBuffer.allocate(getReceiveCacheLength());
+
+        while (true) {
+            receiveBuffer.clear();
+            if (channel.receive(receiveBuffer) != null) {
+                receiveBuffer.flip();
+                byte[] receive = new byte[receiveBuffer.remaining()];
+                receiveBuffer.get(receive);
+                return receive;
+            }
+
+            long wait = 0;
+            if (deadline != Long.MAX_VALUE) {
+                wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) return null;
+            }
+            selector.select(wait);
+            selector.selectedKeys().clear();
+        }
+    }
+
+    /**
+     * 丢弃通道里已经收到的所有报文，这些报文是已经超时的请求的返回<br />
+     * Discard all the messages that have been received in the channel, these messages are the returns of requests that have timed out
+     * @param channel UDP通道
+     * @throws IOException 接收失败
+     */
+    private void DiscardDatagrams(DatagramChannel channel) throws IOException {
+        if (receiveBuffer == null || receiveBuffer.capacity() != getReceiveCacheLength())
+            receiveBuffer = ByteBuffer.allocate(getReceiveCacheLength());
+
+        while (true) {
+            receiveBuffer.clear();
+            if (channel.receive(receiveBuffer) == null) return;
+            if (LogNet != null)
+                LogNet.WriteDebug(toString(), "Discard : " + SoftBasic.ByteToHexString(SoftBasic.BytesArraySelectBegin(receiveBuffer.array(), receiveBuffer.position())));
+        }
+    }
+
+    private void CloseDatagramChannel() {
+        try {
+            if (selector != null) selector.close();
+        } catch (IOException ex) {
+        }
+        try {
+            if (datagramChannel != null) datagramChannel.close();
+        } catch (IOException ex) {
+        }
+        selector = null;
+        datagramChannel = null;
+    }
+
+    // endregion
 
     private String ipAddress = "127.0.0.1";               // 连接的IP地址
     private int port = 10000;                             // 端口号
     private int receiveTimeOut = 10000;                   // 数据接收的超时时间
     private String connectionId = "";                     // 当前连接
     protected SimpleHybirdLock simpleHybirdLock = null;   // 数据访问的同步锁
-    private DatagramSocket datagramSocket;
-    private DatagramPacket datagramPacket;
+    private DatagramChannel datagramChannel = null;       // 和设备交互的UDP通道
+    private Selector selector = null;                     // 等待接收报文的选择器
+    private volatile InetSocketAddress endPoint = null;   // 缓存的远程地址，修改IP地址或端口后重新解析
+    private InetSocketAddress channelEndPoint = null;     // 当前的UDP通道连接的远程地址
+    private volatile UdpMultiplexer udpMultiplexer = null;  // 共用的UDP多路复用对象
+    private final FunctionOperateExOne<byte[], Integer> responseIdentity = new FunctionOperateExOne<byte[], Integer>() {
+        @Override
+        public Integer Action(byte[] content) {
+            return GetResponseIdentity(content);
+        }
+    };                                                    // 多路复用对象提取返回报文的消息标识的方法
+    private ByteBuffer receiveBuffer = null;              // 复用的接收缓存
 
     private int receiveCacheLength = 2048;                // 接收的长度限制
+    private int pipelineWindow = 1;                       // 批量交互时同时等待返回的请求数量
 
     @Override
     public String toString() {
@@ -11,6 +11,9 @@ import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.StringResources;
 import HslCommunication.Utilities;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
 public class NetworkUdpDeviceBase extends NetworkUdpBase implements IReadWriteNet {
 
     public NetworkUdpDeviceBase( ) { }
@@ -307,6 +310,178 @@ public class NetworkUdpDeviceBase extends NetworkUdpBase implements IReadWriteNe
         return Write(address, temp);
     }
 
+    // region Async Read Write
+
+    /**
+     * 异步批量读取字节数组信息，默认只是在异步的线程池上调用阻塞的 {@link #Read(String, short)}，等待期间占用线程池的一个线程，
+     * 支持UDP多路复用的设备类应该重写本方法<br />
+     * Asynchronously batch read byte array information, by default the blocking {@link #Read(String, short)} is just called on the asynchronous thread pool,
+     * and one thread of the pool is occupied while waiting, device classes that support UDP multiplexing should override this method
+     * @param address 数据地址
+     * @param length 数据长度
+     * @return 带有成功标识的byte[]数组的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync(final String address, final short length) {
+        return RunAsync(new Supplier<OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> get() {
+                return Read(address, length);
+            }
+        });
+    }
+
+    /**
+     * 异步写入原始的byte数组数据，默认只是在异步的线程池上调用阻塞的 {@link #Write(String, byte[])}，等待期间占用线程池的一个线程，
+     * 支持UDP多路复用的设备类应该重写本方法<br />
+     * Asynchronously write the original byte array data, by default the blocking {@link #Write(String, byte[])} is just called on the asynchronous thread pool,
+     * and one thread of the pool is occupied while waiting, device classes that support UDP multiplexing should override this method
+     * @param address 起始地址
+     * @param value 写入值
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    public CompletableFuture<OperateResult> WriteAsync(final String address, final byte[] value) {
+        return RunAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        });
+    }
+
+    public CompletableFuture<OperateResultExOne<boolean[]>> ReadBoolAsync(final String address, final short length) {
+        return RunAsync(new Supplier<OperateResultExOne<boolean[]>>() {
+            @Override
+            public OperateResultExOne<boolean[]> get() {
+                return ReadBool(address, length);
+            }
+        });
+    }
+
+    public CompletableFuture<OperateResultExOne<Boolean>> ReadBoolAsync(String address) {
+        return NetworkDeviceAsyncHelper.GetBoolResult(ReadBoolAsync(address, (short) 1));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(final String address, final boolean[] value) {
+        return RunAsync(new Supplier<OperateResult>() {
+            @Override
+            public OperateResult get() {
+                return Write(address, value);
+            }
+        });
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, boolean value) {
+        return WriteAsync(address, new boolean[]{value});
+    }
+
+    public CompletableFuture<OperateResultExOne<Short>> ReadInt16Async(String address) {
+        return NetworkDeviceAsyncHelper.GetInt16Result(ReadAsync(address, WordLength), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<short[]>> ReadInt16Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetInt16Result(ReadAsync(address, (short) (length * WordLength)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Integer>> ReadUInt16Async(String address) {
+        return NetworkDeviceAsyncHelper.GetUInt16Result(ReadAsync(address, WordLength), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<int[]>> ReadUInt16Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetUInt16Result(ReadAsync(address, (short) (length * WordLength)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Integer>> ReadInt32Async(String address) {
+        return NetworkDeviceAsyncHelper.GetInt32Result(ReadAsync(address, (short) (WordLength * 2)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<int[]>> ReadInt32Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetInt32Result(ReadAsync(address, (short) (length * WordLength * 2)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Long>> ReadUInt32Async(String address) {
+        return NetworkDeviceAsyncHelper.GetUInt32Result(ReadAsync(address, (short) (WordLength * 2)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<long[]>> ReadUInt32Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetUInt32Result(ReadAsync(address, (short) (length * WordLength * 2)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Long>> ReadInt64Async(String address) {
+        return NetworkDeviceAsyncHelper.GetInt64Result(ReadAsync(address, (short) (WordLength * 4)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<long[]>> ReadInt64Async(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetInt64Result(ReadAsync(address, (short) (length * WordLength * 4)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Float>> ReadFloatAsync(String address) {
+        return NetworkDeviceAsyncHelper.GetFloatResult(ReadAsync(address, (short) (WordLength * 2)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<float[]>> ReadFloatAsync(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetFloatResult(ReadAsync(address, (short) (length * WordLength * 2)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<Double>> ReadDoubleAsync(String address) {
+        return NetworkDeviceAsyncHelper.GetDoubleResult(ReadAsync(address, (short) (WordLength * 4)), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResultExOne<double[]>> ReadDoubleAsync(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetDoubleResult(ReadAsync(address, (short) (length * WordLength * 4)), getByteTransform(), length);
+    }
+
+    public CompletableFuture<OperateResultExOne<String>> ReadStringAsync(String address, short length) {
+        return NetworkDeviceAsyncHelper.GetStringResult(ReadAsync(address, length), getByteTransform());
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, short[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, short value) {
+        return WriteAsync(address, new short[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, int[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, int value) {
+        return WriteAsync(address, new int[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, long[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, long value) {
+        return WriteAsync(address, new long[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, float[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, float value) {
+        return WriteAsync(address, new float[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, double[] values) {
+        return WriteAsync(address, getByteTransform().TransByte(values));
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, double value) {
+        return WriteAsync(address, new double[]{value});
+    }
+
+    public CompletableFuture<OperateResult> WriteAsync(String address, String value) {
+        byte[] temp = getByteTransform().TransByte(value, "US-ASCII");
+        if (WordLength == 1) temp = SoftBasic.ArrayExpandToLengthEven(temp);
+        return WriteAsync(address, temp);
+    }
+
+    // endregion
+
     @Override
     public String toString() {
         return "NetworkUdpDeviceBase<" + getByteTransform().getClass().toString() + ">[" + getIpAddress() + ":" + getPort() + "]";
@@ -0,0 +1,23 @@
+package HslCommunication.Core.Net.Nio;
+
+import java.nio.channels.SelectionKey;
+
+/**
+ * 注册到 {@link NioEventLoop} 上的通道处理对象，所有的方法都只会在事件循环的线程上被调用<br />
+ * The channel handler registered on {@link NioEventLoop}, all methods are only called on the thread of the event loop
+ */
+public interface INioHandler {
+
+    /**
+     * 当通道的就绪事件发生时调用，可能是可读，可写，或是可接收新的连接<br />
+     * Called when the ready event of the channel occurs, it may be readable, writable, or acceptable
+     * @param key 选择键信息
+     */
+    void HandleSelectionKey(SelectionKey key);
+
+    /**
+     * 事件循环关闭的时候调用，需要释放通道的资源<br />
+     * Called when the event loop is closed, the resources of the channel need to be released
+     */
+    void Close();
+}
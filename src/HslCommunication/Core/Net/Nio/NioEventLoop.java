@@ -0,0 +1,343 @@
+package HslCommunication.Core.Net.Nio;
+
+import HslCommunication.Core.Thread.HashedWheelTimer;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.LogNet.Core.ILogNet;
+import HslCommunication.StringResources;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectableChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 基于 {@link Selector} 的单线程事件循环，一个线程可以服务成百上千个非阻塞的网络通道，所有通道的读写操作都在本线程上完成<br />
+ * A single-threaded event loop based on {@link Selector}, one thread can serve thousands of non-blocking network channels,
+ * and all read and write operations of the channels are completed on this thread
+ */
+public class NioEventLoop {
+
+    /**
+     * 实例化一个事件循环对象，并立即启动后台的线程<br />
+     * Instantiate an event loop object and start the background thread immediately
+     * @param name 线程的名称
+     * @throws IOException 选择器打开失败的异常
+     */
+    public NioEventLoop(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread() {
+            @Override
+            public void run() {
+                RunLoop();
+            }
+        };
+        thread.setName(name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * 当前的事件循环的日志对象<br />
+     * The log object of the current event loop
+     */
+    public ILogNet LogNet = null;
+
+    /**
+     * 判断当前的调用线程是否是事件循环的线程<br />
+     * Determine whether the current calling thread is the thread of the event loop
+     * @return 是否在事件循环中
+     */
+    public boolean InEventLoop() {
+        return Thread.currentThread() == thread;
+    }
+
+    /**
+     * 判断当前的调用线程是否是任意一个事件循环的线程，事件循环的线程上不能等待异步的结果，否则会等待排在自己后面的任务而导致事件循环卡死<br />
+     * Determine whether the current calling thread is the thread of any event loop. The thread of the event loop cannot wait for asynchronous results,
+     * otherwise it will wait for the tasks queued behind itself and cause the event loop to hang
+     * @return 是否在事件循环中
+     */
+    public static boolean IsEventLoopThread() {
+        return currentEventLoop.get() != null;
+    }
+
+    /**
+     * 将一个任务投递到事件循环的线程上执行，本方法是线程安全的<br />
+     * Post a task to the thread of the event loop for execution, this method is thread-safe
+     * @param task 任务对象
+     */
+    public void Execute(Runnable task) {
+        tasks.add(task);
+        if (!InEventLoop()) selector.wakeup();
+    }
+
+    /**
+     * 将一个非阻塞的通道注册到当前的事件循环上，注册的操作在事件循环的线程上完成<br />
+     * Register a non-blocking channel to the current event loop, and the registration operation is completed on the thread of the event loop
+     * @param channel 非阻塞的通道
+     * @param ops 感兴趣的事件
+     * @param handler 通道的处理对象
+     * @return 包含了选择键的结果对象
+     */
+    public CompletableFuture<OperateResultExOne<SelectionKey>> Register(final SelectableChannel channel, final int ops, final INioHandler handler) {
+        final CompletableFuture<OperateResultExOne<SelectionKey>> future = new CompletableFuture<>();
+        Execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isShutdown) {
+                    future.complete(new OperateResultExOne<SelectionKey>("Event loop is shutdown"));
+                    return;
+                }
+                try {
+                    SelectionKey key = channel.register(selector, ops, handler);
+                    handlers.add(handler);
+                    future.complete(OperateResultExOne.CreateSuccessResult(key));
+                } catch (ClosedChannelException ex) {
+                    future.complete(new OperateResultExOne<SelectionKey>(ex.getMessage()));
+                }
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 在事件循环上以非阻塞的方式连接远程的地址，不占用调用方的线程，连接成功后通道从事件循环上注销并切换回阻塞模式，可以继续完成初始化的握手。
+     * 返回的结果在事件循环的线程上完成，后续的阻塞操作需要切换到其他的线程上执行<br />
+     * Connect to the remote address on the event loop in non-blocking mode without occupying the calling thread. After the connection is successful,
+     * the channel is deregistered from the event loop and switched back to blocking mode, and the initial handshake can be completed.
+     * The returned result is completed on the thread of the event loop, and subsequent blocking operations need to be switched to other threads for execution
+     * @param channel 还没有连接的通道
+     * @param endPoint 远程的地址
+     * @param timeOut 连接的超时时间，单位毫秒，小于等于0时不检查超时
+     * @return 是否连接成功的异步结果
+     */
+    public CompletableFuture<OperateResult> Connect(final SocketChannel channel, final SocketAddress endPoint, final int timeOut) {
+        final NioConnector connector = new NioConnector(channel);
+        Execute(new Runnable() {
+            @Override
+            public void run() {
+                if (isShutdown) {
+                    connector.Finish("Event loop is shutdown");
+                    return;
+                }
+                try {
+                    channel.configureBlocking(false);
+                    if (channel.connect(endPoint)) {
+                        connector.Finish(null);
+                        return;
+                    }
+                    connector.key = channel.register(selector, SelectionKey.OP_CONNECT, connector);
+                    handlers.add(connector);
+                } catch (IOException | RuntimeException ex) {
+                    connector.Finish(ex.getMessage());
+                    return;
+                }
+
+                if (timeOut > 0) connector.timeout = HashedWheelTimer.getDefault().Schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        Execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                connector.Finish(StringResources.Language.ConnectTimeout() + timeOut);
+                            }
+                        });
+                    }
+                }, timeOut);
+            }
+        });
+        return connector.future;
+    }
+
+    /**
+     * 将通道从事件循环上注销，本方法只能在事件循环的线程上调用。在投递的任务里调用时，完成后通道可以重新切换到阻塞的模式，
+     * 在处理选择键的过程中调用时，通道在本轮的选择键处理完成之后才真正的移除<br />
+     * Deregister the channel from the event loop, this method can only be called on the thread of the event loop. When called in a posted task,
+     * the channel can be switched back to blocking mode after completion. When called while handling the selection keys,
+     * the channel is not actually removed until the selection keys of this round are handled
+     * @param key 选择键信息
+     * @param handler 通道的处理对象
+     * @return 是否注销成功
+     */
+    public OperateResult Deregister(SelectionKey key, INioHandler handler) {
+        handlers.remove(handler);
+        if (key == null) return OperateResult.CreateSuccessResult();
+        key.cancel();
+
+        // 遍历选择键的时候执行选择操作会修改正在遍历的集合，推迟到遍历完成之后
+        if (isIterating) {
+            purgeCancelledKeys = true;
+            return OperateResult.CreateSuccessResult();
+        }
+        try {
+            // 需要再执行一次选择操作，通道才会真正的从选择器里移除
+            selector.selectNow();
+            return OperateResult.CreateSuccessResult();
+        } catch (IOException ex) {
+            return new OperateResult(ex.getMessage());
+        }
+    }
+
+    /**
+     * 关闭当前的事件循环，所有注册的通道都将被关闭<br />
+     * Close the current event loop, all registered channels will be closed
+     */
+    public void Shutdown() {
+        isShutdown = true;
+        selector.wakeup();
+    }
+
+    private void RunLoop() {
+        currentEventLoop.set(this);
+        while (!isShutdown) {
+            try {
+                selector.select();
+
+                isIterating = true;
+                try {
+                    Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+                    while (iterator.hasNext()) {
+                        SelectionKey key = iterator.next();
+                        iterator.remove();
+                        if (!key.isValid()) continue;
+
+                        INioHandler handler = (INioHandler) key.attachment();
+                        try {
+                            handler.HandleSelectionKey(key);
+                        } catch (Exception ex) {
+                            if (LogNet != null) LogNet.WriteException(toString(), ex);
+                            handler.Close();
+                        }
+                    }
+                } finally {
+                    isIterating = false;
+                }
+
+                if (purgeCancelledKeys) {
+                    // 新选中的键留在集合里，下一轮处理
+                    purgeCancelledKeys = false;
+                    selector.selectNow();
+                }
+                RunAllTasks();
+            } catch (Exception ex) {
+                if (LogNet != null) LogNet.WriteException(toString(), ex);
+            }
+        }
+
+        RunAllTasks();
+        for (INioHandler handler : new ArrayList<>(handlers)) handler.Close();
+        handlers.clear();
+        try {
+            selector.close();
+        } catch (IOException ex) {
+
+        }
+    }
+
+    private void RunAllTasks() {
+        Runnable task;
+        while ((task = tasks.poll()) != null) {
+            try {
+                task.run();
+            } catch (Exception ex) {
+                if (LogNet != null) LogNet.WriteException(toString(), ex);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "NioEventLoop[" + thread.getName() + "]";
+    }
+
+    /**
+     * 正在连接的通道的处理对象，连接完成，失败或是超时的时候只结束一次，所有的方法都在事件循环的线程上调用
+     */
+    private class NioConnector implements INioHandler {
+
+        NioConnector(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void HandleSelectionKey(SelectionKey key) {
+            if (!key.isConnectable()) return;
+            try {
+                if (channel.finishConnect()) Finish(null);
+            } catch (IOException ex) {
+                Finish(ex.getMessage());
+            }
+        }
+
+        @Override
+        public void Close() {
+            Finish("Event loop is shutdown");
+        }
+
+        void Finish(final String message) {
+            if (finished) return;
+            finished = true;
+
+            HashedWheelTimer.Timeout wheel = timeout;
+            if (wheel != null) wheel.Cancel();
+            if (isShutdown) {
+                // 事件循环已经关闭，投递的任务不会再执行，直接结束
+                CloseChannel();
+                future.complete(new OperateResult(message == null ? "Event loop is shutdown" : message));
+                return;
+            }
+            Deregister(key, this);
+
+            // 选择键在本轮处理完成之后才真正的移除，之后才能切换回阻塞的模式
+            Execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (message == null) {
+                        try {
+                            channel.configureBlocking(true);
+                            future.complete(OperateResult.CreateSuccessResult());
+                            return;
+                        } catch (IOException | RuntimeException ex) {
+                            CloseChannel();
+                            future.complete(new OperateResult(ex.getMessage()));
+                            return;
+                        }
+                    }
+                    CloseChannel();
+                    future.complete(new OperateResult(message));
+                }
+            });
+        }
+
+        private void CloseChannel() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+
+            }
+        }
+
+        final CompletableFuture<OperateResult> future = new CompletableFuture<>();
+        private final SocketChannel channel;                         // 正在连接的通道
+        SelectionKey key = null;                                     // 注册的选择键
+        HashedWheelTimer.Timeout timeout = null;                     // 连接超时的检测
+        private boolean finished = false;                            // 是否已经结束
+    }
+
+    private final Selector selector;                                                   // 选择器
+    private final Thread thread;                                                       // 事件循环的线程
+    private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();  // 待执行的任务
+    private final ArrayList<INioHandler> handlers = new ArrayList<>();                // 注册的处理对象，只在事件循环线程访问
+    private volatile boolean isShutdown = false;                                       // 是否已经关闭
+    private boolean isIterating = false;                                               // 是否正在遍历选择键，只在事件循环线程访问
+    private boolean purgeCancelledKeys = false;                                        // 遍历完成后是否需要移除取消的键
+    private static final ThreadLocal<NioEventLoop> currentEventLoop = new ThreadLocal<>();  // 当前线程所属的事件循环
+}
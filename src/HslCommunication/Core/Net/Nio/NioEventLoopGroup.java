@@ -0,0 +1,82 @@
+package HslCommunication.Core.Net.Nio;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 固定数量的 {@link NioEventLoop} 组成的事件循环组，新的通道按照轮询的方式分配到各个事件循环上，多个设备对象可以共享同一个组<br />
+ * An event loop group consisting of a fixed number of {@link NioEventLoop}, new channels are assigned to each event loop in a round-robin manner,
+ * and multiple device objects can share the same group
+ */
+public class NioEventLoopGroup {
+
+    /**
+     * 实例化一个事件循环组，需要指定线程的数量<br />
+     * Instantiate an event loop group, you need to specify the number of threads
+     * @param threadCount 事件循环线程的数量
+     * @throws IOException 选择器打开失败的异常
+     */
+    public NioEventLoopGroup(int threadCount) throws IOException {
+        if (threadCount < 1) threadCount = 1;
+        eventLoops = new NioEventLoop[threadCount];
+        int id = groupCount.incrementAndGet();
+        for (int i = 0; i < threadCount; i++) {
+            eventLoops[i] = new NioEventLoop("HslNioEventLoop-" + id + "-" + i);
+        }
+    }
+
+    /**
+     * 获取下一个可用的事件循环对象<br />
+     * Get the next available event loop object
+     * @return 事件循环对象
+     */
+    public NioEventLoop Next() {
+        return eventLoops[(nextIndex.getAndIncrement() & Integer.MAX_VALUE) % eventLoops.length];
+    }
+
+    /**
+     * 获取事件循环线程的数量<br />
+     * Get the number of event loop threads
+     * @return 线程数量
+     */
+    public int getThreadCount() {
+        return eventLoops.length;
+    }
+
+    /**
+     * 关闭所有的事件循环，注册在上面的所有通道都将被关闭<br />
+     * Close all event loops, all channels registered on them will be closed
+     */
+    public void Shutdown() {
+        for (NioEventLoop eventLoop : eventLoops) eventLoop.Shutdown();
+    }
+
+    /**
+     * 获取系统默认的共享事件循环组，线程数量为CPU核心数，最多4个，第一次调用时创建<br />
+     * Get the default shared event loop group of the system, the number of threads is the number of CPU cores, up to 4, created on the first call
+     * @return 默认的事件循环组
+     * @throws IOException 选择器打开失败的异常
+     */
+    public static NioEventLoopGroup getDefault() throws IOException {
+        NioEventLoopGroup group = defaultGroup;
+        if (group == null) {
+            synchronized (NioEventLoopGroup.class) {
+                if (defaultGroup == null) {
+                    defaultGroup = new NioEventLoopGroup(Math.min(4, Runtime.getRuntime().availableProcessors()));
+                }
+                group = defaultGroup;
+            }
+        }
+        return group;
+    }
+
+    @Override
+    public String toString() {
+        return "NioEventLoopGroup[" + eventLoops.length + "]";
+    }
+
+    private final NioEventLoop[] eventLoops;                           // 所有的事件循环
+    private final AtomicInteger nextIndex = new AtomicInteger();       // 轮询的索引
+    private static final AtomicInteger groupCount = new AtomicInteger(); // 组的编号
+    private static volatile NioEventLoopGroup defaultGroup = null;     // 默认的组
+}
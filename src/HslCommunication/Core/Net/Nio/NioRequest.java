@@ -0,0 +1,98 @@
+package HslCommunication.Core.Net.Nio;
+
+import HslCommunication.Core.IMessage.INetMessage;
+import HslCommunication.Core.Net.DeviceMetrics;
+import HslCommunication.Core.Thread.HashedWheelTimer;
+import HslCommunication.Core.Types.OperateResultExOne;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 在 {@link NioSession} 中排队等待发送及接收的一次请求信息<br />
+ * A request queued in {@link NioSession} waiting to be sent and received
+ */
+public class NioRequest {
+
+    /**
+     * 实例化一个请求对象<br />
+     * Instantiate a request object
+     * @param sendBytes 发送的完整的报文
+     * @param netMessage 消息的格式定义，为空时接收任意长度的数据
+     * @param receiveTimeOut 接收的超时时间，单位毫秒，为负数时不接收数据，为0时不检查超时
+     */
+    public NioRequest(byte[] sendBytes, INetMessage netMessage, int receiveTimeOut) {
+        this(sendBytes, netMessage, receiveTimeOut, -1);
+    }
+
+    /**
+     * 实例化一个带有消息标识的请求对象，设备返回的报文使用 {@link INetMessage#GetHeadBytesIdentity()} 和本标识进行匹配<br />
+     * Instantiate a request object with a message identity, the message returned by the device is matched with this identity
+     * using {@link INetMessage#GetHeadBytesIdentity()}
+     * @param sendBytes 发送的完整的报文
+     * @param netMessage 消息的格式定义，为空时接收任意长度的数据
+     * @param receiveTimeOut 接收的超时时间，单位毫秒，为负数时不接收数据，为0时不检查超时
+     * @param identity 消息标识，为负数时表示没有标识，需要独占通道
+     */
+    public NioRequest(byte[] sendBytes, INetMessage netMessage, int receiveTimeOut, int identity) {
+        SendBytes = sendBytes == null ? new byte[0] : sendBytes;
+        NetMessage = netMessage;
+        ReceiveTimeOut = receiveTimeOut;
+        Identity = identity;
+        Future = new CompletableFuture<>();
+    }
+
+    /**
+     * 发送的完整的报文
+     */
+    public byte[] SendBytes = null;
+
+    /**
+     * 消息的格式定义
+     */
+    public INetMessage NetMessage = null;
+
+    /**
+     * 接收的超时时间，单位毫秒
+     */
+    public int ReceiveTimeOut = 10000;
+
+    /**
+     * 消息标识，为负数时表示没有标识
+     */
+    public int Identity = -1;
+
+    /**
+     * 在时间轮定时器上等待的超时对象，在请求开始发送的时候添加，请求完成的时候取消
+     */
+    public HashedWheelTimer.Timeout WheelTimeout = null;
+
+    /**
+     * 记录本次请求耗时的统计对象，为空时不记录
+     */
+    public DeviceMetrics Metrics = null;
+
+    /**
+     * 开始发送的时间，来自 {@link System#nanoTime()}
+     */
+    public long StartTime = 0;
+
+    /**
+     * 发送完成的时间，来自 {@link System#nanoTime()}
+     */
+    public long SentTime = 0;
+
+    /**
+     * 接收完报文头的时间，来自 {@link System#nanoTime()}
+     */
+    public long HeadTime = 0;
+
+    /**
+     * 请求完成时的结果对象
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> Future = null;
+
+    @Override
+    public String toString() {
+        return "NioRequest[" + SendBytes.length + "]";
+    }
+}
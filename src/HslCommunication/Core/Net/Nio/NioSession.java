@@ -0,0 +1,586 @@
+package HslCommunication.Core.Net.Nio;
+
+import HslCommunication.BasicFramework.SoftBasic;
+import HslCommunication.Core.IMessage.INetMessage;
+import HslCommunication.Core.Net.DeviceMetrics;
+import HslCommunication.Core.Thread.HashedWheelTimer;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.StringResources;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 基于非阻塞的 {@link SocketChannel} 的设备会话，请求按照先后顺序排队，由 {@link INetMessage} 的报文头和内容规则驱动非阻塞的接收，
+ * 调用方线程在等待设备返回的时候不再占用锁。对于报文里带有消息标识的协议，可以设置大于1的窗口，多个请求同时等待设备返回，并按照标识匹配返回的报文。<br />
+ * A device session based on a non-blocking {@link SocketChannel}, requests are queued in order,
+ * and the non-blocking reception is driven by the head and content rules of {@link INetMessage},
+ * the calling thread no longer holds a lock while waiting for the device to return. For protocols with a message identity in the message,
+ * a window greater than 1 can be set, multiple requests wait for the device to return at the same time, and the returned messages are matched by the identity.
+ */
+public class NioSession implements INioHandler {
+
+    /**
+     * 使用指定的事件循环和已经连接的通道实例化一个会话，需要调用 {@link #Open()} 方法才开始工作<br />
+     * Instantiate a session with the specified event loop and the connected channel, you need to call the {@link #Open()} method to start working
+     * @param eventLoop 事件循环
+     * @param channel 已经连接成功的通道
+     * @param token 用于检查报文头的令牌
+     */
+    public NioSession(NioEventLoop eventLoop, SocketChannel channel, byte[] token) {
+        this.eventLoop = eventLoop;
+        this.channel = channel;
+        this.token = token;
+    }
+
+    /**
+     * 将通道切换到非阻塞模式，并注册到事件循环上，本方法会等待注册完成，在事件循环的线程上调用时返回失败<br />
+     * Switch the channel to non-blocking mode and register it on the event loop. This method waits for the registration to complete,
+     * and returns failure when called on the thread of the event loop
+     * @return 是否注册成功
+     */
+    public OperateResult Open() {
+        if (NioEventLoop.IsEventLoopThread()) return new OperateResult(StringResources.Language.BlockingCallInEventLoop());
+        try {
+            channel.configureBlocking(false);
+        } catch (IOException ex) {
+            closed = true;
+            CloseChannel();
+            return new OperateResult(ex.getMessage());
+        }
+
+        OperateResultExOne<SelectionKey> register = eventLoop.Register(channel, SelectionKey.OP_READ, this).join();
+        if (!register.IsSuccess) {
+            closed = true;
+            CloseChannel();
+            return register;
+        }
+        selectionKey = register.Content;
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 获取当前会话使用的事件循环<br />
+     * Get the event loop used by the current session
+     * @return 事件循环
+     */
+    public NioEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * 获取当前会话的通道<br />
+     * Get the channel of the current session
+     * @return 通道
+     */
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * 获取当前的会话是否已经关闭，关闭之后的会话不可再使用<br />
+     * Get whether the current session has been closed, the session cannot be used after closing
+     * @return 是否关闭
+     */
+    public boolean IsClosed() {
+        return closed;
+    }
+
+    /**
+     * 获取同时等待设备返回的最大请求数量，默认为1，即一问一答的模式<br />
+     * Get the maximum number of requests waiting for the device to return at the same time, the default is 1, that is, the question-and-answer mode
+     * @return 请求的窗口大小
+     */
+    public int getPipelineWindow() {
+        return pipelineWindow;
+    }
+
+    /**
+     * 设置同时等待设备返回的最大请求数量，大于1时，带有消息标识的请求将连续发送，设备返回的报文根据 {@link INetMessage#GetHeadBytesIdentity()} 匹配到对应的请求，
+     * 没有消息标识的请求仍然独占通道<br />
+     * Set the maximum number of requests waiting for the device to return at the same time. When it is greater than 1, requests with a message identity will be sent continuously,
+     * and the message returned by the device is matched to the corresponding request according to {@link INetMessage#GetHeadBytesIdentity()},
+     * requests without a message identity still monopolize the channel
+     * @param pipelineWindow 请求的窗口大小
+     */
+    public void setPipelineWindow(int pipelineWindow) {
+        this.pipelineWindow = Math.max(1, pipelineWindow);
+        if (!closed) eventLoop.Execute(flushTask);
+    }
+
+    /**
+     * 设置记录请求耗时的统计对象，为空时不记录，每个成功的请求记录发送耗时，首字节耗时及往返耗时<br />
+     * Set the statistics object that records the time-consuming of the request, and do not record when it is null.
+     * Each successful request records the sending time, the time to first byte and the round-trip time
+     * @param metrics 统计对象
+     */
+    public void setMetrics(DeviceMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 将一条完整的报文加入发送的队列，并返回接收完成的结果，本方法是线程安全的，不会阻塞调用方<br />
+     * Add a complete message to the sending queue and return the received result,
+     * this method is thread-safe and will not block the caller
+     * @param send 发送的完整的报文
+     * @param netMessage 消息的格式定义，为空时接收一次任意长度的数据
+     * @param receiveTimeOut 接收的超时时间，单位毫秒，为负数时不接收数据，为0时不检查超时
+     * @return 接收的完整的报文信息
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> Request(byte[] send, INetMessage netMessage, int receiveTimeOut) {
+        return Request(send, netMessage, receiveTimeOut, -1);
+    }
+
+    /**
+     * 将一条带有消息标识的完整的报文加入发送的队列，并返回接收完成的结果，窗口大于1时，多个请求可以同时等待设备的返回，本方法是线程安全的，不会阻塞调用方<br />
+     * Add a complete message with a message identity to the sending queue and return the received result. When the window is greater than 1,
+     * multiple requests can wait for the return of the device at the same time, this method is thread-safe and will not block the caller
+     * @param send 发送的完整的报文
+     * @param netMessage 消息的格式定义，带有消息标识时不能为空
+     * @param receiveTimeOut 接收的超时时间，单位毫秒，为负数时不接收数据，为0时不检查超时
+     * @param identity 消息标识，需要和设备返回的报文里的 {@link INetMessage#GetHeadBytesIdentity()} 一致，为负数时表示没有标识
+     * @return 接收的完整的报文信息
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> Request(byte[] send, INetMessage netMessage, int receiveTimeOut, int identity) {
+        NioRequest request = new NioRequest(send, netMessage, receiveTimeOut, netMessage == null ? -1 : identity);
+        request.Metrics = metrics;
+        if (netMessage != null) netMessage.setSendBytes(send);
+
+        if (closed) {
+            request.Future.complete(new OperateResultExOne<byte[]>(StringResources.Language.ConnectionIsNotAvailable()));
+            return request.Future;
+        }
+
+        waitQueue.add(request);
+        eventLoop.Execute(flushTask);
+        return request.Future;
+    }
+
+    /**
+     * 关闭当前的会话，所有未完成的请求都将返回失败<br />
+     * Close the current session, all unfinished requests will return failure
+     */
+    @Override
+    public void Close() {
+        if (eventLoop.InEventLoop()) {
+            CloseSession(StringResources.Language.ConnectionIsNotAvailable());
+        } else {
+            closed = true;
+            eventLoop.Execute(new Runnable() {
+                @Override
+                public void run() {
+                    CloseSession(StringResources.Language.ConnectionIsNotAvailable());
+                }
+            });
+        }
+    }
+
+    /**
+     * 将通道从事件循环上分离出来，并切换回阻塞的模式，未完成的请求都将返回失败，用于断开连接前需要额外发送报文的协议<br />
+     * Detach the channel from the event loop and switch back to blocking mode, all unfinished requests will return failure,
+     * used for protocols that need to send extra messages before disconnecting
+     * @return 分离出来的阻塞模式的通道
+     */
+    public CompletableFuture<OperateResultExOne<SocketChannel>> Detach() {
+        final CompletableFuture<OperateResultExOne<SocketChannel>> future = new CompletableFuture<>();
+        closed = true;
+        eventLoop.Execute(new Runnable() {
+            @Override
+            public void run() {
+                if (!channel.isOpen()) {
+                    future.complete(new OperateResultExOne<SocketChannel>(StringResources.Language.ConnectionIsNotAvailable()));
+                    return;
+                }
+                OperateResult deregister = eventLoop.Deregister(selectionKey, NioSession.this);
+                FailAll(StringResources.Language.ConnectionIsNotAvailable());
+                if (!deregister.IsSuccess) {
+                    CloseChannel();
+                    future.complete(OperateResultExOne.<SocketChannel>CreateFailedResult(deregister));
+                    return;
+                }
+                try {
+                    channel.configureBlocking(true);
+                    future.complete(OperateResultExOne.CreateSuccessResult(channel));
+                } catch (IOException ex) {
+                    CloseChannel();
+                    future.complete(new OperateResultExOne<SocketChannel>(ex.getMessage()));
+                }
+            }
+        });
+        return future;
+    }
+
+    // region INioHandler
+
+    @Override
+    public void HandleSelectionKey(SelectionKey key) {
+        try {
+            if (key.isWritable()) Flush();
+            if (key.isValid() && key.isReadable()) DoRead();
+        } catch (IOException ex) {
+            CloseSession(ex.getMessage());
+        }
+    }
+
+    // endregion
+
+    // region Private Method
+
+    /**
+     * 时间轮定时器到期之后，在事件循环的线程上处理请求的超时
+     * @param request 超时的请求
+     */
+    private void TimeOut(NioRequest request) {
+        String message = StringResources.Language.ReceiveDataTimeout() + request.ReceiveTimeOut;
+        if (request == exclusive) {
+            // 超时之后，通道内的报文已经无法对齐，只能关闭连接
+            CompleteExclusive(new OperateResultExOne<byte[]>(message));
+            CloseSession(message);
+            return;
+        }
+
+        // 带有标识的请求超时之后，迟到的报文会因为找不到对应的请求而被丢弃，不影响后续的请求
+        if (inFlight.get(request.Identity) != request) return;
+        inFlight.remove(request.Identity);
+        lateReplies++;
+        Complete(request, new OperateResultExOne<byte[]>(message));
+        if (inFlight.isEmpty()) {
+            // 没有其他等待返回的请求时，通道不再按照报文接收数据，迟到的报文无法对齐，只能关闭连接
+            CloseSession(message);
+            return;
+        }
+        Flush();
+    }
+
+    private void ScheduleTimeOut(final NioRequest request) {
+        request.WheelTimeout = HashedWheelTimer.getDefault().Schedule(new Runnable() {
+            @Override
+            public void run() {
+                eventLoop.Execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        TimeOut(request);
+                    }
+                });
+            }
+        }, request.ReceiveTimeOut);
+    }
+
+    private static void Complete(NioRequest request, OperateResultExOne<byte[]> result) {
+        HashedWheelTimer.Timeout timeout = request.WheelTimeout;
+        if (timeout != null) timeout.Cancel();
+        DeviceMetrics metrics = request.Metrics;
+        if (metrics != null && result.IsSuccess && request.SentTime != 0) {
+            metrics.RecordExchange(request.StartTime, request.SentTime, request.HeadTime, System.nanoTime(),
+                    request.SendBytes.length, result.Content == null ? 0 : result.Content.length);
+        }
+        request.Future.complete(result);
+    }
+
+    private void Flush() {
+        if (closed) {
+            // 通道的关闭由关闭或是分离的任务负责，此处只需要让排队的请求返回
+            FailAll(StringResources.Language.ConnectionIsNotAvailable());
+            return;
+        }
+
+        try {
+            while (true) {
+                if (writeBuffer != null) {
+                    channel.write(writeBuffer);
+                    if (writeBuffer.hasRemaining()) {
+                        SetInterestWrite(true);
+                        return;
+                    }
+                    SetInterestWrite(false);
+                    NioRequest sent = writing;
+                    writing = null;
+                    writeBuffer = null;
+                    AfterSend(sent);
+                    continue;
+                }
+
+                // 独占通道的请求还在等待返回
+                if (exclusive != null) return;
+
+                if (pending == null) {
+                    pending = waitQueue.poll();
+                    if (pending == null) return;
+                }
+                NioRequest request = pending;
+                if (request.Future.isDone()) {
+                    pending = null;
+                    continue;
+                }
+
+                if (pipelineWindow > 1 && request.Identity >= 0) {
+                    // 窗口已满或是标识还在使用中，需要等待之前的请求返回
+                    if (inFlight.size() >= pipelineWindow || inFlight.containsKey(request.Identity)) return;
+                    inFlight.put(request.Identity, request);
+                } else {
+                    // 没有标识的请求需要等待所有的请求都返回之后，才能独占通道
+                    if (!inFlight.isEmpty()) return;
+                    exclusive = request;
+                }
+
+                pending = null;
+                if (request.ReceiveTimeOut > 0) ScheduleTimeOut(request);
+                writing = request;
+                writeBuffer = ByteBuffer.wrap(request.SendBytes);
+                if (request.Metrics != null) request.StartTime = System.nanoTime();
+            }
+        } catch (IOException ex) {
+            CloseSession(ex.getMessage());
+        }
+    }
+
+    private void AfterSend(NioRequest request) {
+        if (request.Metrics != null) request.SentTime = System.nanoTime();
+        if (request.ReceiveTimeOut < 0) {
+            if (request == exclusive) {
+                CompleteExclusive(OperateResultExOne.CreateSuccessResult(new byte[0]));
+            } else if (inFlight.get(request.Identity) == request) {
+                inFlight.remove(request.Identity);
+                Complete(request, OperateResultExOne.CreateSuccessResult(new byte[0]));
+            }
+            return;
+        }
+        StartReceive();
+    }
+
+    private void StartReceive() {
+        if (receiveBuffer != null) return;
+
+        // 开始接收报文头，带有标识的请求都是同一种消息格式，使用最早的请求的消息对象解析报文
+        if (exclusive != null) {
+            if (exclusive == writing) return;
+            receiveMessage = exclusive.NetMessage;
+        } else if (!inFlight.isEmpty()) {
+            receiveMessage = inFlight.values().iterator().next().NetMessage;
+        } else {
+            return;
+        }
+
+        isReceivingContent = false;
+        receiveBuffer = PrepareFrameBuffer(receiveMessage == null ? DefaultFrameCapacity : receiveMessage.ProtocolHeadBytesLength(), 0);
+    }
+
+    /**
+     * 准备重复使用的接收缓存，容量不足时扩大缓存并保留已经接收的数据，之后的数据从保留的位置开始接收，直到指定的长度
+     * @param length 需要接收的总长度
+     * @param keep 需要保留的已经接收的数据长度
+     * @return 接收缓存
+     */
+    private ByteBuffer PrepareFrameBuffer(int length, int keep) {
+        if (frameBuffer.capacity() < length) {
+            ByteBuffer buffer = ByteBuffer.allocate(Math.max(length, frameBuffer.capacity() * 2));
+            buffer.put(frameBuffer.array(), 0, keep);
+            frameBuffer = buffer;
+        }
+        frameBuffer.limit(length);
+        frameBuffer.position(keep);
+        return frameBuffer;
+    }
+
+    private void DoRead() throws IOException {
+        while (true) {
+            if (receiveBuffer == null) {
+                // 没有等待接收的请求，读取并丢弃多余的数据
+                discardBuffer.clear();
+                int count = channel.read(discardBuffer);
+                if (count < 0) {
+                    CloseSession(StringResources.Language.RemoteClosedConnection());
+                    return;
+                }
+                if (count == 0) return;
+                continue;
+            }
+
+            int count = receiveBuffer.hasRemaining() ? channel.read(receiveBuffer) : 0;
+            if (count < 0) {
+                CloseSession(StringResources.Language.RemoteClosedConnection());
+                return;
+            }
+
+            INetMessage netMessage = receiveMessage;
+            if (netMessage == null) {
+                if (receiveBuffer.position() == 0) return;
+                FinishReceive(SoftBasic.BytesArraySelectBegin(receiveBuffer.array(), receiveBuffer.position()));
+                if (closed) return;
+                continue;
+            }
+
+            if (receiveBuffer.hasRemaining()) return;
+
+            // 报文头和内容连续的接收到同一个重复使用的缓存里，完成之后只复制出返回的报文及消息对象需要的内容
+            int received = receiveBuffer.position();
+            if (!isReceivingContent) {
+                headTime = System.nanoTime();
+                netMessage.setHeadBytes(Arrays.copyOf(receiveBuffer.array(), received));
+                int contentLength = netMessage.GetContentLengthByHeadBytes();
+
+                // 有些消息在计算长度的时候会重新调整报文头，此处以调整之后的报文头为准
+                byte[] head = netMessage.getHeadBytes();
+                receiveHeadLength = head.length;
+                if (contentLength <= 0) {
+                    FinishReceive(Arrays.copyOf(head, head.length));
+                    if (closed) return;
+                    continue;
+                }
+
+                isReceivingContent = true;
+                receiveBuffer = PrepareFrameBuffer(head.length + contentLength, 0);
+                receiveBuffer.put(head);
+            } else {
+                byte[] frame = receiveBuffer.array();
+                netMessage.setContentBytes(Arrays.copyOfRange(frame, receiveHeadLength, received));
+                FinishReceive(Arrays.copyOf(frame, received));
+                if (closed) return;
+            }
+        }
+    }
+
+    private void FinishReceive(byte[] receive) {
+        INetMessage netMessage = receiveMessage;
+        receiveMessage = null;
+        receiveBuffer = null;
+        if (frameBuffer.capacity() > MaxFrameCapacity) frameBuffer = ByteBuffer.allocate(DefaultFrameCapacity);
+
+        if (netMessage != null && !netMessage.CheckHeadBytesLegal(token)) {
+            CloseSession(StringResources.Language.CommandHeadCodeCheckFailed());
+            return;
+        }
+
+        long head = headTime == 0 ? System.nanoTime() : headTime;
+        headTime = 0;
+        if (exclusive != null) {
+            exclusive.HeadTime = head;
+            CompleteExclusive(OperateResultExOne.CreateSuccessResult(receive));
+        } else if (netMessage != null) {
+            // 找不到标识对应的请求时，说明请求已经超时，直接丢弃报文
+            NioRequest request = inFlight.remove(netMessage.GetHeadBytesIdentity());
+            if (request != null) {
+                request.HeadTime = head;
+                Complete(request, OperateResultExOne.CreateSuccessResult(receive));
+            } else if (lateReplies > 0) {
+                lateReplies--;
+            }
+
+            // 所有的请求都已经返回，但是还有迟到的报文没有收到，之后的数据无法对齐，只能关闭连接
+            if (inFlight.isEmpty() && lateReplies > 0) {
+                CloseSession(StringResources.Language.ConnectionIsNotAvailable());
+                return;
+            }
+        }
+
+        StartReceive();
+        Flush();
+    }
+
+    private void CompleteExclusive(OperateResultExOne<byte[]> result) {
+        NioRequest request = exclusive;
+        exclusive = null;
+        if (request == writing) {
+            writing = null;
+            writeBuffer = null;
+        }
+        receiveMessage = null;
+        receiveBuffer = null;
+        headTime = 0;
+        if (request != null) Complete(request, result);
+    }
+
+    private void SetInterestWrite(boolean write) {
+        SelectionKey key = selectionKey;
+        if (key == null || !key.isValid()) return;
+        key.interestOps(write ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void CloseSession(String message) {
+        closed = true;
+        if (channel.isOpen()) {
+            eventLoop.Deregister(selectionKey, this);
+            CloseChannel();
+        }
+
+        FailAll(message);
+    }
+
+    private void FailAll(String message) {
+        if (exclusive != null) CompleteExclusive(new OperateResultExOne<byte[]>(message));
+        for (NioRequest request : inFlight.values()) {
+            Complete(request, new OperateResultExOne<byte[]>(message));
+        }
+        inFlight.clear();
+        lateReplies = 0;
+        writing = null;
+        writeBuffer = null;
+        receiveMessage = null;
+        receiveBuffer = null;
+        headTime = 0;
+
+        if (pending != null) {
+            Complete(pending, new OperateResultExOne<byte[]>(StringResources.Language.ConnectionIsNotAvailable()));
+            pending = null;
+        }
+        NioRequest request;
+        while ((request = waitQueue.poll()) != null) {
+            request.Future.complete(new OperateResultExOne<byte[]>(StringResources.Language.ConnectionIsNotAvailable()));
+        }
+    }
+
+    private void CloseChannel() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+
+        }
+    }
+
+    // endregion
+
+    @Override
+    public String toString() {
+        return "NioSession[" + channel + "]";
+    }
+
+    private final NioEventLoop eventLoop;                                                   // 事件循环
+    private final SocketChannel channel;                                                    // 网络通道
+    private final byte[] token;                                                             // 令牌
+    private volatile SelectionKey selectionKey = null;                                      // 注册的选择键
+    private volatile boolean closed = false;                                                // 是否已经关闭
+    private volatile int pipelineWindow = 1;                                                // 同时等待返回的请求数量
+    private volatile DeviceMetrics metrics = null;                                          // 记录耗时的统计对象
+    private final ConcurrentLinkedQueue<NioRequest> waitQueue = new ConcurrentLinkedQueue<>();  // 等待发送的请求队列
+
+    // 以下的变量只在事件循环的线程中访问
+    private NioRequest exclusive = null;                                                    // 当前独占通道的请求
+    private final LinkedHashMap<Integer, NioRequest> inFlight = new LinkedHashMap<>();      // 按照标识等待返回的请求，按照发送的先后排序
+    private NioRequest pending = null;                                                      // 已经取出但还不能发送的请求
+    private NioRequest writing = null;                                                      // 正在发送的请求
+    private ByteBuffer writeBuffer = null;                                                  // 正在发送的数据
+    private INetMessage receiveMessage = null;                                              // 正在接收的报文使用的消息对象
+    private ByteBuffer receiveBuffer = null;                                                // 正在接收的数据，为空时表示没有接收
+    private ByteBuffer frameBuffer = ByteBuffer.allocate(DefaultFrameCapacity);             // 重复使用的接收缓存，报文头和内容连续存放
+    private boolean isReceivingContent = false;                                             // 是否正在接收内容数据
+    private int receiveHeadLength = 0;                                                      // 调整之后的报文头的长度
+    private long headTime = 0;                                                              // 接收完报文头的时间
+    private int lateReplies = 0;                                                            // 已经超时但是还没有收到返回的带有标识的请求数量
+    private final ByteBuffer discardBuffer = ByteBuffer.allocate(1024);                    // 丢弃数据的缓存
+
+    private static final int DefaultFrameCapacity = 1024;                                   // 接收缓存的默认容量
+    private static final int MaxFrameCapacity = 64 * 1024;                                  // 接收完成之后保留的接收缓存的最大容量
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            Flush();
+        }
+    };
+}
@@ -0,0 +1,351 @@
+package HslCommunication.Core.Net.Nio;
+
+import HslCommunication.Core.Thread.HashedWheelTimer;
+import HslCommunication.Core.Types.FunctionOperateExOne;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.StringResources;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * UDP的多路复用对象，多个UDP设备共用一个非阻塞的 {@link DatagramChannel} 及一个事件循环的线程，收到的报文按照远程地址及协议里的消息标识（比如Fins的SID）
+ * 匹配到等待的请求，已经超时的请求的返回或是无法匹配的报文直接丢弃。同一个远程地址上消息标识相同的请求，比如多个设备对象连接同一个设备，
+ * 在前面的请求完成之后依次发送，没有消息标识的协议，同一个远程地址同时只有一个请求在等待返回，其余的请求排队。<br />
+ * The UDP multiplexing object, multiple UDP devices share a non-blocking {@link DatagramChannel} and the thread of an event loop.
+ * The received messages are matched to the waiting requests according to the remote address and the message identity in the protocol (such as the SID of Fins),
+ * and the returns of the timed-out requests or the unmatched messages are discarded directly. Requests with the same message identity on the same remote address,
+ * such as multiple device objects connected to the same device, are sent in turn after the previous request is completed. For protocols without message identity,
+ * only one request waits for the return at the same time for the same remote address, and the rest of the requests are queued.
+ */
+public class UdpMultiplexer implements INioHandler {
+
+    /**
+     * 使用指定的事件循环实例化一个多路复用对象，本地的端口由系统自动分配<br />
+     * Instantiate a multiplexing object with the specified event loop, and the local port is automatically assigned by the system
+     * @param eventLoop 事件循环
+     * @throws IOException 通道打开失败的异常
+     */
+    public UdpMultiplexer(NioEventLoop eventLoop) throws IOException {
+        this(eventLoop, 0);
+    }
+
+    /**
+     * 使用指定的事件循环及本地的端口实例化一个多路复用对象，通道在事件循环上异步注册，不会等待注册完成，可以在事件循环的线程上调用<br />
+     * Instantiate a multiplexing object with the specified event loop and local port. The channel is registered asynchronously on the event loop
+     * without waiting for the registration to complete, and it can be called on the thread of the event loop
+     * @param eventLoop 事件循环
+     * @param localPort 本地的端口，0表示由系统自动分配
+     * @throws IOException 通道打开或是绑定失败的异常
+     */
+    public UdpMultiplexer(NioEventLoop eventLoop, int localPort) throws IOException {
+        this.eventLoop = eventLoop;
+        channel = DatagramChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.bind(new InetSocketAddress(localPort));
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+
+        // 注册的任务先于所有请求的任务投递到事件循环，请求开始的时候注册已经完成
+        eventLoop.Register(channel, SelectionKey.OP_READ, this).thenAccept(new Consumer<OperateResultExOne<SelectionKey>>() {
+            @Override
+            public void accept(OperateResultExOne<SelectionKey> register) {
+                if (register.IsSuccess) selectionKey = register.Content;
+                else Close();
+            }
+        });
+    }
+
+    /**
+     * 获取本地绑定的端口号<br />
+     * Get the locally bound port number
+     * @return 端口号
+     */
+    public int getLocalPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    /**
+     * 获取当前正在等待返回的请求数量<br />
+     * Get the number of requests currently waiting for return
+     * @return 请求数量
+     */
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    /**
+     * 获取收到后被丢弃的报文数量，包括已经超时的请求的返回及无法匹配的报文<br />
+     * Get the number of messages discarded after being received, including the returns of timed-out requests and unmatched messages
+     * @return 报文数量
+     */
+    public long getDiscardCount() {
+        return discardCount;
+    }
+
+    /**
+     * 发送报文到指定的远程地址，并异步等待匹配的返回，收到的报文使用 responseIdentity 提取消息标识，和 identity 一致的时候认为是当前请求的返回<br />
+     * Send the message to the specified remote address, and wait asynchronously for the matching return. The message identity of the received message
+     * is extracted by responseIdentity, and it is considered as the return of the current request when it is consistent with identity
+     * @param remote 远程的地址
+     * @param send 发送的报文
+     * @param identity 请求的消息标识，负数表示协议没有消息标识，标识正在被同一个地址的其他请求使用的时候，排队等待前面的请求完成
+     * @param responseIdentity 从返回的报文中提取消息标识的方法，无法识别的报文返回负数
+     * @param receiveTimeOut 接收的超时时间，包含排队的时间，0表示一直等待，负数表示不接收返回
+     * @return 设备返回的报文的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> Request(final InetSocketAddress remote, final byte[] send, int identity,
+                                                                final FunctionOperateExOne<byte[], Integer> responseIdentity, final int receiveTimeOut) {
+        final PendingRequest request = new PendingRequest(remote, identity < 0 ? -1 : identity, responseIdentity, send);
+        eventLoop.Execute(new Runnable() {
+            @Override
+            public void run() {
+                StartRequest(request, receiveTimeOut);
+            }
+        });
+        return request.Future;
+    }
+
+    /**
+     * 关闭多路复用对象，所有等待的请求都返回失败<br />
+     * Close the multiplexing object, and all waiting requests return failure
+     */
+    public void Shutdown() {
+        eventLoop.Execute(new Runnable() {
+            @Override
+            public void run() {
+                eventLoop.Deregister(selectionKey, UdpMultiplexer.this);
+                Close();
+            }
+        });
+    }
+
+    @Override
+    public void HandleSelectionKey(SelectionKey key) {
+        if (!key.isReadable()) return;
+
+        try {
+            while (true) {
+                receiveBuffer.clear();
+                SocketAddress from = channel.receive(receiveBuffer);
+                if (from == null) return;
+
+                receiveBuffer.flip();
+                byte[] receive = new byte[receiveBuffer.remaining()];
+                receiveBuffer.get(receive);
+                Dispatch(from, receive);
+            }
+        } catch (IOException ex) {
+            // 无连接的通道不会因为单个设备的异常而失效，忽略本次的接收
+        }
+    }
+
+    @Override
+    public void Close() {
+        closed = true;
+        ArrayList<PendingRequest> requests = new ArrayList<>();
+        for (RemoteEndPoint endPoint : endPoints.values()) {
+            requests.addAll(endPoint.Requests.values());
+            requests.addAll(endPoint.Waiting);
+        }
+        for (PendingRequest request : requests) {
+            Complete(request, new OperateResultExOne<byte[]>(StringResources.Language.ConnectionIsNotAvailable()));
+        }
+        try {
+            channel.close();
+        } catch (IOException ex) {
+
+        }
+    }
+
+    private void StartRequest(final PendingRequest request, int receiveTimeOut) {
+        if (closed) {
+            request.Future.complete(new OperateResultExOne<byte[]>(StringResources.Language.ConnectionIsNotAvailable()));
+            return;
+        }
+
+        if (receiveTimeOut < 0) {
+            OperateResultExOne<byte[]> send = Send(request);
+            request.Future.complete(send.IsSuccess ? OperateResultExOne.CreateSuccessResult(new byte[0]) : send);
+            return;
+        }
+
+        RemoteEndPoint endPoint = endPoints.get(request.Remote);
+        if (endPoint == null) {
+            endPoint = new RemoteEndPoint();
+            endPoints.put(request.Remote, endPoint);
+        }
+        endPoint.ResponseIdentity = request.ResponseIdentity;
+        pendingCount++;
+        if (receiveTimeOut > 0) {
+            request.WheelTimeout = HashedWheelTimer.getDefault().Schedule(new Runnable() {
+                @Override
+                public void run() {
+                    eventLoop.Execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            // 超时之后，迟到的报文会因为找不到对应的请求而被丢弃
+                            if (request.Future.isDone()) return;
+                            Complete(request, new OperateResultExOne<byte[]>(StringResources.Language.ReceiveDataTimeout() + request));
+                        }
+                    });
+                }
+            }, receiveTimeOut);
+        }
+
+        // 已经有排队的请求时也要排队，保证发送的顺序
+        if (!endPoint.Waiting.isEmpty() || !endPoint.CanSend(request.Identity)) {
+            endPoint.Waiting.add(request);
+            return;
+        }
+        SendRequest(endPoint, request);
+    }
+
+    private void SendRequest(RemoteEndPoint endPoint, PendingRequest request) {
+        OperateResultExOne<byte[]> send = Send(request);
+        if (!send.IsSuccess) {
+            Finish(endPoint, request, send);
+            return;
+        }
+        endPoint.Requests.put(request.Identity, request);
+    }
+
+    private OperateResultExOne<byte[]> Send(PendingRequest request) {
+        try {
+            if (channel.send(ByteBuffer.wrap(request.SendBytes), request.Remote) == 0)
+                return new OperateResultExOne<byte[]>(StringResources.Language.SendBufferIsFull() + request);
+            return OperateResultExOne.CreateSuccessResult(request.SendBytes);
+        } catch (IOException ex) {
+            return new OperateResultExOne<byte[]>(ex.getMessage());
+        }
+    }
+
+    private void Dispatch(SocketAddress from, byte[] receive) {
+        RemoteEndPoint endPoint = endPoints.get(from);
+        PendingRequest request = null;
+        if (endPoint != null) {
+            // 没有消息标识的协议，同一个地址只有一个请求在等待，否则从报文中提取消息标识再匹配
+            request = endPoint.Requests.get(-1);
+            if (request == null && endPoint.ResponseIdentity != null) {
+                Integer identity = endPoint.ResponseIdentity.Action(receive);
+                if (identity != null && identity >= 0) request = endPoint.Requests.get(identity);
+            }
+        }
+
+        if (request == null) {
+            discardCount++;
+            return;
+        }
+        Complete(request, OperateResultExOne.CreateSuccessResult(receive));
+    }
+
+    private void Complete(PendingRequest request, OperateResultExOne<byte[]> result) {
+        RemoteEndPoint endPoint = endPoints.get(request.Remote);
+        if (endPoint == null) {
+            request.Future.complete(result);
+            return;
+        }
+        if (endPoint.Requests.get(request.Identity) == request) endPoint.Requests.remove(request.Identity);
+        else endPoint.Waiting.remove(request);
+        Finish(endPoint, request, result);
+
+        // 释放了消息标识之后，发送排队的请求，遇到标识还在使用中的请求就停止，保证发送的顺序
+        while (!closed && !endPoint.Waiting.isEmpty() && endPoint.CanSend(endPoint.Waiting.peek().Identity)) {
+            SendRequest(endPoint, endPoint.Waiting.poll());
+        }
+        if (endPoint.Requests.isEmpty() && endPoint.Waiting.isEmpty()) endPoints.remove(request.Remote);
+    }
+
+    private void Finish(RemoteEndPoint endPoint, PendingRequest request, OperateResultExOne<byte[]> result) {
+        pendingCount--;
+        HashedWheelTimer.Timeout timeout = request.WheelTimeout;
+        if (timeout != null) timeout.Cancel();
+        request.Future.complete(result);
+    }
+
+    /**
+     * 获取系统默认的共享多路复用对象，使用默认事件循环组里的一个事件循环，第一次调用时创建<br />
+     * Get the default shared multiplexing object of the system, using an event loop in the default event loop group, created on the first call
+     * @return 默认的多路复用对象
+     * @throws IOException 通道打开失败的异常
+     */
+    public static UdpMultiplexer getDefault() throws IOException {
+        UdpMultiplexer multiplexer = defaultMultiplexer;
+        if (multiplexer == null) {
+            synchronized (UdpMultiplexer.class) {
+                if (defaultMultiplexer == null) {
+                    defaultMultiplexer = new UdpMultiplexer(NioEventLoopGroup.getDefault().Next());
+                }
+                multiplexer = defaultMultiplexer;
+            }
+        }
+        return multiplexer;
+    }
+
+    @Override
+    public String toString() {
+        return "UdpMultiplexer[" + getLocalPort() + "]";
+    }
+
+    // region Private Class
+
+    private static final class RemoteEndPoint {
+        /**
+         * 判断指定消息标识的请求现在是否可以发送，没有消息标识的请求独占整个地址
+         */
+        boolean CanSend(int identity) {
+            if (identity < 0) return Requests.isEmpty();
+            return !Requests.containsKey(identity) && !Requests.containsKey(-1);
+        }
+
+        final HashMap<Integer, PendingRequest> Requests = new HashMap<>();       // 消息标识 -> 已经发送等待返回的请求
+        final ArrayDeque<PendingRequest> Waiting = new ArrayDeque<>();          // 消息标识被占用而排队的请求
+        FunctionOperateExOne<byte[], Integer> ResponseIdentity = null;          // 从返回的报文中提取消息标识的方法
+    }
+
+    private static final class PendingRequest {
+        PendingRequest(InetSocketAddress remote, int identity, FunctionOperateExOne<byte[], Integer> responseIdentity, byte[] sendBytes) {
+            Remote = remote;
+            Identity = identity;
+            ResponseIdentity = responseIdentity;
+            SendBytes = sendBytes;
+        }
+
+        final InetSocketAddress Remote;
+        final int Identity;
+        final FunctionOperateExOne<byte[], Integer> ResponseIdentity;
+        final byte[] SendBytes;
+        final CompletableFuture<OperateResultExOne<byte[]>> Future = new CompletableFuture<>();
+        HashedWheelTimer.Timeout WheelTimeout = null;
+
+        @Override
+        public String toString() {
+            return Identity < 0 ? String.valueOf(Remote) : Remote + "#" + Identity;
+        }
+    }
+
+    // endregion
+
+    private final NioEventLoop eventLoop;                                         // 事件循环
+    private final DatagramChannel channel;                                        // 共用的UDP通道
+    private SelectionKey selectionKey = null;                                     // 通道的选择键，只在事件循环线程访问
+    private final ByteBuffer receiveBuffer = ByteBuffer.allocate(65536);          // 复用的接收缓存，只在事件循环线程访问
+    private final HashMap<SocketAddress, RemoteEndPoint> endPoints = new HashMap<>();  // 远程地址的注册表，只在事件循环线程访问
+    private volatile int pendingCount = 0;                                        // 等待返回的请求数量
+    private volatile long discardCount = 0;                                       // 丢弃的报文数量
+    private boolean closed = false;                                               // 是否已经关闭，只在事件循环线程访问
+
+    private static volatile UdpMultiplexer defaultMultiplexer = null;             // 默认的多路复用对象
+}
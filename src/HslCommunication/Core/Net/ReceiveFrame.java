@@ -0,0 +1,172 @@
+package HslCommunication.Core.Net;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 从池中租用的可以重复使用的接收缓存，一条完整的报文（报文头加内容）连续的存放在同一个数组里，解析的时候直接使用偏移地址访问数据，
+ * 使用完成后需要调用 {@link #Release()} 方法归还到池中，归还之后不能再访问缓存的数据。<br />
+ * A reusable receive buffer rented from the pool, a complete message (head plus content) is stored continuously in the same array,
+ * and the data is accessed directly using the offset when parsing. After use, you need to call the {@link #Release()} method to return it to the pool,
+ * and the buffered data cannot be accessed after returning.
+ */
+public class ReceiveFrame {
+
+    private ReceiveFrame(int capacity) {
+        buffer = new byte[capacity];
+        pooled = true;
+    }
+
+    private ReceiveFrame(byte[] buffer) {
+        this.buffer = buffer;
+        this.length = buffer.length;
+        pooled = false;
+    }
+
+    /**
+     * 获取底层的缓存数组，数组的长度可能大于报文的长度，有效的数据范围是0到 {@link #getLength()}<br />
+     * Get the underlying buffer array, the length of the array may be greater than the length of the message, the valid data range is 0 to {@link #getLength()}
+     * @return 缓存数组
+     */
+    public byte[] getBuffer() {
+        return buffer;
+    }
+
+    /**
+     * 获取报文的有效长度<br />
+     * Get the valid length of the message
+     * @return 报文长度
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * 设置报文的有效长度，如果缓存的容量不足，将扩大缓存并保留已有的数据<br />
+     * Set the valid length of the message, if the capacity of the buffer is insufficient, the buffer will be enlarged and the existing data will be retained
+     * @param length 报文长度
+     */
+    public void setLength(int length) {
+        EnsureCapacity(length);
+        this.length = length;
+    }
+
+    /**
+     * 获取接收完报文头的时间，来自 {@link System#nanoTime()}，没有记录时为0，用于统计首字节的耗时<br />
+     * Get the time when the message head is received, from {@link System#nanoTime()}, 0 when not recorded, used to count the time to first byte
+     * @return 接收完报文头的时间
+     */
+    public long getHeadReceivedTime() {
+        return headReceivedTime;
+    }
+
+    /**
+     * 设置接收完报文头的时间，来自 {@link System#nanoTime()}<br />
+     * Set the time when the message head is received, from {@link System#nanoTime()}
+     * @param headReceivedTime 接收完报文头的时间
+     */
+    public void setHeadReceivedTime(long headReceivedTime) {
+        this.headReceivedTime = headReceivedTime;
+    }
+
+    /**
+     * 确保缓存的容量不小于指定的大小，扩大的时候保留已有的数据<br />
+     * Ensure that the capacity of the buffer is not less than the specified size, and retain the existing data when expanding
+     * @param capacity 需要的容量
+     */
+    public void EnsureCapacity(int capacity) {
+        if (capacity <= buffer.length) return;
+
+        byte[] newBuffer = new byte[Math.max(capacity, buffer.length * 2)];
+        System.arraycopy(buffer, 0, newBuffer, 0, length);
+        buffer = newBuffer;
+    }
+
+    /**
+     * 获取一个指定长度的报文头数组，长度不变的时候重复使用同一个数组，用于传递给 {@link HslCommunication.Core.IMessage.INetMessage#setHeadBytes(byte[])} 方法<br />
+     * Get a head array of the specified length, the same array is reused when the length does not change,
+     * used to pass to the {@link HslCommunication.Core.IMessage.INetMessage#setHeadBytes(byte[])} method
+     * @param headLength 报文头的长度
+     * @return 报文头数组
+     */
+    public byte[] GetHeadArray(int headLength) {
+        if (headBytes == null || headBytes.length != headLength) headBytes = new byte[headLength];
+        return headBytes;
+    }
+
+    /**
+     * 将有效范围内的数据复制成一个新的数组<br />
+     * Copy the data in the valid range into a new array
+     * @return 新的数组
+     */
+    public byte[] ToArray() {
+        return CopyRange(0, length);
+    }
+
+    /**
+     * 将指定偏移位置开始的数据复制成一个新的数组，通常用于只提取报文里的实际数据<br />
+     * Copy the data starting from the specified offset into a new array, usually used to extract only the actual data in the message
+     * @param offset 偏移的位置
+     * @param count 复制的长度
+     * @return 新的数组
+     */
+    public byte[] CopyRange(int offset, int count) {
+        byte[] result = new byte[count];
+        System.arraycopy(buffer, offset, result, 0, count);
+        return result;
+    }
+
+    /**
+     * 将当前的缓存归还到池中，容量过大的缓存不会保留<br />
+     * Return the current buffer to the pool, buffers with excessive capacity will not be retained
+     */
+    public void Release() {
+        if (!pooled) return;
+        length = 0;
+        headReceivedTime = 0;
+        if (buffer.length > MaxPooledCapacity) return;
+        if (pooledCount.incrementAndGet() > MaxPooledCount) {
+            pooledCount.decrementAndGet();
+            return;
+        }
+        pool.offer(this);
+    }
+
+    /**
+     * 从池中租用一个容量不小于指定大小的缓存，池中没有可用的缓存时创建新的缓存<br />
+     * Rent a buffer with a capacity not less than the specified size from the pool, and create a new buffer when there is no buffer available in the pool
+     * @param capacity 需要的容量
+     * @return 缓存对象
+     */
+    public static ReceiveFrame Rent(int capacity) {
+        ReceiveFrame frame = pool.poll();
+        if (frame == null) return new ReceiveFrame(Math.max(capacity, DefaultCapacity));
+
+        pooledCount.decrementAndGet();
+        frame.EnsureCapacity(capacity);
+        return frame;
+    }
+
+    /**
+     * 使用一个已经存在的完整报文创建一个不属于池的缓存对象，用于统一接收的结果，归还的时候不做任何操作<br />
+     * Create a buffer object that does not belong to the pool with an existing complete message,
+     * which is used to unify the received results, and does nothing when returned
+     * @param buffer 完整的报文
+     * @return 缓存对象
+     */
+    public static ReceiveFrame Wrap(byte[] buffer) {
+        return new ReceiveFrame(buffer == null ? new byte[0] : buffer);
+    }
+
+    private byte[] buffer;                    // 缓存的数组
+    private final boolean pooled;             // 是否属于缓存池
+    private int length = 0;                   // 有效的长度
+    private byte[] headBytes = null;          // 重复使用的报文头
+    private long headReceivedTime = 0;        // 接收完报文头的时间
+
+    private static final int DefaultCapacity = 1024;                                           // 默认的容量
+    private static final int MaxPooledCapacity = 64 * 1024;                                    // 可以保留在池中的最大容量
+    private static final int MaxPooledCount = 256;                                             // 池中保留的最多缓存数量
+    private static final ConcurrentLinkedQueue<ReceiveFrame> pool = new ConcurrentLinkedQueue<>();  // 缓存池
+    private static final AtomicInteger pooledCount = new AtomicInteger();                     // 池中的缓存数量
+}
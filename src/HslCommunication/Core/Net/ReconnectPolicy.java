@@ -0,0 +1,193 @@
+package HslCommunication.Core.Net;
+
+import HslCommunication.Core.Thread.HashedWheelTimer;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.StringResources;
+
+import java.util.Random;
+
+/**
+ * 设备的重连策略，连接失败之后按照指数退避的时间打开断路器，断路器打开期间所有的连接请求立即返回失败，不再等待连接超时，
+ * 到达重试的时间后在后台尝试一次连接（半开状态），成功之后关闭断路器恢复正常的访问。每个设备对象需要使用独立的策略对象。<br />
+ * The reconnection policy of the device. After the connection fails, the circuit breaker is opened according to the exponential backoff time.
+ * While the circuit breaker is open, all connection requests immediately return failure without waiting for the connection timeout.
+ * When the retry time is reached, a connection is attempted in the background (half-open state), and the circuit breaker is closed after success to resume normal access.
+ * Each device object needs to use an independent policy object.
+ */
+public class ReconnectPolicy {
+
+    /**
+     * 使用默认的参数实例化一个重连策略，初始的退避时间为1秒，最大为60秒，倍数为2，抖动为20%，连续失败1次即打开断路器<br />
+     * Instantiate a reconnection policy with default parameters, the initial backoff time is 1 second, the maximum is 60 seconds,
+     * the multiple is 2, the jitter is 20%, and the circuit breaker is opened after 1 consecutive failure
+     */
+    public ReconnectPolicy() {
+        this(1000, 60_000, 2.0, 0.2, 1);
+    }
+
+    /**
+     * 使用指定的参数实例化一个重连策略<br />
+     * Instantiate a reconnection policy with the specified parameters
+     * @param initialDelay 第一次打开断路器的退避时间，单位毫秒
+     * @param maxDelay 最大的退避时间，单位毫秒
+     * @param multiplier 每次重试失败之后退避时间的倍数
+     * @param jitter 退避时间的随机抖动比例，0到1之间，避免大量设备同时重连
+     * @param failureThreshold 连续失败多少次之后打开断路器
+     */
+    public ReconnectPolicy(int initialDelay, int maxDelay, double multiplier, double jitter, int failureThreshold) {
+        this.initialDelay = Math.max(1, initialDelay);
+        this.maxDelay = Math.max(this.initialDelay, maxDelay);
+        this.multiplier = Math.max(1.0, multiplier);
+        this.jitter = Math.max(0, Math.min(1, jitter));
+        this.failureThreshold = Math.max(1, failureThreshold);
+    }
+
+    /**
+     * 断路器关闭的状态，所有的连接请求正常执行
+     */
+    public static final int StateClosed = 0;
+
+    /**
+     * 断路器打开的状态，所有的连接请求立即返回失败
+     */
+    public static final int StateOpen = 1;
+
+    /**
+     * 断路器半开的状态，正在进行一次试探性的连接，其他的连接请求立即返回失败
+     */
+    public static final int StateHalfOpen = 2;
+
+    /**
+     * 获取当前断路器的状态，参考 {@link #StateClosed}，{@link #StateOpen}，{@link #StateHalfOpen}<br />
+     * Get the current state of the circuit breaker, refer to {@link #StateClosed}, {@link #StateOpen}, {@link #StateHalfOpen}
+     * @return 断路器的状态
+     */
+    public synchronized int getState() {
+        return state;
+    }
+
+    /**
+     * 获取当前连续失败的次数<br />
+     * Get the current number of consecutive failures
+     * @return 失败的次数
+     */
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    /**
+     * 获取距离下一次允许连接的剩余时间，单位毫秒，断路器关闭时返回0<br />
+     * Get the remaining time until the next connection is allowed, in milliseconds, and return 0 when the circuit breaker is closed
+     * @return 剩余的时间
+     */
+    public synchronized long getRetryRemaining() {
+        if (state == StateClosed) return 0;
+        return Math.max(0, nextAttemptTime - System.currentTimeMillis());
+    }
+
+    /**
+     * 设置断路器打开之后，到达重试时间时在后台执行的重连操作，通常由设备对象设置，不需要手动调用<br />
+     * Set the reconnection operation to be executed in the background when the retry time is reached after the circuit breaker is opened,
+     * which is usually set by the device object and does not need to be called manually
+     * @param reconnectAction 重连的操作，为空时不在后台重连
+     */
+    public void setReconnectAction(Runnable reconnectAction) {
+        this.reconnectAction = reconnectAction;
+    }
+
+    /**
+     * 检查当前是否需要快速失败，不改变断路器的状态，用于在进入锁之前提前返回<br />
+     * Check whether it is necessary to fail fast currently without changing the state of the circuit breaker, used to return in advance before entering the lock
+     * @return 允许连接时返回成功，否则返回快速失败的结果
+     */
+    public synchronized OperateResult CheckFastFail() {
+        if (state == StateClosed) return OperateResult.CreateSuccessResult();
+        if (state == StateOpen && System.currentTimeMillis() >= nextAttemptTime) return OperateResult.CreateSuccessResult();
+        return CreateFastFailResult();
+    }
+
+    /**
+     * 开始一次连接的操作，断路器关闭时总是允许，打开并且到达重试时间的时候切换到半开状态并允许本次的连接，否则返回快速失败的结果，
+     * 允许连接的时候，需要在连接完成后调用 {@link #EndConnect(boolean)} 方法<br />
+     * Start a connection operation. It is always allowed when the circuit breaker is closed. When it is open and the retry time is reached,
+     * it switches to the half-open state and allows this connection, otherwise it returns a fast failure result.
+     * When the connection is allowed, the {@link #EndConnect(boolean)} method needs to be called after the connection is completed
+     * @return 是否允许连接
+     */
+    public synchronized OperateResult BeginConnect() {
+        if (state == StateClosed) return OperateResult.CreateSuccessResult();
+        if (state == StateOpen && System.currentTimeMillis() >= nextAttemptTime) {
+            state = StateHalfOpen;
+            return OperateResult.CreateSuccessResult();
+        }
+        return CreateFastFailResult();
+    }
+
+    /**
+     * 结束一次连接的操作，成功时关闭断路器，失败时累加失败的次数，达到阈值或是半开状态下失败的时候打开断路器，并安排后台的重连<br />
+     * End a connection operation, close the circuit breaker when it succeeds, accumulate the number of failures when it fails,
+     * and open the circuit breaker when the threshold is reached or fails in the half-open state, and arrange the background reconnection
+     * @param isSuccess 连接是否成功
+     */
+    public void EndConnect(boolean isSuccess) {
+        long delay;
+        synchronized (this) {
+            if (isSuccess) {
+                state = StateClosed;
+                consecutiveFailures = 0;
+                openCount = 0;
+                return;
+            }
+
+            consecutiveFailures++;
+            if (state != StateHalfOpen && consecutiveFailures < failureThreshold) return;
+
+            delay = NextDelay();
+            openCount++;
+            state = StateOpen;
+            nextAttemptTime = System.currentTimeMillis() + delay;
+        }
+
+        final Runnable action = reconnectAction;
+        if (action != null) HashedWheelTimer.getDefault().Schedule(action, delay);
+    }
+
+    /**
+     * 手动将断路器复位到关闭的状态，下一次的请求将立即尝试连接<br />
+     * Manually reset the circuit breaker to the closed state, the next request will try to connect immediately
+     */
+    public synchronized void Reset() {
+        state = StateClosed;
+        consecutiveFailures = 0;
+        openCount = 0;
+    }
+
+    private long NextDelay() {
+        double delay = initialDelay * Math.pow(multiplier, Math.min(openCount, 30));
+        delay = Math.min(delay, maxDelay);
+        if (jitter > 0) delay = delay * (1 - jitter + random.nextDouble() * jitter * 2);
+        return Math.max(1, (long) delay);
+    }
+
+    private OperateResult CreateFastFailResult() {
+        long remaining = Math.max(0, nextAttemptTime - System.currentTimeMillis());
+        return new OperateResult(StringResources.Language.ConnectionIsNotAvailable() + " Circuit open, retry after " + remaining + " ms");
+    }
+
+    @Override
+    public String toString() {
+        return "ReconnectPolicy[" + initialDelay + "-" + maxDelay + "]";
+    }
+
+    private final int initialDelay;                   // 初始的退避时间
+    private final int maxDelay;                       // 最大的退避时间
+    private final double multiplier;                  // 退避的倍数
+    private final double jitter;                      // 随机抖动的比例
+    private final int failureThreshold;               // 打开断路器的连续失败次数
+    private final Random random = new Random();       // 随机数
+    private volatile Runnable reconnectAction = null; // 后台重连的操作
+    private int state = StateClosed;                  // 断路器的状态
+    private int consecutiveFailures = 0;              // 连续失败的次数
+    private int openCount = 0;                        // 连续打开断路器的次数
+    private long nextAttemptTime = 0;                 // 下一次允许连接的时间
+}
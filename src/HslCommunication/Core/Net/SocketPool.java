@@ -0,0 +1,325 @@
+package HslCommunication.Core.Net;
+
+import HslCommunication.Core.Types.ActionOperateExOne;
+import HslCommunication.Core.Types.FunctionOperate;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.StringResources;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 同一个设备的多个网络连接组成的连接池，连接数量在最小值和最大值之间动态调整，空闲时间过长的连接会被关闭，
+ * 出现错误的连接在归还的时候关闭，所以多个线程可以同时使用不同的连接和设备进行交互。<br />
+ * A connection pool composed of multiple network connections to the same device, the number of connections is dynamically adjusted between the minimum and maximum values,
+ * connections that have been idle for too long will be closed, and connections with errors will be closed when they are returned,
+ * so multiple threads can interact with the device using different connections at the same time.
+ */
+public class SocketPool {
+
+    /**
+     * 实例化一个连接池对象，需要指定创建连接及关闭连接的方法<br />
+     * Instantiate a connection pool object, you need to specify the method of creating a connection and closing a connection
+     * @param createSocket 创建并初始化一个新的连接的方法
+     * @param closeSocket 关闭一个连接的方法
+     * @param minConnections 最少保持的连接数量
+     * @param maxConnections 最多允许的连接数量
+     * @param idleTimeOut 空闲连接的存活时间，单位毫秒，超过最少连接数量的空闲连接在超时后关闭，小于等于0时不关闭
+     */
+    public SocketPool(FunctionOperate<OperateResultExOne<Socket>> createSocket, ActionOperateExOne<Socket> closeSocket,
+                      int minConnections, int maxConnections, int idleTimeOut) {
+        this.createSocket = createSocket;
+        this.closeSocket = closeSocket;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.minConnections = Math.max(0, Math.min(minConnections, this.maxConnections));
+        this.idleTimeOut = idleTimeOut;
+    }
+
+    /**
+     * 获取最少保持的连接数量<br />
+     * Get the minimum number of connections to keep
+     * @return 连接数量
+     */
+    public int getMinConnections() {
+        return minConnections;
+    }
+
+    /**
+     * 获取最多允许的连接数量<br />
+     * Get the maximum number of connections allowed
+     * @return 连接数量
+     */
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    /**
+     * 获取当前已经创建的连接数量，包括正在使用的和空闲的<br />
+     * Get the number of connections currently created, including those in use and idle
+     * @return 连接数量
+     */
+    public int getConnectionCount() {
+        lock.lock();
+        try {
+            return connectionCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取当前空闲的连接数量<br />
+     * Get the number of currently idle connections
+     * @return 连接数量
+     */
+    public int getIdleCount() {
+        lock.lock();
+        try {
+            return idleSockets.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 预先创建最少数量的连接，返回第一个失败的连接结果<br />
+     * Create the minimum number of connections in advance, return the first failed connection result
+     * @return 是否创建成功
+     */
+    public OperateResult Prepare() {
+        ArrayList<PooledSocket> created = new ArrayList<>();
+        OperateResult result = OperateResult.CreateSuccessResult();
+        while (getConnectionCount() < Math.max(1, minConnections)) {
+            OperateResultExOne<PooledSocket> create = CreatePooledSocket();
+            if (!create.IsSuccess) {
+                result = create;
+                break;
+            }
+            created.add(create.Content);
+        }
+        for (PooledSocket socket : created) Release(socket, false);
+        return result;
+    }
+
+    /**
+     * 从连接池获取一个可用的连接，优先使用空闲的连接，没有空闲的连接并且数量没有达到最大值时创建新的连接，否则等待其他的线程归还连接<br />
+     * Get an available connection from the connection pool, the idle connection is used first, and a new connection is created when there is no idle connection
+     * and the number does not reach the maximum value, otherwise wait for other threads to return the connection
+     * @param waitTimeOut 等待连接归还的超时时间，单位毫秒
+     * @return 可用的连接
+     */
+    public OperateResultExOne<PooledSocket> Acquire(int waitTimeOut) {
+        long deadLine = System.currentTimeMillis() + Math.max(0, waitTimeOut);
+        lock.lock();
+        try {
+            while (true) {
+                EvictIdle(System.currentTimeMillis());
+
+                PooledSocket socket = idleSockets.pollFirst();
+                if (socket != null) return OperateResultExOne.CreateSuccessResult(socket);
+
+                if (connectionCount < maxConnections) {
+                    // 先占用名额，在锁外面创建连接，避免阻塞其他的线程
+                    connectionCount++;
+                    break;
+                }
+
+                long wait = deadLine - System.currentTimeMillis();
+                if (wait <= 0) return new OperateResultExOne<>(StringResources.Language.ConnectionIsNotAvailable());
+                try {
+                    released.await(wait, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException ex) {
+                    return new OperateResultExOne<>(ex.getMessage());
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        return CreateReservedSocket();
+    }
+
+    /**
+     * 将使用完成的连接归还到连接池，出现错误的连接将直接关闭，在调用 {@link #Close()} 之前获取的连接归还时也会被关闭<br />
+     * Return the used connection to the connection pool, the connection with error will be closed directly,
+     * and the connection acquired before calling {@link #Close()} will also be closed when it is returned
+     * @param socket 使用完成的连接
+     * @param isSocketError 连接是否出现了错误
+     */
+    public void Release(PooledSocket socket, boolean isSocketError) {
+        if (socket == null) return;
+        socket.IsSocketError = isSocketError;
+        socket.LastUseTime = System.currentTimeMillis();
+
+        boolean close;
+        lock.lock();
+        try {
+            close = isSocketError || socket.generation != generation;
+            if (close) {
+                connectionCount--;
+            } else {
+                // 最近使用的连接放在前面，让多余的连接保持空闲从而被回收
+                idleSockets.addFirst(socket);
+            }
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+        if (!close) return;
+
+        if (isSocketError) {
+            // 出现错误的连接已经无法正常的交互，直接关闭即可
+            try {
+                socket.getSocket().close();
+            } catch (IOException ex) {
+
+            }
+        } else {
+            closeSocket.Action(socket.getSocket());
+        }
+    }
+
+    /**
+     * 关闭连接池里所有的连接，空闲的连接立即关闭，正在使用的连接在归还的时候关闭，之后的请求会重新创建连接<br />
+     * Close all connections in the connection pool, idle connections are closed immediately, and connections in use are closed when they are returned,
+     * and subsequent requests will create new connections
+     */
+    public void Close() {
+        ArrayList<PooledSocket> sockets;
+        lock.lock();
+        try {
+            generation++;
+            sockets = new ArrayList<>(idleSockets);
+            connectionCount -= idleSockets.size();
+            idleSockets.clear();
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (PooledSocket socket : sockets) closeSocket.Action(socket.getSocket());
+    }
+
+    private OperateResultExOne<PooledSocket> CreatePooledSocket() {
+        lock.lock();
+        try {
+            if (connectionCount >= maxConnections) return new OperateResultExOne<>(StringResources.Language.ConnectionIsNotAvailable());
+            connectionCount++;
+        } finally {
+            lock.unlock();
+        }
+        return CreateReservedSocket();
+    }
+
+    /**
+     * 创建一个新的连接，调用之前需要已经占用了连接的名额，创建失败时释放名额
+     * @return 新的连接
+     */
+    private OperateResultExOne<PooledSocket> CreateReservedSocket() {
+        int currentGeneration;
+        lock.lock();
+        currentGeneration = generation;
+        lock.unlock();
+
+        OperateResultExOne<Socket> create = createSocket.Action();
+        if (!create.IsSuccess) {
+            lock.lock();
+            connectionCount--;
+            released.signal();
+            lock.unlock();
+            return OperateResultExOne.CreateFailedResult(create);
+        }
+
+        PooledSocket socket = new PooledSocket(create.Content);
+        socket.generation = currentGeneration;
+        return OperateResultExOne.CreateSuccessResult(socket);
+    }
+
+    /**
+     * 关闭超过最少连接数量并且空闲超时的连接，需要在锁内调用，连接放到后台线程去关闭
+     * @param now 当前的时间
+     */
+    private void EvictIdle(long now) {
+        if (idleTimeOut <= 0) return;
+
+        final ArrayList<PooledSocket> evicted = new ArrayList<>();
+        Iterator<PooledSocket> iterator = idleSockets.descendingIterator();
+        while (iterator.hasNext() && connectionCount > minConnections) {
+            PooledSocket socket = iterator.next();
+            if (now - socket.LastUseTime < idleTimeOut) break;
+
+            iterator.remove();
+            connectionCount--;
+            evicted.add(socket);
+        }
+
+        if (evicted.isEmpty()) return;
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                for (PooledSocket socket : evicted) closeSocket.Action(socket.getSocket());
+            }
+        };
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public String toString() {
+        return "SocketPool[" + minConnections + "-" + maxConnections + "]";
+    }
+
+    private final FunctionOperate<OperateResultExOne<Socket>> createSocket;    // 创建连接的方法
+    private final ActionOperateExOne<Socket> closeSocket;                      // 关闭连接的方法
+    private final int minConnections;                                          // 最少的连接数量
+    private final int maxConnections;                                          // 最多的连接数量
+    private final int idleTimeOut;                                             // 空闲连接的存活时间
+    private final ReentrantLock lock = new ReentrantLock();                    // 连接池的锁
+    private final Condition released = lock.newCondition();                    // 连接归还的信号
+    private final ArrayDeque<PooledSocket> idleSockets = new ArrayDeque<>();  // 空闲的连接，最近使用的在前面
+    private int connectionCount = 0;                                           // 已经创建的连接数量
+    private int generation = 0;                                                // 连接的代数，关闭所有连接时增加
+
+    /**
+     * 连接池里的一个连接，记录了连接的健康状态及最后使用的时间<br />
+     * A connection in the connection pool, which records the health status of the connection and the last time it was used
+     */
+    public static class PooledSocket {
+
+        /**
+         * 使用已经初始化完成的套接字实例化一个对象
+         * @param socket 套接字
+         */
+        public PooledSocket(Socket socket) {
+            this.socket = socket;
+            this.LastUseTime = System.currentTimeMillis();
+        }
+
+        /**
+         * 获取实际的套接字
+         * @return 套接字
+         */
+        public Socket getSocket() {
+            return socket;
+        }
+
+        /**
+         * 指示当前的连接是否处于错误的状态
+         */
+        public boolean IsSocketError = false;
+
+        /**
+         * 最后一次使用的时间
+         */
+        public long LastUseTime = 0;
+
+        private final Socket socket;
+        private int generation = 0;
+    }
+}
@@ -0,0 +1,282 @@
+package HslCommunication.Core.Thread;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于时间轮的定时器，所有的超时任务共享一个后台线程，添加和取消任务的时间复杂度都是O(1)，适合大量的连接超时及接收超时的检测，
+ * 超时的精度为一个刻度的时间。<br />
+ * A timer based on the hashed time wheel, all timeout tasks share one background thread, the time complexity of adding and canceling tasks is O(1),
+ * which is suitable for the detection of a large number of connection timeouts and receive timeouts, and the accuracy of the timeout is one tick.
+ */
+public class HashedWheelTimer {
+
+    /**
+     * 使用指定的刻度时间及时间轮的大小实例化一个定时器，后台线程在第一次添加任务的时候启动<br />
+     * Instantiate a timer with the specified tick time and the size of the time wheel, the background thread is started when the task is added for the first time
+     * @param name 后台线程的名称
+     * @param tickDuration 每个刻度的时间，单位毫秒
+     * @param ticksPerWheel 时间轮的刻度数量
+     */
+    public HashedWheelTimer(String name, int tickDuration, int ticksPerWheel) {
+        this.name = name;
+        this.tickDuration = Math.max(1, tickDuration);
+
+        int size = 1;
+        while (size < ticksPerWheel) size <<= 1;
+        wheel = new Bucket[size];
+        for (int i = 0; i < size; i++) wheel[i] = new Bucket();
+        mask = size - 1;
+    }
+
+    /**
+     * 获取每个刻度的时间，单位毫秒<br />
+     * Get the time of each tick, in milliseconds
+     * @return 刻度时间
+     */
+    public int getTickDuration() {
+        return tickDuration;
+    }
+
+    /**
+     * 获取当前等待执行的任务数量<br />
+     * Get the number of tasks currently waiting to be executed
+     * @return 任务数量
+     */
+    public int getPendingCount() {
+        return pendingCount.get();
+    }
+
+    /**
+     * 添加一个在指定的延时之后执行的任务，任务在定时器的线程上执行，所以不能有耗时的操作，本方法是线程安全的<br />
+     * Add a task to be executed after the specified delay, the task is executed on the thread of the timer, so there should be no time-consuming operations.
+     * This method is thread-safe
+     * @param task 需要执行的任务
+     * @param delay 延时的时间，单位毫秒
+     * @return 可以取消的超时对象
+     */
+    public Timeout Schedule(Runnable task, long delay) {
+        StartIfNeed();
+        Timeout timeout = new Timeout(this, task, System.nanoTime() - startTime + TimeUnit.MILLISECONDS.toNanos(Math.max(0, delay)));
+        pendingCount.incrementAndGet();
+        addQueue.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * 停止定时器，所有未执行的任务都不再执行<br />
+     * Stop the timer, all unexecuted tasks are no longer executed
+     */
+    public void Stop() {
+        isStopped = true;
+    }
+
+    private synchronized void StartIfNeed() {
+        if (thread != null) return;
+
+        startTime = System.nanoTime();
+        thread = new Thread() {
+            @Override
+            public void run() {
+                RunWheel();
+            }
+        };
+        thread.setName(name);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void RunWheel() {
+        long tickNanos = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        while (!isStopped) {
+            // 等待到下一个刻度的时间
+            long deadLine = tickNanos * (tick + 1);
+            long sleep = deadLine - (System.nanoTime() - startTime);
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(TimeUnit.NANOSECONDS.toMillis(sleep + 999_999));
+                } catch (InterruptedException ex) {
+
+                }
+                continue;
+            }
+
+            RemoveCancelled();
+            TransferAdded(tickNanos);
+            wheel[(int) (tick & mask)].Expire(deadLine);
+            tick++;
+        }
+    }
+
+    private void TransferAdded(long tickNanos) {
+        // 每个刻度最多转移十万个任务，防止添加任务过快的时候无法前进
+        for (int i = 0; i < 100_000; i++) {
+            Timeout timeout = addQueue.poll();
+            if (timeout == null) return;
+            if (timeout.state.get() != Timeout.StateInit) continue;
+
+            long calculated = timeout.deadLine / tickNanos;
+            timeout.remainingRounds = (calculated - tick) / wheel.length;
+
+            // 已经过期的任务放到当前的刻度上，马上执行
+            long ticks = Math.max(calculated, tick);
+            wheel[(int) (ticks & mask)].Add(timeout);
+        }
+    }
+
+    private void RemoveCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelledQueue.poll()) != null) {
+            if (timeout.bucket != null) timeout.bucket.Remove(timeout);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HashedWheelTimer[" + name + "]";
+    }
+
+    /**
+     * 获取系统默认的共享定时器，刻度为10毫秒，第一次调用时创建<br />
+     * Get the default shared timer of the system, the tick is 10 milliseconds, created on the first call
+     * @return 默认的定时器
+     */
+    public static HashedWheelTimer getDefault() {
+        HashedWheelTimer timer = defaultTimer;
+        if (timer == null) {
+            synchronized (HashedWheelTimer.class) {
+                if (defaultTimer == null) defaultTimer = new HashedWheelTimer("HslWheelTimer", 10, 512);
+                timer = defaultTimer;
+            }
+        }
+        return timer;
+    }
+
+    private final String name;                                                          // 线程的名称
+    private final int tickDuration;                                                     // 每个刻度的时间
+    private final Bucket[] wheel;                                                       // 时间轮
+    private final int mask;                                                             // 刻度的掩码
+    private final ConcurrentLinkedQueue<Timeout> addQueue = new ConcurrentLinkedQueue<>();        // 新添加的任务
+    private final ConcurrentLinkedQueue<Timeout> cancelledQueue = new ConcurrentLinkedQueue<>();  // 已经取消的任务
+    private final AtomicInteger pendingCount = new AtomicInteger();                     // 等待执行的任务数量
+    private volatile Thread thread = null;                                              // 后台线程
+    private volatile long startTime = 0;                                                // 启动的时间
+    private volatile boolean isStopped = false;                                         // 是否已经停止
+    private long tick = 0;                                                              // 当前的刻度，只在后台线程访问
+    private static volatile HashedWheelTimer defaultTimer = null;                       // 默认的定时器
+
+    /**
+     * 定时器里的一个超时对象，可以在执行之前取消<br />
+     * A timeout object in the timer, which can be canceled before execution
+     */
+    public static class Timeout {
+
+        private Timeout(HashedWheelTimer timer, Runnable task, long deadLine) {
+            this.timer = timer;
+            this.task = task;
+            this.deadLine = deadLine;
+        }
+
+        /**
+         * 取消当前的超时任务，已经执行或是已经取消的任务返回false<br />
+         * Cancel the current timeout task, return false if the task has been executed or canceled
+         * @return 是否取消成功
+         */
+        public boolean Cancel() {
+            if (!state.compareAndSet(StateInit, StateCancelled)) return false;
+            timer.pendingCount.decrementAndGet();
+            timer.cancelledQueue.add(this);
+            return true;
+        }
+
+        /**
+         * 获取当前的任务是否已经取消<br />
+         * Get whether the current task has been canceled
+         * @return 是否取消
+         */
+        public boolean IsCancelled() {
+            return state.get() == StateCancelled;
+        }
+
+        /**
+         * 获取当前的任务是否已经执行<br />
+         * Get whether the current task has been executed
+         * @return 是否执行
+         */
+        public boolean IsExpired() {
+            return state.get() == StateExpired;
+        }
+
+        private void Expire() {
+            if (!state.compareAndSet(StateInit, StateExpired)) return;
+            timer.pendingCount.decrementAndGet();
+            try {
+                task.run();
+            } catch (Exception ex) {
+
+            }
+        }
+
+        private static final int StateInit = 0;
+        private static final int StateCancelled = 1;
+        private static final int StateExpired = 2;
+
+        private final HashedWheelTimer timer;
+        private final Runnable task;
+        private final long deadLine;
+        private final AtomicInteger state = new AtomicInteger(StateInit);
+        private long remainingRounds = 0;
+        private Bucket bucket = null;
+        private Timeout next = null;
+        private Timeout prev = null;
+    }
+
+    /**
+     * 时间轮上的一个刻度，使用双向链表保存任务，只在后台线程访问
+     */
+    private static class Bucket {
+
+        void Add(Timeout timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        void Remove(Timeout timeout) {
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            if (timeout == head) head = timeout.next;
+            if (timeout == tail) tail = timeout.prev;
+            timeout.prev = null;
+            timeout.next = null;
+            timeout.bucket = null;
+        }
+
+        void Expire(long deadLine) {
+            Timeout timeout = head;
+            while (timeout != null) {
+                Timeout next = timeout.next;
+                if (timeout.IsCancelled()) {
+                    Remove(timeout);
+                } else if (timeout.remainingRounds <= 0) {
+                    if (timeout.deadLine <= deadLine) {
+                        Remove(timeout);
+                        timeout.Expire();
+                    }
+                } else {
+                    timeout.remainingRounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        private Timeout head = null;
+        private Timeout tail = null;
+    }
+}
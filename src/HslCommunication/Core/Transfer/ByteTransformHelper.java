@@ -4,6 +4,9 @@ import HslCommunication.BasicFramework.SoftBasic;
 import HslCommunication.Core.Types.FunctionOperateExOne;
 import HslCommunication.Core.Types.OperateResultExOne;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
 public class ByteTransformHelper {
 
     /**
@@ -26,6 +29,23 @@ public class ByteTransformHelper {
         }
     }
 
+    /**
+     * 异步结果转换操作的基础方法，在读取完成之后使用转换的委托得到最终的结果
+     *
+     * @param result     异步的数据源
+     * @param translator 转换方式
+     * @param <TResult>  结果类型
+     * @return 最新的异步结果对象
+     */
+    public static <TResult> CompletableFuture<OperateResultExOne<TResult>> GetResultFromBytesAsync(CompletableFuture<OperateResultExOne<byte[]>> result, final FunctionOperateExOne<byte[], TResult> translator) {
+        return result.thenApply(new Function<OperateResultExOne<byte[]>, OperateResultExOne<TResult>>() {
+            @Override
+            public OperateResultExOne<TResult> apply(OperateResultExOne<byte[]> read) {
+                return GetResultFromBytes(read, translator);
+            }
+        });
+    }
+
     /**
      * 结果转换操作的基础方法，需要支持类型，及转换的委托
      *
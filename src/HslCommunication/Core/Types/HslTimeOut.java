@@ -1,4 +1,6 @@
 package HslCommunication.Core.Types;
+import HslCommunication.Core.Thread.HashedWheelTimer;
+
 import java.net.Socket;
 import java.util.Date;
 
@@ -38,6 +40,21 @@ public class HslTimeOut {
      */
     public boolean IsTimeout = false;
 
+    /**
+     * 在时间轮定时器上等待的超时对象，为空时表示还没有开始检测
+     */
+    public HashedWheelTimer.Timeout WheelTimeout = null;
+
+    /**
+     * 标记操作已经成功，并立即从时间轮定时器上取消超时的检测<br />
+     * Mark the operation as successful and immediately cancel the timeout detection from the time wheel timer
+     */
+    public void SetSuccessful() {
+        IsSuccessful = true;
+        HashedWheelTimer.Timeout timeout = WheelTimeout;
+        if (timeout != null) timeout.Cancel();
+    }
+
     @Override
     public String toString() {
         return "HslTimeOut[" + DelayTime + "]";
@@ -147,6 +147,9 @@ public class DefaultLanguage
     public String PasswordCheckFailed (){ return "密码验证失败"; }
     public String DataTransformError (){ return "数据转换失败，源数据："; }
     public String RemoteClosedConnection (){ return "远程关闭了连接"; }
+    public String BlockingCallInEventLoop (){ return "不能在事件循环的线程上调用阻塞的方法，请使用异步的方法或是在其他的线程上调用"; }
+    public String SendBufferIsFull (){ return "发送的缓存已经满了："; }
+    public String ConnectTimeout (){ return "连接服务器超时，超时时间："; }
 
     /***********************************************************************************
      *
@@ -238,6 +241,7 @@ public class DefaultLanguage
     public String SiemensDataLengthCheckFailed (){ return "数据块长度校验失败，请检查是否开启put/get以及关闭db块优化"; }
     public String SiemensFWError (){ return "发生了异常，具体信息查找Fetch/Write协议文档"; }
     public String SiemensReadLengthOverPlcAssign () { return  "读取的数据范围超出了PLC的设定";}
+    public String SiemensReadPlanPduLengthMismatch () { return "读取计划创建时的PDU长度大于当前连接协商的PDU长度，请重新创建读取计划，计划长度/当前长度："; }
 
     /***********************************************************************************
      *
@@ -360,6 +364,8 @@ public class DefaultLanguage
     public String MQTTStatus03 () { return  "服务器不可用";}
     public String MQTTStatus04 () { return  "错误的用户名或是密码";}
     public String MQTTStatus05 () { return  "当前无授权";}
+    public String MQTTIdentifierExhausted () { return  "报文标识已经全部在使用中，请稍后再试";}
+    public String MQTTSubscribeFailed () { return  "订阅主题失败：";}
 
     /***********************************************************************************
      *
@@ -144,6 +144,9 @@ public class English extends DefaultLanguage {
     public String PasswordCheckFailed               (){ return "Password validation failed"; }
     public String DataTransformError                (){ return "Data conversion failed, source data: "; }
     public String RemoteClosedConnection            (){ return "Remote shutdown of connection"; }
+    public String BlockingCallInEventLoop           (){ return "A blocking method cannot be called on the thread of the event loop, use the asynchronous method or call it on another thread"; }
+    public String SendBufferIsFull                  (){ return "The send buffer is full: "; }
+    public String ConnectTimeout                    (){ return "Connect to the server timeout, the timeout is: "; }
 
     /***********************************************************************************
      *
@@ -239,6 +242,7 @@ public class English extends DefaultLanguage {
     public String SiemensDataLengthCheckFailed             (){ return "Block length checksum failed, please check if Put/get is turned on and DB block optimization is turned off"; }
     public String SiemensFWError                           (){ return "An exception occurred, the specific information to find the Fetch/write protocol document"; }
     public String SiemensReadLengthOverPlcAssign           () { return  "读取的数据范围超出了PLC的设定";}
+    public String SiemensReadPlanPduLengthMismatch         () { return "The pdu length of the read plan is larger than the pdu length negotiated by the current connection, please create the plan again, plan/current: "; }
 
     /***********************************************************************************
      *
@@ -362,6 +366,8 @@ public class English extends DefaultLanguage {
     public String MQTTStatus03               () { return  "server unavailable";}
     public String MQTTStatus04               () { return  "bad user name or password";}
     public String MQTTStatus05               () { return  "not authorized";}
+    public String MQTTIdentifierExhausted    () { return  "All packet identifiers are in use, please try again later";}
+    public String MQTTSubscribeFailed        () { return  "Subscribe topic failed: ";}
 
     /***********************************************************************************
      *
@@ -1,4 +1,896 @@
 package HslCommunication.MQTT;
 
-public class MqttClient {
+import HslCommunication.Core.Net.NetworkBase.NetworkBase;
+import HslCommunication.Core.Net.Nio.NioEventLoop;
+import HslCommunication.Core.Net.Nio.NioEventLoopGroup;
+import HslCommunication.Core.Thread.HashedWheelTimer;
+import HslCommunication.Core.Types.ActionOperateExOne;
+import HslCommunication.Core.Types.ActionOperateExThree;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.Core.Types.OperateResultExTwo;
+import HslCommunication.StringResources;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Mqtt协议的发布订阅客户端，使用MQTT 3.1.1协议和服务器保持长连接，报文的接收在非阻塞的事件循环上完成。QoS 1及QoS 2的消息在窗口范围内连续发送，
+ * 不需要等待上一条消息的确认，按照报文标识跟踪每条消息的确认状态。支持订阅及取消订阅，自动发送心跳报文，断线之后自动重连并恢复订阅，
+ * 收到的消息在指定的线程池上回调。<br />
+ * The publish-subscribe client of the Mqtt protocol uses the MQTT 3.1.1 protocol to maintain a long connection with the server,
+ * and the reception of messages is completed on a non-blocking event loop. QoS 1 and QoS 2 messages are sent continuously within the window,
+ * without waiting for the confirmation of the previous message, and the confirmation status of each message is tracked according to the packet identifier.
+ * Support subscription and unsubscription, automatically send heartbeat messages, automatically reconnect and restore subscriptions after disconnection,
+ * and the received messages are called back on the specified thread pool.
+ */
+public class MqttClient extends NetworkBase {
+
+    // region Constructor
+
+    /**
+     * 实例化一个MQTT的发布订阅客户端<br />
+     * Instantiate an MQTT publish-subscribe client
+     * @param options 连接的配置信息
+     */
+    public MqttClient(MqttConnectionOptions options) {
+        this.connectionOptions = options;
+    }
+
+    // endregion
+
+    // region Connect Close
+
+    /**
+     * 连接服务器，连接成功之后开始在事件循环上接收报文，并按照配置的间隔发送心跳报文，之前订阅过的主题会自动重新订阅<br />
+     * Connect to the server. After the connection is successful, start receiving messages on the event loop,
+     * and send heartbeat messages at the configured interval. The previously subscribed topics will be automatically re-subscribed
+     * @return 是否连接成功
+     */
+    public OperateResult ConnectServer() {
+        isClosedByUser = false;
+        return Connect();
+    }
+
+    /**
+     * 发送断开连接的报文并关闭连接，不再自动重连，所有等待确认的消息都返回失败<br />
+     * Send a disconnect message and close the connection, no longer automatically reconnect, and all messages waiting for confirmation return failure
+     * @return 是否关闭成功
+     */
+    public OperateResult ConnectClose() {
+        isClosedByUser = true;
+        HashedWheelTimer.Timeout timeout = keepAliveTimeout;
+        if (timeout != null) timeout.Cancel();
+
+        ClientChannel channel = mqttChannel;
+        if (channel != null) {
+            OperateResultExOne<byte[]> command = MqttHelper.BuildMqttCommand(MqttControlMessage.DISCONNECT, (byte) 0x00, null, null);
+            if (command.IsSuccess) channel.Send(command.Content);
+            channel.CloseAfterFlush();
+        }
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 获取当前是否已经连接到服务器<br />
+     * Get whether it is currently connected to the server
+     * @return 是否连接
+     */
+    public boolean isConnected() {
+        ClientChannel channel = mqttChannel;
+        return channel != null && !channel.IsClosed();
+    }
+
+    private synchronized OperateResult Connect() {
+        // 连接的过程是阻塞的，比如在连接断开的回调里直接重连，需要在其他的线程上执行
+        if (NioEventLoop.IsEventLoopThread()) return new OperateResult(StringResources.Language.BlockingCallInEventLoop());
+
+        ClientChannel old = mqttChannel;
+        if (old != null && !old.IsClosed()) return OperateResult.CreateSuccessResult();
+
+        OperateResultExOne<SocketChannel> rChannel = CreateSocketChannelAndConnect(
+                new InetSocketAddress(connectionOptions.IpAddress, connectionOptions.Port), connectionOptions.ConnectTimeout);
+        if (!rChannel.IsSuccess) return rChannel;
+
+        // 连接的握手使用阻塞的方式完成
+        OperateResult initi = InitializationOnConnect(rChannel.Content);
+        if (!initi.IsSuccess) {
+            CloseSocket(rChannel.Content.socket());
+            return initi;
+        }
+
+        NioEventLoop eventLoop;
+        try {
+            eventLoop = NioEventLoopGroup.getDefault().Next();
+        } catch (IOException ex) {
+            CloseSocket(rChannel.Content.socket());
+            return new OperateResult(ex.getMessage());
+        }
+
+        final ClientChannel channel = new ClientChannel(eventLoop, rChannel.Content);
+        OperateResult open = channel.Open();
+        if (!open.IsSuccess) return open;
+
+        mqttChannel = channel;
+        eventLoop.Execute(new Runnable() {
+            @Override
+            public void run() {
+                AfterConnected(channel);
+            }
+        });
+        ScheduleKeepAlive();
+        if (LogNet != null) LogNet.WriteDebug(toString(), StringResources.Language.NetEngineStart());
+
+        ActionOperateExOne<MqttClient> connected = onClientConnected;
+        if (connected != null) connected.Action(this);
+        return OperateResult.CreateSuccessResult();
+    }
+
+    private OperateResult InitializationOnConnect(SocketChannel channel) {
+        OperateResultExOne<byte[]> command = MqttHelper.BuildConnectMqttCommand(connectionOptions, "MQTT");
+        if (!command.IsSuccess) return command;
+
+        OperateResult send = Send(channel.socket(), command.Content);
+        if (!send.IsSuccess) return send;
+
+        OperateResultExTwo<Byte, byte[]> receive = ReceiveMqttMessage(channel.socket(), connectionOptions.ConnectTimeout, null);
+        if (!receive.IsSuccess) return receive;
+
+        return MqttHelper.CheckConnectBack(receive.Content1, receive.Content2);
+    }
+
+    // endregion
+
+    // region Publish Message
+
+    /**
+     * 异步发布一条消息，QoS 0的消息写入发送队列后即返回成功，QoS 1及QoS 2的消息在收到服务器的确认后返回成功，
+     * 等待确认的消息数量没有达到窗口大小时，后续的消息会立即发送，不会等待之前的确认<br />
+     * Publish a message asynchronously. QoS 0 messages return success after being written to the sending queue,
+     * and QoS 1 and QoS 2 messages return success after receiving confirmation from the server.
+     * When the number of messages waiting for confirmation does not reach the window size, subsequent messages will be sent immediately
+     * without waiting for the previous confirmation
+     * @param message 消息内容
+     * @return 是否发布成功的异步结果
+     */
+    public CompletableFuture<OperateResult> PublishMessageAsync(final MqttApplicationMessage message) {
+        final CompletableFuture<OperateResult> future = new CompletableFuture<>();
+        final ClientChannel channel = mqttChannel;
+        if (channel == null || channel.IsClosed()) {
+            future.complete(new OperateResult(StringResources.Language.ConnectionIsNotAvailable()));
+            return future;
+        }
+
+        if (message.QualityOfServiceLevel == MqttQualityOfServiceLevel.AtMostOnce || message.QualityOfServiceLevel == MqttQualityOfServiceLevel.OnlyTransfer) {
+            MqttPublishMessage publish = new MqttPublishMessage();
+            publish.Message = message;
+            OperateResultExOne<byte[]> command = MqttHelper.BuildPublishMqttCommand(publish);
+            if (!command.IsSuccess) {
+                future.complete(command);
+                return future;
+            }
+            future.complete(channel.Send(command.Content) ? OperateResult.CreateSuccessResult() : new OperateResult(StringResources.Language.ConnectionIsNotAvailable()));
+            return future;
+        }
+
+        final PendingMessage pending = new PendingMessage(message, future);
+        channel.getEventLoop().Execute(new Runnable() {
+            @Override
+            public void run() {
+                channel.Publish(pending);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * 发布一条消息，QoS 1及QoS 2的消息会等待服务器的确认，需要高吞吐量的时候请使用 {@link #PublishMessageAsync(MqttApplicationMessage)}<br />
+     * Publish a message, QoS 1 and QoS 2 messages will wait for the confirmation of the server,
+     * please use {@link #PublishMessageAsync(MqttApplicationMessage)} when high throughput is required
+     * @param message 消息内容
+     * @return 是否发布成功
+     */
+    public OperateResult PublishMessage(MqttApplicationMessage message) {
+        return WaitResult(PublishMessageAsync(message));
+    }
+
+    // endregion
+
+    // region Subscribe Message
+
+    /**
+     * 异步向服务器订阅主题，使用 {@link MqttHelper#BuildSubscribeMqttCommand(MqttSubscribeMessage)} 创建报文，收到服务器的确认后返回，
+     * 订阅成功的主题在重新连接之后会自动订阅<br />
+     * Subscribe to the topics asynchronously to the server, use {@link MqttHelper#BuildSubscribeMqttCommand(MqttSubscribeMessage)} to create the message,
+     * return after receiving the confirmation of the server, and the successfully subscribed topics will be automatically subscribed after reconnection
+     * @param message 订阅的消息，报文标识会自动分配
+     * @return 是否订阅成功的异步结果
+     */
+    public CompletableFuture<OperateResult> SubscribeMessageAsync(MqttSubscribeMessage message) {
+        return SendSubscribe(message, true);
+    }
+
+    /**
+     * 向服务器订阅主题，收到服务器的确认后返回<br />
+     * Subscribe to the topics to the server, return after receiving the confirmation of the server
+     * @param message 订阅的消息
+     * @return 是否订阅成功
+     */
+    public OperateResult SubscribeMessage(MqttSubscribeMessage message) {
+        return WaitResult(SubscribeMessageAsync(message));
+    }
+
+    /**
+     * 使用QoS 0的等级向服务器订阅主题<br />
+     * Subscribe to the topics to the server with QoS 0 level
+     * @param topics 主题信息，支持+及#的通配符
+     * @return 是否订阅成功
+     */
+    public OperateResult SubscribeMessage(String... topics) {
+        MqttSubscribeMessage message = new MqttSubscribeMessage();
+        message.Topics = topics;
+        return SubscribeMessage(message);
+    }
+
+    /**
+     * 异步取消订阅主题，使用 {@link MqttHelper#BuildUnSubscribeMqttCommand(MqttSubscribeMessage)} 创建报文，收到服务器的确认后返回<br />
+     * Unsubscribe the topics asynchronously, use {@link MqttHelper#BuildUnSubscribeMqttCommand(MqttSubscribeMessage)} to create the message,
+     * and return after receiving the confirmation of the server
+     * @param message 取消订阅的消息，报文标识会自动分配
+     * @return 是否取消成功的异步结果
+     */
+    public CompletableFuture<OperateResult> UnSubscribeMessageAsync(MqttSubscribeMessage message) {
+        return SendSubscribe(message, false);
+    }
+
+    /**
+     * 取消订阅主题，收到服务器的确认后返回<br />
+     * Unsubscribe the topics, return after receiving the confirmation of the server
+     * @param topics 主题信息
+     * @return 是否取消成功
+     */
+    public OperateResult UnSubscribeMessage(String... topics) {
+        MqttSubscribeMessage message = new MqttSubscribeMessage();
+        message.Topics = topics;
+        return WaitResult(UnSubscribeMessageAsync(message));
+    }
+
+    /**
+     * 异步向服务器订阅主题，并指定收到该主题的消息时的回调方法，主题支持+及#的通配符，收到的消息使用主题的前缀树匹配到回调方法，
+     * 和订阅的数量无关。订阅失败时回调方法会被移除<br />
+     * Subscribe to the topic asynchronously to the server, and specify the callback method when receiving the message of the topic.
+     * The topic supports the + and # wildcards, and the received messages are matched to the callback methods using the prefix tree of the topics,
+     * regardless of the number of subscriptions. The callback method will be removed when the subscription fails
+     * @param topic 主题过滤器
+     * @param qualityOfServiceLevel 订阅的消息等级
+     * @param handler 收到消息的回调方法，参数依次为客户端对象，主题，负载数据
+     * @return 是否订阅成功的异步结果
+     */
+    public CompletableFuture<OperateResult> SubscribeMessageAsync(final String topic, MqttQualityOfServiceLevel qualityOfServiceLevel,
+                                                                  final ActionOperateExThree<MqttClient, String, byte[]> handler) {
+        // 先注册回调，服务器在订阅确认之后立即推送的保留消息也能收到
+        OperateResult add = topicHandlers.Add(topic, handler);
+        if (!add.IsSuccess) return CompletableFuture.completedFuture(add);
+
+        MqttSubscribeMessage message = new MqttSubscribeMessage();
+        message.QualityOfServiceLevel = qualityOfServiceLevel;
+        message.Topics = new String[]{topic};
+        return SubscribeMessageAsync(message).thenApply(new Function<OperateResult, OperateResult>() {
+            @Override
+            public OperateResult apply(OperateResult result) {
+                if (!result.IsSuccess) topicHandlers.Remove(topic, handler);
+                return result;
+            }
+        });
+    }
+
+    /**
+     * 使用QoS 0的等级向服务器订阅主题，并指定收到该主题的消息时的回调方法，取消订阅时回调方法一起移除<br />
+     * Subscribe to the topic to the server with QoS 0 level, and specify the callback method when receiving the message of the topic.
+     * The callback method is removed together when unsubscribing
+     * @param topic 主题过滤器，支持+及#的通配符
+     * @param handler 收到消息的回调方法
+     * @return 是否订阅成功
+     */
+    public OperateResult SubscribeMessage(String topic, ActionOperateExThree<MqttClient, String, byte[]> handler) {
+        return WaitResult(SubscribeMessageAsync(topic, MqttQualityOfServiceLevel.AtMostOnce, handler));
+    }
+
+    /**
+     * 获取当前已经订阅的所有主题<br />
+     * Get all the topics currently subscribed
+     * @return 主题信息
+     */
+    public String[] getSubscribeTopics() {
+        synchronized (subscribeTopics) {
+            return subscribeTopics.keySet().toArray(new String[0]);
+        }
+    }
+
+    private static OperateResult WaitResult(CompletableFuture<OperateResult> future) {
+        // 确认的报文需要事件循环来接收，在事件循环的线程上等待会一直卡住
+        if (!future.isDone() && NioEventLoop.IsEventLoopThread()) return new OperateResult(StringResources.Language.BlockingCallInEventLoop());
+        return future.join();
+    }
+
+    private CompletableFuture<OperateResult> SendSubscribe(final MqttSubscribeMessage message, final boolean subscribe) {
+        final CompletableFuture<OperateResult> future = new CompletableFuture<>();
+        final ClientChannel channel = mqttChannel;
+        if (channel == null || channel.IsClosed()) {
+            future.complete(new OperateResult(StringResources.Language.ConnectionIsNotAvailable()));
+            return future;
+        }
+        if (message.Topics == null || message.Topics.length == 0) {
+            future.complete(OperateResult.CreateSuccessResult());
+            return future;
+        }
+
+        channel.getEventLoop().Execute(new Runnable() {
+            @Override
+            public void run() {
+                channel.Subscribe(new PendingSubscribe(message, subscribe, future));
+            }
+        });
+        return future;
+    }
+
+    // endregion
+
+    // region Public Properties
+
+    /**
+     * 获取连接服务器的配置信息<br />
+     * Get the configuration information for connecting to the server
+     * @return 配置信息
+     */
+    public MqttConnectionOptions getConnectionOptions() {
+        return connectionOptions;
+    }
+
+    /**
+     * 获取QoS 1及QoS 2的消息同时等待确认的最大数量，默认为1024<br />
+     * Get the maximum number of QoS 1 and QoS 2 messages waiting for confirmation at the same time, the default is 1024
+     * @return 窗口大小
+     */
+    public int getInflightWindow() {
+        return inflightWindow;
+    }
+
+    /**
+     * 设置QoS 1及QoS 2的消息同时等待确认的最大数量，超过的消息在客户端排队，最大不超过65535<br />
+     * Set the maximum number of QoS 1 and QoS 2 messages waiting for confirmation at the same time,
+     * the messages that exceed are queued on the client, and the maximum does not exceed 65535
+     * @param inflightWindow 窗口大小
+     */
+    public void setInflightWindow(int inflightWindow) {
+        this.inflightWindow = Math.max(1, Math.min(65535, inflightWindow));
+    }
+
+    /**
+     * 获取当前等待服务器确认的消息数量<br />
+     * Get the number of messages currently waiting for confirmation from the server
+     * @return 消息数量
+     */
+    public int getInflightCount() {
+        return inflightCount;
+    }
+
+    /**
+     * 获取订阅及取消订阅等待服务器确认的超时时间，单位毫秒，默认为10秒<br />
+     * Get the timeout for subscription and unsubscription waiting for server confirmation, in milliseconds, the default is 10 seconds
+     * @return 超时时间
+     */
+    public int getReceiveTimeOut() {
+        return receiveTimeOut;
+    }
+
+    /**
+     * 设置订阅及取消订阅等待服务器确认的超时时间，单位毫秒<br />
+     * Set the timeout for subscription and unsubscription waiting for server confirmation, in milliseconds
+     * @param receiveTimeOut 超时时间
+     */
+    public void setReceiveTimeOut(int receiveTimeOut) {
+        this.receiveTimeOut = receiveTimeOut;
+    }
+
+    /**
+     * 获取断线之后自动重连的间隔，单位毫秒，默认为3秒，小于等于0表示不自动重连<br />
+     * Get the interval of automatic reconnection after disconnection, in milliseconds,
+     * the default is 3 seconds, and less than or equal to 0 means no automatic reconnection
+     * @return 重连的间隔
+     */
+    public int getReconnectInterval() {
+        return reconnectInterval;
+    }
+
+    /**
+     * 设置断线之后自动重连的间隔，单位毫秒，小于等于0表示不自动重连<br />
+     * Set the interval of automatic reconnection after disconnection, in milliseconds, less than or equal to 0 means no automatic reconnection
+     * @param reconnectInterval 重连的间隔
+     */
+    public void setReconnectInterval(int reconnectInterval) {
+        this.reconnectInterval = reconnectInterval;
+    }
+
+    /**
+     * 获取收到消息时回调使用的线程池，为null时使用 {@link #getAsyncExecutor()} 的线程池，并且按照收到的顺序依次回调<br />
+     * Get the thread pool used for callback when receiving a message. When it is null, the thread pool of {@link #getAsyncExecutor()} is used,
+     * and the callbacks are made one by one in the order of reception
+     * @return 线程池
+     */
+    public Executor getCallbackExecutor() {
+        return callbackExecutor;
+    }
+
+    /**
+     * 设置收到消息时回调使用的线程池，为null时使用 {@link #getAsyncExecutor()} 的线程池按照收到的顺序依次回调，使用多线程的线程池时，消息的回调顺序不能保证<br />
+     * Set the thread pool used for callback when receiving a message. When it is null, the thread pool of {@link #getAsyncExecutor()} is used
+     * to call back one by one in the order of reception. When using a multi-threaded thread pool, the callback order of the messages cannot be guaranteed
+     * @param callbackExecutor 线程池
+     */
+    public void setCallbackExecutor(Executor callbackExecutor) {
+        this.callbackExecutor = callbackExecutor;
+    }
+
+    /**
+     * 设置收到服务器推送的消息时的回调方法，参数依次为客户端对象，主题，负载数据<br />
+     * Set the callback method when receiving the message pushed by the server, the parameters are the client object, topic, and payload data
+     * @param onMqttMessageReceived 回调方法
+     */
+    public void setOnMqttMessageReceived(ActionOperateExThree<MqttClient, String, byte[]> onMqttMessageReceived) {
+        this.onMqttMessageReceived = onMqttMessageReceived;
+    }
+
+    /**
+     * 设置连接成功时的回调方法，包括断线之后的自动重连<br />
+     * Set the callback method when the connection is successful, including automatic reconnection after disconnection
+     * @param onClientConnected 回调方法
+     */
+    public void setOnClientConnected(ActionOperateExOne<MqttClient> onClientConnected) {
+        this.onClientConnected = onClientConnected;
+    }
+
+    /**
+     * 设置连接断开时的回调方法，参数为断开的原因，主动关闭连接的时候不触发<br />
+     * Set the callback method when the connection is disconnected, the parameter is the reason for the disconnection,
+     * and it will not be triggered when the connection is actively closed
+     * @param onNetworkError 回调方法
+     */
+    public void setOnNetworkError(ActionOperateExOne<String> onNetworkError) {
+        this.onNetworkError = onNetworkError;
+    }
+
+    // endregion
+
+    // region Keep Alive Reconnect
+
+    private void ScheduleKeepAlive() {
+        HashedWheelTimer.Timeout old = keepAliveTimeout;
+        if (old != null) old.Cancel();
+        keepAliveTimeout = HashedWheelTimer.getDefault().Schedule(new Runnable() {
+            @Override
+            public void run() {
+                KeepAlive();
+            }
+        }, 1000);
+    }
+
+    private void KeepAlive() {
+        if (isClosedByUser) return;
+        ClientChannel channel = mqttChannel;
+        if (channel == null || channel.IsClosed()) return;
+
+        if (connectionOptions.KeepAlivePeriod <= 0) return;
+
+        long now = System.currentTimeMillis();
+        long pingTime = channel.PingSendTime;
+        if (pingTime > 0) {
+            // 发送的心跳超过保活时间还没有回复，认为连接已经断开
+            if (now - pingTime > connectionOptions.KeepAlivePeriod * 1000L) {
+                channel.Close();
+                return;
+            }
+        } else {
+            // 只发送不接收，或是只接收不发送的时候，都需要心跳来确认连接是正常的
+            long interval = Math.min(connectionOptions.KeepAliveSendInterval, connectionOptions.KeepAlivePeriod) * 1000L;
+            if (now - channel.getLastSendTime() >= interval || now - channel.getLastReceiveTime() >= interval) {
+                OperateResultExOne<byte[]> command = MqttHelper.BuildMqttCommand(MqttControlMessage.PINGREQ, (byte) 0x00, null, null);
+                if (command.IsSuccess) {
+                    channel.PingSendTime = now;
+                    channel.Send(command.Content);
+                }
+            }
+        }
+        ScheduleKeepAlive();
+    }
+
+    private void ConnectionLost(final String message) {
+        if (isClosedByUser) return;
+        if (LogNet != null) LogNet.WriteDebug(toString(), message);
+
+        // 回调在事件循环之外执行，回调方法里可以直接调用同步的方法
+        final ActionOperateExOne<String> networkError = onNetworkError;
+        if (networkError != null) getAsyncExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                networkError.Action(message);
+            }
+        });
+        ScheduleReconnect();
+    }
+
+    private void ScheduleReconnect() {
+        if (isClosedByUser || reconnectInterval <= 0) return;
+        HashedWheelTimer.getDefault().Schedule(new Runnable() {
+            @Override
+            public void run() {
+                // 连接使用阻塞的方式完成，不能占用定时器的线程
+                getAsyncExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (isClosedByUser) return;
+                        if (!Connect().IsSuccess) ScheduleReconnect();
+                    }
+                });
+            }
+        }, reconnectInterval);
+    }
+
+    private void AfterConnected(ClientChannel channel) {
+        // 恢复之前订阅的主题
+        HashMap<MqttQualityOfServiceLevel, ArrayList<String>> groups = new HashMap<>();
+        synchronized (subscribeTopics) {
+            for (Map.Entry<String, MqttQualityOfServiceLevel> entry : subscribeTopics.entrySet()) {
+                if (!groups.containsKey(entry.getValue())) groups.put(entry.getValue(), new ArrayList<String>());
+                groups.get(entry.getValue()).add(entry.getKey());
+            }
+        }
+        for (Map.Entry<MqttQualityOfServiceLevel, ArrayList<String>> entry : groups.entrySet()) {
+            MqttSubscribeMessage message = new MqttSubscribeMessage();
+            message.QualityOfServiceLevel = entry.getKey();
+            message.Topics = entry.getValue().toArray(new String[0]);
+            channel.Subscribe(new PendingSubscribe(message, true, new CompletableFuture<OperateResult>()));
+        }
+    }
+
+    private void DispatchMessage(final String topic, final byte[] payload) {
+        // 按照主题过滤器找到订阅时指定的回调，再加上全局的回调
+        final ArrayList<ActionOperateExThree<MqttClient, String, byte[]>> handlers = topicHandlers.getCount() > 0 ?
+                topicHandlers.Match(topic) : new ArrayList<ActionOperateExThree<MqttClient, String, byte[]>>();
+        ActionOperateExThree<MqttClient, String, byte[]> received = onMqttMessageReceived;
+        if (received != null) handlers.add(received);
+        if (handlers.isEmpty()) return;
+
+        Runnable callback = new Runnable() {
+            @Override
+            public void run() {
+                for (ActionOperateExThree<MqttClient, String, byte[]> handler : handlers) handler.Action(MqttClient.this, topic, payload);
+            }
+        };
+        Executor executor = callbackExecutor;
+        if (executor != null) {
+            executor.execute(callback);
+            return;
+        }
+
+        // 没有指定线程池时，在后台的线程池上按照收到的顺序依次回调，同一时间只有一个线程在执行回调
+        callbackQueue.add(callback);
+        if (callbackRunning.compareAndSet(false, true)) getAsyncExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                RunCallbacks();
+            }
+        });
+    }
+
+    private void RunCallbacks() {
+        while (true) {
+            Runnable callback = callbackQueue.poll();
+            if (callback == null) {
+                callbackRunning.set(false);
+                // 释放标记之后可能又有新的回调加入
+                if (callbackQueue.isEmpty() || !callbackRunning.compareAndSet(false, true)) return;
+                continue;
+            }
+            try {
+                callback.run();
+            } catch (Exception ex) {
+                if (LogNet != null) LogNet.WriteException(toString(), ex);
+            }
+        }
+    }
+
+    // endregion
+
+    // region Private Class
+
+    private static final class PendingMessage {
+        PendingMessage(MqttApplicationMessage message, CompletableFuture<OperateResult> future) {
+            Message = message;
+            Future = future;
+        }
+
+        final MqttApplicationMessage Message;
+        final CompletableFuture<OperateResult> Future;
+        int Identifier = 0;
+        boolean Released = false;                          // QoS 2的消息是否已经收到PUBREC并发送了PUBREL，之后才接受PUBCOMP
+    }
+
+    private static final class PendingSubscribe {
+        PendingSubscribe(MqttSubscribeMessage message, boolean subscribe, CompletableFuture<OperateResult> future) {
+            Message = message;
+            IsSubscribe = subscribe;
+            Future = future;
+        }
+
+        final MqttSubscribeMessage Message;
+        final boolean IsSubscribe;
+        final CompletableFuture<OperateResult> Future;
+        HashedWheelTimer.Timeout WheelTimeout = null;
+    }
+
+    /**
+     * 客户端的一次连接，所有的状态都只在事件循环的线程上访问，连接断开之后所有等待确认的消息都返回失败
+     */
+    private final class ClientChannel extends MqttNioChannel {
+        ClientChannel(NioEventLoop eventLoop, SocketChannel channel) {
+            super(eventLoop, channel);
+        }
+
+        void Publish(PendingMessage pending) {
+            if (IsClosed()) {
+                pending.Future.complete(new OperateResult(StringResources.Language.ConnectionIsNotAvailable()));
+                return;
+            }
+            // 已经有排队的消息时也要排队，保证发送的顺序
+            if (inflight.size() >= inflightWindow || !waitQueue.isEmpty() || !TryPublish(pending)) waitQueue.add(pending);
+        }
+
+        /**
+         * 分配报文标识并发送消息，没有可用的报文标识时返回false，消息需要继续排队，创建报文失败时直接返回失败的结果
+         */
+        private boolean TryPublish(PendingMessage pending) {
+            int identifier = NextIdentifier();
+            if (identifier < 0) return false;
+
+            MqttPublishMessage publish = new MqttPublishMessage();
+            publish.Identifier = identifier;
+            publish.Message = pending.Message;
+            OperateResultExOne<byte[]> command = MqttHelper.BuildPublishMqttCommand(publish);
+            if (!command.IsSuccess) {
+                pending.Future.complete(command);
+                return true;
+            }
+
+            pending.Identifier = identifier;
+            inflight.put(identifier, pending);
+            inflightCount = inflight.size();
+            Send(command.Content);
+            return true;
+        }
+
+        void Subscribe(final PendingSubscribe pending) {
+            if (IsClosed()) {
+                pending.Future.complete(new OperateResult(StringResources.Language.ConnectionIsNotAvailable()));
+                return;
+            }
+
+            final int identifier = NextIdentifier();
+            if (identifier < 0) {
+                pending.Future.complete(new OperateResult(StringResources.Language.MQTTIdentifierExhausted()));
+                return;
+            }
+
+            pending.Message.Identifier = identifier;
+            OperateResultExOne<byte[]> command = pending.IsSubscribe ?
+                    MqttHelper.BuildSubscribeMqttCommand(pending.Message) : MqttHelper.BuildUnSubscribeMqttCommand(pending.Message);
+            if (!command.IsSuccess) {
+                pending.Future.complete(command);
+                return;
+            }
+
+            subscribes.put(identifier, pending);
+            if (receiveTimeOut > 0) {
+                pending.WheelTimeout = HashedWheelTimer.getDefault().Schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        getEventLoop().Execute(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (subscribes.get(identifier) != pending) return;
+                                subscribes.remove(identifier);
+                                pending.Future.complete(new OperateResult(StringResources.Language.ReceiveDataTimeout() + receiveTimeOut));
+                            }
+                        });
+                    }
+                }, receiveTimeOut);
+            }
+            Send(command.Content);
+        }
+
+        @Override
+        protected void OnMessage(byte code, byte[] data) {
+            int control = (code & 0xF0) >> 4;
+            switch (control) {
+                case MqttControlMessage.PUBLISH: ReceivePublish(code, data); break;
+                case MqttControlMessage.PUBACK: ReceivePublishAck(GetIdentifier(data), false); break;
+                case MqttControlMessage.PUBREC: ReceivePublishReceived(GetIdentifier(data)); break;
+                case MqttControlMessage.PUBREL: ReceivePublishRelease(GetIdentifier(data)); break;
+                case MqttControlMessage.PUBCOMP: ReceivePublishAck(GetIdentifier(data), true); break;
+                case MqttControlMessage.SUBACK: ReceiveSubscribeAck(data); break;
+                case MqttControlMessage.UNSUBACK: ReceiveSubscribeAck(data); break;
+                case MqttControlMessage.PINGRESP: PingSendTime = 0; break;
+                default: break;
+            }
+        }
+
+        @Override
+        protected void OnClosed(String message) {
+            for (PendingMessage pending : inflight.values()) pending.Future.complete(new OperateResult(message));
+            for (PendingMessage pending : waitQueue) pending.Future.complete(new OperateResult(message));
+            for (PendingSubscribe pending : subscribes.values()) {
+                if (pending.WheelTimeout != null) pending.WheelTimeout.Cancel();
+                pending.Future.complete(new OperateResult(message));
+            }
+            inflight.clear();
+            waitQueue.clear();
+            subscribes.clear();
+            inflightCount = 0;
+            ConnectionLost(message);
+        }
+
+        private void ReceivePublish(byte code, byte[] data) {
+            OperateResultExTwo<String, byte[]> extra = MqttHelper.ExtraMqttReceiveData(code, data);
+            if (!extra.IsSuccess) return;
+
+            int qos = (code & 0x06) >> 1;
+            String topic = extra.Content1;
+            byte[] payload = extra.Content2;
+            if (qos == 0) {
+                DispatchMessage(topic, payload);
+                return;
+            }
+            if (payload.length < 2) return;
+
+            // QoS 1，QoS 2及HSL扩展的仅传递等级的消息在主题之后带有两个字节的报文标识
+            int identifier = (payload[0] & 0xFF) * 256 + (payload[1] & 0xFF);
+            byte[] content = new byte[payload.length - 2];
+            System.arraycopy(payload, 2, content, 0, content.length);
+            if (qos == 3) {
+                // 仅传递的消息不需要回复确认
+                DispatchMessage(topic, content);
+            } else if (qos == 1) {
+                SendAck(MqttControlMessage.PUBACK, (byte) 0x00, identifier);
+                DispatchMessage(topic, content);
+            } else {
+                // 在收到PUBREL之前重复发送的消息不再回调
+                SendAck(MqttControlMessage.PUBREC, (byte) 0x00, identifier);
+                if (receivedQos2.add(identifier)) DispatchMessage(topic, content);
+            }
+        }
+
+        private void ReceivePublishAck(int identifier, boolean isComplete) {
+            PendingMessage pending = inflight.get(identifier);
+            if (pending == null) return;
+            if (isComplete != (pending.Message.QualityOfServiceLevel == MqttQualityOfServiceLevel.ExactlyOnce)) return;
+            if (isComplete && !pending.Released) return;                            // 没有收到PUBREC之前的PUBCOMP是无效的
+
+            inflight.remove(identifier);
+            inflightCount = inflight.size();
+            pending.Future.complete(OperateResult.CreateSuccessResult());
+
+            // 窗口有空闲之后继续发送排队的消息
+            while (!waitQueue.isEmpty() && inflight.size() < inflightWindow) {
+                if (!TryPublish(waitQueue.peek())) break;
+                waitQueue.poll();
+            }
+        }
+
+        private void ReceivePublishReceived(int identifier) {
+            PendingMessage pending = inflight.get(identifier);
+            if (pending != null && pending.Message.QualityOfServiceLevel == MqttQualityOfServiceLevel.ExactlyOnce) pending.Released = true;
+            SendAck(MqttControlMessage.PUBREL, (byte) 0x02, identifier);
+        }
+
+        private void ReceivePublishRelease(int identifier) {
+            receivedQos2.remove(identifier);
+            SendAck(MqttControlMessage.PUBCOMP, (byte) 0x00, identifier);
+        }
+
+        private void ReceiveSubscribeAck(byte[] data) {
+            PendingSubscribe pending = subscribes.remove(GetIdentifier(data));
+            if (pending == null) return;
+            if (pending.WheelTimeout != null) pending.WheelTimeout.Cancel();
+
+            // SUBACK的返回码0x80表示订阅失败
+            for (int i = 2; pending.IsSubscribe && i < data.length; i++) {
+                if ((data[i] & 0xFF) == 0x80) {
+                    pending.Future.complete(new OperateResult(StringResources.Language.MQTTSubscribeFailed() + pending.Message.Topics[Math.min(i - 2, pending.Message.Topics.length - 1)]));
+                    return;
+                }
+            }
+
+            synchronized (subscribeTopics) {
+                for (String topic : pending.Message.Topics) {
+                    if (pending.IsSubscribe) subscribeTopics.put(topic, pending.Message.QualityOfServiceLevel);
+                    else {
+                        subscribeTopics.remove(topic);
+                        topicHandlers.Remove(topic);
+                    }
+                }
+            }
+            pending.Future.complete(OperateResult.CreateSuccessResult());
+        }
+
+        private void SendAck(byte control, byte flags, int identifier) {
+            OperateResultExOne<byte[]> command = MqttHelper.BuildMqttCommand(control, flags, MqttHelper.BuildIntBytes(identifier), null);
+            if (command.IsSuccess) Send(command.Content);
+        }
+
+        private int NextIdentifier() {
+            // 报文标识的范围是1-65535，跳过还在使用中的标识
+            for (int i = 0; i < 65535; i++) {
+                int identifier = nextIdentifier;
+                nextIdentifier = nextIdentifier >= 65535 ? 1 : nextIdentifier + 1;
+                if (!inflight.containsKey(identifier) && !subscribes.containsKey(identifier)) return identifier;
+            }
+            return -1;
+        }
+
+        private int GetIdentifier(byte[] data) {
+            if (data == null || data.length < 2) return -1;
+            return (data[0] & 0xFF) * 256 + (data[1] & 0xFF);
+        }
+
+        private final HashMap<Integer, PendingMessage> inflight = new HashMap<>();          // 等待确认的QoS 1及QoS 2消息
+        private final ArrayDeque<PendingMessage> waitQueue = new ArrayDeque<>();            // 窗口已满时排队的消息
+        private final HashMap<Integer, PendingSubscribe> subscribes = new HashMap<>();      // 等待确认的订阅及取消订阅
+        private final HashSet<Integer> receivedQos2 = new HashSet<>();                      // 已经收到但还没有释放的QoS 2消息
+        private int nextIdentifier = 1;                                                     // 下一个报文标识
+        volatile long PingSendTime = 0;                                                     // 还没有收到回复的心跳的发送时间，0表示没有
+    }
+
+    // endregion
+
+    // region Private Member
+
+    private final MqttConnectionOptions connectionOptions;                                  // 连接服务器时的配置信息
+    private volatile ClientChannel mqttChannel = null;                                      // 当前的连接
+    private volatile boolean isClosedByUser = false;                                        // 是否是主动关闭的连接
+    private volatile HashedWheelTimer.Timeout keepAliveTimeout = null;                      // 心跳检查的定时任务
+    private volatile int inflightWindow = 1024;                                             // 同时等待确认的消息数量
+    private volatile int inflightCount = 0;                                                 // 当前等待确认的消息数量
+    private volatile int receiveTimeOut = 10_000;                                           // 订阅的超时时间
+    private volatile int reconnectInterval = 3_000;                                         // 自动重连的间隔
+    private volatile Executor callbackExecutor = null;                                      // 回调的线程池
+    private final ConcurrentLinkedQueue<Runnable> callbackQueue = new ConcurrentLinkedQueue<>();  // 没有指定线程池时按顺序执行的回调
+    private final AtomicBoolean callbackRunning = new AtomicBoolean(false);                 // 是否有线程正在执行回调
+    private volatile ActionOperateExThree<MqttClient, String, byte[]> onMqttMessageReceived = null;  // 收到消息的回调
+    private volatile ActionOperateExOne<MqttClient> onClientConnected = null;               // 连接成功的回调
+    private volatile ActionOperateExOne<String> onNetworkError = null;                      // 连接断开的回调
+    private final LinkedHashMap<String, MqttQualityOfServiceLevel> subscribeTopics = new LinkedHashMap<>();  // 已经订阅的主题
+    private final MqttTopicTrie<ActionOperateExThree<MqttClient, String, byte[]>> topicHandlers = new MqttTopicTrie<>();  // 主题过滤器对应的回调
+
+    // endregion
+
+    // region Object Override
+
+    @Override
+    public String toString() {
+        return "MqttClient[" + connectionOptions.IpAddress + ":" + connectionOptions.Port + "]";
+    }
+
+    // endregion
 }
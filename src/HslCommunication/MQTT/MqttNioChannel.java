@@ -0,0 +1,374 @@
+package HslCommunication.MQTT;
+
+import HslCommunication.Core.Net.Nio.INioHandler;
+import HslCommunication.Core.Net.Nio.NioEventLoop;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.StringResources;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * 基于非阻塞的 {@link SocketChannel} 的MQTT报文通道，在事件循环上按照MQTT的固定报头及剩余长度拆分出完整的报文，发送的报文先进入队列，
+ * 再由事件循环线程合并写入，发送方不需要等待。客户端和服务器端的每个连接都使用一个通道对象。<br />
+ * The MQTT message channel based on a non-blocking {@link SocketChannel}. The complete messages are split out on the event loop
+ * according to the fixed header and the remaining length of MQTT. The sent messages first enter the queue, and then are merged and written
+ * by the thread of the event loop, and the sender does not need to wait. Each connection of the client and the server uses one channel object.
+ */
+public abstract class MqttNioChannel implements INioHandler {
+
+    /**
+     * 使用指定的事件循环和已经连接的通道实例化一个对象，需要调用 {@link #Open()} 方法才开始工作<br />
+     * Instantiate an object with the specified event loop and the connected channel, you need to call the {@link #Open()} method to start working
+     * @param eventLoop 事件循环
+     * @param channel 已经连接成功的通道
+     */
+    public MqttNioChannel(NioEventLoop eventLoop, SocketChannel channel) {
+        this.eventLoop = eventLoop;
+        this.channel = channel;
+        this.lastReceiveTime = System.currentTimeMillis();
+        this.lastSendTime = this.lastReceiveTime;
+    }
+
+    /**
+     * 将通道切换到非阻塞模式，并注册到事件循环上，本方法会等待注册完成，不能在同一个事件循环的线程上调用<br />
+     * Switch the channel to non-blocking mode and register it on the event loop. This method waits for the registration to complete
+     * and cannot be called on the thread of the same event loop
+     * @return 是否注册成功
+     */
+    public OperateResult Open() {
+        return OpenAsync().join();
+    }
+
+    /**
+     * 将通道切换到非阻塞模式，并异步注册到事件循环上，可以在任意的线程上调用，服务器接收新连接的时候使用<br />
+     * Switch the channel to non-blocking mode and register it asynchronously on the event loop. It can be called on any thread,
+     * and is used when the server accepts new connections
+     * @return 是否注册成功的异步结果
+     */
+    public CompletableFuture<OperateResult> OpenAsync() {
+        try {
+            channel.configureBlocking(false);
+        } catch (IOException ex) {
+            closed = true;
+            CloseChannel();
+            return CompletableFuture.completedFuture(new OperateResult(ex.getMessage()));
+        }
+
+        return eventLoop.Register(channel, SelectionKey.OP_READ, this).thenApply(new Function<OperateResultExOne<SelectionKey>, OperateResult>() {
+            @Override
+            public OperateResult apply(OperateResultExOne<SelectionKey> register) {
+                // 注册的结果在事件循环的线程上返回
+                if (!register.IsSuccess) {
+                    closed = true;
+                    CloseChannel();
+                    return register;
+                }
+                selectionKey = register.Content;
+                if (closed) {
+                    eventLoop.Deregister(selectionKey, MqttNioChannel.this);
+                } else if (!writing.isEmpty()) {
+                    SetInterestWrite(true);
+                }
+                return OperateResult.CreateSuccessResult();
+            }
+        });
+    }
+
+    /**
+     * 获取当前通道所在的事件循环<br />
+     * Get the event loop where the current channel is located
+     * @return 事件循环
+     */
+    public NioEventLoop getEventLoop() {
+        return eventLoop;
+    }
+
+    /**
+     * 获取底层的网络通道<br />
+     * Get the underlying network channel
+     * @return 网络通道
+     */
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * 获取当前的通道是否已经关闭<br />
+     * Get whether the current channel has been closed
+     * @return 是否关闭
+     */
+    public boolean IsClosed() {
+        return closed;
+    }
+
+    /**
+     * 获取最后一次收到报文的时间，单位毫秒<br />
+     * Get the time when the message was last received, in milliseconds
+     * @return 时间
+     */
+    public long getLastReceiveTime() {
+        return lastReceiveTime;
+    }
+
+    /**
+     * 获取最后一次发送报文的时间，单位毫秒<br />
+     * Get the time when the message was last sent, in milliseconds
+     * @return 时间
+     */
+    public long getLastSendTime() {
+        return lastSendTime;
+    }
+
+    /**
+     * 获取允许接收的单个报文的最大长度，超过的时候关闭连接，默认为16M<br />
+     * Get the maximum length of a single message allowed to be received, and close the connection when it exceeds, the default is 16M
+     * @return 最大长度
+     */
+    public int getMaxMessageLength() {
+        return maxMessageLength;
+    }
+
+    /**
+     * 设置允许接收的单个报文的最大长度，超过的时候关闭连接<br />
+     * Set the maximum length of a single message allowed to be received, and close the connection when it exceeds
+     * @param maxMessageLength 最大长度
+     */
+    public void setMaxMessageLength(int maxMessageLength) {
+        this.maxMessageLength = maxMessageLength;
+    }
+
+    /**
+     * 发送一条完整的MQTT报文，报文先进入发送队列，本方法是线程安全的，不会阻塞调用方<br />
+     * Send a complete MQTT message, the message first enters the sending queue, this method is thread-safe and will not block the caller
+     * @param frame 完整的报文
+     * @return 通道是否可用
+     */
+    public boolean Send(byte[] frame) {
+        if (closed) return false;
+        sendQueue.add(frame);
+        if (eventLoop.InEventLoop()) {
+            Flush();
+        } else if (flushScheduled.compareAndSet(false, true)) {
+            eventLoop.Execute(flushTask);
+        }
+        return true;
+    }
+
+    /**
+     * 关闭当前的通道，之后会在事件循环的线程上调用一次 {@link #OnClosed(String)} 方法<br />
+     * Close the current channel, and then the {@link #OnClosed(String)} method will be called once on the thread of the event loop
+     */
+    @Override
+    public void Close() {
+        if (eventLoop.InEventLoop()) {
+            CloseSession(StringResources.Language.ConnectionIsNotAvailable());
+        } else {
+            eventLoop.Execute(new Runnable() {
+                @Override
+                public void run() {
+                    CloseSession(StringResources.Language.ConnectionIsNotAvailable());
+                }
+            });
+        }
+    }
+
+    /**
+     * 将发送队列里的报文全部写入之后再关闭通道，用于发送断开连接的报文<br />
+     * Close the channel after all the messages in the sending queue are written, used to send the disconnect message
+     */
+    public void CloseAfterFlush() {
+        closeAfterFlush = true;
+        if (eventLoop.InEventLoop()) {
+            Flush();
+        } else {
+            eventLoop.Execute(flushTask);
+        }
+    }
+
+    // region Abstract Method
+
+    /**
+     * 收到一条完整的MQTT报文时调用，本方法在事件循环的线程上调用，不能阻塞<br />
+     * Called when a complete MQTT message is received, this method is called on the thread of the event loop and cannot block
+     * @param code 固定报头的第一个字节，包含了控制码和标记
+     * @param data 可变报头及负载数据
+     */
+    protected abstract void OnMessage(byte code, byte[] data);
+
+    /**
+     * 通道关闭的时候调用，只会调用一次，本方法在事件循环的线程上调用<br />
+     * Called when the channel is closed, it will only be called once, and this method is called on the thread of the event loop
+     * @param message 关闭的原因
+     */
+    protected abstract void OnClosed(String message);
+
+    // endregion
+
+    // region INioHandler
+
+    @Override
+    public void HandleSelectionKey(SelectionKey key) {
+        try {
+            if (key.isWritable()) Flush();
+            if (key.isValid() && key.isReadable()) DoRead();
+        } catch (IOException ex) {
+            CloseSession(ex.getMessage());
+        }
+    }
+
+    // endregion
+
+    // region Private Method
+
+    private void DoRead() throws IOException {
+        while (true) {
+            int count = channel.read(readBuffer);
+            if (count < 0) {
+                CloseSession(StringResources.Language.RemoteClosedConnection());
+                return;
+            }
+            if (count == 0) return;
+
+            lastReceiveTime = System.currentTimeMillis();
+            readBuffer.flip();
+            while (!closed && DecodeMessage()) { }
+            if (closed) return;
+            readBuffer.compact();
+        }
+    }
+
+    /**
+     * 从接收的缓存里解析出一条完整的报文，数据不够的时候返回false，并在需要的时候扩大缓存
+     * @return 是否解析出了报文
+     */
+    private boolean DecodeMessage() {
+        int start = readBuffer.position();
+        if (readBuffer.remaining() < 2) return false;
+
+        // 剩余长度最多占用4个字节，每个字节的最高位表示后面还有长度数据
+        int length = 0, multiplier = 1, index = start + 1;
+        while (true) {
+            if (index >= readBuffer.limit()) return false;
+            byte digit = readBuffer.get(index++);
+            length += (digit & 0x7F) * multiplier;
+            if ((digit & 0x80) == 0) break;
+            multiplier *= 128;
+            if (index - start > 4) {
+                CloseSession("MQTT remaining length is illegal");
+                return false;
+            }
+        }
+        if (length > maxMessageLength) {
+            CloseSession(StringResources.Language.MQTTDataTooLong() + length);
+            return false;
+        }
+
+        int total = index - start + length;
+        if (readBuffer.remaining() < total) {
+            if (readBuffer.capacity() < total) {
+                ByteBuffer buffer = ByteBuffer.allocate(Math.max(total, readBuffer.capacity() * 2));
+                buffer.put(readBuffer);
+                buffer.flip();
+                readBuffer = buffer;
+            }
+            return false;
+        }
+
+        byte code = readBuffer.get(start);
+        byte[] data = new byte[length];
+        readBuffer.position(index);
+        readBuffer.get(data);
+        OnMessage(code, data);
+        return true;
+    }
+
+    private void Flush() {
+        flushScheduled.set(false);
+        if (closed) return;
+
+        try {
+            while (true) {
+                // 合并队列里的报文一起写入，减少系统调用的次数
+                while (writing.size() < 64) {
+                    byte[] frame = sendQueue.poll();
+                    if (frame == null) break;
+                    writing.add(ByteBuffer.wrap(frame));
+                }
+                if (writing.isEmpty()) break;
+
+                channel.write(writing.toArray(new ByteBuffer[0]));
+                lastSendTime = System.currentTimeMillis();
+                while (!writing.isEmpty() && !writing.peekFirst().hasRemaining()) writing.pollFirst();
+                if (!writing.isEmpty()) {
+                    SetInterestWrite(true);
+                    return;
+                }
+            }
+            SetInterestWrite(false);
+            if (closeAfterFlush) CloseSession(StringResources.Language.ConnectionIsNotAvailable());
+        } catch (IOException ex) {
+            CloseSession(ex.getMessage());
+        }
+    }
+
+    private void SetInterestWrite(boolean write) {
+        SelectionKey key = selectionKey;
+        if (key == null || !key.isValid()) return;
+        key.interestOps(write ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    private void CloseSession(String message) {
+        if (closed) return;
+        closed = true;
+        if (channel.isOpen()) {
+            eventLoop.Deregister(selectionKey, this);
+            CloseChannel();
+        }
+        sendQueue.clear();
+        writing.clear();
+        OnClosed(message);
+    }
+
+    private void CloseChannel() {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+
+        }
+    }
+
+    // endregion
+
+    @Override
+    public String toString() {
+        return "MqttNioChannel[" + channel + "]";
+    }
+
+    private final NioEventLoop eventLoop;                                                   // 事件循环
+    private final SocketChannel channel;                                                    // 网络通道
+    private volatile SelectionKey selectionKey = null;                                      // 注册的选择键
+    private volatile boolean closed = false;                                                // 是否已经关闭
+    private volatile boolean closeAfterFlush = false;                                       // 发送完成后是否关闭
+    private volatile long lastReceiveTime = 0;                                              // 最后一次收到报文的时间
+    private volatile long lastSendTime = 0;                                                 // 最后一次发送报文的时间
+    private int maxMessageLength = 16 * 1024 * 1024;                                        // 单个报文的最大长度
+    private ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);                         // 接收的缓存，只在事件循环线程访问
+    private final ConcurrentLinkedQueue<byte[]> sendQueue = new ConcurrentLinkedQueue<>();  // 等待发送的报文
+    private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();                      // 正在写入的报文，只在事件循环线程访问
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);                  // 是否已经投递了写入的任务
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            Flush();
+        }
+    };
+}
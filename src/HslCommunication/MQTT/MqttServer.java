@@ -0,0 +1,753 @@
+package HslCommunication.MQTT;
+
+import HslCommunication.BasicFramework.SoftBasic;
+import HslCommunication.Core.Net.HslProtocol;
+import HslCommunication.Core.Net.NetworkBase.NetworkBase;
+import HslCommunication.Core.Net.Nio.INioHandler;
+import HslCommunication.Core.Net.Nio.NioEventLoop;
+import HslCommunication.Core.Net.Nio.NioEventLoopGroup;
+import HslCommunication.Core.Thread.HashedWheelTimer;
+import HslCommunication.Core.Types.ActionOperateExOne;
+import HslCommunication.Core.Types.FunctionOperateExThree;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.Core.Types.OperateResultExTwo;
+import HslCommunication.StringResources;
+import HslCommunication.Utilities;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 轻量级的Mqtt服务器，侦听及所有客户端的读写都在非阻塞的事件循环上完成，支持MQTT 3.1.1协议的发布订阅（QoS 0-2，+及#通配符，保留消息），
+ * 同时支持 {@link MqttSyncClient} 使用的HUSL同步RPC协议，包括数据接收进度，处理进度的报告及读取保留消息的主题列表，RPC请求由可替换的处理方法完成。
+ * 主要用于没有真实服务器的环境下对MQTT客户端进行测试及性能测试，会话信息不会持久化。<br />
+ * A lightweight Mqtt server. Listening and reading and writing of all clients are completed on the non-blocking event loop.
+ * It supports the publish-subscribe of the MQTT 3.1.1 protocol (QoS 0-2, + and # wildcards, retained messages),
+ * and also supports the HUSL synchronous RPC protocol used by {@link MqttSyncClient}, including the report of data receiving progress, processing progress
+ * and reading the topic list of retained messages. RPC requests are completed by a replaceable handler.
+ * It is mainly used to test and benchmark MQTT clients in an environment without a real server, and the session information is not persisted.
+ */
+public class MqttServer extends NetworkBase {
+
+    /**
+     * 实例化一个默认的Mqtt服务器<br />
+     * Instantiate a default Mqtt server
+     */
+    public MqttServer() {
+    }
+
+    // region Public Properties
+
+    /**
+     * 设置服务器使用的事件循环组，需要在启动服务器之前设置，没有设置时使用默认的共享事件循环组<br />
+     * Set the event loop group used by the server, it needs to be set before starting the server, and the default shared event loop group is used if it is not set
+     * @param eventLoopGroup 事件循环组
+     */
+    public void setEventLoopGroup(NioEventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+    }
+
+    /**
+     * 获取当前在线的客户端数量，包括还没有完成登录的连接<br />
+     * Get the number of currently online clients, including connections that have not yet completed login
+     * @return 客户端数量
+     */
+    public int getOnlineCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 获取当前所有已经登录的客户端的会话信息<br />
+     * Get the session information of all currently logged-in clients
+     * @return 会话信息
+     */
+    public MqttSession[] getOnlineSessions() {
+        ArrayList<MqttSession> list = new ArrayList<>();
+        for (ServerSession session : sessions) {
+            MqttSession info = session.info;
+            if (info != null) list.add(info);
+        }
+        return list.toArray(new MqttSession[0]);
+    }
+
+    /**
+     * 获取服务器是否已经启动<br />
+     * Get whether the server has been started
+     * @return 是否启动
+     */
+    public boolean isStarted() {
+        return serverChannel != null;
+    }
+
+    /**
+     * 设置同步客户端的RPC请求的处理方法，参数依次为客户端的会话，请求的主题，请求的负载数据，返回成功时把结果数据发送给客户端，
+     * 返回失败时把错误码及错误消息发送给客户端，处理方法可以通过 {@link MqttSession#ReportProgress(String, String)} 报告处理的进度<br />
+     * Set the handler of the RPC request of the synchronous client, the parameters are the client session, the requested topic, and the requested payload data.
+     * When it returns success, the result data is sent to the client, and when it returns failure, the error code and error message are sent to the client.
+     * The handler can report the progress of processing through {@link MqttSession#ReportProgress(String, String)}
+     * @param rpcHandler RPC的处理方法
+     */
+    public void setRpcHandler(FunctionOperateExThree<MqttSession, String, byte[], OperateResultExOne<byte[]>> rpcHandler) {
+        this.rpcHandler = rpcHandler;
+    }
+
+    /**
+     * 设置执行RPC处理方法的线程池，处理方法可能会阻塞，所以不在事件循环的线程上执行，为null时使用默认的异步线程池<br />
+     * Set the thread pool to execute the RPC handler. The handler may block, so it is not executed on the thread of the event loop,
+     * and the default asynchronous thread pool is used when it is null
+     * @param rpcExecutor 线程池
+     */
+    public void setRpcExecutor(Executor rpcExecutor) {
+        this.rpcExecutor = rpcExecutor;
+    }
+
+    /**
+     * 设置客户端登录时的验证方法，参数依次为客户端ID，用户名，密码，返回0表示允许登录，其他的值作为CONNACK的返回码，没有设置时允许所有的客户端登录<br />
+     * Set the verification method when the client logs in, the parameters are the client ID, user name, and password.
+     * Returning 0 means that login is allowed, and other values are used as the return code of CONNACK. All clients are allowed to log in if it is not set
+     * @param clientVerification 验证的方法
+     */
+    public void setClientVerification(FunctionOperateExThree<String, String, String, Integer> clientVerification) {
+        this.clientVerification = clientVerification;
+    }
+
+    /**
+     * 设置收到发布订阅客户端的消息时的回调方法，回调在事件循环的线程上执行，不能阻塞，设置消息的取消发布标记之后，该消息不再转发给订阅的客户端<br />
+     * Set the callback method when receiving the message of the publish-subscribe client. The callback is executed on the thread of the event loop
+     * and cannot block. After setting the cancel publish flag of the message, the message is no longer forwarded to the subscribed clients
+     * @param onClientApplicationMessageReceive 回调方法
+     */
+    public void setOnClientApplicationMessageReceive(ActionOperateExOne<MqttClientApplicationMessage> onClientApplicationMessageReceive) {
+        this.onClientApplicationMessageReceive = onClientApplicationMessageReceive;
+    }
+
+    /**
+     * 获取当前所有保留消息的主题<br />
+     * Get the topics of all currently retained messages
+     * @return 主题列表
+     */
+    public String[] getRetainTopics() {
+        return retainMessages.keySet().toArray(new String[0]);
+    }
+
+    /**
+     * 获取从服务器转发给订阅客户端的消息总数<br />
+     * Get the total number of messages forwarded from the server to the subscribed clients
+     * @return 消息数量
+     */
+    public long getDeliveredCount() {
+        return deliveredCount.get();
+    }
+
+    // endregion
+
+    // region Server Start Close
+
+    /**
+     * 在指定的端口上启动服务器，侦听所有的网卡<br />
+     * Start the server on the specified port and listen to all network cards
+     * @param port 端口号，0表示由系统自动分配
+     * @return 是否启动成功
+     */
+    public synchronized OperateResult ServerStart(int port) {
+        if (serverChannel != null) return OperateResult.CreateSuccessResult();
+        if (NioEventLoop.IsEventLoopThread()) return new OperateResult(StringResources.Language.BlockingCallInEventLoop());
+
+        try {
+            if (eventLoopGroup == null) eventLoopGroup = NioEventLoopGroup.getDefault();
+
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(port), 512);
+            channel.configureBlocking(false);
+
+            AcceptHandler handler = new AcceptHandler(channel, eventLoopGroup.Next());
+            OperateResultExOne<SelectionKey> register = handler.eventLoop.Register(channel, SelectionKey.OP_ACCEPT, handler).join();
+            if (!register.IsSuccess) {
+                channel.close();
+                return register;
+            }
+
+            serverChannel = channel;
+            acceptHandler = handler;
+            ScheduleKeepAliveCheck();
+            if (LogNet != null) LogNet.WriteInfo(toString(), "Server started on port " + getPort());
+            return OperateResult.CreateSuccessResult();
+        } catch (IOException ex) {
+            return new OperateResult(ex.getMessage());
+        }
+    }
+
+    /**
+     * 关闭服务器，断开所有的客户端连接，关闭之后可以重新启动，保留消息不会清除<br />
+     * Close the server and disconnect all client connections, it can be restarted after closing, and the retained messages will not be cleared
+     */
+    public synchronized void ServerClose() {
+        if (serverChannel == null) return;
+
+        final AcceptHandler handler = acceptHandler;
+        handler.eventLoop.Execute(new Runnable() {
+            @Override
+            public void run() {
+                handler.Close();
+            }
+        });
+        for (ServerSession session : sessions) session.Close();
+        serverChannel = null;
+        acceptHandler = null;
+        HashedWheelTimer.Timeout timeout = keepAliveTimeout;
+        if (timeout != null) timeout.Cancel();
+        if (LogNet != null) LogNet.WriteInfo(toString(), "Server closed");
+    }
+
+    /**
+     * 获取服务器侦听的端口号，没有启动时返回0<br />
+     * Get the port number that the server listens on, return 0 when it is not started
+     * @return 端口号
+     */
+    public int getPort() {
+        ServerSocketChannel channel = serverChannel;
+        return channel == null ? 0 : channel.socket().getLocalPort();
+    }
+
+    // endregion
+
+    // region Publish Message
+
+    /**
+     * 从服务器端发布一条消息给所有订阅了该主题的客户端，保留的消息会被新订阅的客户端收到，负载为空的保留消息表示删除该主题的保留消息，本方法是线程安全的<br />
+     * Publish a message from the server to all clients subscribed to the topic. The retained message will be received by newly subscribed clients.
+     * A retained message with an empty payload means deleting the retained message of the topic. This method is thread-safe
+     * @param message 消息内容
+     */
+    public void PublishTopicPayload(MqttApplicationMessage message) {
+        if (message.Retain) SetRetainMessage(message);
+        Distribute(message.Topic, message.Payload, GetQosValue(message.QualityOfServiceLevel));
+    }
+
+    /**
+     * 从服务器端使用QoS 0的等级发布一条消息给所有订阅了该主题的客户端<br />
+     * Publish a message from the server to all clients subscribed to the topic with QoS 0 level
+     * @param topic 主题
+     * @param payload 负载数据
+     * @param retain 是否保留消息
+     */
+    public void PublishTopicPayload(String topic, byte[] payload, boolean retain) {
+        MqttApplicationMessage message = new MqttApplicationMessage();
+        message.Topic = topic;
+        message.Payload = payload;
+        message.Retain = retain;
+        PublishTopicPayload(message);
+    }
+
+    private void SetRetainMessage(MqttApplicationMessage message) {
+        if (message.Payload == null || message.Payload.length == 0) {
+            retainMessages.remove(message.Topic);
+        } else {
+            MqttApplicationMessage retain = new MqttApplicationMessage();
+            retain.Topic = message.Topic;
+            retain.Payload = message.Payload;
+            retain.QualityOfServiceLevel = message.QualityOfServiceLevel;
+            retain.Retain = true;
+            retainMessages.put(message.Topic, retain);
+        }
+    }
+
+    /**
+     * 将消息转发给订阅的客户端，同一个客户端的多个过滤器都匹配时只转发一次，使用其中最高的订阅等级
+     */
+    private void Distribute(String topic, byte[] payload, int qos) {
+        ArrayList<Subscriber> subscribers = subscribeTrie.Match(topic);
+        if (subscribers.isEmpty()) return;
+
+        HashMap<ServerSession, Integer> targets = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            Integer exist = targets.get(subscriber.Session);
+            if (exist == null || exist < subscriber.Qos) targets.put(subscriber.Session, subscriber.Qos);
+        }
+
+        byte[] qos0Frame = null;
+        for (Map.Entry<ServerSession, Integer> entry : targets.entrySet()) {
+            int deliverQos = Math.min(qos, entry.getValue());
+            if (deliverQos == 0) {
+                // QoS 0的报文没有报文标识，所有的客户端共用一个报文
+                if (qos0Frame == null) qos0Frame = BuildPublishCommand(topic, payload, 0, 0, false);
+                if (qos0Frame != null) entry.getKey().Send(qos0Frame);
+            } else {
+                entry.getKey().Deliver(topic, payload, deliverQos, false);
+            }
+            deliveredCount.incrementAndGet();
+        }
+    }
+
+    private static byte[] BuildPublishCommand(String topic, byte[] payload, int qos, int identifier, boolean retain) {
+        MqttApplicationMessage message = new MqttApplicationMessage();
+        message.Topic = topic;
+        message.Payload = payload;
+        message.Retain = retain;
+        message.QualityOfServiceLevel = qos == 0 ? MqttQualityOfServiceLevel.AtMostOnce :
+                qos == 1 ? MqttQualityOfServiceLevel.AtLeastOnce : MqttQualityOfServiceLevel.ExactlyOnce;
+
+        MqttPublishMessage publish = new MqttPublishMessage();
+        publish.Identifier = identifier;
+        publish.Message = message;
+        OperateResultExOne<byte[]> command = MqttHelper.BuildPublishMqttCommand(publish);
+        return command.IsSuccess ? command.Content : null;
+    }
+
+    private static int GetQosValue(MqttQualityOfServiceLevel level) {
+        if (level == MqttQualityOfServiceLevel.AtLeastOnce) return 1;
+        if (level == MqttQualityOfServiceLevel.ExactlyOnce) return 2;
+        return 0;
+    }
+
+    // endregion
+
+    // region Keep Alive
+
+    private void ScheduleKeepAliveCheck() {
+        keepAliveTimeout = HashedWheelTimer.getDefault().Schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (serverChannel == null) return;
+                long now = System.currentTimeMillis();
+                for (ServerSession session : sessions) {
+                    MqttSession info = session.info;
+                    if (info == null) {
+                        // 连接之后一直没有登录的客户端
+                        if (now - session.getLastReceiveTime() > connectTimeOut) session.Close();
+                    } else if (!info.isSyncClient() && info.getKeepAlivePeriod() > 0 && now - session.getLastReceiveTime() > info.getKeepAlivePeriod() * 1500L) {
+                        // 同步的客户端只在请求的时候通信，不发送心跳，所以不检查
+                        session.Close();
+                    }
+                }
+                ScheduleKeepAliveCheck();
+            }
+        }, 1000);
+    }
+
+    // endregion
+
+    // region Private Class
+
+    private static final class Subscriber {
+        Subscriber(ServerSession session, int qos) {
+            Session = session;
+            Qos = qos;
+        }
+
+        final ServerSession Session;
+        final int Qos;
+    }
+
+    private class AcceptHandler implements INioHandler {
+
+        AcceptHandler(ServerSocketChannel channel, NioEventLoop eventLoop) {
+            this.channel = channel;
+            this.eventLoop = eventLoop;
+        }
+
+        @Override
+        public void HandleSelectionKey(SelectionKey key) {
+            this.key = key;
+            if (!key.isAcceptable()) return;
+
+            while (true) {
+                SocketChannel client;
+                try {
+                    client = channel.accept();
+                } catch (IOException ex) {
+                    if (LogNet != null) LogNet.WriteException(MqttServer.this.toString(), ex);
+                    return;
+                }
+                if (client == null) return;
+
+                try {
+                    client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    final ServerSession session = new ServerSession(eventLoopGroup.Next(), client);
+                    sessions.add(session);
+                    session.OpenAsync().thenAccept(new Consumer<OperateResult>() {
+                        @Override
+                        public void accept(OperateResult open) {
+                            if (!open.IsSuccess) sessions.remove(session);
+                        }
+                    });
+                    if (LogNet != null) LogNet.WriteDebug(MqttServer.this.toString(), "Client online: " + client.getRemoteAddress());
+                } catch (IOException ex) {
+                    try {
+                        client.close();
+                    } catch (IOException ignored) {
+
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void Close() {
+            eventLoop.Deregister(key, this);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+
+            }
+        }
+
+        private final ServerSocketChannel channel;          // 侦听的通道
+        private final NioEventLoop eventLoop;               // 所在的事件循环
+        private SelectionKey key = null;                    // 选择键
+    }
+
+    /**
+     * 一个客户端的连接，报文在所在的事件循环的线程上处理，同步客户端的RPC请求在线程池上处理
+     */
+    private class ServerSession extends MqttNioChannel {
+        ServerSession(NioEventLoop eventLoop, SocketChannel channel) {
+            super(eventLoop, channel);
+        }
+
+        @Override
+        protected void OnMessage(byte code, byte[] data) {
+            int control = (code & 0xF0) >> 4;
+            if (info == null) {
+                // 第一个报文必须是连接的报文
+                if (control == MqttControlMessage.CONNECT) ReceiveConnect(data);
+                else Close();
+                return;
+            }
+            if (info.isSyncClient()) {
+                ReceiveSyncRequest(code, data);
+                return;
+            }
+
+            switch (control) {
+                case MqttControlMessage.PUBLISH: ReceivePublish(code, data); break;
+                case MqttControlMessage.PUBREC: SendAck(MqttControlMessage.PUBREL, (byte) 0x02, data); break;
+                case MqttControlMessage.PUBREL: {
+                    if (data.length >= 2) receivedQos2.remove((data[0] & 0xFF) * 256 + (data[1] & 0xFF));
+                    SendAck(MqttControlMessage.PUBCOMP, (byte) 0x00, data);
+                    break;
+                }
+                case MqttControlMessage.SUBSCRIBE: ReceiveSubscribe(data); break;
+                case MqttControlMessage.UNSUBSCRIBE: ReceiveUnSubscribe(data); break;
+                case MqttControlMessage.PINGREQ: Send(new byte[]{(byte) 0xD0, 0x00}); break;
+                case MqttControlMessage.DISCONNECT: Close(); break;
+                default: break;                                                     // PUBACK及PUBCOMP不需要处理，服务器不重发消息
+            }
+        }
+
+        @Override
+        protected void OnClosed(String message) {
+            sessions.remove(this);
+            for (Map.Entry<String, Subscriber> entry : subscribes.entrySet()) subscribeTrie.Remove(entry.getKey(), entry.getValue());
+            subscribes.clear();
+            if (LogNet != null) LogNet.WriteDebug(MqttServer.this.toString(), "Client offline: " + (info == null ? toString() : info.getClientId()) + " " + message);
+        }
+
+        void Deliver(String topic, byte[] payload, int qos, boolean retain) {
+            // 报文标识在多个事件循环的线程上分配，跳过0
+            int identifier = nextIdentifier.incrementAndGet() & 0xFFFF;
+            if (identifier == 0) identifier = nextIdentifier.incrementAndGet() & 0xFFFF;
+            byte[] frame = BuildPublishCommand(topic, payload, qos, identifier, retain);
+            if (frame != null) Send(frame);
+        }
+
+        // region MQTT
+
+        private void ReceiveConnect(byte[] data) {
+            try {
+                int index = 0;
+                String protocol = ReadString(data, index);
+                index += 2 + Utilities.getBytes(protocol, "UTF-8").length;
+                int level = data[index++] & 0xFF;
+                int flags = data[index++] & 0xFF;
+                int keepAlive = (data[index] & 0xFF) * 256 + (data[index + 1] & 0xFF);
+                index += 2;
+
+                String clientId = ReadString(data, index);
+                index += 2 + Utilities.getBytes(clientId, "UTF-8").length;
+                if ((flags & 0x04) != 0) {
+                    // 遗嘱的主题及消息，当前的实现不使用
+                    for (int i = 0; i < 2; i++) index += 2 + (data[index] & 0xFF) * 256 + (data[index + 1] & 0xFF);
+                }
+                String userName = "", password = "";
+                if ((flags & 0x80) != 0) {
+                    userName = ReadString(data, index);
+                    index += 2 + Utilities.getBytes(userName, "UTF-8").length;
+                }
+                if ((flags & 0x40) != 0) password = ReadString(data, index);
+
+                int status = 0;
+                if (!"MQTT".equals(protocol) && !"HUSL".equals(protocol) || level != 4) status = 1;
+                FunctionOperateExThree<String, String, String, Integer> verification = clientVerification;
+                if (status == 0 && verification != null) {
+                    Integer check = verification.Action(clientId, userName, password);
+                    if (check != null) status = check;
+                }
+
+                Send(new byte[]{0x20, 0x02, 0x00, (byte) status});
+                if (status != 0) {
+                    CloseAfterFlush();
+                    return;
+                }
+                info = new MqttSession(this, protocol, clientId, userName, keepAlive);
+            } catch (IndexOutOfBoundsException ex) {
+                Close();
+            }
+        }
+
+        private void ReceivePublish(byte code, byte[] data) {
+            OperateResultExTwo<String, byte[]> extra = MqttHelper.ExtraMqttReceiveData(code, data);
+            if (!extra.IsSuccess) {
+                Close();
+                return;
+            }
+
+            // 3是HSL扩展的仅传递的等级，和QoS 1一样带有报文标识，但是不需要回复确认
+            int qos = (code & 0x06) >> 1;
+            String topic = extra.Content1;
+            byte[] payload = extra.Content2;
+            if (qos > 0) {
+                if (payload.length < 2) {
+                    Close();
+                    return;
+                }
+                int identifier = (payload[0] & 0xFF) * 256 + (payload[1] & 0xFF);
+                payload = new byte[extra.Content2.length - 2];
+                System.arraycopy(extra.Content2, 2, payload, 0, payload.length);
+                if (qos < 3) SendAck(qos == 1 ? MqttControlMessage.PUBACK : MqttControlMessage.PUBREC, (byte) 0x00, MqttHelper.BuildIntBytes(identifier));
+
+                // QoS 2的消息在收到PUBREL之前重复发送的不再转发
+                if (qos == 2 && !receivedQos2.add(identifier)) return;
+            }
+
+            ActionOperateExOne<MqttClientApplicationMessage> receive = onClientApplicationMessageReceive;
+            if (receive != null) {
+                MqttClientApplicationMessage message = new MqttClientApplicationMessage();
+                message.Topic = topic;
+                message.Payload = payload;
+                message.QualityOfServiceLevel = qos == 0 ? MqttQualityOfServiceLevel.AtMostOnce :
+                        qos == 1 ? MqttQualityOfServiceLevel.AtLeastOnce :
+                        qos == 2 ? MqttQualityOfServiceLevel.ExactlyOnce : MqttQualityOfServiceLevel.OnlyTransfer;
+                message.Retain = (code & 0x01) != 0;
+                message.setClientId(info.getClientId());
+                message.setUserName(info.getUserName());
+                message.setCreateTime(new Date());
+                receive.Action(message);
+                if (message.isCancelPublish()) return;
+            }
+
+            // 仅传递的消息只交给服务器处理，不保留也不转发给订阅的客户端
+            if (qos == 3) return;
+
+            if ((code & 0x01) != 0) {
+                MqttApplicationMessage retain = new MqttApplicationMessage();
+                retain.Topic = topic;
+                retain.Payload = payload;
+                retain.QualityOfServiceLevel = qos == 1 ? MqttQualityOfServiceLevel.AtLeastOnce :
+                        qos == 2 ? MqttQualityOfServiceLevel.ExactlyOnce : MqttQualityOfServiceLevel.AtMostOnce;
+                SetRetainMessage(retain);
+            }
+            Distribute(topic, payload, qos);
+        }
+
+        private void ReceiveSubscribe(byte[] data) {
+            if (data.length < 2) {
+                Close();
+                return;
+            }
+
+            ArrayList<String> topics = new ArrayList<>();
+            ArrayList<Byte> codes = new ArrayList<>();
+            int index = 2;
+            while (index + 2 < data.length) {
+                String topic = ReadString(data, index);
+                index += 2 + Utilities.getBytes(topic, "UTF-8").length;
+                int qos = index < data.length ? Math.min(data[index] & 0x03, 2) : 0;
+                index++;
+
+                if (!MqttTopicTrie.CheckTopicFilter(topic).IsSuccess) {
+                    codes.add((byte) 0x80);
+                    continue;
+                }
+
+                // 重复订阅同一个过滤器时替换原来的订阅等级
+                Subscriber subscriber = new Subscriber(this, qos);
+                Subscriber old = subscribes.put(topic, subscriber);
+                if (old != null) subscribeTrie.Remove(topic, old);
+                subscribeTrie.Add(topic, subscriber);
+                topics.add(topic);
+                codes.add((byte) qos);
+            }
+
+            byte[] payload = new byte[codes.size()];
+            for (int i = 0; i < payload.length; i++) payload[i] = codes.get(i);
+            OperateResultExOne<byte[]> command = MqttHelper.BuildMqttCommand(MqttControlMessage.SUBACK, (byte) 0x00, new byte[]{data[0], data[1]}, payload);
+            if (command.IsSuccess) Send(command.Content);
+
+            // 订阅成功之后发送匹配的保留消息
+            for (MqttApplicationMessage retain : retainMessages.values()) {
+                for (String topic : topics) {
+                    if (!MqttTopicTrie.IsTopicMatch(topic, retain.Topic)) continue;
+                    int qos = Math.min(GetQosValue(retain.QualityOfServiceLevel), subscribes.get(topic).Qos);
+                    if (qos == 0) {
+                        byte[] frame = BuildPublishCommand(retain.Topic, retain.Payload, 0, 0, true);
+                        if (frame != null) Send(frame);
+                    } else {
+                        Deliver(retain.Topic, retain.Payload, qos, true);
+                    }
+                    break;
+                }
+            }
+        }
+
+        private void ReceiveUnSubscribe(byte[] data) {
+            if (data.length < 2) {
+                Close();
+                return;
+            }
+
+            int index = 2;
+            while (index + 2 <= data.length) {
+                String topic = ReadString(data, index);
+                index += 2 + Utilities.getBytes(topic, "UTF-8").length;
+                Subscriber subscriber = subscribes.remove(topic);
+                if (subscriber != null) subscribeTrie.Remove(topic, subscriber);
+            }
+            SendAck(MqttControlMessage.UNSUBACK, (byte) 0x00, data);
+        }
+
+        private void SendAck(byte control, byte flags, byte[] data) {
+            if (data.length < 2) return;
+            OperateResultExOne<byte[]> command = MqttHelper.BuildMqttCommand(control, flags, new byte[]{data[0], data[1]}, null);
+            if (command.IsSuccess) Send(command.Content);
+        }
+
+        // endregion
+
+        // region Sync RPC
+
+        private void ReceiveSyncRequest(byte code, byte[] data) {
+            int control = (code & 0xF0) >> 4;
+            if (control == MqttControlMessage.PINGREQ) {
+                Send(new byte[]{(byte) 0xD0, 0x00});
+                return;
+            }
+            if (control == MqttControlMessage.DISCONNECT) {
+                Close();
+                return;
+            }
+
+            // 同步客户端先等待数据接收的进度，报文已经完整接收，直接报告全部接收完成
+            OperateResultExOne<byte[]> progress = MqttHelper.BuildMqttCommand(MqttControlMessage.REPORTPROGRESS, (byte) 0x00, MqttHelper.BuildSegCommandByString(""),
+                    SoftBasic.SpliceTwoByteArray(Utilities.getBytes((long) data.length), Utilities.getBytes((long) data.length)));
+            if (progress.IsSuccess) Send(progress.Content);
+
+            if (control == MqttControlMessage.PUBACK) {
+                // 读取所有保留消息的主题
+                SendSyncResult("", OperateResultExOne.CreateSuccessResult(HslProtocol.PackStringArrayToByte(getRetainTopics())));
+                return;
+            }
+            if (control != MqttControlMessage.PUBLISH) {
+                SendSyncResult("", new OperateResultExOne<byte[]>(StringResources.Language.NotSupportedFunction()));
+                return;
+            }
+
+            final OperateResultExTwo<String, byte[]> extra = MqttHelper.ExtraMqttReceiveData(code, data);
+            if (!extra.IsSuccess) {
+                SendSyncResult("", OperateResultExOne.<byte[]>CreateFailedResult(extra));
+                return;
+            }
+
+            final FunctionOperateExThree<MqttSession, String, byte[], OperateResultExOne<byte[]>> handler = rpcHandler;
+            if (handler == null) {
+                SendSyncResult(extra.Content1, new OperateResultExOne<byte[]>(StringResources.Language.NotSupportedFunction() + " RPC: " + extra.Content1));
+                return;
+            }
+
+            // RPC的处理方法可能会阻塞，在线程池上执行，同步客户端在收到结果之前不会发送新的请求
+            Executor executor = rpcExecutor != null ? rpcExecutor : getAsyncExecutor();
+            final MqttSession session = info;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    OperateResultExOne<byte[]> result;
+                    try {
+                        result = handler.Action(session, extra.Content1, extra.Content2);
+                        if (result == null) result = new OperateResultExOne<byte[]>(StringResources.Language.NotSupportedFunction());
+                    } catch (Exception ex) {
+                        result = new OperateResultExOne<byte[]>(ex.getMessage());
+                    }
+                    SendSyncResult(extra.Content1, result);
+                }
+            });
+        }
+
+        private void SendSyncResult(String topic, OperateResultExOne<byte[]> result) {
+            OperateResultExOne<byte[]> command;
+            if (result.IsSuccess) {
+                command = MqttHelper.BuildPublishMqttCommand(topic, result.Content == null ? new byte[0] : result.Content);
+            } else {
+                // 失败时主题为错误码，负载为错误的消息
+                command = MqttHelper.BuildMqttCommand(MqttControlMessage.FAILED, (byte) 0x00, MqttHelper.BuildSegCommandByString(String.valueOf(result.ErrorCode)),
+                        Utilities.IsStringNullOrEmpty(result.Message) ? new byte[0] : Utilities.getBytes(result.Message, "UTF-8"));
+            }
+            if (command.IsSuccess) Send(command.Content);
+        }
+
+        // endregion
+
+        private volatile MqttSession info = null;                                          // 登录成功之后的会话信息
+        private final HashMap<String, Subscriber> subscribes = new HashMap<>();            // 当前订阅的过滤器，只在事件循环线程访问
+        private final HashSet<Integer> receivedQos2 = new HashSet<>();                     // 已经收到但还没有释放的QoS 2消息
+        private final AtomicInteger nextIdentifier = new AtomicInteger(0);                 // 下发消息的报文标识
+    }
+
+    private static String ReadString(byte[] data, int index) {
+        int length = (data[index] & 0xFF) * 256 + (data[index + 1] & 0xFF);
+        if (index + 2 + length > data.length) throw new IndexOutOfBoundsException("MQTT string length is illegal");
+        return length == 0 ? "" : Utilities.getString(data, index + 2, length, "UTF-8");
+    }
+
+    // endregion
+
+    // region Private Member
+
+    private final Set<ServerSession> sessions = Collections.newSetFromMap(new ConcurrentHashMap<ServerSession, Boolean>()); // 在线的客户端
+    private final MqttTopicTrie<Subscriber> subscribeTrie = new MqttTopicTrie<>();              // 所有客户端的订阅
+    private final ConcurrentHashMap<String, MqttApplicationMessage> retainMessages = new ConcurrentHashMap<>();  // 保留的消息
+    private final AtomicLong deliveredCount = new AtomicLong(0);                                // 转发的消息数量
+    private final int connectTimeOut = 10_000;                                                  // 连接之后等待登录的时间
+    private volatile FunctionOperateExThree<MqttSession, String, byte[], OperateResultExOne<byte[]>> rpcHandler = null;  // RPC的处理方法
+    private volatile Executor rpcExecutor = null;                                               // 执行RPC的线程池
+    private volatile FunctionOperateExThree<String, String, String, Integer> clientVerification = null;  // 登录的验证方法
+    private volatile ActionOperateExOne<MqttClientApplicationMessage> onClientApplicationMessageReceive = null;  // 收到消息的回调
+    private volatile HashedWheelTimer.Timeout keepAliveTimeout = null;                          // 心跳检查的定时任务
+    private NioEventLoopGroup eventLoopGroup = null;                                            // 事件循环组
+    private volatile ServerSocketChannel serverChannel = null;                                  // 侦听的通道
+    private AcceptHandler acceptHandler = null;                                                 // 侦听的处理对象
+
+    // endregion
+
+    @Override
+    public String toString() {
+        return "MqttServer[" + getPort() + "]";
+    }
+}
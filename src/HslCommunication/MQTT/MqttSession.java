@@ -0,0 +1,138 @@
+package HslCommunication.MQTT;
+
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.Utilities;
+
+import java.net.SocketAddress;
+import java.util.Date;
+
+/**
+ * Mqtt服务器端的一个客户端会话信息，在客户端连接成功之后创建，包含了客户端的ID，用户名，协议类型等信息，RPC的处理方法可以通过会话向同步客户端报告处理的进度<br />
+ * The information of a client session on the Mqtt server side, created after the client is connected successfully,
+ * including the client ID, user name, protocol type and other information. The RPC handler can report the processing progress to the synchronous client through the session
+ */
+public class MqttSession {
+
+    /**
+     * 使用指定的通道及连接信息实例化一个会话对象
+     * @param channel 会话的通道
+     * @param protocol 协议的名称，MQTT或是HUSL
+     * @param clientId 客户端的ID
+     * @param userName 用户名
+     * @param keepAlivePeriod 心跳的时间，单位秒
+     */
+    MqttSession(MqttNioChannel channel, String protocol, String clientId, String userName, int keepAlivePeriod) {
+        this.channel = channel;
+        this.protocol = protocol;
+        this.clientId = clientId;
+        this.userName = userName;
+        this.keepAlivePeriod = keepAlivePeriod;
+        this.onlineTime = new Date();
+    }
+
+    /**
+     * 获取客户端的ID信息<br />
+     * Get the ID information of the client
+     * @return 客户端的ID
+     */
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * 获取客户端登录的用户名，没有用户名时为空字符串<br />
+     * Get the user name of the client login, it is an empty string when there is no user name
+     * @return 用户名
+     */
+    public String getUserName() {
+        return userName;
+    }
+
+    /**
+     * 获取客户端使用的协议名称，MQTT表示标准的发布订阅客户端，HUSL表示同步的RPC客户端<br />
+     * Get the protocol name used by the client, MQTT means the standard publish-subscribe client, and HUSL means the synchronous RPC client
+     * @return 协议名称
+     */
+    public String getProtocol() {
+        return protocol;
+    }
+
+    /**
+     * 获取当前的会话是否是同步的RPC客户端，也就是 {@link MqttSyncClient} 的连接<br />
+     * Get whether the current session is a synchronous RPC client, that is, the connection of {@link MqttSyncClient}
+     * @return 是否同步客户端
+     */
+    public boolean isSyncClient() {
+        return "HUSL".equals(protocol);
+    }
+
+    /**
+     * 获取客户端指定的心跳时间，单位秒，0表示不检查心跳<br />
+     * Get the heartbeat time specified by the client, in seconds, 0 means no heartbeat check
+     * @return 心跳时间
+     */
+    public int getKeepAlivePeriod() {
+        return keepAlivePeriod;
+    }
+
+    /**
+     * 获取客户端上线的时间<br />
+     * Get the time when the client went online
+     * @return 上线时间
+     */
+    public Date getOnlineTime() {
+        return onlineTime;
+    }
+
+    /**
+     * 获取客户端的远程地址<br />
+     * Get the remote address of the client
+     * @return 远程地址
+     */
+    public SocketAddress getEndPoint() {
+        return channel.getChannel().socket().getRemoteSocketAddress();
+    }
+
+    /**
+     * 向同步客户端报告RPC处理的进度，对应 {@link MqttSyncClient} 读取时的handleProgress回调，本方法是线程安全的<br />
+     * Report the progress of RPC processing to the synchronous client, corresponding to the handleProgress callback when {@link MqttSyncClient} reads,
+     * this method is thread-safe
+     * @param topic 进度的主题，通常用来传送操作的百分比
+     * @param message 进度的消息
+     * @return 会话是否可用
+     */
+    public boolean ReportProgress(String topic, String message) {
+        OperateResultExOne<byte[]> command = MqttHelper.BuildMqttCommand(MqttControlMessage.REPORTPROGRESS, (byte) 0x00,
+                MqttHelper.BuildSegCommandByString(topic), Utilities.IsStringNullOrEmpty(message) ? new byte[0] : Utilities.getBytes(message, "UTF-8"));
+        return command.IsSuccess && channel.Send(command.Content);
+    }
+
+    /**
+     * 获取会话是否已经断开<br />
+     * Get whether the session has been disconnected
+     * @return 是否断开
+     */
+    public boolean IsClosed() {
+        return channel.IsClosed();
+    }
+
+    /**
+     * 断开当前的会话<br />
+     * Disconnect the current session
+     */
+    public void Close() {
+        channel.Close();
+    }
+
+    private final MqttNioChannel channel;                         // 会话的通道
+    private final String protocol;                                // 协议的名称
+    private final String clientId;                                // 客户端的ID
+    private final String userName;                                // 用户名
+    private final int keepAlivePeriod;                            // 心跳时间
+    private final Date onlineTime;                                // 上线的时间
+
+    @Override
+    public String toString() {
+        return "MqttSession[" + clientId + "]";
+    }
+}
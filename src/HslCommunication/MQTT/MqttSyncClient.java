@@ -130,6 +130,19 @@ public class MqttSyncClient extends NetworkDoubleBase {
         }
     }
 
+    /**
+     * MQTT的同步客户端使用自身的报文交互流程，不支持连接池的模式<br />
+     * The synchronous MQTT client uses its own message interaction process and does not support the connection pool mode
+     * @param minConnections 最少保持的连接数量
+     * @param maxConnections 最多允许的连接数量
+     * @param idleTimeOut 空闲连接的存活时间
+     * @return 总是失败的结果
+     */
+    @Override
+    public OperateResult SetConnectionPool(int minConnections, int maxConnections, int idleTimeOut) {
+        return new OperateResult(StringResources.Language.NotSupportedFunction());
+    }
+
     private OperateResultExOne<byte[]> ReadMqttFromCoreServer(
             byte[] send,
             ActionOperateExTwo<Long, Long> sendProgress,
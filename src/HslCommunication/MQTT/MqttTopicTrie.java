@@ -0,0 +1,285 @@
+package HslCommunication.MQTT;
+
+import HslCommunication.Core.Types.OperateResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于主题层级的前缀树的订阅匹配器，支持MQTT的+及#通配符，每条消息的匹配只和主题的层级数有关，和订阅的数量无关。添加及删除订阅时使用写时复制，
+ * 只复制修改路径上的节点，匹配时直接读取当前的根节点，不需要加锁。主题拆分后的层级信息会缓存起来，重复的主题不再拆分。<br />
+ * The subscription matcher based on the prefix tree of topic levels, supporting the + and # wildcards of MQTT. The matching of each message is
+ * only related to the number of levels of the topic, not the number of subscriptions. Copy-on-write is used when adding and removing subscriptions,
+ * only the nodes on the modified path are copied, and the current root node is read directly during matching without locking.
+ * The split levels of the topic are cached, and the repeated topics are no longer split.
+ * @param <T> 订阅关联的对象类型，比如回调方法
+ */
+public class MqttTopicTrie<T> {
+
+    // region Public Method
+
+    /**
+     * 添加一个主题过滤器及关联的对象，同一个过滤器可以关联多个对象<br />
+     * Add a topic filter and associated object, the same filter can be associated with multiple objects
+     * @param topicFilter 主题过滤器，支持+及#通配符
+     * @param value 关联的对象
+     * @return 是否添加成功，过滤器的格式不正确时返回失败
+     */
+    public OperateResult Add(String topicFilter, T value) {
+        OperateResult check = CheckTopicFilter(topicFilter);
+        if (!check.IsSuccess) return check;
+
+        String[] levels = SplitTopic(topicFilter);
+        synchronized (lock) {
+            root = Insert(root, levels, 0, value);
+            count++;
+        }
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 删除主题过滤器关联的指定对象<br />
+     * Delete the specified object associated with the topic filter
+     * @param topicFilter 主题过滤器
+     * @param value 关联的对象
+     * @return 是否找到并删除了对象
+     */
+    public boolean Remove(String topicFilter, T value) {
+        return RemoveValues(topicFilter, value, false) > 0;
+    }
+
+    /**
+     * 删除主题过滤器关联的所有对象<br />
+     * Delete all objects associated with the topic filter
+     * @param topicFilter 主题过滤器
+     * @return 删除的对象数量
+     */
+    public int Remove(String topicFilter) {
+        return RemoveValues(topicFilter, null, true);
+    }
+
+    /**
+     * 清空所有的订阅<br />
+     * Clear all subscriptions
+     */
+    public void Clear() {
+        synchronized (lock) {
+            root = null;
+            count = 0;
+        }
+    }
+
+    /**
+     * 获取当前所有过滤器关联的对象总数<br />
+     * Get the total number of objects associated with all current filters
+     * @return 对象数量
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * 查找和实际的主题匹配的所有订阅对象，本方法不加锁，可以和添加删除操作同时进行<br />
+     * Find all subscription objects that match the actual topic. This method does not lock and can be performed simultaneously
+     * with add and delete operations
+     * @param topic 实际的主题，不能包含通配符
+     * @return 匹配的对象列表，没有匹配时为空列表
+     */
+    public ArrayList<T> Match(String topic) {
+        ArrayList<T> result = new ArrayList<>();
+        TrieNode node = root;
+        if (node == null || topic == null) return result;
+
+        String[] levels = GetTopicLevels(topic);
+        // 以$开头的系统主题不能被首层的通配符匹配
+        Match(node, levels, 0, !levels[0].startsWith("$"), result);
+        return result;
+    }
+
+    /**
+     * 检查主题过滤器的格式，#只能单独出现在最后一层，+只能单独占用一层<br />
+     * Check the format of the topic filter, # can only appear alone in the last level, and + can only occupy one level alone
+     * @param topicFilter 主题过滤器
+     * @return 格式是否正确
+     */
+    public static OperateResult CheckTopicFilter(String topicFilter) {
+        if (topicFilter == null || topicFilter.length() == 0) return new OperateResult("Topic filter can't be empty");
+
+        String[] levels = SplitTopic(topicFilter);
+        for (int i = 0; i < levels.length; i++) {
+            String level = levels[i];
+            if (level.equals("#")) {
+                if (i != levels.length - 1) return new OperateResult("Topic filter [" + topicFilter + "] wildcard # must be the last level");
+            } else if (!level.equals("+") && (level.indexOf('#') >= 0 || level.indexOf('+') >= 0)) {
+                return new OperateResult("Topic filter [" + topicFilter + "] wildcard must occupy an entire level");
+            }
+        }
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 判断单个主题过滤器是否匹配实际的主题，用于保留消息这类需要反向匹配的场景<br />
+     * Determine whether a single topic filter matches the actual topic, used in scenarios that require reverse matching such as retained messages
+     * @param topicFilter 主题过滤器，支持+及#通配符
+     * @param topic 实际的主题
+     * @return 是否匹配
+     */
+    public static boolean IsTopicMatch(String topicFilter, String topic) {
+        if (topicFilter == null || topic == null) return false;
+
+        String[] filters = SplitTopic(topicFilter);
+        String[] levels = SplitTopic(topic);
+        boolean wildcard = !levels[0].startsWith("$");
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i].equals("#")) return wildcard || i > 0;
+            if (i >= levels.length) return false;
+            if (filters[i].equals("+")) {
+                if (!wildcard && i == 0) return false;
+            } else if (!filters[i].equals(levels[i])) {
+                return false;
+            }
+        }
+        return filters.length == levels.length;
+    }
+
+    // endregion
+
+    // region Private Method
+
+    private String[] GetTopicLevels(String topic) {
+        String[] levels = levelCache.get(topic);
+        if (levels == null) {
+            levels = SplitTopic(topic);
+            // 主题的数量没有上限时，超过容量就整体清空，避免缓存无限增长
+            if (levelCache.size() >= cacheCapacity) levelCache.clear();
+            levelCache.put(topic, levels);
+        }
+        return levels;
+    }
+
+    private static String[] SplitTopic(String topic) {
+        ArrayList<String> levels = new ArrayList<>();
+        int start = 0;
+        while (true) {
+            int index = topic.indexOf('/', start);
+            if (index < 0) {
+                levels.add(topic.substring(start));
+                break;
+            }
+            levels.add(topic.substring(start, index));
+            start = index + 1;
+        }
+        return levels.toArray(new String[0]);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void Match(TrieNode node, String[] levels, int index, boolean wildcard, ArrayList<T> result) {
+        if (wildcard) {
+            // #同时匹配父级本身，a/#可以匹配a
+            TrieNode multi = node.Children.get("#");
+            if (multi != null) for (Object value : multi.Values) result.add((T) value);
+        }
+        if (index == levels.length) {
+            for (Object value : node.Values) result.add((T) value);
+            return;
+        }
+
+        TrieNode child = node.Children.get(levels[index]);
+        if (child != null) Match(child, levels, index + 1, true, result);
+        if (wildcard) {
+            TrieNode single = node.Children.get("+");
+            if (single != null) Match(single, levels, index + 1, true, result);
+        }
+    }
+
+    private TrieNode Insert(TrieNode node, String[] levels, int index, T value) {
+        TrieNode copy = node == null ? new TrieNode() : node.Copy();
+        if (index == levels.length) {
+            Object[] values = new Object[copy.Values.length + 1];
+            System.arraycopy(copy.Values, 0, values, 0, copy.Values.length);
+            values[copy.Values.length] = value;
+            copy.Values = values;
+        } else {
+            copy.Children.put(levels[index], Insert(node == null ? null : node.Children.get(levels[index]), levels, index + 1, value));
+        }
+        return copy;
+    }
+
+    private int RemoveValues(String topicFilter, T value, boolean all) {
+        if (topicFilter == null) return 0;
+        String[] levels = SplitTopic(topicFilter);
+        synchronized (lock) {
+            int[] removed = new int[1];
+            TrieNode node = Delete(root, levels, 0, value, all, removed);
+            if (removed[0] > 0) {
+                root = node;
+                count -= removed[0];
+            }
+            return removed[0];
+        }
+    }
+
+    /**
+     * 删除路径上的对象，返回新的节点，没有变化时返回原节点，节点为空时返回null
+     */
+    private TrieNode Delete(TrieNode node, String[] levels, int index, T value, boolean all, int[] removed) {
+        if (node == null) return null;
+        if (index == levels.length) {
+            ArrayList<Object> values = new ArrayList<>();
+            for (Object item : node.Values) {
+                if (all || (removed[0] == 0 && (item == value || (item != null && item.equals(value))))) removed[0]++;
+                else values.add(item);
+            }
+            if (removed[0] == 0) return node;
+
+            TrieNode copy = node.Copy();
+            copy.Values = values.toArray();
+            return copy.IsEmpty() ? null : copy;
+        }
+
+        TrieNode child = node.Children.get(levels[index]);
+        TrieNode newChild = Delete(child, levels, index + 1, value, all, removed);
+        if (newChild == child) return node;
+
+        TrieNode copy = node.Copy();
+        if (newChild == null) copy.Children.remove(levels[index]);
+        else copy.Children.put(levels[index], newChild);
+        return copy.IsEmpty() ? null : copy;
+    }
+
+    // endregion
+
+    // region Private Class
+
+    /**
+     * 前缀树的节点，发布到根节点之后不再修改
+     */
+    private static final class TrieNode {
+        TrieNode Copy() {
+            TrieNode copy = new TrieNode();
+            copy.Children.putAll(Children);
+            copy.Values = Values;
+            return copy;
+        }
+
+        boolean IsEmpty() {
+            return Children.isEmpty() && Values.length == 0;
+        }
+
+        final HashMap<String, TrieNode> Children = new HashMap<>();      // 下一层的节点，包括+及#的通配节点
+        Object[] Values = new Object[0];                                // 在当前层结束的过滤器关联的对象
+    }
+
+    // endregion
+
+    // region Private Member
+
+    private volatile TrieNode root = null;                                                  // 当前的根节点，写时复制后整体替换
+    private volatile int count = 0;                                                         // 关联的对象总数
+    private final Object lock = new Object();                                               // 添加删除时的锁
+    private final ConcurrentHashMap<String, String[]> levelCache = new ConcurrentHashMap<>();  // 主题拆分后的层级缓存
+    private final int cacheCapacity = 4096;                                                 // 缓存的最大数量
+
+    // endregion
+}
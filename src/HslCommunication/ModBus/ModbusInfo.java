@@ -62,9 +62,14 @@ public class ModbusInfo {
     public static final byte WriteMaskRegister = 0x16;
 
     /**
-     * 没有意思
+     * 读写多个寄存器，先写入再读取
      */
-    public static final byte NoMean = 0x17;
+    public static final byte ReadWriteRegister = 0x17;
+
+    /**
+     * 没有意思，和 {@link #ReadWriteRegister} 是同一个功能码，保留用于兼容
+     */
+    public static final byte NoMean = ReadWriteRegister;
 
     /*****************************************************************************************
      *
@@ -377,12 +382,26 @@ public class ModbusInfo {
      * @return 结果数据内容
      */
     public static OperateResultExOne<byte[]> ExtractActualData(byte[] response) {
+        return ExtractActualData(response, 0, response.length);
+    }
+
+    /**
+     * 从数组的指定偏移位置开始的modbus核心报文中提取出实际的数据，报文可以是池中缓存的一部分，只复制实际的数据
+     *
+     * @param buffer 包含了核心报文的数组
+     * @param offset 核心报文的起始偏移位置
+     * @param length 核心报文的长度
+     * @return 实际的数据
+     */
+    public static OperateResultExOne<byte[]> ExtractActualData(byte[] buffer, int offset, int length) {
         try {
-            if ((response[1] & 0xff) >= 0x80)
-                return new OperateResultExOne<byte[]>(ModbusInfo.GetDescriptionByErrorCode(response[2]));
-            else if (response.length > 3)
-                return OperateResultExOne.CreateSuccessResult(SoftBasic.BytesArrayRemoveBegin(response, 3));
-            else
+            if ((buffer[offset + 1] & 0xff) >= 0x80)
+                return new OperateResultExOne<byte[]>(ModbusInfo.GetDescriptionByErrorCode(buffer[offset + 2]));
+            else if (length > 3) {
+                byte[] data = new byte[length - 3];
+                System.arraycopy(buffer, offset + 3, data, 0, data.length);
+                return OperateResultExOne.CreateSuccessResult(data);
+            } else
                 return OperateResultExOne.CreateSuccessResult(new byte[0]);
         } catch (Exception ex) {
             return new OperateResultExOne<byte[]>(ex.getMessage());
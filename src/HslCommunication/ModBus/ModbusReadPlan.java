@@ -0,0 +1,292 @@
+package HslCommunication.ModBus;
+
+import HslCommunication.Core.Address.ModbusAddress;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.StringResources;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Modbus协议的批量读取计划，将任意数量的离散地址按照站号及功能码分组，合并间隔不超过指定数量的地址范围，每个范围按照单次请求的最大长度拆分，
+ * 得到最少的0x01，0x02，0x03，0x04请求。计划创建之后不能修改，可以在多个线程之间共享，使用 {@link ModbusTcpNet#Read(ModbusReadPlan)} 读取，
+ * 结果按照调用方的地址顺序返回。需要注意的是，合并的间隔里的地址也会被读取，如果设备对未定义的地址返回异常，需要把间隔设置为0。<br />
+ * The batch read plan of the Modbus protocol. Any number of discrete addresses are grouped according to the station number and function code,
+ * address ranges whose gap does not exceed the specified number are merged, and each range is split according to the maximum length of a single request,
+ * resulting in the fewest 0x01, 0x02, 0x03, 0x04 requests. The plan cannot be modified after it is created and can be shared between multiple threads.
+ * Use {@link ModbusTcpNet#Read(ModbusReadPlan)} to read, and the results are returned in the order of the caller's addresses.
+ * Note that the addresses in the merged gaps are also read. If the device returns an exception for undefined addresses, the gap needs to be set to 0.
+ */
+public class ModbusReadPlan {
+
+    private ModbusReadPlan(int itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * 获取调用方的地址数量<br />
+     * Get the number of addresses of the caller
+     * @return 地址数量
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * 获取合并之后的地址范围的数量<br />
+     * Get the number of address ranges after merging
+     * @return 范围数量
+     */
+    public int getRangeCount() {
+        return rangeLengths.length;
+    }
+
+    /**
+     * 获取读取一次需要发送的请求数量<br />
+     * Get the number of requests that need to be sent for one read
+     * @return 请求数量
+     */
+    public int getRequestCount() {
+        return commands.length;
+    }
+
+    /**
+     * 判断指定索引的地址是否是线圈或是离散输入，这类地址的结果是按照位压缩的字节数组，可以使用 SoftBasic.ByteToBoolArray 转换<br />
+     * Determine whether the address of the specified index is a coil or a discrete input. The result of such an address is a byte array compressed by bits,
+     * which can be converted using SoftBasic.ByteToBoolArray
+     * @param index 地址的索引
+     * @return 是否是位地址
+     */
+    public boolean IsBitItem(int index) {
+        return itemIsBit[index];
+    }
+
+    /**
+     * 根据地址列表创建一个读取计划，同一个站号及功能码的地址间隔不超过16个时合并读取<br />
+     * Create a read plan based on the address list, and addresses with the same station number and function code are merged when the gap does not exceed 16
+     * @param address 地址列表，比如"100"，"x=4;100"，"s=1;100","s=1;x=4;100"，"x=1;100"
+     * @param length 每个地址读取的数量，寄存器地址为寄存器的个数，线圈及离散输入为位的个数
+     * @param station 默认的站号
+     * @param isStartWithZero 地址是否从0开始
+     * @return 读取计划
+     */
+    public static OperateResultExOne<ModbusReadPlan> Create(String[] address, short[] length, byte station, boolean isStartWithZero) {
+        return Create(address, length, station, isStartWithZero, 16);
+    }
+
+    /**
+     * 根据地址列表创建一个读取计划<br />
+     * Create a read plan based on the address list
+     * @param address 地址列表，比如"100"，"x=4;100"，"s=1;100","s=1;x=4;100"，"x=1;100"
+     * @param length 每个地址读取的数量，寄存器地址为寄存器的个数，线圈及离散输入为位的个数，为0的地址不发送请求，结果为空的数组
+     * @param station 默认的站号
+     * @param isStartWithZero 地址是否从0开始
+     * @param maxGap 同一个站号及功能码的两个地址之间的间隔不超过该数量时合并成一个范围，单位和地址一致，为0时只合并相邻或是重叠的地址
+     * @return 读取计划
+     */
+    public static OperateResultExOne<ModbusReadPlan> Create(String[] address, short[] length, byte station, boolean isStartWithZero, int maxGap) {
+        if (address == null || length == null || address.length != length.length)
+            return new OperateResultExOne<ModbusReadPlan>(StringResources.Language.TwoParametersLengthIsNotSame());
+
+        // 解析所有的地址，只支持读取的功能码
+        final Item[] items = new Item[address.length];
+        for (int i = 0; i < address.length; i++) {
+            OperateResultExOne<ModbusAddress> analysis = ModbusInfo.AnalysisAddress(address[i], station, isStartWithZero, ModbusInfo.ReadRegister);
+            if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
+
+            int function = analysis.Content.getFunction();
+            if (function != ModbusInfo.ReadCoil && function != ModbusInfo.ReadDiscrete && function != ModbusInfo.ReadRegister && function != ModbusInfo.ReadInputRegister)
+                return new OperateResultExOne<ModbusReadPlan>(StringResources.Language.ModbusTcpFunctionCodeNotSupport() + " : " + address[i]);
+
+            items[i] = new Item(analysis.Content.getStation(), function, analysis.Content.getAddress(), Math.max(0, length[i]));
+        }
+
+        // 按照站号，功能码，起始地址排序之后合并范围
+        Integer[] order = new Integer[items.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                Item a = items[o1], b = items[o2];
+                if (a.station != b.station) return Integer.compare(a.station, b.station);
+                if (a.function != b.function) return Integer.compare(a.function, b.function);
+                return Integer.compare(a.start, b.start);
+            }
+        });
+
+        ArrayList<Item> ranges = new ArrayList<>();
+        int[] itemRange = new int[items.length];
+        int[] itemOffset = new int[items.length];
+        Item current = null;
+        for (int index : order) {
+            Item item = items[index];
+            if (item.length == 0) {
+                // 长度为0的地址不参与合并，也不生成请求，否则会发送数量为0的请求，设备返回异常导致整个计划读取失败
+                itemRange[index] = -1;
+                continue;
+            }
+            if (current == null || current.station != item.station || current.function != item.function || item.start > current.start + current.length + Math.max(0, maxGap)) {
+                current = new Item(item.station, item.function, item.start, item.length);
+                ranges.add(current);
+            } else {
+                current.length = Math.max(current.length, item.start + item.length - current.start);
+            }
+            itemRange[index] = ranges.size() - 1;
+            itemOffset[index] = item.start - current.start;
+        }
+
+        // 每个范围按照单次请求的最大长度拆分，并生成核心报文
+        ModbusReadPlan plan = new ModbusReadPlan(items.length);
+        ArrayList<byte[]> commands = new ArrayList<>();
+        ArrayList<int[]> segments = new ArrayList<>();
+        plan.rangeLengths = new int[ranges.size()];
+        plan.rangeIsBit = new boolean[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            Item range = ranges.get(i);
+            boolean isBit = range.function == ModbusInfo.ReadCoil || range.function == ModbusInfo.ReadDiscrete;
+            int maxLength = isBit ? MaxBitLength : MaxWordLength;
+            plan.rangeLengths[i] = range.length;
+            plan.rangeIsBit[i] = isBit;
+
+            int alreadyFinished = 0;
+            while (alreadyFinished < range.length) {
+                int readLength = Math.min(range.length - alreadyFinished, maxLength);
+                ModbusAddress mAddress = new ModbusAddress();
+                mAddress.setStation(range.station);
+                mAddress.setFunction(range.function);
+                mAddress.setAddress(range.start + alreadyFinished);
+
+                OperateResultExOne<byte[]> command = ModbusInfo.BuildReadModbusCommand(mAddress, (short) readLength);
+                if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
+                commands.add(command.Content);
+                segments.add(new int[]{i, alreadyFinished, readLength});
+                alreadyFinished += readLength;
+            }
+        }
+
+        plan.commands = commands.toArray(new byte[0][]);
+        plan.segments = segments.toArray(new int[0][]);
+        plan.itemRange = itemRange;
+        plan.itemOffset = itemOffset;
+        plan.itemLength = new int[items.length];
+        plan.itemIsBit = new boolean[items.length];
+        for (int i = 0; i < items.length; i++) {
+            plan.itemLength[i] = items[i].length;
+            plan.itemIsBit[i] = items[i].function == ModbusInfo.ReadCoil || items[i].function == ModbusInfo.ReadDiscrete;
+        }
+        return OperateResultExOne.CreateSuccessResult(plan);
+    }
+
+    /**
+     * 获取指定请求的Modbus核心报文，不包含事务号及校验
+     */
+    byte[] GetCommand(int request) {
+        return commands[request];
+    }
+
+    /**
+     * 获取所有请求的返回数据的总字节数
+     */
+    int GetResponseLength() {
+        int count = 0;
+        for (int request = 0; request < segments.length; request++) count += GetResponseLength(request);
+        return count;
+    }
+
+    /**
+     * 获取指定请求返回的数据的字节数
+     */
+    int GetResponseLength(int request) {
+        int[] segment = segments[request];
+        return rangeIsBit[segment[0]] ? (segment[2] + 7) / 8 : segment[2] * 2;
+    }
+
+    /**
+     * 检查指定请求返回的数据长度是否和请求的数量一致，长度不一致时之后所有地址的数据都会错位，所以直接返回失败
+     */
+    OperateResultExOne<byte[]> CheckResponse(int request, byte[] content) {
+        if (content.length != GetResponseLength(request))
+            return new OperateResultExOne<byte[]>(StringResources.Language.CommandLengthCheckFailed() + " : " + content.length + " != " + GetResponseLength(request));
+        return OperateResultExOne.CreateSuccessResult(content);
+    }
+
+    /**
+     * 将所有请求按照顺序拼接之后的返回数据按照调用方的地址顺序拆分，寄存器为原始的字节，线圈及离散输入按照位重新压缩
+     */
+    OperateResultExOne<byte[][]> Extract(byte[] content) {
+        if (content.length < GetResponseLength())
+            return new OperateResultExOne<byte[][]>(StringResources.Language.ReceiveDataLengthTooShort() + content.length + " < " + GetResponseLength());
+
+        // 先还原每个范围的数据，位地址每个位使用一个字节保存
+        byte[][] buffers = new byte[rangeLengths.length][];
+        for (int i = 0; i < buffers.length; i++) buffers[i] = new byte[rangeIsBit[i] ? rangeLengths[i] : rangeLengths[i] * 2];
+
+        int index = 0;
+        for (int request = 0; request < segments.length; request++) {
+            int[] segment = segments[request];
+            if (rangeIsBit[segment[0]]) {
+                for (int k = 0; k < segment[2]; k++)
+                    buffers[segment[0]][segment[1] + k] = (byte) ((content[index + k / 8] >> (k % 8)) & 0x01);
+            } else {
+                System.arraycopy(content, index, buffers[segment[0]], segment[1] * 2, segment[2] * 2);
+            }
+            index += GetResponseLength(request);
+        }
+
+        byte[][] result = new byte[itemCount][];
+        for (int i = 0; i < itemCount; i++) {
+            if (itemRange[i] < 0) {
+                result[i] = new byte[0];
+                continue;
+            }
+
+            byte[] buffer = buffers[itemRange[i]];
+            if (rangeIsBit[itemRange[i]]) {
+                result[i] = new byte[(itemLength[i] + 7) / 8];
+                for (int k = 0; k < itemLength[i]; k++)
+                    if (buffer[itemOffset[i] + k] != 0) result[i][k / 8] |= (byte) (1 << (k % 8));
+            } else {
+                result[i] = new byte[itemLength[i] * 2];
+                System.arraycopy(buffer, itemOffset[i] * 2, result[i], 0, result[i].length);
+            }
+        }
+        return OperateResultExOne.CreateSuccessResult(result);
+    }
+
+    @Override
+    public String toString() {
+        return "ModbusReadPlan[" + itemCount + " items, " + getRangeCount() + " ranges, " + getRequestCount() + " requests]";
+    }
+
+    private static final int MaxWordLength = 120;     // 单次请求最多读取的寄存器数量
+    private static final int MaxBitLength = 2000;     // 单次请求最多读取的位数量
+
+    private final int itemCount;                      // 调用方的地址数量
+    private byte[][] commands;                        // 每个请求的核心报文
+    private int[][] segments;                         // 每个请求对应的范围，范围内的偏移，长度
+    private int[] rangeLengths;                       // 每个范围的长度
+    private boolean[] rangeIsBit;                     // 每个范围是否是位地址
+    private int[] itemRange;                          // 每个地址所在的范围，长度为0的地址为-1
+    private int[] itemOffset;                         // 每个地址在范围里的偏移
+    private int[] itemLength;                         // 每个地址的长度
+    private boolean[] itemIsBit;                      // 每个地址是否是位地址
+
+    /**
+     * 一个地址或是合并之后的地址范围
+     */
+    private static class Item {
+
+        Item(int station, int function, int start, int length) {
+            this.station = station;
+            this.function = function;
+            this.start = start;
+            this.length = length;
+        }
+
+        final int station;
+        final int function;
+        final int start;
+        int length;
+    }
+}
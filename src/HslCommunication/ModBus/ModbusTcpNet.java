@@ -2,20 +2,22 @@ package HslCommunication.ModBus;
 
 import HslCommunication.BasicFramework.SoftBasic;
 import HslCommunication.BasicFramework.SoftIncrementCount;
+import HslCommunication.Core.Address.CompiledAddress;
 import HslCommunication.Core.Address.ModbusAddress;
 import HslCommunication.Core.IMessage.INetMessage;
 import HslCommunication.Core.IMessage.ModbusTcpMessage;
 import HslCommunication.Core.Net.NetworkBase.NetworkDeviceBase;
+import HslCommunication.Core.Net.ReceiveFrame;
 import HslCommunication.Core.Transfer.ByteTransformHelper;
 import HslCommunication.Core.Transfer.DataFormat;
 import HslCommunication.Core.Transfer.ReverseWordTransform;
+import HslCommunication.Core.Types.FunctionOperateExOne;
 import HslCommunication.Core.Types.OperateResult;
 import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.StringResources;
-import HslCommunication.Utilities;
 
 import java.io.ByteArrayOutputStream;
-import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
 
 
 /**
@@ -183,10 +185,7 @@ public class ModbusTcpNet extends NetworkDeviceBase {
         OperateResultExOne<byte[]> command = ModbusInfo.BuildReadModbusCommand(address, length, getStation(), getAddressStartWithZero(), ModbusInfo.ReadDiscrete);
         if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
 
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(ModbusInfo.PackCommandToTcp(command.Content, (int) softIncrementCount.GetCurrentValue()));
-        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
-
-        OperateResultExOne<byte[]> extract = ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(read.Content));
+        OperateResultExOne<byte[]> extract = ReadModbusFromCoreServer(command.Content);
         if (!extract.IsSuccess) return OperateResultExOne.CreateFailedResult(extract);
 
         return OperateResultExOne.CreateSuccessResult(SoftBasic.ByteToBoolArray(extract.Content, length));
@@ -201,20 +200,30 @@ public class ModbusTcpNet extends NetworkDeviceBase {
      * @return 带有成功标志的字节信息
      */
     public OperateResultExOne<byte[]> Read( String address, short length ) {
+        // 长度为0的时候不和设备交互，和异步的读取保持一致
+        if (length <= 0) return OperateResultExOne.CreateSuccessResult(new byte[0]);
+
+        // 可以同时发送多个请求的时候，所有的分批请求一起发送
+        if (isPipelined()) return JoinResult(ReadAsync(address, length));
+
         OperateResultExOne<ModbusAddress> analysis = ModbusInfo.AnalysisAddress(address, getStation(), getAddressStartWithZero(), ModbusInfo.ReadRegister);
         if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
 
-        ArrayList<Byte> lists = new ArrayList<Byte>();
+        // 只有一批的时候，直接返回，不再复制数据
+        if (length <= 120) return ReadModBus(analysis.Content, length);
+
+        // 按照设备实际返回的数据拼接，线圈及离散输入返回的是按位压缩的字节，不能按照寄存器的长度排布
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         short alreadyFinished = 0;
         while (alreadyFinished < length) {
             short lengthTmp = (short) Math.min((length - alreadyFinished), 120);
             OperateResultExOne<byte[]> read = ReadModBus(analysis.Content.AddressAdd(alreadyFinished), lengthTmp);
             if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
 
-            Utilities.ArrayListAddArray(lists, read.Content);
+            outputStream.write(read.Content, 0, read.Content.length);
             alreadyFinished += lengthTmp;
         }
-        return OperateResultExOne.CreateSuccessResult(Utilities.getBytes(lists));
+        return OperateResultExOne.CreateSuccessResult(outputStream.toByteArray());
     }
 
     /**
@@ -228,10 +237,7 @@ public class ModbusTcpNet extends NetworkDeviceBase {
         OperateResultExOne<byte[]> command = ModbusInfo.BuildReadModbusCommand(address, length);
         if (!command.IsSuccess) return command;
 
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue()));
-        if (!read.IsSuccess) return read;
-
-        return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(read.Content));
+        return ReadModbusFromCoreServer(command.Content);
     }
 
     /**
@@ -245,10 +251,7 @@ public class ModbusTcpNet extends NetworkDeviceBase {
         OperateResultExOne<byte[]> command = ModbusInfo.BuildWriteWordModbusCommand(address, value, getStation(), getAddressStartWithZero(), ModbusInfo.WriteRegister);
         if (!command.IsSuccess) return command;
 
-        OperateResultExOne<byte[]> write = ReadFromCoreServer(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue()));
-        if (!write.IsSuccess) return write;
-
-        return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(write.Content));
+        return ReadModbusFromCoreServer(command.Content);
     }
 
     /**
@@ -262,10 +265,7 @@ public class ModbusTcpNet extends NetworkDeviceBase {
         OperateResultExOne<byte[]> command = ModbusInfo.BuildWriteWordModbusCommand(address, value, getStation(), getAddressStartWithZero(), ModbusInfo.WriteOneRegister);
         if (!command.IsSuccess) return command;
 
-        OperateResultExOne<byte[]> write = ReadFromCoreServer(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue()));
-        if (!write.IsSuccess) return write;
-
-        return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(write.Content));
+        return ReadModbusFromCoreServer(command.Content);
     }
 
     /**
@@ -281,10 +281,25 @@ public class ModbusTcpNet extends NetworkDeviceBase {
         OperateResultExOne<byte[]> command = ModbusInfo.BuildWriteMaskModbusCommand(address, andMask, orMask, getStation(), getAddressStartWithZero(), ModbusInfo.WriteMaskRegister);
         if (!command.IsSuccess) return command;
 
-        OperateResultExOne<byte[]> write = ReadFromCoreServer(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue()));
-        if (!write.IsSuccess) return write;
+        return ReadModbusFromCoreServer(command.Content);
+    }
 
-        return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(write.Content));
+    /**
+     * 将Modbus的核心报文打包成Modbus-Tcp报文发送到设备，返回的报文接收到池中的缓存里，直接按照偏移提取出实际的数据，只产生一次数组的复制<br />
+     * Pack the Modbus core message into a Modbus-Tcp message and send it to the device, the returned message is received into the buffer in the pool,
+     * and the actual data is directly extracted according to the offset, only one array copy is generated
+     * @param command Modbus的核心报文
+     * @return 实际的数据
+     */
+    private OperateResultExOne<byte[]> ReadModbusFromCoreServer( byte[] command ) {
+        OperateResultExOne<ReceiveFrame> read = ReadFrameFromCoreServer(ModbusInfo.PackCommandToTcp(command, (short) softIncrementCount.GetCurrentValue()));
+        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+        try {
+            return ModbusInfo.ExtractActualData(read.Content.getBuffer(), 6, read.Content.getLength() - 6);
+        } finally {
+            read.Content.Release();
+        }
     }
 
     // endregion
@@ -317,10 +332,7 @@ public class ModbusTcpNet extends NetworkDeviceBase {
         OperateResultExOne<byte[]> command = ModbusInfo.BuildReadModbusCommand(address, length, getStation(), getAddressStartWithZero(), ModbusInfo.ReadCoil);
         if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
 
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue()));
-        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
-
-        OperateResultExOne<byte[]> extract = ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(read.Content));
+        OperateResultExOne<byte[]> extract = ReadModbusFromCoreServer(command.Content);
         if (!extract.IsSuccess) return OperateResultExOne.CreateFailedResult(extract);
 
         return OperateResultExOne.CreateSuccessResult(SoftBasic.ByteToBoolArray(extract.Content, length));
@@ -337,10 +349,7 @@ public class ModbusTcpNet extends NetworkDeviceBase {
         OperateResultExOne<byte[]> command = ModbusInfo.BuildWriteBoolModbusCommand(address, values, getStation(), getAddressStartWithZero(), ModbusInfo.WriteCoil);
         if (!command.IsSuccess) return command;
 
-        OperateResultExOne<byte[]> write = ReadFromCoreServer(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue()));
-        if (!write.IsSuccess) return write;
-
-        return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(write.Content));
+        return ReadModbusFromCoreServer(command.Content);
     }
 
     /**
@@ -354,14 +363,274 @@ public class ModbusTcpNet extends NetworkDeviceBase {
         OperateResultExOne<byte[]> command = ModbusInfo.BuildWriteBoolModbusCommand(address, value, getStation(), getAddressStartWithZero(), ModbusInfo.WriteOneCoil);
         if (!command.IsSuccess) return command;
 
-        OperateResultExOne<byte[]> write = ReadFromCoreServer(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue()));
-        if (!write.IsSuccess) return write;
+        return ReadModbusFromCoreServer(command.Content);
+    }
+
+    // endregion
+
+
+    // region Compiled Address
+
+    /**
+     * 将寄存器的地址和长度预先编译好，超过120个寄存器时预先生成每一批的报文，编译时使用当前的站号及地址是否从0开始的设置，
+     * 读取的时候只需要填入新的事务号即可发送<br />
+     * Pre-compile the address and length of the register, and pre-generate the message of each batch when it exceeds 120 registers.
+     * The current station number and the setting of whether the address starts from 0 are used during compilation,
+     * and only a new transaction id needs to be filled in when reading
+     * @param address 起始地址，比如"100"，"x=4;100"，"s=1;100","s=1;x=4;100"
+     * @param length 读取的数量
+     * @return 编译好的地址对象
+     */
+    @Override
+    public OperateResultExOne<CompiledAddress> CompileAddress( String address, short length ) {
+        OperateResultExOne<ModbusAddress> analysis = ModbusInfo.AnalysisAddress(address, getStation(), getAddressStartWithZero(), ModbusInfo.ReadRegister);
+        if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
+
+        int count = Math.max(1, (length + 119) / 120);
+        byte[][] commands = new byte[count][];
+        short[] lengths = new short[count];
+        for (int i = 0; i < count; i++) {
+            int alreadyFinished = i * 120;
+            lengths[i] = (short) Math.min(length - alreadyFinished, 120);
+
+            OperateResultExOne<byte[]> command = ModbusInfo.BuildReadModbusCommand(analysis.Content.AddressAdd(alreadyFinished), lengths[i]);
+            if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
+            commands[i] = ModbusInfo.PackCommandToTcp(command.Content, 0);
+        }
+        return OperateResultExOne.CreateSuccessResult(new CompiledAddress(this, address, length, commands, lengths));
+    }
+
+    @Override
+    protected byte[] PrepareCompiledCommand( byte[] command ) {
+        // 每次发送都需要新的事务号，复制一份报文再修改
+        byte[] send = command.clone();
+        int id = (int) softIncrementCount.GetCurrentValue();
+        send[0] = (byte) (id >> 8);
+        send[1] = (byte) id;
+        return send;
+    }
 
-        return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(write.Content));
+    @Override
+    protected OperateResultExOne<byte[]> ExtractCompiledResponse( CompiledAddress compiled, int index, byte[] response ) {
+        return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(response));
     }
 
     // endregion
 
+    // region Read Plan
+
+    /**
+     * 使用当前的站号及地址是否从0开始的设置创建一个批量读取计划，同一个站号及功能码的地址间隔不超过16个时合并读取，
+     * 适合周期性的读取大量离散的寄存器或是线圈，计划只需要创建一次，之后使用 {@link #Read(ModbusReadPlan)} 读取<br />
+     * Create a batch read plan using the current station number and the setting of whether the address starts from 0,
+     * and addresses with the same station number and function code are merged when the gap does not exceed 16.
+     * It is suitable for periodically reading a large number of discrete registers or coils. The plan only needs to be created once,
+     * and then use {@link #Read(ModbusReadPlan)} to read
+     * @param address 地址列表，比如"100"，"x=4;100"，"s=1;100","s=1;x=4;100"，"x=1;100"
+     * @param length 每个地址读取的数量，寄存器地址为寄存器的个数，线圈及离散输入为位的个数
+     * @return 读取计划
+     */
+    public OperateResultExOne<ModbusReadPlan> CreateReadPlan( String[] address, short[] length ) {
+        return ModbusReadPlan.Create(address, length, getStation(), getAddressStartWithZero());
+    }
+
+    /**
+     * 使用当前的站号及地址是否从0开始的设置创建一个批量读取计划，同一个站号及功能码的地址间隔不超过指定数量时合并读取<br />
+     * Create a batch read plan using the current station number and the setting of whether the address starts from 0,
+     * and addresses with the same station number and function code are merged when the gap does not exceed the specified number
+     * @param address 地址列表，比如"100"，"x=4;100"，"s=1;100","s=1;x=4;100"，"x=1;100"
+     * @param length 每个地址读取的数量，寄存器地址为寄存器的个数，线圈及离散输入为位的个数
+     * @param maxGap 允许合并的最大间隔，单位和地址一致，为0时只合并相邻或是重叠的地址
+     * @return 读取计划
+     */
+    public OperateResultExOne<ModbusReadPlan> CreateReadPlan( String[] address, short[] length, int maxGap ) {
+        return ModbusReadPlan.Create(address, length, getStation(), getAddressStartWithZero(), maxGap);
+    }
+
+    /**
+     * 按照读取计划读取所有的地址，结果按照创建计划时的地址顺序返回，每个地址一个数组，寄存器为原始的字节，线圈及离散输入为按位压缩的字节，
+     * 如果设置了大于1的请求窗口，所有的请求将同时发送<br />
+     * Read all addresses according to the read plan, and the results are returned in the order of the addresses when the plan was created, one array per address.
+     * The registers are raw bytes, and the coils and discrete inputs are bytes compressed by bits. If a request window greater than 1 is set, all requests will be sent at the same time
+     * @param plan 读取计划
+     * @return 每个地址的数据
+     */
+    public OperateResultExOne<byte[][]> Read( ModbusReadPlan plan ) {
+        if (isPipelined()) return JoinResult(ReadAsync(plan));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (int i = 0; i < plan.getRequestCount(); i++) {
+            OperateResultExOne<byte[]> read = ReadModbusFromCoreServer(plan.GetCommand(i));
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+            OperateResultExOne<byte[]> check = plan.CheckResponse(i, read.Content);
+            if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
+
+            outputStream.write(read.Content, 0, read.Content.length);
+        }
+        return plan.Extract(outputStream.toByteArray());
+    }
+
+    /**
+     * 异步按照读取计划读取所有的地址，结果按照创建计划时的地址顺序返回，如果设置了大于1的请求窗口，所有的请求将同时发送<br />
+     * Asynchronously read all addresses according to the read plan, and the results are returned in the order of the addresses when the plan was created.
+     * If a request window greater than 1 is set, all requests will be sent at the same time
+     * @param plan 读取计划
+     * @return 每个地址的数据的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[][]>> ReadAsync( final ModbusReadPlan plan ) {
+        FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>> step = new FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletableFuture<OperateResultExOne<byte[]>> Action(final Integer index) {
+                CompletableFuture<OperateResultExOne<byte[]>> read = ThenAnalysis(ReadFromCoreServerAsync(ModbusInfo.PackCommandToTcp(plan.GetCommand(index), (short) softIncrementCount.GetCurrentValue())), extractActualData);
+                return ThenAnalysis(read, new FunctionOperateExOne<byte[], OperateResultExOne<byte[]>>() {
+                    @Override
+                    public OperateResultExOne<byte[]> Action(byte[] content) {
+                        return plan.CheckResponse(index, content);
+                    }
+                });
+            }
+        };
+        CompletableFuture<OperateResultExOne<byte[]>> read = isPipelined() ? ReadConcurrentAsync(plan.getRequestCount(), step) : ReadSequenceAsync(plan.getRequestCount(), step);
+        return ThenAnalysis(read, new FunctionOperateExOne<byte[], OperateResultExOne<byte[][]>>() {
+            @Override
+            public OperateResultExOne<byte[][]> Action(byte[] content) {
+                return plan.Extract(content);
+            }
+        });
+    }
+
+    // endregion
+
+    // region Pipeline Support
+
+    /**
+     * 从发送的报文中提取出事务号，设备返回的报文中携带相同的事务号，用于在一个连接上同时等待多个请求的返回<br />
+     * Extract the transaction id from the sent message, the message returned by the device carries the same transaction id,
+     * which is used to wait for the return of multiple requests on one connection at the same time
+     * @param send 发送的完整的报文
+     * @return 事务号
+     */
+    @Override
+    protected int GetMessageIdentity( byte[] send ) {
+        if (send == null || send.length < 2) return -1;
+        return (send[0] & 0xff) * 256 + (send[1] & 0xff);
+    }
+
+    // endregion
+
+    // region Async Read Write
+
+    /**
+     * 异步从Modbus服务器批量读取寄存器的信息，超过120个寄存器时自动分批读取，在非阻塞的传输模式下不占用调用方的线程，
+     * 如果设置了大于1的请求窗口，所有的分批请求将同时发送，并根据事务号匹配返回的报文<br />
+     * Asynchronously read the register information from the Modbus server in batches, automatically split when more than 120 registers,
+     * and the calling thread is not occupied in non-blocking transport mode. If a request window greater than 1 is set,
+     * all batch requests will be sent at the same time, and the returned messages are matched according to the transaction id
+     * @param address 起始地址，比如"100"，"x=4;100"，"s=1;100","s=1;x=4;100"
+     * @param length 读取的数量
+     * @return 带有成功标志的字节信息的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync( String address, final short length ) {
+        final OperateResultExOne<ModbusAddress> analysis = ModbusInfo.AnalysisAddress(address, getStation(), getAddressStartWithZero(), ModbusInfo.ReadRegister);
+        if (!analysis.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[]>CreateFailedResult(analysis));
+
+        FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>> step = new FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletableFuture<OperateResultExOne<byte[]>> Action(Integer index) {
+                int alreadyFinished = index * 120;
+                return ReadModBusAsync(analysis.Content.AddressAdd(alreadyFinished), (short) Math.min(length - alreadyFinished, 120));
+            }
+        };
+        return isPipelined() ? ReadConcurrentAsync((length + 119) / 120, step) : ReadSequenceAsync((length + 119) / 120, step);
+    }
+
+    private CompletableFuture<OperateResultExOne<byte[]>> ReadModBusAsync( ModbusAddress address, short length ) {
+        OperateResultExOne<byte[]> command = ModbusInfo.BuildReadModbusCommand(address, length);
+        if (!command.IsSuccess) return CompletableFuture.completedFuture(command);
+
+        return ThenAnalysis(ReadFromCoreServerAsync(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue())), extractActualData);
+    }
+
+    /**
+     * 异步将数据写入到Modbus的寄存器上去，如果富文本地址不指定，默认使用的功能码是 0x10<br />
+     * Asynchronously write data to Modbus registers. If the rich text address is not specified, the default function code is 0x10
+     * @param address 起始地址，比如"100"，"x=4;100"，"s=1;100","s=1;x=4;100"
+     * @param value 写入的数据，长度根据data的长度来指示
+     * @return 返回写入结果的异步对象
+     */
+    @Override
+    public CompletableFuture<OperateResult> WriteAsync( String address, byte[] value ) {
+        return WriteCommandAsync(ModbusInfo.BuildWriteWordModbusCommand(address, value, getStation(), getAddressStartWithZero(), ModbusInfo.WriteRegister));
+    }
+
+    /**
+     * 异步将数据写入到Modbus的单个寄存器上去，如果富文本地址不指定，默认使用的功能码是 0x06<br />
+     * Asynchronously write data to a single register of Modbus. If the rich text address is not specified, the default function code is 0x06.
+     * @param address 起始地址，比如"100"，"x=4;100"，"s=1;100","s=1;x=4;100"
+     * @param value 写入的short数据
+     * @return 是否写入成功的异步对象
+     */
+    @Override
+    public CompletableFuture<OperateResult> WriteAsync( String address, short value ) {
+        return WriteCommandAsync(ModbusInfo.BuildWriteWordModbusCommand(address, value, getStation(), getAddressStartWithZero(), ModbusInfo.WriteOneRegister));
+    }
+
+    /**
+     * 异步批量读取线圈，如果富文本地址不指定，默认使用的功能码是 0x01<br />
+     * Asynchronously batch read coils. If the rich text address is not specified, the default function code is 0x01.
+     * @param address 数据地址
+     * @param length 数据长度
+     * @return 带有成功标识的bool[]数组的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResultExOne<boolean[]>> ReadBoolAsync( String address, final short length ) {
+        OperateResultExOne<byte[]> command = ModbusInfo.BuildReadModbusCommand(address, length, getStation(), getAddressStartWithZero(), ModbusInfo.ReadCoil);
+        if (!command.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<boolean[]>CreateFailedResult(command));
+
+        return ThenAnalysis(ReadFromCoreServerAsync(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue())), new FunctionOperateExOne<byte[], OperateResultExOne<boolean[]>>() {
+            @Override
+            public OperateResultExOne<boolean[]> Action(byte[] content) {
+                OperateResultExOne<byte[]> extract = ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(content));
+                if (!extract.IsSuccess) return OperateResultExOne.CreateFailedResult(extract);
+
+                return OperateResultExOne.CreateSuccessResult(SoftBasic.ByteToBoolArray(extract.Content, length));
+            }
+        });
+    }
+
+    /**
+     * 异步向线圈中写入bool数组，如果富文本地址不指定，默认使用的功能码是 0x0F<br />
+     * Asynchronously write the bool array to the coil. If the rich text address is not specified, the default function code is 0x0F.
+     * @param address 要写入的数据地址
+     * @param values 要写入的实际数组
+     * @return 返回写入结果的异步对象
+     */
+    @Override
+    public CompletableFuture<OperateResult> WriteAsync( String address, boolean[] values ) {
+        return WriteCommandAsync(ModbusInfo.BuildWriteBoolModbusCommand(address, values, getStation(), getAddressStartWithZero(), ModbusInfo.WriteCoil));
+    }
+
+    private CompletableFuture<OperateResult> WriteCommandAsync( OperateResultExOne<byte[]> command ) {
+        if (!command.IsSuccess) return CompletableFuture.<OperateResult>completedFuture(command);
+
+        return ThenCheck(ReadFromCoreServerAsync(ModbusInfo.PackCommandToTcp(command.Content, (short) softIncrementCount.GetCurrentValue())), new FunctionOperateExOne<byte[], OperateResult>() {
+            @Override
+            public OperateResult Action(byte[] content) {
+                return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(content));
+            }
+        });
+    }
+
+    private final FunctionOperateExOne<byte[], OperateResultExOne<byte[]>> extractActualData = new FunctionOperateExOne<byte[], OperateResultExOne<byte[]>>() {
+        @Override
+        public OperateResultExOne<byte[]> Action(byte[] content) {
+            return ModbusInfo.ExtractActualData(ModbusInfo.ExplodeTcpCommandToCore(content));
+        }
+    };
+
+    // endregion
 
     /**
      * 返回表示当前对象的字符串
@@ -0,0 +1,629 @@
+package HslCommunication.ModBus;
+
+import HslCommunication.BasicFramework.SoftBuffer;
+import HslCommunication.Core.Address.ModbusAddress;
+import HslCommunication.Core.Net.NetworkBase.NetworkBase;
+import HslCommunication.Core.Net.Nio.INioHandler;
+import HslCommunication.Core.Net.Nio.NioEventLoop;
+import HslCommunication.Core.Net.Nio.NioEventLoopGroup;
+import HslCommunication.Core.Transfer.ReverseWordTransform;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.StringResources;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Modbus-Tcp协议的服务器，数据保存在四个 {@link SoftBuffer} 里，分别是线圈，离散输入，保持寄存器，输入寄存器，每个区域都是65536个地址。
+ * 侦听及所有客户端的读写都在非阻塞的事件循环上完成，少量的线程就可以服务成百上千个客户端，支持的功能码为0x01-0x06，0x0F，0x10，0x16，0x17，
+ * 可以作为测试时的虚拟设备，也可以作为网关的前端，把从其他设备缓存的数据提供给上位机。<br />
+ * The server of the Modbus-Tcp protocol. The data is stored in four {@link SoftBuffer}, namely coils, discrete inputs, holding registers, and input registers,
+ * and each area has 65536 addresses. Listening and reading and writing of all clients are completed on the non-blocking event loop,
+ * and a small number of threads can serve thousands of clients. The supported function codes are 0x01-0x06, 0x0F, 0x10, 0x16, 0x17.
+ * It can be used as a virtual device during testing, or as the front end of a gateway to provide the data cached from other devices to the host computer.
+ */
+public class ModbusTcpServer extends NetworkBase {
+
+    /**
+     * 实例化一个Modbus-Tcp的服务器，默认站号为1，不检查站号<br />
+     * Instantiate a Modbus-Tcp server, the default station number is 1, and the station number is not checked
+     */
+    public ModbusTcpServer() {
+        coilBuffer = new SoftBuffer(DataPoolLength / 8);
+        inputBuffer = new SoftBuffer(DataPoolLength / 8);
+        registerBuffer = new SoftBuffer(DataPoolLength * 2);
+        inputRegisterBuffer = new SoftBuffer(DataPoolLength * 2);
+        registerBuffer.setByteTransform(new ReverseWordTransform());
+        inputRegisterBuffer.setByteTransform(new ReverseWordTransform());
+    }
+
+    // region Public Properties
+
+    /**
+     * 获取服务器的站号<br />
+     * Get the station number of the server
+     * @return 站号
+     */
+    public byte getStation() {
+        return station;
+    }
+
+    /**
+     * 设置服务器的站号，只有开启了站号检查才生效<br />
+     * Set the station number of the server, only effective when the station number check is enabled
+     * @param station 站号
+     */
+    public void setStation(byte station) {
+        this.station = station;
+    }
+
+    /**
+     * 获取是否检查请求的站号，检查时站号不一致的请求将被忽略<br />
+     * Get whether to check the station number of the request, requests with inconsistent station numbers will be ignored when checked
+     * @return 是否检查
+     */
+    public boolean isStationCheck() {
+        return stationCheck;
+    }
+
+    /**
+     * 设置是否检查请求的站号，默认不检查<br />
+     * Set whether to check the station number of the request, not checked by default
+     * @param stationCheck 是否检查
+     */
+    public void setStationCheck(boolean stationCheck) {
+        this.stationCheck = stationCheck;
+    }
+
+    /**
+     * 设置服务器使用的事件循环组，需要在启动服务器之前设置，没有设置时使用默认的共享事件循环组<br />
+     * Set the event loop group used by the server, it needs to be set before starting the server, and the default shared event loop group is used if it is not set
+     * @param eventLoopGroup 事件循环组
+     */
+    public void setEventLoopGroup(NioEventLoopGroup eventLoopGroup) {
+        this.eventLoopGroup = eventLoopGroup;
+    }
+
+    /**
+     * 获取当前在线的客户端数量<br />
+     * Get the number of currently online clients
+     * @return 客户端数量
+     */
+    public int getOnlineCount() {
+        return sessions.size();
+    }
+
+    /**
+     * 获取服务器是否已经启动<br />
+     * Get whether the server has been started
+     * @return 是否启动
+     */
+    public boolean isStarted() {
+        return serverChannel != null;
+    }
+
+    // endregion
+
+    // region Server Start Close
+
+    /**
+     * 在指定的端口上启动服务器，侦听所有的网卡<br />
+     * Start the server on the specified port and listen to all network cards
+     * @param port 端口号
+     * @return 是否启动成功
+     */
+    public synchronized OperateResult ServerStart(int port) {
+        if (serverChannel != null) return OperateResult.CreateSuccessResult();
+        if (NioEventLoop.IsEventLoopThread()) return new OperateResult(StringResources.Language.BlockingCallInEventLoop());
+
+        try {
+            if (eventLoopGroup == null) eventLoopGroup = NioEventLoopGroup.getDefault();
+
+            ServerSocketChannel channel = ServerSocketChannel.open();
+            channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+            channel.bind(new InetSocketAddress(port), 512);
+            channel.configureBlocking(false);
+
+            AcceptHandler handler = new AcceptHandler(channel, eventLoopGroup.Next());
+            OperateResultExOne<SelectionKey> register = handler.eventLoop.Register(channel, SelectionKey.OP_ACCEPT, handler).join();
+            if (!register.IsSuccess) {
+                channel.close();
+                return register;
+            }
+
+            serverChannel = channel;
+            acceptHandler = handler;
+            if (LogNet != null) LogNet.WriteInfo(toString(), "Server started on port " + port);
+            return OperateResult.CreateSuccessResult();
+        } catch (IOException ex) {
+            return new OperateResult(ex.getMessage());
+        }
+    }
+
+    /**
+     * 关闭服务器，断开所有的客户端连接，关闭之后可以重新启动<br />
+     * Close the server and disconnect all client connections, it can be restarted after closing
+     */
+    public synchronized void ServerClose() {
+        if (serverChannel == null) return;
+
+        final AcceptHandler handler = acceptHandler;
+        handler.eventLoop.Execute(new Runnable() {
+            @Override
+            public void run() {
+                handler.Close();
+            }
+        });
+        for (final ClientSession session : sessions) {
+            session.eventLoop.Execute(new Runnable() {
+                @Override
+                public void run() {
+                    session.Close();
+                }
+            });
+        }
+        serverChannel = null;
+        acceptHandler = null;
+        if (LogNet != null) LogNet.WriteInfo(toString(), "Server closed");
+    }
+
+    // endregion
+
+    // region Local Read Write
+
+    /**
+     * 读取服务器的寄存器数据，地址携带x=4时读取输入寄存器，否则读取保持寄存器，返回的字节是大端的顺序<br />
+     * Read the register data of the server. When the address carries x=4, the input register is read, otherwise the holding register is read,
+     * and the returned bytes are in big-endian order
+     * @param address 起始地址，比如"100"，"x=4;100"
+     * @param length 寄存器的数量
+     * @return 带有成功标志的字节信息
+     */
+    public OperateResultExOne<byte[]> Read(String address, short length) {
+        OperateResultExOne<ModbusAddress> analysis = AnalysisLocalAddress(address, ModbusInfo.ReadRegister, length);
+        if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
+
+        SoftBuffer buffer = analysis.Content.getFunction() == ModbusInfo.ReadInputRegister ? inputRegisterBuffer : registerBuffer;
+        return OperateResultExOne.CreateSuccessResult(buffer.GetBytes(analysis.Content.getAddress() * 2, length * 2));
+    }
+
+    /**
+     * 写入服务器的寄存器数据，地址携带x=4时写入输入寄存器，否则写入保持寄存器，数据是大端的顺序<br />
+     * Write the register data of the server. When the address carries x=4, the input register is written, otherwise the holding register is written,
+     * and the data is in big-endian order
+     * @param address 起始地址，比如"100"，"x=4;100"
+     * @param value 写入的数据，长度必须为偶数
+     * @return 是否写入成功
+     */
+    public OperateResult Write(String address, byte[] value) {
+        OperateResultExOne<ModbusAddress> analysis = AnalysisLocalAddress(address, ModbusInfo.ReadRegister, value.length / 2);
+        if (!analysis.IsSuccess) return analysis;
+
+        if (analysis.Content.getFunction() == ModbusInfo.ReadInputRegister) {
+            inputRegisterBuffer.SetBytes(value, analysis.Content.getAddress() * 2);
+        } else {
+            synchronized (registerLock) {
+                registerBuffer.SetBytes(value, analysis.Content.getAddress() * 2);
+            }
+        }
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 写入服务器的单个寄存器，地址携带x=4时写入输入寄存器，否则写入保持寄存器<br />
+     * Write a single register of the server. When the address carries x=4, the input register is written, otherwise the holding register is written
+     * @param address 地址，比如"100"，"x=4;100"
+     * @param value 写入的值
+     * @return 是否写入成功
+     */
+    public OperateResult Write(String address, short value) {
+        return Write(address, new byte[]{(byte) (value >> 8), (byte) value});
+    }
+
+    /**
+     * 读取服务器的线圈数据，地址携带x=2时读取离散输入，否则读取线圈<br />
+     * Read the coil data of the server. When the address carries x=2, the discrete input is read, otherwise the coil is read
+     * @param address 起始地址，比如"100"，"x=2;100"
+     * @param length 读取的数量
+     * @return 带有成功标志的bool数组
+     */
+    public OperateResultExOne<boolean[]> ReadBool(String address, short length) {
+        OperateResultExOne<ModbusAddress> analysis = AnalysisLocalAddress(address, ModbusInfo.ReadCoil, length);
+        if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
+
+        SoftBuffer buffer = analysis.Content.getFunction() == ModbusInfo.ReadDiscrete ? inputBuffer : coilBuffer;
+        return OperateResultExOne.CreateSuccessResult(buffer.GetBool(analysis.Content.getAddress(), length));
+    }
+
+    /**
+     * 写入服务器的线圈数据，地址携带x=2时写入离散输入，否则写入线圈<br />
+     * Write the coil data of the server. When the address carries x=2, the discrete input is written, otherwise the coil is written
+     * @param address 起始地址，比如"100"，"x=2;100"
+     * @param value 写入的数据
+     * @return 是否写入成功
+     */
+    public OperateResult Write(String address, boolean[] value) {
+        OperateResultExOne<ModbusAddress> analysis = AnalysisLocalAddress(address, ModbusInfo.ReadCoil, value.length);
+        if (!analysis.IsSuccess) return analysis;
+
+        SoftBuffer buffer = analysis.Content.getFunction() == ModbusInfo.ReadDiscrete ? inputBuffer : coilBuffer;
+        buffer.SetBool(value, analysis.Content.getAddress());
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 写入服务器的单个线圈，地址携带x=2时写入离散输入，否则写入线圈<br />
+     * Write a single coil of the server. When the address carries x=2, the discrete input is written, otherwise the coil is written
+     * @param address 地址，比如"100"，"x=2;100"
+     * @param value 写入的值
+     * @return 是否写入成功
+     */
+    public OperateResult Write(String address, boolean value) {
+        return Write(address, new boolean[]{value});
+    }
+
+    private OperateResultExOne<ModbusAddress> AnalysisLocalAddress(String address, byte defaultFunction, int length) {
+        OperateResultExOne<ModbusAddress> analysis = ModbusInfo.AnalysisAddress(address, station, true, defaultFunction);
+        if (!analysis.IsSuccess) return analysis;
+
+        if (analysis.Content.getAddress() < 0 || analysis.Content.getAddress() + length > DataPoolLength)
+            return new OperateResultExOne<ModbusAddress>(StringResources.Language.ModbusTcpFunctionCodeOverBound());
+        return analysis;
+    }
+
+    // endregion
+
+    // region Modbus Core Process
+
+    /**
+     * 处理一个Modbus的核心报文，包含站号，功能码及数据，返回核心的应答报文，不支持的功能码及越界的地址返回异常的报文，
+     * 开启了站号检查并且站号不一致时返回null，表示不需要应答<br />
+     * Process a Modbus core message, including the station number, function code and data, and return the core response message.
+     * Unsupported function codes and out-of-bounds addresses return exception messages. When the station number check is enabled and the station number is inconsistent,
+     * null is returned, indicating that no response is required
+     * @param core Modbus的核心报文
+     * @return 核心的应答报文
+     */
+    protected byte[] ProcessModbusCore(byte[] core) {
+        if (core.length < 2) return null;
+        if (stationCheck && core[0] != station) return null;
+
+        byte function = core[1];
+        try {
+            switch (function) {
+                case ModbusInfo.ReadCoil:
+                case ModbusInfo.ReadDiscrete: return ReadBoolByCommand(core, function == ModbusInfo.ReadCoil ? coilBuffer : inputBuffer);
+                case ModbusInfo.ReadRegister:
+                case ModbusInfo.ReadInputRegister: return ReadRegisterByCommand(core, function == ModbusInfo.ReadRegister ? registerBuffer : inputRegisterBuffer);
+                case ModbusInfo.WriteOneCoil: return WriteOneCoilByCommand(core);
+                case ModbusInfo.WriteOneRegister: return WriteOneRegisterByCommand(core);
+                case ModbusInfo.WriteCoil: return WriteCoilByCommand(core);
+                case ModbusInfo.WriteRegister: return WriteRegisterByCommand(core);
+                case ModbusInfo.WriteMaskRegister: return WriteMaskByCommand(core);
+                case ModbusInfo.ReadWriteRegister: return ReadWriteRegisterByCommand(core);
+                default: return CreateExceptionBack(core, ModbusInfo.FunctionCodeNotSupport);
+            }
+        } catch (Exception ex) {
+            if (LogNet != null) LogNet.WriteException(toString(), ex);
+            return CreateExceptionBack(core, ModbusInfo.FunctionCodeReadWriteException);
+        }
+    }
+
+    private byte[] ReadBoolByCommand(byte[] core, SoftBuffer buffer) {
+        if (core.length != 6) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        int address = GetUShort(core, 2);
+        int length = GetUShort(core, 4);
+        if (length < 1 || length > 2000) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        if (address + length > DataPoolLength) return CreateExceptionBack(core, ModbusInfo.FunctionCodeOverBound);
+
+        boolean[] values = buffer.GetBool(address, length);
+        byte[] back = new byte[3 + (length + 7) / 8];
+        back[0] = core[0];
+        back[1] = core[1];
+        back[2] = (byte) (back.length - 3);
+        for (int i = 0; i < length; i++) if (values[i]) back[3 + i / 8] |= (byte) (1 << (i % 8));
+        return back;
+    }
+
+    private byte[] ReadRegisterByCommand(byte[] core, SoftBuffer buffer) {
+        if (core.length != 6) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        int address = GetUShort(core, 2);
+        int length = GetUShort(core, 4);
+        if (length < 1 || length > 125) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        if (address + length > DataPoolLength) return CreateExceptionBack(core, ModbusInfo.FunctionCodeOverBound);
+
+        return CreateReadBack(core, buffer.GetBytes(address * 2, length * 2));
+    }
+
+    private byte[] WriteOneCoilByCommand(byte[] core) {
+        if (core.length != 6) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        int address = GetUShort(core, 2);
+        int value = GetUShort(core, 4);
+        if (value != 0xFF00 && value != 0x0000) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+
+        coilBuffer.SetBool(value == 0xFF00, address);
+        return core.clone();
+    }
+
+    private byte[] WriteOneRegisterByCommand(byte[] core) {
+        if (core.length != 6) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        int address = GetUShort(core, 2);
+
+        synchronized (registerLock) {
+            registerBuffer.SetBytes(core, 4, address * 2, 2);
+        }
+        return core.clone();
+    }
+
+    private byte[] WriteCoilByCommand(byte[] core) {
+        if (core.length < 7) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        int address = GetUShort(core, 2);
+        int length = GetUShort(core, 4);
+        if (length < 1 || length > 1968 || (core[6] & 0xff) != (length + 7) / 8 || core.length != 7 + (length + 7) / 8)
+            return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        if (address + length > DataPoolLength) return CreateExceptionBack(core, ModbusInfo.FunctionCodeOverBound);
+
+        boolean[] values = new boolean[length];
+        for (int i = 0; i < length; i++) values[i] = (core[7 + i / 8] & (1 << (i % 8))) != 0;
+        coilBuffer.SetBool(values, address);
+        return CreateWriteBack(core);
+    }
+
+    private byte[] WriteRegisterByCommand(byte[] core) {
+        if (core.length < 7) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        int address = GetUShort(core, 2);
+        int length = GetUShort(core, 4);
+        if (length < 1 || length > 123 || (core[6] & 0xff) != length * 2 || core.length != 7 + length * 2)
+            return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        if (address + length > DataPoolLength) return CreateExceptionBack(core, ModbusInfo.FunctionCodeOverBound);
+
+        synchronized (registerLock) {
+            registerBuffer.SetBytes(core, 7, address * 2, length * 2);
+        }
+        return CreateWriteBack(core);
+    }
+
+    private byte[] WriteMaskByCommand(byte[] core) {
+        if (core.length != 8) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        int address = GetUShort(core, 2);
+        int andMask = GetUShort(core, 4);
+        int orMask = GetUShort(core, 6);
+
+        // 结果 = (当前值 AND andMask) OR (orMask AND (NOT andMask))
+        synchronized (registerLock) {
+            byte[] current = registerBuffer.GetBytes(address * 2, 2);
+            int value = ((current[0] & 0xff) << 8 | (current[1] & 0xff)) & andMask | (orMask & ~andMask);
+            registerBuffer.SetBytes(new byte[]{(byte) (value >> 8), (byte) value}, address * 2);
+        }
+        return core.clone();
+    }
+
+    private byte[] ReadWriteRegisterByCommand(byte[] core) {
+        if (core.length < 11) return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        int readAddress = GetUShort(core, 2);
+        int readLength = GetUShort(core, 4);
+        int writeAddress = GetUShort(core, 6);
+        int writeLength = GetUShort(core, 8);
+        if (readLength < 1 || readLength > 125 || writeLength < 1 || writeLength > 121 ||
+                (core[10] & 0xff) != writeLength * 2 || core.length != 11 + writeLength * 2)
+            return CreateExceptionBack(core, ModbusInfo.FunctionCodeQuantityOver);
+        if (readAddress + readLength > DataPoolLength || writeAddress + writeLength > DataPoolLength)
+            return CreateExceptionBack(core, ModbusInfo.FunctionCodeOverBound);
+
+        // 写入和读取作为一个整体操作，先写入再读取
+        byte[] data;
+        synchronized (registerLock) {
+            registerBuffer.SetBytes(core, 11, writeAddress * 2, writeLength * 2);
+            data = registerBuffer.GetBytes(readAddress * 2, readLength * 2);
+        }
+        return CreateReadBack(core, data);
+    }
+
+    private static int GetUShort(byte[] buffer, int index) {
+        return (buffer[index] & 0xff) << 8 | (buffer[index + 1] & 0xff);
+    }
+
+    private static byte[] CreateReadBack(byte[] core, byte[] data) {
+        byte[] back = new byte[3 + data.length];
+        back[0] = core[0];
+        back[1] = core[1];
+        back[2] = (byte) data.length;
+        System.arraycopy(data, 0, back, 3, data.length);
+        return back;
+    }
+
+    private static byte[] CreateWriteBack(byte[] core) {
+        byte[] back = new byte[6];
+        System.arraycopy(core, 0, back, 0, 6);
+        return back;
+    }
+
+    private static byte[] CreateExceptionBack(byte[] core, byte code) {
+        return new byte[]{core[0], (byte) (core[1] | 0x80), code};
+    }
+
+    // endregion
+
+    // region Nio Handler
+
+    /**
+     * 侦听的处理对象，接收新的连接并按照轮询的方式分配到事件循环组里
+     */
+    private class AcceptHandler implements INioHandler {
+
+        AcceptHandler(ServerSocketChannel channel, NioEventLoop eventLoop) {
+            this.channel = channel;
+            this.eventLoop = eventLoop;
+        }
+
+        @Override
+        public void HandleSelectionKey(SelectionKey key) {
+            this.key = key;
+            if (!key.isAcceptable()) return;
+
+            while (true) {
+                SocketChannel client;
+                try {
+                    client = channel.accept();
+                } catch (IOException ex) {
+                    if (LogNet != null) LogNet.WriteException(ModbusTcpServer.this.toString(), ex);
+                    return;
+                }
+                if (client == null) return;
+
+                try {
+                    client.configureBlocking(false);
+                    client.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    final ClientSession session = new ClientSession(client, eventLoopGroup.Next());
+                    sessions.add(session);
+                    session.eventLoop.Register(client, SelectionKey.OP_READ, session).thenAccept(new Consumer<OperateResultExOne<SelectionKey>>() {
+                        @Override
+                        public void accept(OperateResultExOne<SelectionKey> register) {
+                            if (!register.IsSuccess) session.Close();
+                        }
+                    });
+                    if (LogNet != null) LogNet.WriteDebug(ModbusTcpServer.this.toString(), "Client online: " + client.getRemoteAddress());
+                } catch (IOException ex) {
+                    try {
+                        client.close();
+                    } catch (IOException ignored) {
+
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void Close() {
+            eventLoop.Deregister(key, this);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+
+            }
+        }
+
+        private final ServerSocketChannel channel;          // 侦听的通道
+        private final NioEventLoop eventLoop;               // 所在的事件循环
+        private SelectionKey key = null;                    // 选择键
+    }
+
+    /**
+     * 一个客户端的会话，解析Modbus-Tcp报文并写回应答，应答没有发送完成之前不再读取新的请求，使得速度慢的客户端不会占用过多的内存
+     */
+    private class ClientSession implements INioHandler {
+
+        ClientSession(SocketChannel channel, NioEventLoop eventLoop) {
+            this.channel = channel;
+            this.eventLoop = eventLoop;
+        }
+
+        @Override
+        public void HandleSelectionKey(SelectionKey key) {
+            this.key = key;
+            try {
+                if (key.isWritable() && !Flush()) return;
+                if (key.isReadable() || writeQueue.isEmpty()) DoRead();
+            } catch (IOException ex) {
+                Close();
+            }
+        }
+
+        private void DoRead() throws IOException {
+            int count = channel.read(readBuffer);
+            if (count < 0) {
+                Close();
+                return;
+            }
+
+            readBuffer.flip();
+            while (readBuffer.remaining() >= 6) {
+                int position = readBuffer.position();
+                int protocol = (readBuffer.get(position + 2) & 0xff) << 8 | (readBuffer.get(position + 3) & 0xff);
+                int length = (readBuffer.get(position + 4) & 0xff) << 8 | (readBuffer.get(position + 5) & 0xff);
+                if (protocol != 0 || length < 2 || length > 254) {
+                    // 不是Modbus-Tcp的报文，直接断开连接
+                    Close();
+                    return;
+                }
+                if (readBuffer.remaining() < 6 + length) break;
+
+                int id = (readBuffer.get(position) & 0xff) << 8 | (readBuffer.get(position + 1) & 0xff);
+                byte[] core = new byte[length];
+                readBuffer.position(position + 6);
+                readBuffer.get(core);
+
+                byte[] back = ProcessModbusCore(core);
+                if (back != null) writeQueue.add(ByteBuffer.wrap(ModbusInfo.PackCommandToTcp(back, id)));
+            }
+            readBuffer.compact();
+
+            if (!writeQueue.isEmpty() && !Flush()) key.interestOps(SelectionKey.OP_WRITE);
+        }
+
+        /**
+         * 尽可能多的发送应答，全部发送完成时返回true并恢复读取
+         */
+        private boolean Flush() throws IOException {
+            while (!writeQueue.isEmpty()) {
+                ByteBuffer buffer = writeQueue.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining()) return false;
+                writeQueue.poll();
+            }
+            if (key.isValid()) key.interestOps(SelectionKey.OP_READ);
+            return true;
+        }
+
+        @Override
+        public void Close() {
+            if (!sessions.remove(this)) return;
+            eventLoop.Deregister(key, this);
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+
+            }
+            writeQueue.clear();
+            if (LogNet != null) LogNet.WriteDebug(ModbusTcpServer.this.toString(), "Client offline");
+        }
+
+        private final SocketChannel channel;                                  // 客户端的通道
+        private final NioEventLoop eventLoop;                                 // 所在的事件循环
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(1024);      // 接收的缓存，可以容纳多个完整的报文
+        private final ArrayDeque<ByteBuffer> writeQueue = new ArrayDeque<>(); // 等待发送的应答
+        private SelectionKey key = null;                                      // 选择键
+    }
+
+    // endregion
+
+    @Override
+    public String toString() {
+        return "ModbusTcpServer[" + sessions.size() + "]";
+    }
+
+    private static final int DataPoolLength = 65536;                  // 每个区域的地址数量
+
+    private final SoftBuffer coilBuffer;                              // 线圈
+    private final SoftBuffer inputBuffer;                             // 离散输入
+    private final SoftBuffer registerBuffer;                          // 保持寄存器
+    private final SoftBuffer inputRegisterBuffer;                     // 输入寄存器
+    private final Object registerLock = new Object();                 // 保持寄存器的读改写操作的锁
+    private final Set<ClientSession> sessions = Collections.newSetFromMap(new ConcurrentHashMap<ClientSession, Boolean>()); // 在线的客户端
+    private byte station = 1;                                         // 服务器的站号
+    private boolean stationCheck = false;                             // 是否检查站号
+    private NioEventLoopGroup eventLoopGroup = null;                  // 事件循环组
+    private ServerSocketChannel serverChannel = null;                 // 侦听的通道
+    private AcceptHandler acceptHandler = null;                       // 侦听的处理对象
+}
@@ -0,0 +1,116 @@
+package HslCommunication.Profinet.AllenBradley;
+
+/**
+ * AB PLC的标签信息，通过浏览PLC的符号对象获取，包含了符号的实例ID，名称及类型<br />
+ * The tag information of the AB PLC, obtained by browsing the symbol object of the PLC, including the instance ID, name and type of the symbol
+ */
+public class AbTagItem {
+    // region Constructor
+
+    /**
+     * 实例化一个默认的对象<br />
+     * Instantiate a default object
+     */
+    public AbTagItem( ) { }
+
+    /**
+     * 使用指定的实例ID，名称及类型实例化一个对象<br />
+     * Instantiate an object with the specified instance ID, name and type
+     * @param instanceId 符号的实例ID
+     * @param name 标签的名称
+     * @param symbolType 符号的类型
+     */
+    public AbTagItem( int instanceId, String name, short symbolType ) {
+        InstanceID = instanceId;
+        Name = name;
+        SymbolType = symbolType;
+    }
+
+    // endregion
+
+    /**
+     * 获取符号对象的实例ID，读写的时候可以使用实例ID代替标签的名称<br />
+     * Get the instance ID of the symbol object, the instance ID can be used instead of the tag name when reading and writing
+     * @return 实例ID
+     */
+    public int getInstanceID() {
+        return InstanceID;
+    }
+
+    /**
+     * 设置符号对象的实例ID<br />
+     * Set the instance ID of the symbol object
+     * @param instanceID 实例ID
+     */
+    public void setInstanceID(int instanceID) {
+        InstanceID = instanceID;
+    }
+
+    /**
+     * 获取标签的名称<br />
+     * Get the name of the tag
+     * @return 标签的名称
+     */
+    public String getName() {
+        return Name;
+    }
+
+    /**
+     * 设置标签的名称<br />
+     * Set the name of the tag
+     * @param name 标签的名称
+     */
+    public void setName(String name) {
+        Name = name;
+    }
+
+    /**
+     * 获取符号的类型，低12位为数据类型或是结构体的模板ID，第13位表示系统标签，第14-15位表示数组的维数，第16位表示结构体<br />
+     * Get the type of the symbol, the lower 12 bits are the data type or the template ID of the structure, the 13th bit indicates the system tag,
+     * the 14-15th bits indicate the dimension of the array, and the 16th bit indicates the structure
+     * @return 符号的类型
+     */
+    public short getSymbolType() {
+        return SymbolType;
+    }
+
+    /**
+     * 设置符号的类型<br />
+     * Set the type of the symbol
+     * @param symbolType 符号的类型
+     */
+    public void setSymbolType(short symbolType) {
+        SymbolType = symbolType;
+    }
+
+    /**
+     * 获取是否是结构体的标签<br />
+     * Get whether it is a tag of the structure
+     * @return 是否是结构体
+     */
+    public boolean isStruct() {
+        return (SymbolType & 0x8000) != 0;
+    }
+
+    /**
+     * 获取数组的维数，不是数组的时候返回0<br />
+     * Get the dimension of the array, return 0 when it is not an array
+     * @return 数组的维数
+     */
+    public int getArrayDimension() {
+        return (SymbolType & 0x6000) >> 13;
+    }
+
+    private int InstanceID = 0;
+    private String Name = "";
+    private short SymbolType = 0;
+
+    /**
+     * 返回表示当前对象的字符串
+     * @return 字符串信息
+     */
+    @Override
+    public String toString() {
+        return Name;
+    }
+}
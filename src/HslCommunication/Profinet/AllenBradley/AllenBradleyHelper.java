@@ -2,14 +2,17 @@ package HslCommunication.Profinet.AllenBradley;
 
 import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.Core.Types.OperateResultExThree;
+import HslCommunication.Core.Types.OperateResultExTwo;
 import HslCommunication.StringResources;
 import HslCommunication.Utilities;
 
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /**
  * AB PLC的辅助类，用来辅助生成基本的指令信息
@@ -50,6 +53,45 @@ public class AllenBradleyHelper {
 
     //endregion
 
+    //region Connection Manager
+
+    /**
+     * 连接管理器的打开连接的服务，连接的数据长度最大为511个字节
+     */
+    public static final int CIP_FORWARD_OPEN = 0x54;
+
+    /**
+     * 连接管理器的打开大数据连接的服务，连接的数据长度最大为65535个字节，ControlLogix通常支持到4002个字节
+     */
+    public static final int CIP_LARGE_FORWARD_OPEN = 0x5B;
+
+    /**
+     * 连接管理器的关闭连接的服务
+     */
+    public static final int CIP_FORWARD_CLOSE = 0x4E;
+
+    /**
+     * 获取单个属性的服务
+     */
+    public static final int CIP_GET_ATTRIBUTE_SINGLE = 0x0E;
+
+    /**
+     * 获取属性列表的服务
+     */
+    public static final int CIP_GET_ATTRIBUTE_LIST = 0x03;
+
+    /**
+     * 获取实例的属性列表的服务，用来浏览PLC的符号对象
+     */
+    public static final int CIP_GET_INSTANCE_ATTRIBUTE_LIST = 0x55;
+
+    /**
+     * Logix控制器的符号对象的类ID
+     */
+    public static final int CIP_SYMBOL_CLASS = 0x6B;
+
+    //endregion
+
     //region DataType Code
 
     /**
@@ -110,6 +152,16 @@ public class AllenBradleyHelper {
      * @return 报文信息
      */
     private static byte[] BuildRequestPathCommand( String address ) throws IOException {
+        return BuildRequestPathCommand( address, null );
+    }
+
+    /**
+     * 创建包含路径的报文，标签的第一段名称在符号实例的缓存里时，使用符号对象的实例ID代替名称，报文更短，PLC也不需要再查找名称
+     * @param address 地址信息
+     * @param symbolInstances 标签名称（大写）和符号实例ID的对应关系，为空时全部使用名称
+     * @return 报文信息
+     */
+    private static byte[] BuildRequestPathCommand( String address, Map<String, Integer> symbolInstances ) throws IOException {
         ByteArrayOutputStream ms = new ByteArrayOutputStream();
         String[] tagNames = address.split("\\.");
 
@@ -122,11 +174,21 @@ public class AllenBradleyHelper {
                 tagNames[i] = tagNames[i].substring(0, indexFirst);
             }
 
-            ms.write(0x91);                        // 固定
-            byte[] nameBytes = Utilities.getBytes(tagNames[i], "UTF-8");
-            ms.write((byte) nameBytes.length);    // 节点的长度值
-            ms.write(nameBytes, 0, nameBytes.length);
-            if (nameBytes.length % 2 == 1) ms.write(0x00);
+            Integer instance = (i == 0 && symbolInstances != null) ? symbolInstances.get(tagNames[i].toUpperCase()) : null;
+            if (instance != null) {
+                ms.write(0x20);                    // 符号对象的类
+                ms.write(CIP_SYMBOL_CLASS);
+                ms.write(0x25);                    // 16位的实例ID
+                ms.write(0x00);
+                ms.write(Utilities.getBytes(instance.intValue())[0]);
+                ms.write(Utilities.getBytes(instance.intValue())[1]);
+            } else {
+                ms.write(0x91);                        // 固定
+                byte[] nameBytes = Utilities.getBytes(tagNames[i], "UTF-8");
+                ms.write((byte) nameBytes.length);    // 节点的长度值
+                ms.write(nameBytes, 0, nameBytes.length);
+                if (nameBytes.length % 2 == 1) ms.write(0x00);
+            }
 
             if (!Utilities.IsStringNullOrEmpty(strIndex)) {
                 String[] indexes = strIndex.split(",");
@@ -157,12 +219,23 @@ public class AllenBradleyHelper {
      * @return CIP的指令信息
      */
     public static byte[] PackRequsetRead( String address, int length ) throws IOException {
+        return PackRequsetRead( address, length, null );
+    }
+
+    /**
+     * 打包生成一个请求读取数据的节点信息，CIP指令信息，标签的名称在符号实例的缓存里时使用实例ID寻址
+     * @param address 地址
+     * @param length 指代数组的长度
+     * @param symbolInstances 标签名称（大写）和符号实例ID的对应关系，为空时使用名称寻址
+     * @return CIP的指令信息
+     */
+    public static byte[] PackRequsetRead( String address, int length, Map<String, Integer> symbolInstances ) throws IOException {
         byte[] buffer = new byte[1024];
         int offset = 0;
         buffer[offset++] = CIP_READ_DATA;
         offset++;
 
-        byte[] requestPath = BuildRequestPathCommand( address );
+        byte[] requestPath = BuildRequestPathCommand( address, symbolInstances );
         System.arraycopy(requestPath, 0, buffer, offset, requestPath.length);
         offset += requestPath.length;
 
@@ -183,13 +256,25 @@ public class AllenBradleyHelper {
      * @return CIP的指令信息
      */
     public static byte[] PackRequestReadSegment(String address, int startIndex, int length ) throws IOException {
+        return PackRequestReadSegment( address, startIndex, length, null );
+    }
+
+    /**
+     * 打包生成一个请求读取数据片段的节点信息，CIP指令信息，标签的名称在符号实例的缓存里时使用实例ID寻址
+     * @param address 节点的名称
+     * @param startIndex 起始的索引位置
+     * @param length 读取的数据长度
+     * @param symbolInstances 标签名称（大写）和符号实例ID的对应关系，为空时使用名称寻址
+     * @return CIP的指令信息
+     */
+    public static byte[] PackRequestReadSegment(String address, int startIndex, int length, Map<String, Integer> symbolInstances ) throws IOException {
         byte[] buffer = new byte[1024];
         int offset = 0;
         buffer[offset++] = CIP_READ_FRAGMENT;
         offset++;
 
 
-        byte[] requestPath = BuildRequestPathCommand( address );
+        byte[] requestPath = BuildRequestPathCommand( address, symbolInstances );
         System.arraycopy(requestPath, 0, buffer, offset, requestPath.length);
         offset += requestPath.length;
 
@@ -206,6 +291,63 @@ public class AllenBradleyHelper {
         return data;
     }
 
+    /**
+     * 打包生成一个浏览符号对象的请求，从指定的实例ID开始获取每个符号的名称及类型，PLC返回0x06的状态时表示还有更多的符号，需要从最后一个实例ID加1继续浏览
+     * @param startInstance 起始的实例ID
+     * @return CIP的指令信息
+     */
+    public static byte[] PackRequestBrowseSymbol( int startInstance ) {
+        return new byte[] {
+                CIP_GET_INSTANCE_ATTRIBUTE_LIST, 0x03,      // 服务及路径长度
+                0x20, CIP_SYMBOL_CLASS,                     // 符号对象的类
+                0x25, 0x00, Utilities.getBytes(startInstance)[0], Utilities.getBytes(startInstance)[1],
+                0x02, 0x00,                                 // 属性数量
+                0x01, 0x00,                                 // 属性1，符号的名称
+                0x02, 0x00,                                 // 属性2，符号的类型
+        };
+    }
+
+    /**
+     * 打包生成一个读取控制器变更信息的请求，控制器的程序或是标签变更之后，返回的数据会发生变化，用来判断符号实例的缓存是否还有效
+     * @return CIP的指令信息
+     */
+    public static byte[] PackRequestProgramChange( ) {
+        return new byte[] {
+                CIP_GET_ATTRIBUTE_LIST, 0x02,
+                0x20, (byte) 0xAC, 0x24, 0x01,              // 控制器对象的实例1
+                0x05, 0x00,                                 // 属性数量
+                0x01, 0x00, 0x02, 0x00, 0x03, 0x00, 0x04, 0x00, 0x0A, 0x00,
+        };
+    }
+
+    /**
+     * 从浏览符号对象返回的报文里解析出所有的符号信息
+     * @param response PLC的反馈数据，未连接方式的报文格式
+     * @return 符号信息，以及是否还有更多的符号
+     */
+    public static OperateResultExTwo<List<AbTagItem>, Boolean> ExtractBrowseSymbol( byte[] response ) {
+        if (response == null || response.length < 44)
+            return new OperateResultExTwo<>( StringResources.Language.ReceiveDataLengthTooShort( ) + (response == null ? 0 : response.length) );
+
+        int err = response[42] & 0xff;
+        if (err != 0x00 && err != 0x06) return new OperateResultExTwo<>( err, GetCipErrorText( err ) );
+
+        List<AbTagItem> items = new ArrayList<>();
+        int end = Math.min( response.length, 40 + (Utilities.getShort( response, 38 ) & 0xffff) );
+        int index = 44 + (response[43] & 0xff) * 2;
+        while (index + 6 <= end) {
+            int instance = Utilities.getInt( response, index );
+            int nameLength = Utilities.getShort( response, index + 4 ) & 0xffff;
+            if (index + 8 + nameLength > end) break;
+
+            String name = new String( response, index + 6, nameLength, StandardCharsets.UTF_8 );
+            short type = Utilities.getShort( response, index + 6 + nameLength );
+            items.add( new AbTagItem( instance, name, type ) );
+            index += 8 + nameLength;
+        }
+        return OperateResultExTwo.CreateSuccessResult( items, err == 0x06 );
+    }
+
     /**
      * 根据指定的数据和类型，生成对应的数据
      * @param address 地址信息
@@ -271,38 +413,9 @@ public class AllenBradleyHelper {
         ms.write( 0x00 );     // CIP指令长度
         ms.write( 0x00 );
 
-        int count = 0;
-        if (cips.size() == 1)
-        {
-            ms.write( cips.get(0), 0, cips.get(0).length );
-            count += cips.get(0).length;
-        }
-        else
-        {
-            ms.write( 0x0A );   // 固定
-            ms.write( 0x02 );
-            ms.write( 0x20 );
-            ms.write( 0x02 );
-            ms.write( 0x24 );
-            ms.write( 0x01 );
-            count += 8;
-
-            ms.write( Utilities.getBytes( (short) cips.size() ), 0, 2 );  // 写入项数
-            short offect = (short) (0x02 + 2 * cips.size());
-            count += 2 * cips.size();
-
-            for (int i = 0; i < cips.size(); i++)
-            {
-                ms.write( Utilities.getBytes( offect ), 0, 2 );
-                offect = (short) (offect + cips.get(i).length);
-            }
-
-            for (int i = 0; i < cips.size(); i++)
-            {
-                ms.write( cips.get(i), 0, cips.get(i).length );
-                count += cips.get(i).length;
-            }
-        }
+        byte[] service = PackConnectedService( cips );
+        ms.write( service, 0, service.length );
+        int count = service.length;
 
         ms.write( (byte)((portSlot.length + 1) / 2) );     // Path Size
         ms.write( 0x00 );
@@ -316,6 +429,195 @@ public class AllenBradleyHelper {
         return data;
     }
 
+    /**
+     * 将所有的cip指令打包成消息路由器可以直接处理的服务，只有一条指令时直接返回，多条指令时打包成多服务的请求，不再包含未连接发送的路由信息，
+     * 可以在已连接的通道上直接发送<br />
+     * Pack all cip instructions into a service that the message router can handle directly, return directly when there is only one instruction,
+     * and pack into a multiple service request when there are multiple instructions. The routing information of the unconnected send is no longer included,
+     * and it can be sent directly on the connected channel
+     * @param cips 所有的cip打包指令信息
+     * @return 消息路由器的服务报文
+     * @throws IOException
+     */
+    public static byte[] PackConnectedService( List<byte[]> cips ) throws IOException {
+        if (cips.size() == 1) return cips.get(0);
+
+        ByteArrayOutputStream ms = new ByteArrayOutputStream();
+        ms.write( 0x0A );   // 固定
+        ms.write( 0x02 );
+        ms.write( 0x20 );
+        ms.write( 0x02 );
+        ms.write( 0x24 );
+        ms.write( 0x01 );
+
+        ms.write( Utilities.getBytes( (short) cips.size() ), 0, 2 );  // 写入项数
+        short offect = (short) (0x02 + 2 * cips.size());
+
+        for (int i = 0; i < cips.size(); i++)
+        {
+            ms.write( Utilities.getBytes( offect ), 0, 2 );
+            offect = (short) (offect + cips.get(i).length);
+        }
+
+        for (int i = 0; i < cips.size(); i++)
+        {
+            ms.write( cips.get(i), 0, cips.get(i).length );
+        }
+
+        byte[] data = ms.toByteArray( );
+        ms.close( );
+        return data;
+    }
+
+    /**
+     * 生成打开连接的请求，通过未连接的方式直接发送给连接管理器，成功后PLC返回O->T的连接ID，之后的请求就可以使用已连接的方式发送<br />
+     * Generate a request to open a connection, which is sent directly to the connection manager in an unconnected way. After success,
+     * the PLC returns the O->T connection ID, and subsequent requests can be sent in a connected way
+     * @param portSlot PLC所在的面板槽号
+     * @param large 是否使用大数据连接的服务
+     * @param toConnectionId 本地分配的T->O的连接ID，PLC返回的报文携带这个ID
+     * @param connectionSerial 连接的序列号
+     * @param vendorId 发起方的厂商ID
+     * @param originatorSerial 发起方的序列号
+     * @param timeoutMultiplier 连接超时的倍数，0-7分别表示4,8,16...512倍的RPI时间
+     * @param rpi 请求的数据包间隔，单位微秒
+     * @param connectionSize 连接的数据长度，普通的连接最大511，大数据连接最大65535
+     * @return CIP的指令信息
+     * @throws IOException
+     */
+    public static byte[] PackForwardOpen( byte[] portSlot, boolean large, int toConnectionId, int connectionSerial, int vendorId, int originatorSerial,
+                                          int timeoutMultiplier, int rpi, int connectionSize ) throws IOException {
+        ByteArrayOutputStream ms = new ByteArrayOutputStream();
+        ms.write( large ? CIP_LARGE_FORWARD_OPEN : CIP_FORWARD_OPEN );  // 服务
+        ms.write( 0x02 );     // 连接管理器的路径
+        ms.write( 0x20 );
+        ms.write( 0x06 );
+        ms.write( 0x24 );
+        ms.write( 0x01 );
+        ms.write( 0x0A );     // 优先级及时间单位
+        ms.write( 0x0E );     // 超时的计数
+        ms.write( Utilities.getBytes( 0 ), 0, 4 );                      // O->T的连接ID，由PLC分配
+        ms.write( Utilities.getBytes( toConnectionId ), 0, 4 );         // T->O的连接ID
+        ms.write( Utilities.getBytes( connectionSerial ), 0, 2 );       // 连接的序列号
+        ms.write( Utilities.getBytes( vendorId ), 0, 2 );               // 厂商ID
+        ms.write( Utilities.getBytes( originatorSerial ), 0, 4 );       // 发起方的序列号
+        ms.write( timeoutMultiplier );                                  // 超时倍数
+        ms.write( 0x00 );
+        ms.write( 0x00 );
+        ms.write( 0x00 );
+        for (int i = 0; i < 2; i++)
+        {
+            // O->T及T->O的RPI和连接参数，点对点，可变长度，低优先级
+            ms.write( Utilities.getBytes( rpi ), 0, 4 );
+            if (large) ms.write( Utilities.getBytes( 0x42000000 | connectionSize ), 0, 4 );
+            else ms.write( Utilities.getBytes( 0x4200 | (connectionSize & 0x1FF) ), 0, 2 );
+        }
+        ms.write( 0xA3 );     // 传输类型，Class 3的服务器，应用触发
+
+        byte[] path = PackConnectionPath( portSlot );
+        ms.write( path.length / 2 );
+        ms.write( path, 0, path.length );
+
+        byte[] data = ms.toByteArray( );
+        ms.close( );
+        return data;
+    }
+
+    /**
+     * 生成关闭连接的请求，通过未连接的方式直接发送给连接管理器，序列号信息需要和打开连接的时候保持一致<br />
+     * Generate a request to close the connection, which is sent directly to the connection manager in an unconnected way.
+     * The serial number information needs to be consistent with that when the connection is opened
+     * @param portSlot PLC所在的面板槽号
+     * @param connectionSerial 连接的序列号
+     * @param vendorId 发起方的厂商ID
+     * @param originatorSerial 发起方的序列号
+     * @return CIP的指令信息
+     * @throws IOException
+     */
+    public static byte[] PackForwardClose( byte[] portSlot, int connectionSerial, int vendorId, int originatorSerial ) throws IOException {
+        ByteArrayOutputStream ms = new ByteArrayOutputStream();
+        ms.write( CIP_FORWARD_CLOSE );  // 服务
+        ms.write( 0x02 );               // 连接管理器的路径
+        ms.write( 0x20 );
+        ms.write( 0x06 );
+        ms.write( 0x24 );
+        ms.write( 0x01 );
+        ms.write( 0x0A );               // 优先级及时间单位
+        ms.write( 0x0E );               // 超时的计数
+        ms.write( Utilities.getBytes( connectionSerial ), 0, 2 );
+        ms.write( Utilities.getBytes( vendorId ), 0, 2 );
+        ms.write( Utilities.getBytes( originatorSerial ), 0, 4 );
+
+        byte[] path = PackConnectionPath( portSlot );
+        ms.write( path.length / 2 );
+        ms.write( 0x00 );
+        ms.write( path, 0, path.length );
+
+        byte[] data = ms.toByteArray( );
+        ms.close( );
+        return data;
+    }
+
+    /**
+     * 连接的路径，先到达PLC所在的槽号，再到达消息路由器
+     * @param portSlot PLC所在的面板槽号
+     * @return 路径信息
+     */
+    private static byte[] PackConnectionPath( byte[] portSlot ) {
+        byte[] path = new byte[(portSlot.length + 1) / 2 * 2 + 4];
+        System.arraycopy( portSlot, 0, path, 0, portSlot.length );
+        path[path.length - 4] = 0x20;   // 消息路由器
+        path[path.length - 3] = 0x02;
+        path[path.length - 2] = 0x24;
+        path[path.length - 1] = 0x01;
+        return path;
+    }
+
+    /**
+     * 生成已连接方式发送的CommandSpecificData，包含了连接的地址项及带有序列号的数据项，需要使用SendUnitData(0x70)命令发送<br />
+     * Generate the CommandSpecificData sent in the connected way, including the connected address item and the data item with the sequence count,
+     * which needs to be sent with the SendUnitData(0x70) command
+     * @param connectionId PLC分配的O->T的连接ID
+     * @param sequence 请求的序列号，每次请求都需要不一样
+     * @param service 消息路由器的服务报文
+     * @return 最终的指令值
+     */
+    public static byte[] PackConnectedData( int connectionId, int sequence, byte[] service ) {
+        byte[] data = new byte[22 + service.length];
+        data[6] = 0x02;     // 项数
+        data[8] = (byte) 0xA1;      // 连接的地址项
+        data[10] = 0x04;
+        System.arraycopy( Utilities.getBytes( connectionId ), 0, data, 12, 4 );
+        data[16] = (byte) 0xB1;     // 连接的数据项
+        data[18] = Utilities.getBytes( service.length + 2 )[0];
+        data[19] = Utilities.getBytes( service.length + 2 )[1];
+        data[20] = Utilities.getBytes( sequence )[0];
+        data[21] = Utilities.getBytes( sequence )[1];
+        System.arraycopy( service, 0, data, 22, service.length );
+        return data;
+    }
+
+    /**
+     * 将已连接方式返回的报文转换成未连接方式返回的报文格式，去掉连接ID及序列号，这样就可以使用 {@link #ExtractActualData(byte[], boolean)} 解析数据<br />
+     * Convert the message returned in the connected way to the message format returned in the unconnected way, removing the connection ID and the sequence count,
+     * so that the data can be parsed using {@link #ExtractActualData(byte[], boolean)}
+     * @param response 已连接方式返回的报文
+     * @return 未连接方式的报文格式
+     */
+    public static OperateResultExOne<byte[]> ExtractConnectedResponse( byte[] response ) {
+        if (response == null || response.length < 46 || (response[40] & 0xff) != 0xB1)
+            return new OperateResultExOne<byte[]>( StringResources.Language.ReceiveDataLengthTooShort() + (response == null ? 0 : response.length) );
+
+        byte[] buffer = new byte[response.length - 6];
+        System.arraycopy( response, 0, buffer, 0, 32 );
+        buffer[36] = (byte) 0xB2;
+        int count = Utilities.getShort( response, 42 ) - 2;
+        buffer[38] = Utilities.getBytes( count )[0];
+        buffer[39] = Utilities.getBytes( count )[1];
+        System.arraycopy( response, 46, buffer, 40, response.length - 46 );
+        return OperateResultExOne.CreateSuccessResult( buffer );
+    }
+
     /**
      * 生成读取直接节点数据信息的内容
      * @param service cip指令内容
@@ -366,6 +668,87 @@ public class AllenBradleyHelper {
         return buffer;
     }
 
+    /**
+     * 从PLC反馈的数据里，分别提取出每一项服务的数据，返回部分数据(0x06)的项标记为还有更多的数据，需要使用片段读取的方式补齐，
+     * 其他的错误直接返回失败的结果<br />
+     * Extract the data of each service from the data returned by the PLC. The item that returns partial data (0x06) is marked as having more data,
+     * which needs to be completed by fragment reading. Other errors directly return a failed result
+     * @param response PLC的反馈数据，未连接方式的报文格式
+     * @param count 请求的服务数量，为1时表示没有使用多服务的请求
+     * @return 每一项服务的数据，以及是否还有更多的数据
+     */
+    public static OperateResultExTwo<byte[][], boolean[]> ExtractMultiServiceData( byte[] response, int count )
+    {
+        if (response == null || response.length < 44)
+            return new OperateResultExTwo<>( StringResources.Language.ReceiveDataLengthTooShort( ) + (response == null ? 0 : response.length) );
+
+        byte[][] data = new byte[count][];
+        boolean[] hasMore = new boolean[count];
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        if (count == 1)
+        {
+            starts[0] = 40;
+            ends[0] = Math.min( response.length, 40 + (Utilities.getShort( response, 38 ) & 0xffff) );
+        }
+        else
+        {
+            int offset = 44;
+            if ((response[40] & 0xff) != 0x8A || response.length < offset + 2 + 2 * count || Utilities.getShort( response, offset ) != count)
+                return new OperateResultExTwo<>( StringResources.Language.UnknownError( ) );
+            for (int i = 0; i < count; i++)
+            {
+                starts[i] = (Utilities.getShort( response, offset + 2 + i * 2 ) & 0xffff) + offset;
+                ends[i] = (i == count - 1) ? response.length : ((Utilities.getShort( response, offset + 4 + i * 2 ) & 0xffff) + offset);
+            }
+        }
+
+        for (int i = 0; i < count; i++)
+        {
+            int start = starts[i];
+            if (start + 4 > ends[i]) return new OperateResultExTwo<>( StringResources.Language.ReceiveDataLengthTooShort( ) + response.length );
+
+            int err = response[start + 2] & 0xff;
+            if (err == 0x06) hasMore[i] = true;
+            else if (err != 0x00) return new OperateResultExTwo<>( err, GetCipErrorText( err ) );
+
+            // CC是读取的返回，D2是片段读取的返回，数据前面有两个字节的类型
+            int dataStart = start + 4 + (response[start + 3] & 0xff) * 2;
+            int service = response[start] & 0xff;
+            if ((service == 0xCC || service == 0xD2) && dataStart + 2 <= ends[i])
+            {
+                data[i] = new byte[ends[i] - dataStart - 2];
+                System.arraycopy( response, dataStart + 2, data[i], 0, data[i].length );
+            }
+            else
+            {
+                data[i] = new byte[0];
+            }
+        }
+        return OperateResultExTwo.CreateSuccessResult( data, hasMore );
+    }
+
+    /**
+     * 获取CIP服务的通用状态码的文本描述
+     * @param err 通用状态码
+     * @return 文本描述
+     */
+    public static String GetCipErrorText( int err )
+    {
+        switch (err)
+        {
+            case 0x04: return StringResources.Language.AllenBradley04();
+            case 0x05: return StringResources.Language.AllenBradley05();
+            case 0x06: return StringResources.Language.AllenBradley06();
+            case 0x0A: return StringResources.Language.AllenBradley0A();
+            case 0x13: return StringResources.Language.AllenBradley13();
+            case 0x1C: return StringResources.Language.AllenBradley1C();
+            case 0x1E: return StringResources.Language.AllenBradley1E();
+            case 0x26: return StringResources.Language.AllenBradley26();
+            default: return StringResources.Language.UnknownError();
+        }
+    }
+
     /**
      * 从PLC反馈的数据解析
      * @param response PLC的反馈数据
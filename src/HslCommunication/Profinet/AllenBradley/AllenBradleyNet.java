@@ -1,24 +1,36 @@
 package HslCommunication.Profinet.AllenBradley;
 
 import HslCommunication.BasicFramework.SoftBasic;
+import HslCommunication.BasicFramework.SoftIncrementCount;
 import HslCommunication.Core.IMessage.AllenBradleyMessage;
 import HslCommunication.Core.IMessage.INetMessage;
 import HslCommunication.Core.Net.NetworkBase.NetworkDeviceBase;
+import HslCommunication.Core.Thread.HashedWheelTimer;
 import HslCommunication.Core.Transfer.ByteTransformHelper;
 import HslCommunication.Core.Transfer.RegularByteTransform;
 import HslCommunication.Core.Types.FunctionOperateExOne;
 import HslCommunication.Core.Types.OperateResult;
 import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.Core.Types.OperateResultExThree;
+import HslCommunication.Core.Types.OperateResultExTwo;
 import HslCommunication.StringResources;
 import HslCommunication.Utilities;
 import com.sun.org.apache.bcel.internal.generic.RET;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
 import java.net.Socket;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public class AllenBradleyNet extends NetworkDeviceBase {
 
@@ -126,6 +138,82 @@ public class AllenBradleyNet extends NetworkDeviceBase {
         PortSlot = value;
     }
 
+    /**
+     * 获取是否使用已连接的方式通信，连接PLC的时候先打开一个CIP连接，之后的请求都使用SendUnitData(0x70)发送，PLC的处理速度比未连接的方式快，单次请求的数据也更大<br />
+     * Get whether to communicate in a connected way. When connecting to the PLC, a CIP connection is opened first, and subsequent requests are sent using SendUnitData(0x70).
+     * The processing speed of the PLC is faster than the unconnected way, and the data of a single request is also larger
+     * @return 是否使用已连接的方式
+     */
+    public boolean isUseConnectedMessage() {
+        return useConnectedMessage;
+    }
+
+    /**
+     * 设置是否使用已连接的方式通信，需要在连接PLC之前设置，PLC拒绝打开连接的时候，自动退回到未连接的方式<br />
+     * Set whether to communicate in a connected way, it needs to be set before connecting to the PLC.
+     * When the PLC refuses to open the connection, it automatically falls back to the unconnected way
+     * @param value 是否使用已连接的方式
+     */
+    public void setUseConnectedMessage(boolean value) {
+        useConnectedMessage = value;
+    }
+
+    /**
+     * 获取打开连接的时候是否先尝试大数据连接的服务(Large Forward Open)，PLC不支持的时候再使用普通的打开连接服务，默认为true<br />
+     * Get whether to try the Large Forward Open service first when opening the connection,
+     * and use the normal Forward Open service when the PLC does not support it, the default is true
+     * @return 是否使用大数据连接
+     */
+    public boolean isUseLargeForwardOpen() {
+        return useLargeForwardOpen;
+    }
+
+    /**
+     * 设置打开连接的时候是否先尝试大数据连接的服务(Large Forward Open)，PLC不支持的时候再使用普通的打开连接服务<br />
+     * Set whether to try the Large Forward Open service first when opening the connection, and use the normal Forward Open service when the PLC does not support it
+     * @param value 是否使用大数据连接
+     */
+    public void setUseLargeForwardOpen(boolean value) {
+        useLargeForwardOpen = value;
+    }
+
+    /**
+     * 获取已连接的方式下，空闲多长时间之后发送一次保持连接的请求，单位毫秒，小于等于0时不发送，默认20秒，PLC在RPI的32倍时间(64秒)没有收到请求时关闭连接<br />
+     * Get how long to send a keep-alive request after being idle in the connected way, in milliseconds, it is not sent when it is less than or equal to 0,
+     * the default is 20 seconds, and the PLC closes the connection when it does not receive a request within 32 times of the RPI (64 seconds)
+     * @return 保持连接的时间间隔
+     */
+    public int getKeepAliveInterval() {
+        return keepAliveInterval;
+    }
+
+    /**
+     * 设置已连接的方式下，空闲多长时间之后发送一次保持连接的请求，单位毫秒，小于等于0时不发送<br />
+     * Set how long to send a keep-alive request after being idle in the connected way, in milliseconds, it is not sent when it is less than or equal to 0
+     * @param value 保持连接的时间间隔
+     */
+    public void setKeepAliveInterval(int value) {
+        keepAliveInterval = value;
+    }
+
+    /**
+     * 获取当前是否已经打开了CIP连接，请求正在使用已连接的方式发送<br />
+     * Get whether the CIP connection has been opened currently, and the request is being sent in the connected way
+     * @return 是否已经打开了连接
+     */
+    public boolean isConnectedMessaging() {
+        return connectionId != 0;
+    }
+
+    /**
+     * 获取当前的CIP连接的数据长度，大数据连接为4002个字节，普通的连接为504个字节，未打开连接时返回0<br />
+     * Get the data size of the current CIP connection, the Large connection is 4002 bytes, the normal connection is 504 bytes, and 0 is returned when the connection is not opened
+     * @return 连接的数据长度
+     */
+    public int getConnectionSize() {
+        return connectionId == 0 ? 0 : connectionSize;
+    }
+
     //endregion
 
     //region Double Mode Override
@@ -142,6 +230,12 @@ public class AllenBradleyNet extends NetworkDeviceBase {
         // Extract session ID
         SessionHandle = getByteTransform().TransInt32(read.Content, 4);
 
+        // The controller may have been downloaded while disconnected
+        symbolCheckTime = 0;
+
+        // Open the CIP connection
+        connectionId = 0;
+        if (useConnectedMessage) return ForwardOpen(socket);
         return OperateResult.CreateSuccessResult();
     }
 
@@ -152,6 +246,9 @@ public class AllenBradleyNet extends NetworkDeviceBase {
      * @return Whether the disconnect operation was successful
      */
     protected OperateResult ExtraOnDisconnect(Socket socket) {
+        // Close the CIP connection
+        if (connectionId != 0) ForwardClose(socket);
+
         // Unregister session Information
         OperateResultExOne<byte[]> read = ReadFromCoreServer(socket, UnRegisterSessionHandle());
         if (!read.IsSuccess) return read;
@@ -159,6 +256,19 @@ public class AllenBradleyNet extends NetworkDeviceBase {
         return OperateResult.CreateSuccessResult();
     }
 
+    /**
+     * The session handle is registered per connection and saved on this object, so the connection pool mode is not supported
+     *
+     * @param minConnections minimum number of connections
+     * @param maxConnections maximum number of connections
+     * @param idleTimeOut    idle time out of the connection
+     * @return Always failed result
+     */
+    @Override
+    public OperateResult SetConnectionPool(int minConnections, int maxConnections, int idleTimeOut) {
+        return new OperateResult(StringResources.Language.NotSupportedFunction());
+    }
+
     //endregion
 
     //region Build Command
@@ -171,17 +281,11 @@ public class AllenBradleyNet extends NetworkDeviceBase {
      * @return Message information that contains the result object
      */
     public OperateResultExOne<byte[]> BuildReadCommand(String[] address, int[] length) {
-        if (address == null || length == null) return new OperateResultExOne<byte[]>("address or length is null");
-        if (address.length != length.length)
-            return new OperateResultExOne<byte[]>("address and length is not same array");
+        OperateResultExOne<List<byte[]>> cips = BuildReadCips(address, length, null);
+        if (!cips.IsSuccess) return OperateResultExOne.CreateFailedResult(cips);
 
         try {
-            ArrayList<byte[]> cips = new ArrayList<>();
-            for (int i = 0; i < address.length; i++) {
-                cips.add(AllenBradleyHelper.PackRequsetRead(address[i], length[i]));
-            }
-
-            byte[] commandSpecificData = AllenBradleyHelper.PackCommandSpecificData(AllenBradleyHelper.PackCommandService(PortSlot == null ? new byte[]{0x01, Slot} : PortSlot, cips));
+            byte[] commandSpecificData = AllenBradleyHelper.PackCommandSpecificData(AllenBradleyHelper.PackCommandService(PortSlot == null ? new byte[]{0x01, Slot} : PortSlot, cips.Content));
 
             return OperateResultExOne.CreateSuccessResult(AllenBradleyHelper.PackRequestHeader(0x6F, SessionHandle, commandSpecificData));
         } catch (Exception ex) {
@@ -189,6 +293,22 @@ public class AllenBradleyNet extends NetworkDeviceBase {
         }
     }
 
+    private OperateResultExOne<List<byte[]>> BuildReadCips(String[] address, int[] length, Map<String, Integer> instances) {
+        if (address == null || length == null) return new OperateResultExOne<List<byte[]>>("address or length is null");
+        if (address.length != length.length)
+            return new OperateResultExOne<List<byte[]>>("address and length is not same array");
+
+        try {
+            List<byte[]> cips = new ArrayList<>();
+            for (int i = 0; i < address.length; i++) {
+                cips.add(AllenBradleyHelper.PackRequsetRead(address[i], length[i], instances));
+            }
+            return OperateResultExOne.CreateSuccessResult(cips);
+        } catch (Exception ex) {
+            return new OperateResultExOne<List<byte[]>>("Address Wrong:" + ex.getMessage());
+        }
+    }
+
     /**
      * Build a read command bytes
      *
@@ -258,6 +378,68 @@ public class AllenBradleyNet extends NetworkDeviceBase {
         }
     }
 
+    /**
+     * 异步读取数据信息，在非阻塞的传输模式下不占用调用方的线程，开启了 {@link #setUseSymbolInstance(boolean)} 时需要同步的浏览标签，仍然在异步的线程池上调用 {@link #Read(String, short)}
+     * -> Asynchronously read data information, the calling thread is not occupied in non-blocking transport mode. When {@link #setUseSymbolInstance(boolean)} is enabled,
+     * the tags need to be browsed synchronously, and {@link #Read(String, short)} is still called on the asynchronous thread pool
+     *
+     * @param address Address format of the node
+     * @param length  In the case of arrays, the length of the array
+     * @return Result data with result object
+     */
+    @Override
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync(final String address, final short length) {
+        if (!isNioTransport() || useSymbolInstance) return super.ReadAsync(address, length);
+        if (length > 1) return ReadSegmentAsync(address, 0, length, new ByteArrayOutputStream());
+
+        byte[] cip;
+        try {
+            cip = AllenBradleyHelper.PackRequsetRead(address, length, null);
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(new OperateResultExOne<byte[]>("Address Wrong:" + ex.getMessage()));
+        }
+
+        return ReadCipFromServerAsync(Arrays.asList(cip)).thenCompose(new Function<OperateResultExOne<byte[]>, CompletionStage<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletionStage<OperateResultExOne<byte[]>> apply(OperateResultExOne<byte[]> read) {
+                if (!read.IsSuccess) return CompletableFuture.completedFuture(read);
+
+                OperateResultExThree<byte[], Short, Boolean> analysis = AllenBradleyHelper.ExtractActualData(read.Content, true);
+                if (!analysis.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[]>CreateFailedResult(analysis));
+                if (!analysis.Content3) return CompletableFuture.completedFuture(OperateResultExOne.CreateSuccessResult(analysis.Content1));
+
+                // PLC只返回了部分数据，剩下的使用片段读取补齐
+                ByteArrayOutputStream stream = new ByteArrayOutputStream();
+                stream.write(analysis.Content1, 0, analysis.Content1.length);
+                return ReadSegmentAsync(address, analysis.Content1.length, length, stream);
+            }
+        });
+    }
+
+    private CompletableFuture<OperateResultExOne<byte[]>> ReadSegmentAsync(final String address, final int startIndex, final int length, final ByteArrayOutputStream stream) {
+        byte[] cip;
+        try {
+            cip = AllenBradleyHelper.PackRequestReadSegment(address, startIndex, length, null);
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(new OperateResultExOne<byte[]>("Address Wrong:" + ex.getMessage()));
+        }
+
+        return ReadCipFromServerAsync(Arrays.asList(cip)).thenCompose(new Function<OperateResultExOne<byte[]>, CompletionStage<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletionStage<OperateResultExOne<byte[]>> apply(OperateResultExOne<byte[]> read) {
+                if (!read.IsSuccess) return CompletableFuture.completedFuture(read);
+
+                // 提取数据 -> Extracting data
+                OperateResultExThree<byte[], Short, Boolean> analysis = AllenBradleyHelper.ExtractActualData(read.Content, true);
+                if (!analysis.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[]>CreateFailedResult(analysis));
+
+                stream.write(analysis.Content1, 0, analysis.Content1.length);
+                if (!analysis.Content3) return CompletableFuture.completedFuture(OperateResultExOne.CreateSuccessResult(stream.toByteArray()));
+                return ReadSegmentAsync(address, startIndex + analysis.Content1.length, length, stream);
+            }
+        });
+    }
+
     /**
      * Bulk read Data information
      *
@@ -276,32 +458,263 @@ public class AllenBradleyNet extends NetworkDeviceBase {
     }
 
     /**
-     * 批量读取数据信息，数据长度为读取的数组长度信息 -> Bulk read data information, data length for read array length information
+     * 批量读取数据信息，数据长度为读取的数组长度信息，所有节点的数据按顺序拼接在一起，标签较多时自动拆分成多个请求，详细参见 {@link #ReadTags(String[], int[])}
+     * -> Bulk read data information, data length for read array length information, the data of all nodes are spliced together in order,
+     * and automatically split into multiple requests when there are many tags, see {@link #ReadTags(String[], int[])} for details
      *
      * @param address 节点的名称 -> Name of the node
      * @param length  如果是数组，就为数组长度 -> In the case of arrays, the length of the array
      * @return 带有结果对象的结果数据 -> Result data with result object
      */
     public OperateResultExOne<byte[]> Read(String[] address, int[] length) {
-        // 指令生成 -> Instruction Generation
-        OperateResultExOne<byte[]> command = BuildReadCommand(address, length);
-        if (!command.IsSuccess) return command;
+        OperateResultExOne<byte[][]> read = ReadTags(address, length);
+        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+        ByteArrayOutputStream ms = new ByteArrayOutputStream();
+        for (byte[] item : read.Content) {
+            ms.write(item, 0, item.length);
+        }
+        return OperateResultExOne.CreateSuccessResult(ms.toByteArray());
+    }
 
-        // 核心交互 -> Core Interactions
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(command.Content);
+    //region Multi Service Read
+
+    /**
+     * 批量读取多个标签的数据，分别返回每个标签的数据，标签按照顺序打包成尽可能少的多服务请求(Multiple Service Packet)，每个请求的报文及返回的数据都不超过当前连接的数据长度，
+     * 返回的数据超过连接长度的大数组自动使用片段读取的方式。每个标签的数据长度在第一次读取之后缓存下来，用于后续的打包，未知的标签按照每个元素4个字节估算，
+     * PLC返回部分数据(0x06)的标签也会自动使用片段读取的方式补齐<br />
+     * Read the data of multiple tags in batches, and return the data of each tag separately. The tags are packed into as few Multiple Service Packets as possible in order.
+     * The message of each request and the returned data do not exceed the data size of the current connection,
+     * and the large arrays whose returned data exceeds the connection size automatically use fragment reading.
+     * The data length of each tag is cached after the first read for subsequent packing, unknown tags are estimated at 4 bytes per element,
+     * and the tags for which the PLC returns partial data (0x06) are also automatically completed by fragment reading.
+     *
+     * @param address 节点的名称 -> Name of the node
+     * @param length  如果是数组，就为数组长度 -> In the case of arrays, the length of the array
+     * @return 每个标签的数据
+     */
+    public OperateResultExOne<byte[][]> ReadTags(String[] address, int[] length) {
+        Map<String, Integer> instances = GetSymbolInstances();
+        OperateResultExOne<byte[][]> read = ReadTags(address, length, instances);
+        if (instances != null && !read.IsSuccess && (read.ErrorCode == 0x04 || read.ErrorCode == 0x05)) {
+            // 符号的实例ID已经失效，清空缓存之后使用名称重新读取
+            ClearSymbolCache();
+            return ReadTags(address, length, null);
+        }
+        return read;
+    }
+
+    private OperateResultExOne<byte[][]> ReadTags(String[] address, int[] length, Map<String, Integer> instances) {
+        OperateResultExOne<List<byte[]>> cips = BuildReadCips(address, length, instances);
+        if (!cips.IsSuccess) return OperateResultExOne.CreateFailedResult(cips);
+
+        int size = connectionId == 0 ? 504 : connectionSize;
+        byte[][] result = new byte[address.length][];
+        List<Integer> fragments = new ArrayList<>();
+        List<Integer> packet = new ArrayList<>();
+        int requestBytes = 0, replyBytes = 0;
+        for (int i = 0; i < address.length; i++) {
+            // 多服务请求的每一项需要2个字节的偏移，返回的每一项有4个字节的状态及2个字节的类型
+            int request = cips.Content.get(i).length + 2;
+            int reply = 8 + EstimateDataLength(address[i], length[i]);
+            if (reply + MultiServiceOverhead > size) {
+                fragments.add(i);
+                continue;
+            }
+
+            if (!packet.isEmpty() && (requestBytes + request + MultiServiceOverhead > size || replyBytes + reply + MultiServiceOverhead > size)) {
+                OperateResult read = ReadMultiService(address, length, cips.Content, packet, result, fragments);
+                if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+                packet.clear();
+                requestBytes = 0;
+                replyBytes = 0;
+            }
+            packet.add(i);
+            requestBytes += request;
+            replyBytes += reply;
+        }
+
+        if (!packet.isEmpty()) {
+            OperateResult read = ReadMultiService(address, length, cips.Content, packet, result, fragments);
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+        }
+
+        // 超过连接长度的标签使用片段读取，已经返回了部分数据的标签从后面继续读取
+        for (int i : fragments) {
+            byte[] head = result[i] == null ? new byte[0] : result[i];
+            OperateResultExOne<byte[]> read = ReadSegment(address[i], head.length, length[i], instances);
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+            result[i] = SoftBasic.SpliceTwoByteArray(head, read.Content);
+            UpdateDataLength(address[i], length[i], result[i].length);
+        }
+        return OperateResultExOne.CreateSuccessResult(result);
+    }
+
+    private OperateResult ReadMultiService(String[] address, int[] length, List<byte[]> cips, List<Integer> packet,
+                                           byte[][] result, List<Integer> fragments) {
+        List<byte[]> send = new ArrayList<>(packet.size());
+        for (int i : packet) {
+            send.add(cips.get(i));
+        }
+
+        OperateResultExOne<byte[]> read = ReadCipFromServer(send);
         if (!read.IsSuccess) return read;
 
-        // 检查反馈 -> Check Feedback
-        OperateResult check = CheckResponse(read.Content);
-        if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
+        OperateResultExTwo<byte[][], boolean[]> analysis = AllenBradleyHelper.ExtractMultiServiceData(read.Content, send.size());
+        if (!analysis.IsSuccess) return analysis;
+
+        for (int j = 0; j < packet.size(); j++) {
+            int i = packet.get(j);
+            result[i] = analysis.Content1[j];
+            if (analysis.Content2[j]) fragments.add(i);
+            else UpdateDataLength(address[i], length[i], result[i].length);
+        }
+        return OperateResult.CreateSuccessResult();
+    }
+
+    private int EstimateDataLength(String address, int length) {
+        Integer elementSize = elementSizes.get(address);
+        return Math.max(1, length) * (elementSize == null ? 4 : elementSize);
+    }
+
+    private void UpdateDataLength(String address, int length, int dataLength) {
+        if (length > 0 && dataLength > 0) elementSizes.put(address, (dataLength + length - 1) / length);
+    }
+
+    //endregion
 
-        // 提取数据 -> Extracting data
-        OperateResultExThree<byte[], Short, Boolean> analysis = AllenBradleyHelper.ExtractActualData(read.Content, true);
-        if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
+    //region Symbol Instance
 
-        return OperateResultExOne.CreateSuccessResult(analysis.Content1);
+    /**
+     * 获取读取标签的时候是否使用符号对象的实例ID寻址，开启后第一次读取时浏览PLC的所有标签并缓存实例ID，之后的读取报文更短，多服务请求里可以放下更多的标签<br />
+     * Get whether to use the instance ID of the symbol object for addressing when reading tags. After it is enabled, all the tags of the PLC are browsed and
+     * the instance IDs are cached at the first reading, and the subsequent read messages are shorter, more tags can be put in the Multiple Service Packet
+     * @return 是否使用实例ID寻址
+     */
+    public boolean isUseSymbolInstance() {
+        return useSymbolInstance;
     }
 
+    /**
+     * 设置读取标签的时候是否使用符号对象的实例ID寻址，只对控制器范围的标签有效，程序范围的标签仍然使用名称<br />
+     * Set whether to use the instance ID of the symbol object for addressing when reading tags,
+     * it is only valid for the tags of the controller scope, and the tags of the program scope still use the name
+     * @param value 是否使用实例ID寻址
+     */
+    public void setUseSymbolInstance(boolean value) {
+        useSymbolInstance = value;
+    }
+
+    /**
+     * 获取检查控制器程序变更的时间间隔，单位毫秒，默认10秒，程序变更之后重新浏览标签，控制器不支持变更检查的时候按照这个间隔重新浏览标签<br />
+     * Get the time interval for checking the program change of the controller, in milliseconds, the default is 10 seconds. The tags are browsed again after the program changes,
+     * and when the controller does not support the change check, the tags are browsed again at this interval
+     * @return 时间间隔
+     */
+    public int getSymbolCheckInterval() {
+        return symbolCheckInterval;
+    }
+
+    /**
+     * 设置检查控制器程序变更的时间间隔，单位毫秒<br />
+     * Set the time interval for checking the program change of the controller, in milliseconds
+     * @param value 时间间隔
+     */
+    public void setSymbolCheckInterval(int value) {
+        symbolCheckInterval = value;
+    }
+
+    /**
+     * 浏览PLC的符号对象，获取控制器范围的所有的标签的实例ID，名称及类型，程序范围的标签只返回程序本身<br />
+     * Browse the symbol object of the PLC to get the instance ID, name and type of all tags in the controller scope,
+     * and only the program itself is returned for the tags in the program scope
+     * @return 所有的标签信息
+     */
+    public OperateResultExOne<List<AbTagItem>> BrowseTags() {
+        List<AbTagItem> tags = new ArrayList<>();
+        int instance = 0;
+        while (true) {
+            OperateResultExOne<byte[]> read = ReadCipFromServer(Arrays.asList(AllenBradleyHelper.PackRequestBrowseSymbol(instance)));
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+            OperateResultExTwo<List<AbTagItem>, Boolean> analysis = AllenBradleyHelper.ExtractBrowseSymbol(read.Content);
+            if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
+
+            tags.addAll(analysis.Content1);
+            if (!analysis.Content2 || analysis.Content1.isEmpty()) break;
+            instance = analysis.Content1.get(analysis.Content1.size() - 1).getInstanceID() + 1;
+        }
+        return OperateResultExOne.CreateSuccessResult(tags);
+    }
+
+    /**
+     * 浏览PLC的标签，并重新生成符号实例ID的缓存，同时记录控制器的变更信息，用于之后判断缓存是否失效<br />
+     * Browse the tags of the PLC, and regenerate the cache of the symbol instance ID, and record the change information of the controller
+     * to determine whether the cache is invalid later
+     * @return 是否成功
+     */
+    public OperateResult LoadSymbolCache() {
+        OperateResultExOne<byte[]> signature = ReadProgramChangeSignature();
+        OperateResultExOne<List<AbTagItem>> browse = BrowseTags();
+        symbolCheckTime = System.nanoTime();
+        if (!browse.IsSuccess) {
+            symbolInstances = null;
+            return browse;
+        }
+
+        Map<String, Integer> instances = new HashMap<>();
+        for (AbTagItem item : browse.Content) {
+            // 程序范围及系统的标签不使用实例ID
+            String name = item.getName();
+            if (name.indexOf(':') >= 0 || name.startsWith("__") || (item.getSymbolType() & 0x1000) != 0 || item.getInstanceID() > 0xFFFF) continue;
+            instances.put(name.toUpperCase(), item.getInstanceID());
+        }
+        programChangeSignature = signature.IsSuccess ? signature.Content : null;
+        symbolInstances = instances;
+        return OperateResult.CreateSuccessResult();
+    }
+
+    /**
+     * 清空符号实例ID的缓存，开启了实例ID寻址时，下次读取的时候重新浏览PLC的标签<br />
+     * Clear the cache of the symbol instance ID. When the instance ID addressing is enabled, the tags of the PLC will be browsed again at the next reading
+     */
+    public void ClearSymbolCache() {
+        symbolInstances = null;
+        programChangeSignature = null;
+        symbolCheckTime = 0;
+    }
+
+    private OperateResultExOne<byte[]> ReadProgramChangeSignature() {
+        OperateResultExOne<byte[]> read = ReadCipFromServer(Arrays.asList(AllenBradleyHelper.PackRequestProgramChange()));
+        if (!read.IsSuccess) return read;
+        if (read.Content.length < 44 || read.Content[42] != 0x00) return new OperateResultExOne<>(StringResources.Language.NotSupportedFunction());
+
+        return OperateResultExOne.CreateSuccessResult(Arrays.copyOfRange(read.Content, 44, read.Content.length));
+    }
+
+    private Map<String, Integer> GetSymbolInstances() {
+        if (!useSymbolInstance) return null;
+
+        long now = System.nanoTime();
+        if (symbolCheckTime != 0 && now - symbolCheckTime < symbolCheckInterval * 1000000L) return symbolInstances;
+        symbolCheckTime = now;
+
+        // 控制器的程序没有变更的时候继续使用缓存
+        Map<String, Integer> instances = symbolInstances;
+        byte[] last = programChangeSignature;
+        if (instances != null && last != null) {
+            OperateResultExOne<byte[]> signature = ReadProgramChangeSignature();
+            if (signature.IsSuccess && Arrays.equals(signature.Content, last)) return instances;
+        }
+
+        OperateResult load = LoadSymbolCache();
+        return load.IsSuccess ? symbolInstances : null;
+    }
+
+    //endregion
+
     /**
      * Read Segment Data Array form plc, use address tag name
      *
@@ -311,13 +724,16 @@ public class AllenBradleyNet extends NetworkDeviceBase {
      * @return Results Bytes
      */
     public OperateResultExOne<byte[]> ReadSegment(String address, int startIndex, int length) {
+        return ReadSegment(address, startIndex, length, GetSymbolInstances());
+    }
+
+    private OperateResultExOne<byte[]> ReadSegment(String address, int startIndex, int length, Map<String, Integer> instances) {
         try {
             ArrayList<Byte> bytesContent = new ArrayList<Byte>();
             while (true) {
-                OperateResultExOne<byte[]> read = ReadByCips(Arrays.asList(AllenBradleyHelper.PackRequestReadSegment(address, startIndex, length)));
+                OperateResultExOne<byte[]> read = ReadCipFromServer(Arrays.asList(AllenBradleyHelper.PackRequestReadSegment(address, startIndex, length, instances)));
                 if (!read.IsSuccess) return read;
 
-
                 // 提取数据 -> Extracting data
                 OperateResultExThree<byte[], Short, Boolean> analysis = AllenBradleyHelper.ExtractActualData(read.Content, true);
                 if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
@@ -341,45 +757,71 @@ public class AllenBradleyNet extends NetworkDeviceBase {
     }
 
 
-    private OperateResultExOne<byte[]> ReadByCips(List<byte[]> cips) {
-        OperateResultExOne<byte[]> read = ReadCipFromServer(cips);
-        if (!read.IsSuccess) return read;
-
-        // 提取数据 -> Extracting data
-        OperateResultExThree<byte[], Short, Boolean> analysis = AllenBradleyHelper.ExtractActualData(read.Content, true);
-        if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
-
-        // 提取数据 -> Extracting data
-        return OperateResultExOne.CreateSuccessResult(analysis.Content1);
-    }
-
     /**
-     * 使用CIP报文和服务器进行核心的数据交换
+     * 使用CIP报文和服务器进行核心的数据交换，已经打开了CIP连接的时候使用已连接的方式发送，返回的报文统一转换成未连接方式的格式
      *
      * @param cips Cip commands
      * @return Results Bytes
      */
     public OperateResultExOne<byte[]> ReadCipFromServer(List<byte[]> cips) {
+        boolean connected = connectionId != 0;
         try {
-
-            byte[] commandSpecificData = AllenBradleyHelper.PackCommandSpecificData(AllenBradleyHelper.PackCommandService(
-                    PortSlot == null ? new byte[]{0x01, Slot} : PortSlot, cips));
-            byte[] command = AllenBradleyHelper.PackRequestHeader(0x6F, SessionHandle, commandSpecificData);
+            byte[] command = PackCipCommand(cips, connected);
 
             // 核心交互 -> Core Interactions
             OperateResultExOne<byte[]> read = ReadFromCoreServer(command);
             if (!read.IsSuccess) return read;
 
-            // 检查反馈 -> Check Feedback
-            OperateResult check = CheckResponse(read.Content);
-            if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
-
-            return OperateResultExOne.CreateSuccessResult(read.Content);
+            return ExtractCipResponse(read.Content, connected);
         } catch (Exception ex) {
             return new OperateResultExOne<>(ex.getMessage());
         }
     }
 
+    /**
+     * 异步使用CIP报文和服务器进行核心的数据交换，在非阻塞的传输模式下不占用调用方的线程，返回的报文和 {@link #ReadCipFromServer(List)} 一致<br />
+     * Asynchronously use the CIP message to exchange core data with the server, the calling thread is not occupied in non-blocking transport mode,
+     * and the returned message is the same as {@link #ReadCipFromServer(List)}
+     *
+     * @param cips Cip commands
+     * @return Results Bytes
+     */
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadCipFromServerAsync(List<byte[]> cips) {
+        final boolean connected = connectionId != 0;
+        byte[] command;
+        try {
+            command = PackCipCommand(cips, connected);
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(new OperateResultExOne<byte[]>(ex.getMessage()));
+        }
+
+        return ThenAnalysis(ReadFromCoreServerAsync(command), new FunctionOperateExOne<byte[], OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> Action(byte[] content) {
+                return ExtractCipResponse(content, connected);
+            }
+        });
+    }
+
+    private byte[] PackCipCommand(List<byte[]> cips, boolean connected) throws IOException {
+        if (connected) return AllenBradleyHelper.PackRequestHeader(0x70, SessionHandle, AllenBradleyHelper.PackConnectedData(
+                connectionId, (int) sequenceCount.GetCurrentValue(), AllenBradleyHelper.PackConnectedService(cips)));
+
+        byte[] commandSpecificData = AllenBradleyHelper.PackCommandSpecificData(AllenBradleyHelper.PackCommandService(
+                PortSlot == null ? new byte[]{0x01, Slot} : PortSlot, cips));
+        return AllenBradleyHelper.PackRequestHeader(0x6F, SessionHandle, commandSpecificData);
+    }
+
+    private OperateResultExOne<byte[]> ExtractCipResponse(byte[] response, boolean connected) {
+        // 检查反馈 -> Check Feedback
+        OperateResult check = CheckResponse(response);
+        if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
+        if (!connected) return OperateResultExOne.CreateSuccessResult(response);
+
+        lastConnectedTime = System.nanoTime();
+        return AllenBradleyHelper.ExtractConnectedResponse(response);
+    }
+
     /**
      * 读取单个的bool数据信息 -> Read a single BOOL data information
      *
@@ -563,18 +1005,45 @@ public class AllenBradleyNet extends NetworkDeviceBase {
      * @return 是否写入成功 -> Whether to write successfully
      */
     public OperateResult WriteTag(String address, short typeCode, byte[] value, int length) {
-        OperateResultExOne<byte[]> command = BuildWriteCommand(address, typeCode, value, length);
-        if (!command.IsSuccess) return command;
+        byte[] cip;
+        try {
+            cip = AllenBradleyHelper.PackRequestWrite(address, typeCode, value, length);
+        } catch (Exception ex) {
+            return new OperateResult("Address Wrong:" + ex.getMessage());
+        }
 
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(command.Content);
+        OperateResultExOne<byte[]> read = ReadCipFromServer(Arrays.asList(cip));
         if (!read.IsSuccess) return read;
 
-        OperateResult check = CheckResponse(read.Content);
-        if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
-
         return AllenBradleyHelper.ExtractActualData(read.Content, false);
     }
 
+    /**
+     * 异步使用指定的类型写入指定的节点数据，在非阻塞的传输模式下不占用调用方的线程 -> Asynchronously writes the specified node data with the specified type,
+     * the calling thread is not occupied in non-blocking transport mode
+     *
+     * @param address  节点的名称 -> Name of the node
+     * @param typeCode 类型代码，详细参见 AllenBradleyHelper 上的常用字段 ->  Type code, see the commonly used Fields section on the AllenBradleyHelper in detail
+     * @param value    实际的数据值 -> The actual data value
+     * @param length   如果节点是数组，就是数组长度 -> If the node is an array, it is the array length
+     * @return 是否写入成功的异步结果 -> Asynchronous result of whether to write successfully
+     */
+    public CompletableFuture<OperateResult> WriteTagAsync(String address, short typeCode, byte[] value, int length) {
+        byte[] cip;
+        try {
+            cip = AllenBradleyHelper.PackRequestWrite(address, typeCode, value, length);
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(new OperateResult("Address Wrong:" + ex.getMessage()));
+        }
+
+        return ThenCheck(ReadCipFromServerAsync(Arrays.asList(cip)), new FunctionOperateExOne<byte[], OperateResult>() {
+            @Override
+            public OperateResult Action(byte[] content) {
+                return AllenBradleyHelper.ExtractActualData(content, false);
+            }
+        });
+    }
+
     //endregion
 
     //region Write Override
@@ -740,12 +1209,123 @@ public class AllenBradleyNet extends NetworkDeviceBase {
 
     //endregion
 
+    //region Connected Messaging
+
+    /**
+     * 向连接管理器发送打开连接的请求，优先使用大数据连接，PLC拒绝的时候使用普通的连接，都被拒绝的时候退回未连接的方式，只有网络异常时才返回失败
+     *
+     * @param socket 网络套接字
+     * @return 是否成功
+     */
+    private OperateResult ForwardOpen(Socket socket) {
+        connectionSerial = random.nextInt(0x10000);
+        if (useLargeForwardOpen) {
+            OperateResultExOne<Boolean> open = ForwardOpen(socket, true, 4002);
+            if (!open.IsSuccess || open.Content) return open;
+        }
+
+        // 普通的连接也被拒绝的时候，isConnectedMessaging返回false，继续使用未连接的方式
+        return ForwardOpen(socket, false, 504);
+    }
+
+    private OperateResultExOne<Boolean> ForwardOpen(Socket socket, boolean large, int size) {
+        byte[] command;
+        int toConnectionId = random.nextInt() | 0x01;
+        try {
+            command = AllenBradleyHelper.PackRequestHeader(0x6F, SessionHandle, AllenBradleyHelper.PackCommandSpecificData(
+                    AllenBradleyHelper.PackForwardOpen(PortSlot == null ? new byte[]{0x01, Slot} : PortSlot, large, toConnectionId,
+                            connectionSerial, OriginatorVendorId, originatorSerial, 0x03, 2000000, size)));
+        } catch (Exception ex) {
+            return new OperateResultExOne<>(ex.getMessage());
+        }
+
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(socket, command);
+        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+        OperateResult check = CheckResponse(read.Content);
+        if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
+
+        // 通用状态不为0时表示PLC拒绝了本次连接
+        if (read.Content.length < 52 || read.Content[42] != 0x00) return OperateResultExOne.CreateSuccessResult(false);
+
+        connectionSize = size;
+        connectionId = getByteTransform().TransInt32(read.Content, 44);
+        lastConnectedTime = System.nanoTime();
+        ScheduleKeepAlive(connectionId, keepAliveInterval);
+        return OperateResultExOne.CreateSuccessResult(true);
+    }
+
+    private void ForwardClose(Socket socket) {
+        connectionId = 0;
+        HashedWheelTimer.Timeout timeout = keepAliveTimeout;
+        if (timeout != null) timeout.Cancel();
+
+        try {
+            ReadFromCoreServer(socket, AllenBradleyHelper.PackRequestHeader(0x6F, SessionHandle, AllenBradleyHelper.PackCommandSpecificData(
+                    AllenBradleyHelper.PackForwardClose(PortSlot == null ? new byte[]{0x01, Slot} : PortSlot, connectionSerial, OriginatorVendorId, originatorSerial))));
+        } catch (Exception ex) {
+            // 连接即将关闭，PLC会在超时之后自动释放连接
+        }
+    }
+
+    private void ScheduleKeepAlive(final int id, int delay) {
+        if (keepAliveInterval <= 0 || !isPersistentConn) return;
+
+        HashedWheelTimer.Timeout old = keepAliveTimeout;
+        if (old != null) old.Cancel();
+        keepAliveTimeout = HashedWheelTimer.getDefault().Schedule(new Runnable() {
+            @Override
+            public void run() {
+                // 定时器的线程上不能执行耗时的通信操作
+                getAsyncExecutor().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        KeepAlive(id);
+                    }
+                });
+            }
+        }, delay);
+    }
+
+    private void KeepAlive(int id) {
+        if (id != connectionId || keepAliveInterval <= 0 || !isPersistentConn) return;
+
+        long idle = (System.nanoTime() - lastConnectedTime) / 1000000L;
+        if (idle >= keepAliveInterval) {
+            // 读取Identity对象的厂商ID，只是为了刷新PLC的连接超时
+            ReadCipFromServer(Arrays.asList(new byte[]{AllenBradleyHelper.CIP_GET_ATTRIBUTE_SINGLE, 0x03, 0x20, 0x01, 0x24, 0x01, 0x30, 0x01}));
+            idle = 0;
+        }
+        if (id == connectionId) ScheduleKeepAlive(id, (int) (keepAliveInterval - idle));
+    }
+
+    //endregion
+
     //region Private Member
 
     private int SessionHandle = 0;
     private byte Slot = 0;
     public int ArraySegment = 100;
     public byte[] PortSlot = null;
+    private boolean useConnectedMessage = false;                       // 是否使用已连接的方式通信
+    private boolean useLargeForwardOpen = true;                        // 是否优先使用大数据连接
+    private int keepAliveInterval = 20000;                             // 已连接方式下保持连接的时间间隔
+    private volatile int connectionId = 0;                             // PLC分配的O->T的连接ID，为0时表示未打开连接
+    private int connectionSize = 504;                                  // 当前连接的数据长度
+    private int connectionSerial = 0;                                  // 连接的序列号
+    private volatile long lastConnectedTime = 0;                       // 最后一次使用连接通信的时间
+    private volatile HashedWheelTimer.Timeout keepAliveTimeout = null; // 保持连接的定时任务
+    private final Random random = new Random();
+    private final int originatorSerial = random.nextInt();             // 发起方的序列号
+    private boolean useSymbolInstance = false;                         // 是否使用符号的实例ID寻址
+    private int symbolCheckInterval = 10000;                           // 检查控制器程序变更的时间间隔
+    private volatile Map<String, Integer> symbolInstances = null;      // 标签名称（大写）和符号实例ID的缓存
+    private volatile byte[] programChangeSignature = null;             // 浏览标签时控制器的变更信息
+    private volatile long symbolCheckTime = 0;                         // 最后一次检查控制器变更的时间，为0时表示需要检查
+    private final ConcurrentHashMap<String, Integer> elementSizes = new ConcurrentHashMap<>();  // 每个标签的单个元素的字节长度
+    private static final int MultiServiceOverhead = 24;                // 多服务请求的头及路由信息预留的字节长度
+    private final SoftIncrementCount sequenceCount = new SoftIncrementCount(65535, 1);  // 已连接方式的请求序列号
+    private static final int OriginatorVendorId = 0x1337;              // 发起方的厂商ID
 
     //endregion
 
@@ -535,6 +535,34 @@ public class MelsecHelper {
         return command;
     }
 
+    /**
+     * 多个块批量读取的指令创建，字软元件的块和位软元件的块分开传入，位软元件的块的长度也是以字为单位，每个字包含16个点，
+     * 返回的数据先是所有字软元件的块，然后是所有位软元件的块
+     *
+     * @param wordBlocks 字软元件的块
+     * @param bitBlocks  位软元件的块
+     * @return 指令
+     */
+    public static byte[] BuildReadMultiBlockCommand(McAddressData[] wordBlocks, McAddressData[] bitBlocks) {
+        byte[] command = new byte[6 + (wordBlocks.length + bitBlocks.length) * 6];
+        command[0] = 0x06;                                                                  // 批量读取数据命令
+        command[1] = 0x04;
+        command[2] = 0x00;                                                                  // 子命令
+        command[3] = 0x00;
+        command[4] = (byte) wordBlocks.length;                                              // 字软元件的块数
+        command[5] = (byte) bitBlocks.length;                                               // 位软元件的块数
+        for (int i = 0; i < wordBlocks.length + bitBlocks.length; i++) {
+            McAddressData block = i < wordBlocks.length ? wordBlocks[i] : bitBlocks[i - wordBlocks.length];
+            command[i * 6 + 6] = Utilities.getBytes(block.getAddressStart())[0];           // 软元件的编号
+            command[i * 6 + 7] = Utilities.getBytes(block.getAddressStart())[1];
+            command[i * 6 + 8] = Utilities.getBytes(block.getAddressStart())[2];
+            command[i * 6 + 9] = block.getMcDataType().getDataCode();                       // 软元件的代码
+            command[i * 6 + 10] = (byte) (block.getLength() % 256);                          // 软元件的长度，单位为字
+            command[i * 6 + 11] = (byte) (block.getLength() / 256);
+        }
+        return command;
+    }
+
     /**
      * 按字为单位随机读取的指令创建
      *
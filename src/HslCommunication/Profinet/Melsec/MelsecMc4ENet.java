@@ -0,0 +1,180 @@
+package HslCommunication.Profinet.Melsec;
+
+import HslCommunication.BasicFramework.SoftIncrementCount;
+import HslCommunication.Core.Address.CompiledAddress;
+import HslCommunication.Core.IMessage.INetMessage;
+import HslCommunication.Core.IMessage.MelsecQnA4EBinaryMessage;
+import HslCommunication.Core.Types.OperateResult;
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.Utilities;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 三菱PLC通讯类，采用Qna兼容4E帧协议实现，和3E帧相比，每个请求都携带了一个序列号，PLC返回的报文携带相同的序列号，
+ * 在非阻塞的传输模式下设置了大于1的请求窗口时，多个请求可以在同一个连接上同时等待返回，适合网络延时比较大的场合，需要在PLC侧配置为二进制通讯<br />
+ * Mitsubishi PLC communication class is implemented using Qna compatible 4E frame protocol. Compared with the 3E frame, each request carries a serial number,
+ * and the message returned by the PLC carries the same serial number. When a request window greater than 1 is set in non-blocking transport mode,
+ * multiple requests can wait for the return on the same connection at the same time, which is suitable for occasions with large network delays.
+ * It needs to be configured as binary communication on the PLC side.
+ */
+public class MelsecMc4ENet extends MelsecMcNet {
+
+    /**
+     * 实例化三菱的Qna兼容4E帧协议的通讯对象<br />
+     * Instantiate the communication object of Mitsubishi's Qna compatible 4E frame protocol
+     */
+    public MelsecMc4ENet() {
+        super();
+    }
+
+    /**
+     * 指定ip地址和端口号来实例化一个默认的对象<br />
+     * Specify the IP address and port number to instantiate a default object
+     * @param ipAddress PLC的Ip地址
+     * @param port      PLC的端口
+     */
+    public MelsecMc4ENet(String ipAddress, int port) {
+        super(ipAddress, port);
+    }
+
+    @Override
+    protected INetMessage GetNewNetMessage() {
+        return new MelsecQnA4EBinaryMessage();
+    }
+
+    private final SoftIncrementCount softIncrementCount = new SoftIncrementCount(65535, 0);   // 请求的序列号
+
+    // region Frame Override
+
+    @Override
+    protected byte[] PackCommand(byte[] mcCore) {
+        return PackMcCommand4E(mcCore, (int) softIncrementCount.GetCurrentValue(), getNetworkNumber(), getNetworkStationNumber());
+    }
+
+    @Override
+    protected OperateResult CheckResponse(byte[] response) {
+        return CheckResponseContent4E(response);
+    }
+
+    @Override
+    protected int GetResponseDataIndex() {
+        return 15;
+    }
+
+    @Override
+    protected byte[] PrepareCompiledCommand(byte[] command) {
+        // 每次发送都需要新的序列号，复制一份报文再修改
+        byte[] send = command.clone();
+        int serial = (int) softIncrementCount.GetCurrentValue();
+        send[2] = (byte) serial;
+        send[3] = (byte) (serial >> 8);
+        return send;
+    }
+
+    /**
+     * 从发送的报文中提取出序列号，PLC返回的报文中携带相同的序列号，用于在一个连接上同时等待多个请求的返回<br />
+     * Extract the serial number from the sent message, the message returned by the PLC carries the same serial number,
+     * which is used to wait for the return of multiple requests on one connection at the same time
+     * @param send 发送的完整的报文
+     * @return 序列号
+     */
+    @Override
+    protected int GetMessageIdentity(byte[] send) {
+        if (send == null || send.length < 4) return -1;
+        return (send[2] & 0xff) + (send[3] & 0xff) * 256;
+    }
+
+    // endregion
+
+    // region Read Override
+
+    /**
+     * 从PLC读取原始的字节数据，超过900个字时自动分批读取，如果设置了大于1的请求窗口，所有的分批请求将同时发送，并根据序列号匹配返回的报文<br />
+     * Read the original byte data from the PLC, and automatically read in batches when it exceeds 900 words. If a request window greater than 1 is set,
+     * all batch requests will be sent at the same time, and the returned messages are matched according to the serial number
+     * @param address 起始地址，比如D100，M100
+     * @param length 读取的字数
+     * @return 带有成功标识的字节数组
+     */
+    @Override
+    public OperateResultExOne<byte[]> Read(String address, short length) {
+        if (!isPipelined() || IsSpecialAddress(address)) return super.Read(address, length);
+        return JoinResult(ReadAsync(address, length));
+    }
+
+    /**
+     * 异步从PLC读取原始的字节数据，在非阻塞的传输模式下不占用调用方的线程，如果设置了大于1的请求窗口，所有的分批请求将同时发送<br />
+     * Asynchronously read the original byte data from the PLC, and the calling thread is not occupied in non-blocking transport mode.
+     * If a request window greater than 1 is set, all batch requests will be sent at the same time
+     * @param address 起始地址，比如D100，M100
+     * @param length 读取的字数
+     * @return 带有成功标识的字节数组的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync(String address, short length) {
+        if (IsSpecialAddress(address)) return super.ReadAsync(address, length);
+
+        OperateResultExOne<CompiledAddress> compiled = CompileAddress(address, length);
+        if (!compiled.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[]>CreateFailedResult(compiled));
+        return ReadAsync(compiled.Content);
+    }
+
+    private static boolean IsSpecialAddress(String address) {
+        return address.startsWith("s=") || address.startsWith("S=") || address.startsWith("ext=") || address.startsWith("mem=");
+    }
+
+    // endregion
+
+    /**
+     * 获取当前对象的字符串标识形式
+     * @return 字符串信息
+     */
+    @Override
+    public String toString() {
+        return "MelsecMc4ENet";
+    }
+
+    /**
+     * 将MC协议的核心报文打包成一个4E帧的原始报文，包含了请求的序列号<br />
+     * Pack the core message of the MC protocol into a raw message of 4E frame, including the serial number of the request
+     * @param mcCore MC协议的核心报文
+     * @param serial 请求的序列号
+     * @param networkNumber 网络号
+     * @param networkStationNumber 网络站号
+     * @return 原始报文信息
+     */
+    public static byte[] PackMcCommand4E(byte[] mcCore, int serial, byte networkNumber, byte networkStationNumber) {
+        byte[] _PLCCommand = new byte[15 + mcCore.length];
+        _PLCCommand[0] = 0x54;                                               // 副标题
+        _PLCCommand[1] = 0x00;
+        _PLCCommand[2] = (byte) serial;                                      // 序列号
+        _PLCCommand[3] = (byte) (serial >> 8);
+        _PLCCommand[4] = 0x00;                                               // 固定值
+        _PLCCommand[5] = 0x00;
+        _PLCCommand[6] = networkNumber;                                      // 网络号
+        _PLCCommand[7] = (byte) 0xFF;                                        // PLC编号
+        _PLCCommand[8] = (byte) 0xFF;                                        // 目标模块IO编号
+        _PLCCommand[9] = 0x03;
+        _PLCCommand[10] = networkStationNumber;                              // 目标模块站号
+        _PLCCommand[11] = (byte) ((_PLCCommand.length - 13) % 256);          // 请求数据长度
+        _PLCCommand[12] = (byte) ((_PLCCommand.length - 13) / 256);
+        _PLCCommand[13] = 0x0A;                                              // CPU监视定时器
+        _PLCCommand[14] = 0x00;
+        System.arraycopy(mcCore, 0, _PLCCommand, 15, mcCore.length);
+
+        return _PLCCommand;
+    }
+
+    /**
+     * 检查从MC返回的4E帧的数据是否是合法的。
+     * @param content 数据内容
+     * @return 是否合法
+     */
+    public static OperateResult CheckResponseContent4E(byte[] content) {
+        int errorCode = Utilities.getUShort(content, 13);
+        if (errorCode != 0) return new OperateResult(errorCode, MelsecHelper.GetErrorDescription(errorCode));
+
+        return OperateResult.CreateSuccessResult();
+    }
+}
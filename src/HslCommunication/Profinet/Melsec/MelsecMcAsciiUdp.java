@@ -3,13 +3,16 @@ package HslCommunication.Profinet.Melsec;
 import HslCommunication.Core.Address.McAddressData;
 import HslCommunication.Core.Net.NetworkBase.NetworkUdpDeviceBase;
 import HslCommunication.Core.Transfer.RegularByteTransform;
+import HslCommunication.Core.Types.FunctionOperateExOne;
 import HslCommunication.Core.Types.OperateResult;
 import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.StringResources;
-import HslCommunication.Utilities;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class MelsecMcAsciiUdp extends NetworkUdpDeviceBase {
 
@@ -83,19 +86,49 @@ public class MelsecMcAsciiUdp extends NetworkUdpDeviceBase {
     //region Read Write Override
 
     public OperateResultExOne<byte[]> Read(String address, short length) {
+        // 获取指令
+        OperateResultExOne<byte[][]> command = BuildReadCommands(address, length);
+        if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
+
+        // 核心交互
+        OperateResultExOne<byte[][]> read = ReadFromCoreServer(command.Content);
+        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+        return ExtractReadContent(read.Content);
+    }
+
+    /**
+     * 异步从PLC读取原始的字节数据，设置了UDP多路复用对象的时候，等待PLC返回的时候不占用任何线程<br />
+     * Asynchronously read the original byte data from the PLC. When the UDP multiplexing object is set, no thread is occupied while waiting for the PLC to return
+     * @param address 起始地址，比如D100，M100
+     * @param length 读取的字数
+     * @return 带有成功标识的字节数组的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync(String address, short length) {
+        OperateResultExOne<byte[][]> command = BuildReadCommands(address, length);
+        if (!command.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[]>CreateFailedResult(command));
+
+        return ReadFromCoreServerAsync(command.Content).thenApply(new Function<OperateResultExOne<byte[][]>, OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> apply(OperateResultExOne<byte[][]> read) {
+                if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+                return ExtractReadContent(read.Content);
+            }
+        });
+    }
+
+    private OperateResultExOne<byte[][]> BuildReadCommands(String address, short length) {
         // 分析地址
         OperateResultExOne<McAddressData> addressResult = McAnalysisAddress(address, length);
         if (!addressResult.IsSuccess) return OperateResultExOne.CreateFailedResult(addressResult);
 
-        ArrayList<Byte> bytesContent = new ArrayList<Byte>();
+        ArrayList<byte[]> commands = new ArrayList<byte[]>();
         short alreadyFinished = 0;
         while (alreadyFinished < length) {
             short readLength = (short) Math.min(length - alreadyFinished, 450);
             addressResult.Content.setLength(readLength);
-            OperateResultExOne<byte[]> read = ReadAddressData(addressResult.Content);
-            if (!read.IsSuccess) return read;
-
-            Utilities.ArrayListAddArray(bytesContent, read.Content);
+            commands.add(MelsecMcAsciiNet.PackMcCommand(MelsecHelper.BuildAsciiReadMcCoreCommand(addressResult.Content, false), NetworkNumber, NetworkStationNumber));
             alreadyFinished += readLength;
 
             // 字的话就是正常的偏移位置，如果是位的话，就转到位的数据
@@ -104,23 +137,23 @@ public class MelsecMcAsciiUdp extends NetworkUdpDeviceBase {
             else
                 addressResult.Content.setAddressStart(addressResult.Content.getAddressStart() + readLength * 16);
         }
-        return OperateResultExOne.CreateSuccessResult(Utilities.getBytes(bytesContent));
+        return OperateResultExOne.CreateSuccessResult(commands.toArray(new byte[0][]));
     }
 
-    private OperateResultExOne<byte[]> ReadAddressData(McAddressData addressData) {
-        // 地址分析
-        byte[] coreResult = MelsecHelper.BuildAsciiReadMcCoreCommand(addressData, false);
+    private static OperateResultExOne<byte[]> ExtractReadContent(byte[][] receives) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < receives.length; i++) {
+            // 错误代码验证
+            OperateResult check = MelsecMcAsciiNet.CheckResponseContent(receives[i]);
+            if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
 
-        // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(MelsecMcAsciiNet.PackMcCommand(coreResult, NetworkNumber, NetworkStationNumber));
-        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
-
-        // 错误代码验证
-        OperateResult check = MelsecMcAsciiNet.CheckResponseContent(read.Content);
-        if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
+            // 数据解析，需要传入是否使用位的参数
+            OperateResultExOne<byte[]> extract = MelsecMcAsciiNet.ExtractActualData(receives[i], false);
+            if (!extract.IsSuccess) return extract;
 
-        // 数据解析，需要传入是否使用位的参数
-        return MelsecMcAsciiNet.ExtractActualData(read.Content, false);
+            stream.write(extract.Content, 0, extract.Content.length);
+        }
+        return OperateResultExOne.CreateSuccessResult(stream.toByteArray());
     }
 
     public OperateResult Write(String address, byte[] value) {
@@ -128,11 +161,8 @@ public class MelsecMcAsciiUdp extends NetworkUdpDeviceBase {
         OperateResultExOne<McAddressData> addressResult = McAnalysisAddress(address, (short) 0);
         if (!addressResult.IsSuccess) return OperateResultExOne.CreateFailedResult(addressResult);
 
-        // 地址分析
-        byte[] coreResult = MelsecHelper.BuildAsciiWriteWordCoreCommand(addressResult.Content, value);
-
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(MelsecMcAsciiNet.PackMcCommand(coreResult, NetworkNumber, NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(BuildWriteCommand(addressResult.Content, value));
         if (!read.IsSuccess) return read;
 
         // 错误码验证
@@ -143,6 +173,31 @@ public class MelsecMcAsciiUdp extends NetworkUdpDeviceBase {
         return OperateResult.CreateSuccessResult();
     }
 
+    /**
+     * 异步将原始的字节数据写入到PLC，设置了UDP多路复用对象的时候，等待PLC返回的时候不占用任何线程<br />
+     * Asynchronously write the original byte data to the PLC. When the UDP multiplexing object is set, no thread is occupied while waiting for the PLC to return
+     * @param address 起始地址，比如D100，M100
+     * @param value 写入的数据
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResult> WriteAsync(String address, byte[] value) {
+        OperateResultExOne<McAddressData> addressResult = McAnalysisAddress(address, (short) 0);
+        if (!addressResult.IsSuccess) return CompletableFuture.<OperateResult>completedFuture(addressResult);
+
+        return ThenCheck(ReadFromCoreServerAsync(BuildWriteCommand(addressResult.Content, value)), new FunctionOperateExOne<byte[], OperateResult>() {
+            @Override
+            public OperateResult Action(byte[] content) {
+                return MelsecMcAsciiNet.CheckResponseContent(content);
+            }
+        });
+    }
+
+    private byte[] BuildWriteCommand(McAddressData addressData, byte[] value) {
+        // 地址分析
+        return MelsecMcAsciiNet.PackMcCommand(MelsecHelper.BuildAsciiWriteWordCoreCommand(addressData, value), NetworkNumber, NetworkStationNumber);
+    }
+
     //endregion
 
     //region Read Random
@@ -1,6 +1,7 @@
 package HslCommunication.Profinet.Melsec;
 
 import HslCommunication.BasicFramework.SoftBasic;
+import HslCommunication.Core.Address.CompiledAddress;
 import HslCommunication.Core.Address.McAddressData;
 import HslCommunication.Core.IMessage.INetMessage;
 import HslCommunication.Core.IMessage.MelsecQnA3EBinaryMessage;
@@ -13,8 +14,14 @@ import HslCommunication.Core.Types.OperateResultExTwo;
 import HslCommunication.StringResources;
 import HslCommunication.Utilities;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
@@ -54,6 +61,7 @@ public class MelsecMcNet extends NetworkDeviceBase {
     }
 
     private byte NetworkNumber = 0x00;                       // 网络号
+    private static final Pattern ExtendAddressPattern = Pattern.compile("^ext=([0-9]+);");  // 扩展地址的格式，只编译一次
     private byte NetworkStationNumber = 0x00;                // 网络站号
 
     /**
@@ -104,11 +112,11 @@ public class MelsecMcNet extends NetworkDeviceBase {
     public OperateResultExOne<byte[]> Read(String address, short length) {
         if (address.startsWith("s=") || address.startsWith("S=")) {
             return ReadTags(address.substring(2), length);
-        } else if (Pattern.matches("ext=[0-9]+;", address)) {
-            String extStr = Pattern.compile("ext=[0-9]+;").matcher(address).group();
-            short ext = Short.parseShort(Pattern.compile("[0-9]+").matcher(extStr).group());
-            return ReadExtend(ext, address.substring(extStr.length()), length);
-        } else if (Pattern.matches("mem=", address)) {
+        } else if (address.startsWith("ext=")) {
+            Matcher matcher = ExtendAddressPattern.matcher(address);
+            if (!matcher.find()) return new OperateResultExOne<byte[]>(StringResources.Language.NotSupportedDataType());
+            return ReadExtend(Short.parseShort(matcher.group(1)), address.substring(matcher.end()), length);
+        } else if (address.startsWith("mem=")) {
             return ReadMemory(address.substring(4), length);
         } else {
             // 分析地址
@@ -136,19 +144,66 @@ public class MelsecMcNet extends NetworkDeviceBase {
         }
     }
 
+    // region Compiled Address
+
+    /**
+     * 将普通的软元件地址和长度预先编译好，超过900个字时预先生成每一批的报文，编译时使用当前的网络号及网络站号，标签，扩展及内存的地址不支持编译<br />
+     * Pre-compile the address and length of the ordinary device, and pre-generate the message of each batch when it exceeds 900 words.
+     * The current network number and network station number are used during compilation, and the addresses of tags, extensions and memory do not support compilation
+     * @param address 起始地址，比如D100，M100
+     * @param length 读取的字数
+     * @return 编译好的地址对象
+     */
+    @Override
+    public OperateResultExOne<CompiledAddress> CompileAddress(String address, short length) {
+        if (address.startsWith("s=") || address.startsWith("S=") || address.startsWith("ext=") || address.startsWith("mem="))
+            return new OperateResultExOne<CompiledAddress>(StringResources.Language.NotSupportedFunction());
+
+        OperateResultExOne<McAddressData> addressResult = McAnalysisAddress(address, length);
+        if (!addressResult.IsSuccess) return OperateResultExOne.CreateFailedResult(addressResult);
+
+        McAddressData addressData = addressResult.Content;
+        int count = Math.max(1, (length + 899) / 900);
+        byte[][] commands = new byte[count][];
+        short[] lengths = new short[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = (short) Math.min(length - i * 900, 900);
+            addressData.setLength(lengths[i]);
+            commands[i] = PackCommand(MelsecHelper.BuildReadMcCoreCommand(addressData, false));
+
+            // 字的话就是正常的偏移位置，如果是位的话，就转到位的数据
+            if (addressData.getMcDataType().getDataType() == 0)
+                addressData.setAddressStart(addressData.getAddressStart() + lengths[i]);
+            else
+                addressData.setAddressStart(addressData.getAddressStart() + lengths[i] * 16);
+        }
+        return OperateResultExOne.CreateSuccessResult(new CompiledAddress(this, address, length, commands, lengths));
+    }
+
+    @Override
+    protected OperateResultExOne<byte[]> ExtractCompiledResponse(CompiledAddress compiled, int index, byte[] response) {
+        // 错误代码验证
+        OperateResult check = CheckResponse(response);
+        if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
+
+        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(response, GetResponseDataIndex()), false);
+    }
+
+    // endregion
+
     private OperateResultExOne<byte[]> ReadAddressData( McAddressData addressData ) {
         byte[] coreResult = MelsecHelper.BuildReadMcCoreCommand(addressData, false);
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(coreResult, this.NetworkNumber, this.NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(coreResult));
         if (!read.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(read);
 
         // 错误代码验证
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(check);
 
         // 数据解析，需要传入是否使用位的参数
-        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, 11), false);
+        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, GetResponseDataIndex()), false);
     }
 
     public OperateResultExOne<boolean[]> ReadBool(String address, short length) {
@@ -157,15 +212,15 @@ public class MelsecMcNet extends NetworkDeviceBase {
         if (!addressResult.IsSuccess) return OperateResultExOne.CreateFailedResult(addressResult);
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(MelsecHelper.BuildReadMcCoreCommand(addressResult.Content, true), this.NetworkNumber, this.NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(MelsecHelper.BuildReadMcCoreCommand(addressResult.Content, true)));
         if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
 
         // 错误代码验证
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
 
         // 数据解析，需要传入是否使用位的参数
-        OperateResultExOne<byte[]> extract = ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, 11), true);
+        OperateResultExOne<byte[]> extract = ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, GetResponseDataIndex()), true);
         if (!extract.IsSuccess) return OperateResultExOne.CreateFailedResult(extract);
 
         // 转化bool数组
@@ -188,17 +243,40 @@ public class MelsecMcNet extends NetworkDeviceBase {
         byte[] coreResult = MelsecHelper.BuildWriteWordCoreCommand(addressData, value);
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(coreResult, NetworkNumber, NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(coreResult));
         if (!read.IsSuccess) return read;
 
         // 错误码校验
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(check);
 
         // 成功
         return OperateResult.CreateSuccessResult();
     }
 
+    /**
+     * 异步将原始的字节数据写入到PLC，在非阻塞的传输模式下不占用调用方的线程<br />
+     * Asynchronously write the original byte data to the PLC, and the calling thread is not occupied in non-blocking transport mode
+     * @param address 起始地址，比如D100，M100
+     * @param value 写入的数据
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResult> WriteAsync(String address, byte[] value) {
+        OperateResultExOne<McAddressData> addressResult = McAnalysisAddress(address, (short) 0);
+        if (!addressResult.IsSuccess) return CompletableFuture.<OperateResult>completedFuture(addressResult);
+
+        // 创建核心报文
+        byte[] coreResult = MelsecHelper.BuildWriteWordCoreCommand(addressResult.Content, value);
+        return ThenCheck(ReadFromCoreServerAsync(PackCommand(coreResult)), new FunctionOperateExOne<byte[], OperateResult>() {
+            @Override
+            public OperateResult Action(byte[] content) {
+                // 错误码校验
+                return CheckResponse(content);
+            }
+        });
+    }
+
     public OperateResult Write(String address, boolean[] values) {
         // 分析地址
         OperateResultExOne<McAddressData> addressResult = McAnalysisAddress(address, (short) 0);
@@ -207,11 +285,11 @@ public class MelsecMcNet extends NetworkDeviceBase {
         byte[] coreResult = MelsecHelper.BuildWriteBitCoreCommand(addressResult.Content, values);
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(coreResult, NetworkNumber, NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(coreResult));
         if (!read.IsSuccess) return read;
 
         // 错误码校验
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return check;
 
         // 成功
@@ -237,15 +315,15 @@ public class MelsecMcNet extends NetworkDeviceBase {
         byte[] coreResult = MelsecHelper.BuildReadRandomWordCommand(mcAddressDatas);
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(coreResult, this.NetworkNumber, this.NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(coreResult));
         if (!read.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(read);
 
         // 错误代码验证
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(check);
 
         // 数据解析，需要传入是否使用位的参数
-        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, 11), false);
+        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, GetResponseDataIndex()), false);
     }
 
     /**
@@ -271,15 +349,15 @@ public class MelsecMcNet extends NetworkDeviceBase {
         byte[] coreResult = MelsecHelper.BuildReadRandomCommand(mcAddressDatas);
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(coreResult, this.NetworkNumber, this.NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(coreResult));
         if (!read.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(read);
 
         // 错误代码验证
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(check);
 
         // 数据解析，需要传入是否使用位的参数
-        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, 11), false);
+        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, GetResponseDataIndex()), false);
     }
 
     /**
@@ -296,6 +374,242 @@ public class MelsecMcNet extends NetworkDeviceBase {
         return OperateResultExOne.CreateSuccessResult(getByteTransform().TransInt16(read.Content, 0, address.length));
     }
 
+    // region Multi Block Read
+
+    /**
+     * 使用多个块批量读取的命令(0406)一次读取多个地址范围，字软元件和位软元件可以混合，位软元件的长度也是以字为单位，每个字包含16个点。
+     * 同一种软元件重叠或是相邻的范围会合并，所有的块按照每个报文最多120个块，960个字的限制分配到尽可能少的报文里，结果按照地址的顺序返回，每个地址一个数组，
+     * 如果设置了大于1的请求窗口，所有的报文将同时发送<br />
+     * Use the multi-block batch read command (0406) to read multiple address ranges at one time. Word devices and bit devices can be mixed,
+     * and the length of bit devices is also in words, with 16 points per word. Overlapping or adjacent ranges of the same device are merged,
+     * and all blocks are allocated to as few messages as possible according to the limit of up to 120 blocks and 960 words per message.
+     * The results are returned in the order of the addresses, one array per address. If a request window greater than 1 is set, all messages will be sent at the same time
+     * @param address 所有的起始地址，比如D100，W10，M100
+     * @param length 每个地址读取的字数，为0的地址不发送，结果为空的数组
+     * @return 每个地址的数据
+     */
+    public OperateResultExOne<byte[][]> ReadMultiBlock( String[] address, short[] length ) {
+        if (isPipelined()) return JoinResult(ReadMultiBlockAsync(address, length));
+
+        OperateResultExOne<MultiBlockRead> plan = CreateMultiBlockRead(address, length);
+        if (!plan.IsSuccess) return OperateResultExOne.CreateFailedResult(plan);
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        for (int i = 0; i < plan.Content.commands.size(); i++) {
+            OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(plan.Content.commands.get(i)));
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+            OperateResultExOne<byte[]> extract = ExtractMultiBlockResponse(read.Content);
+            if (!extract.IsSuccess) return OperateResultExOne.CreateFailedResult(extract);
+            outputStream.write(extract.Content, 0, extract.Content.length);
+        }
+        return plan.Content.Extract(outputStream.toByteArray());
+    }
+
+    /**
+     * 异步使用多个块批量读取的命令(0406)一次读取多个地址范围，规则和 {@link #ReadMultiBlock(String[], short[])} 一致<br />
+     * Asynchronously use the multi-block batch read command (0406) to read multiple address ranges at one time, the rules are the same as {@link #ReadMultiBlock(String[], short[])}
+     * @param address 所有的起始地址，比如D100，W10，M100
+     * @param length 每个地址读取的字数
+     * @return 每个地址的数据的异步结果
+     */
+    public CompletableFuture<OperateResultExOne<byte[][]>> ReadMultiBlockAsync( String[] address, short[] length ) {
+        final OperateResultExOne<MultiBlockRead> plan = CreateMultiBlockRead(address, length);
+        if (!plan.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[][]>CreateFailedResult(plan));
+
+        FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>> step = new FunctionOperateExOne<Integer, CompletableFuture<OperateResultExOne<byte[]>>>() {
+            @Override
+            public CompletableFuture<OperateResultExOne<byte[]>> Action(Integer index) {
+                return ThenAnalysis(ReadFromCoreServerAsync(PackCommand(plan.Content.commands.get(index))), new FunctionOperateExOne<byte[], OperateResultExOne<byte[]>>() {
+                    @Override
+                    public OperateResultExOne<byte[]> Action(byte[] content) {
+                        return ExtractMultiBlockResponse(content);
+                    }
+                });
+            }
+        };
+        int count = plan.Content.commands.size();
+        return ThenAnalysis(isPipelined() ? ReadConcurrentAsync(count, step) : ReadSequenceAsync(count, step), new FunctionOperateExOne<byte[], OperateResultExOne<byte[][]>>() {
+            @Override
+            public OperateResultExOne<byte[][]> Action(byte[] content) {
+                return plan.Content.Extract(content);
+            }
+        });
+    }
+
+    private OperateResultExOne<byte[]> ExtractMultiBlockResponse( byte[] response ) {
+        OperateResult check = CheckResponse(response);
+        if (!check.IsSuccess) return OperateResultExOne.CreateFailedResult(check);
+
+        return OperateResultExOne.CreateSuccessResult(SoftBasic.BytesArrayRemoveBegin(response, GetResponseDataIndex()));
+    }
+
+    private OperateResultExOne<MultiBlockRead> CreateMultiBlockRead( String[] address, short[] length ) {
+        if (address == null || length == null || address.length != length.length)
+            return new OperateResultExOne<MultiBlockRead>(StringResources.Language.TwoParametersLengthIsNotSame());
+
+        McAddressData[] items = new McAddressData[address.length];
+        for (int i = 0; i < address.length; i++) {
+            if (address[i].startsWith("s=") || address[i].startsWith("S=") || address[i].startsWith("ext=") || address[i].startsWith("mem="))
+                return new OperateResultExOne<MultiBlockRead>(StringResources.Language.NotSupportedFunction());
+
+            OperateResultExOne<McAddressData> addressResult = McAnalysisAddress(address[i], length[i]);
+            if (!addressResult.IsSuccess) return OperateResultExOne.CreateFailedResult(addressResult);
+            items[i] = addressResult.Content;
+        }
+        return OperateResultExOne.CreateSuccessResult(new MultiBlockRead(items));
+    }
+
+    /**
+     * 多个块批量读取的计划，合并同一种软元件重叠或是相邻的范围，超过单个报文点数的范围拆分成多个块，再按照块数及点数的限制分配到报文里
+     */
+    private static class MultiBlockRead {
+
+        MultiBlockRead( final McAddressData[] items ) {
+            itemRange = new int[items.length];
+            itemOffset = new int[items.length];
+            itemLength = new int[items.length];
+
+            // 按照软元件的代码及起始地址排序之后合并范围，位软元件的起始地址只有相差16的倍数时才能合并
+            Integer[] order = new Integer[items.length];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    McAddressData a = items[o1], b = items[o2];
+                    int code = Integer.compare(a.getMcDataType().getDataCode() & 0xff, b.getMcDataType().getDataCode() & 0xff);
+                    return code != 0 ? code : Integer.compare(a.getAddressStart(), b.getAddressStart());
+                }
+            });
+
+            ArrayList<McAddressData> ranges = new ArrayList<>();
+            McAddressData current = null;
+            for (int index : order) {
+                McAddressData item = items[index];
+                int unit = item.getMcDataType().getDataType() == 0 ? 1 : 16;
+                itemLength[index] = Math.max(0, item.getLength());
+                if (itemLength[index] == 0) {
+                    // 长度为0的地址不参与合并，也不写入0406的报文里
+                    itemRange[index] = -1;
+                    continue;
+                }
+                if (current == null || current.getMcDataType().getDataCode() != item.getMcDataType().getDataCode() ||
+                        item.getAddressStart() > current.getAddressStart() + current.getLength() * unit ||
+                        (item.getAddressStart() - current.getAddressStart()) % unit != 0) {
+                    current = new McAddressData();
+                    current.setMcDataType(item.getMcDataType());
+                    current.setAddressStart(item.getAddressStart());
+                    current.setLength(item.getLength());
+                    ranges.add(current);
+                } else {
+                    int offset = (item.getAddressStart() - current.getAddressStart()) / unit;
+                    current.setLength(Math.max(current.getLength(), offset + item.getLength()));
+                }
+                itemRange[index] = ranges.size() - 1;
+                itemOffset[index] = (item.getAddressStart() - current.getAddressStart()) / unit;
+            }
+
+            // 超过单个报文点数的范围拆分成多个块
+            ArrayList<int[]> blocks = new ArrayList<>();
+            rangeLengths = new int[ranges.size()];
+            for (int i = 0; i < ranges.size(); i++) {
+                rangeLengths[i] = ranges.get(i).getLength();
+                int alreadyFinished = 0;
+                while (alreadyFinished < rangeLengths[i]) {
+                    int readLength = Math.min(rangeLengths[i] - alreadyFinished, MaxPoints);
+                    blocks.add(new int[]{i, alreadyFinished, readLength});
+                    alreadyFinished += readLength;
+                }
+            }
+
+            // 按照长度从大到小首次适应的方式分配到报文里
+            Collections.sort(blocks, new Comparator<int[]>() {
+                @Override
+                public int compare(int[] o1, int[] o2) {
+                    return Integer.compare(o2[2], o1[2]);
+                }
+            });
+            ArrayList<ArrayList<int[]>> telegrams = new ArrayList<>();
+            ArrayList<Integer> points = new ArrayList<>();
+            for (int[] block : blocks) {
+                int target = -1;
+                for (int i = 0; i < telegrams.size(); i++) {
+                    if (telegrams.get(i).size() < MaxBlocks && points.get(i) + block[2] <= MaxPoints) {
+                        target = i;
+                        break;
+                    }
+                }
+                if (target < 0) {
+                    telegrams.add(new ArrayList<int[]>());
+                    points.add(0);
+                    target = telegrams.size() - 1;
+                }
+                telegrams.get(target).add(block);
+                points.set(target, points.get(target) + block[2]);
+            }
+
+            // 每个报文里字软元件的块在前，位软元件的块在后，返回的数据也是同样的顺序
+            for (ArrayList<int[]> telegram : telegrams) {
+                ArrayList<McAddressData> wordBlocks = new ArrayList<>();
+                ArrayList<McAddressData> bitBlocks = new ArrayList<>();
+                ArrayList<int[]> wordSegments = new ArrayList<>();
+                ArrayList<int[]> bitSegments = new ArrayList<>();
+                for (int[] block : telegram) {
+                    McAddressData range = ranges.get(block[0]);
+                    boolean isWord = range.getMcDataType().getDataType() == 0;
+                    McAddressData data = new McAddressData();
+                    data.setMcDataType(range.getMcDataType());
+                    data.setAddressStart(range.getAddressStart() + block[1] * (isWord ? 1 : 16));
+                    data.setLength(block[2]);
+                    (isWord ? wordBlocks : bitBlocks).add(data);
+                    (isWord ? wordSegments : bitSegments).add(block);
+                }
+                commands.add(MelsecHelper.BuildReadMultiBlockCommand(wordBlocks.toArray(new McAddressData[0]), bitBlocks.toArray(new McAddressData[0])));
+                segments.addAll(wordSegments);
+                segments.addAll(bitSegments);
+            }
+        }
+
+        /**
+         * 将所有报文按照顺序拼接之后的数据按照调用方的地址顺序拆分
+         */
+        OperateResultExOne<byte[][]> Extract( byte[] content ) {
+            int total = 0;
+            for (int[] segment : segments) total += segment[2] * 2;
+            if (content.length < total)
+                return new OperateResultExOne<byte[][]>(StringResources.Language.ReceiveDataLengthTooShort() + content.length + " < " + total);
+
+            byte[][] buffers = new byte[rangeLengths.length][];
+            for (int i = 0; i < buffers.length; i++) buffers[i] = new byte[rangeLengths[i] * 2];
+
+            int index = 0;
+            for (int[] segment : segments) {
+                System.arraycopy(content, index, buffers[segment[0]], segment[1] * 2, segment[2] * 2);
+                index += segment[2] * 2;
+            }
+
+            byte[][] result = new byte[itemRange.length][];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = new byte[itemLength[i] * 2];
+                if (itemRange[i] < 0) continue;
+                System.arraycopy(buffers[itemRange[i]], itemOffset[i] * 2, result[i], 0, result[i].length);
+            }
+            return OperateResultExOne.CreateSuccessResult(result);
+        }
+
+        private static final int MaxBlocks = 120;                       // 单个报文最多的块数
+        private static final int MaxPoints = 960;                       // 单个报文最多的字数
+
+        final ArrayList<byte[]> commands = new ArrayList<>();           // 每个报文的核心指令
+        private final ArrayList<int[]> segments = new ArrayList<>();    // 按照返回数据的顺序排列的块，范围，范围内的偏移，长度
+        private final int[] rangeLengths;                               // 每个范围的字数
+        private final int[] itemRange;                                  // 每个地址所在的范围，长度为0的地址为-1
+        private final int[] itemOffset;                                 // 每个地址在范围里的偏移字数
+        private final int[] itemLength;                                 // 每个地址的字数
+    }
+
+    // endregion
+
     /**
      * 读取PLC的标签信息，需要传入标签的名称，读取的字长度，标签举例：A; label[1]; bbb[10,10,10]<br />
      * To read the label information of the PLC, you need to pass in the name of the label,
@@ -325,15 +639,15 @@ public class MelsecMcNet extends NetworkDeviceBase {
         }
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(coreResult, this.NetworkNumber, this.NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(coreResult));
         if (!read.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(read);
 
         // 错误代码验证
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(check);
 
         // 数据初级解析，需要传入是否使用位的参数
-        OperateResultExOne<byte[]> extract = ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, 11), false);
+        OperateResultExOne<byte[]> extract = ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, GetResponseDataIndex()), false);
         if (!extract.IsSuccess) return extract;
 
         return MelsecHelper.ExtraTagData(extract.Content);
@@ -354,15 +668,15 @@ public class MelsecMcNet extends NetworkDeviceBase {
         byte[] coreResult = MelsecHelper.BuildReadMcCoreExtendCommand(addressResult.Content, extend, false);
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(coreResult, this.NetworkNumber, this.NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(coreResult));
         if (!read.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(read);
 
         // 错误代码验证
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(check);
 
         // 数据初级解析，需要传入是否使用位的参数
-        OperateResultExOne<byte[]> extract = ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, 11), false);
+        OperateResultExOne<byte[]> extract = ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, GetResponseDataIndex()), false);
         if (!extract.IsSuccess) return extract;
 
         return MelsecHelper.ExtraTagData(extract.Content);
@@ -380,15 +694,15 @@ public class MelsecMcNet extends NetworkDeviceBase {
         if (!coreResult.IsSuccess) return coreResult;
 
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(coreResult.Content, this.NetworkNumber, this.NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(coreResult.Content));
         if (!read.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(read);
 
         // 错误代码验证
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(check);
 
         // 数据初级解析，需要传入是否使用位的参数
-        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, 11), false);
+        return ExtractActualData(SoftBasic.BytesArrayRemoveBegin(read.Content, GetResponseDataIndex()), false);
     }
 
     /**
@@ -398,11 +712,11 @@ public class MelsecMcNet extends NetworkDeviceBase {
      */
     public OperateResult RemoteRun( ) {
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(new byte[]{0x01, 0x10, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00}, NetworkNumber, NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(new byte[]{0x01, 0x10, 0x00, 0x00, 0x01, 0x00, 0x00, 0x00}));
         if (!read.IsSuccess) return read;
 
         // 错误码校验
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return check;
 
         // 成功
@@ -416,11 +730,11 @@ public class MelsecMcNet extends NetworkDeviceBase {
      */
     public OperateResult RemoteStop( ) {
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(new byte[]{0x02, 0x10, 0x00, 0x00, 0x01, 0x00}, NetworkNumber, NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(new byte[]{0x02, 0x10, 0x00, 0x00, 0x01, 0x00}));
         if (!read.IsSuccess) return read;
 
         // 错误码校验
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return check;
 
         // 成功
@@ -434,11 +748,11 @@ public class MelsecMcNet extends NetworkDeviceBase {
      */
     public OperateResult RemoteReset() {
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(new byte[]{0x06, 0x10, 0x00, 0x00, 0x01, 0x00}, NetworkNumber, NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(new byte[]{0x06, 0x10, 0x00, 0x00, 0x01, 0x00}));
         if (!read.IsSuccess) return read;
 
         // 错误码校验
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return check;
 
         // 成功
@@ -453,15 +767,15 @@ public class MelsecMcNet extends NetworkDeviceBase {
      */
     public OperateResultExOne<String> ReadPlcType( ) {
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(new byte[]{0x01, 0x01, 0x00, 0x00}, NetworkNumber, NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(new byte[]{0x01, 0x01, 0x00, 0x00}));
         if (!read.IsSuccess) return OperateResultExOne.<String>CreateFailedResult(read);
 
         // 错误码校验
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return OperateResultExOne.<String>CreateFailedResult(check);
 
         // 成功
-        return OperateResultExOne.CreateSuccessResult(new String(SoftBasic.BytesArraySelectMiddle(read.Content, 11, 16), StandardCharsets.US_ASCII).trim());
+        return OperateResultExOne.CreateSuccessResult(new String(SoftBasic.BytesArraySelectMiddle(read.Content, GetResponseDataIndex(), 16), StandardCharsets.US_ASCII).trim());
     }
 
     /**
@@ -471,11 +785,11 @@ public class MelsecMcNet extends NetworkDeviceBase {
      */
     public OperateResult ErrorStateReset( ) {
         // 核心交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackMcCommand(new byte[]{0x17, 0x16, 0x00, 0x00}, NetworkNumber, NetworkStationNumber));
+        OperateResultExOne<byte[]> read = ReadFromCoreServer(PackCommand(new byte[]{0x17, 0x16, 0x00, 0x00}));
         if (!read.IsSuccess) return read;
 
         // 错误码校验
-        OperateResult check = CheckResponseContent(read.Content);
+        OperateResult check = CheckResponse(read.Content);
         if (!check.IsSuccess) return check;
 
         // 成功
@@ -491,6 +805,36 @@ public class MelsecMcNet extends NetworkDeviceBase {
         return "MelsecMcNet";
     }
 
+    /**
+     * 使用当前的网络号及网络站号将MC协议的核心报文打包成完整的报文，默认为3E帧，派生类可以重写为其他的帧格式<br />
+     * Pack the core message of the MC protocol into a complete message using the current network number and network station number.
+     * The default is the 3E frame, and derived classes can override it to other frame formats
+     * @param mcCore MC协议的核心报文
+     * @return 完整的报文
+     */
+    protected byte[] PackCommand(byte[] mcCore) {
+        return PackMcCommand(mcCore, this.NetworkNumber, this.NetworkStationNumber);
+    }
+
+    /**
+     * 检查PLC返回的完整报文的结束代码，默认为3E帧的格式<br />
+     * Check the end code of the complete message returned by the PLC, the default is the format of the 3E frame
+     * @param response PLC返回的完整报文
+     * @return 是否成功
+     */
+    protected OperateResult CheckResponse(byte[] response) {
+        return CheckResponseContent(response);
+    }
+
+    /**
+     * 获取PLC返回的完整报文里实际数据的起始索引，也就是报文头加上结束代码的长度，3E帧为11<br />
+     * Get the start index of the actual data in the complete message returned by the PLC, that is, the length of the message head plus the end code, 11 for the 3E frame
+     * @return 数据的起始索引
+     */
+    protected int GetResponseDataIndex() {
+        return 11;
+    }
+
     /**
      * 将MC协议的核心报文打包成一个可以直接对PLC进行发送的原始报文
      * @param mcCore MC协议的核心报文
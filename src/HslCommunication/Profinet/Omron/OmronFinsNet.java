@@ -1,10 +1,13 @@
 package HslCommunication.Profinet.Omron;
 
+import HslCommunication.BasicFramework.SoftIncrementCount;
+import HslCommunication.Core.Address.CompiledAddress;
 import HslCommunication.Core.IMessage.FinsMessage;
 import HslCommunication.Core.IMessage.INetMessage;
 import HslCommunication.Core.Net.NetworkBase.NetworkDeviceBase;
 import HslCommunication.Core.Transfer.DataFormat;
 import HslCommunication.Core.Transfer.ReverseWordTransform;
+import HslCommunication.Core.Types.FunctionOperateExOne;
 import HslCommunication.Core.Types.OperateResult;
 import HslCommunication.Core.Types.OperateResultExOne;
 import HslCommunication.Core.Types.OperateResultExTwo;
@@ -13,7 +16,9 @@ import HslCommunication.Utilities;
 import HslCommunication.BasicFramework.SoftBasic;
 import com.company.util.HexUtil;
 
+import java.io.ByteArrayOutputStream;
 import java.net.Socket;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 欧姆龙PLC通讯类，采用Fins-Tcp通信协议实现，支持的地址信息参见api文档信息。<br />
@@ -159,6 +164,25 @@ public class OmronFinsNet extends NetworkDeviceBase {
      */
     public byte SID = 0x00;
 
+    /**
+     * 获取一条报文最多读取的字数，超过的时候自动分批读取，默认为960<br />
+     * Get the maximum number of words read by a message, and read in batches automatically when it exceeds, the default is 960
+     * @return 分批的长度
+     */
+    public int getReadSplits() {
+        return readSplits;
+    }
+
+    /**
+     * 设置一条报文最多读取的字数，超过的时候自动分批读取，在设置了大于1的请求窗口时，所有的分批请求将同时发送<br />
+     * Set the maximum number of words read by a message, and read in batches automatically when it exceeds.
+     * When a request window greater than 1 is set, all batch requests will be sent at the same time
+     * @param readSplits 分批的长度
+     */
+    public void setReadSplits(int readSplits) {
+        this.readSplits = Math.max(1, readSplits);
+    }
+
     /**
      * 获取多字节数据的反转类型，适用于int,float,double,long类型的数据
      * @return 变换规则
@@ -218,12 +242,34 @@ public class OmronFinsNet extends NetworkDeviceBase {
         buffer[22] = SNA;
         buffer[23] = getSA1();
         buffer[24] = SA2;
-        buffer[25] = SID;
+        buffer[25] = GetNextSid();
         System.arraycopy(cmd, 0, buffer, 26, cmd.length);
 
         return buffer;
     }
 
+    /**
+     * 获取下一个请求的SID，同时发送多个请求的时候SID依次递增，设备返回的报文按照SID匹配，否则使用 {@link #SID} 的值<br />
+     * Get the SID of the next request. When sending multiple requests at the same time, the SID is incremented in turn,
+     * and the messages returned by the device are matched according to the SID, otherwise the value of {@link #SID} is used
+     * @return SID的值
+     */
+    private byte GetNextSid() {
+        return isPipelined() ? (byte) sidCount.GetCurrentValue() : SID;
+    }
+
+    /**
+     * 从发送的报文中提取出SID，PLC返回的报文中携带相同的SID，用于在一个连接上同时等待多个请求的返回，握手报文没有SID<br />
+     * Extract the SID from the sent message, the message returned by the PLC carries the same SID,
+     * which is used to wait for the return of multiple requests on one connection at the same time, the handshake message has no SID
+     * @param send 发送的完整的报文
+     * @return SID的值
+     */
+    @Override
+    protected int GetMessageIdentity(byte[] send) {
+        return OmronFinsNetHelper.GetTcpSid(send);
+    }
+
     /**
      * 根据类型地址长度确认需要读取的指令头<br />
      * Confirm the instruction header to be read according to the type address length
@@ -295,26 +341,92 @@ public class OmronFinsNet extends NetworkDeviceBase {
      * 从欧姆龙PLC中读取想要的数据，返回读取结果，读取长度的单位为字，地址格式为"D100","C100","W100","H100","A100"<br />
      * Read the desired data from the Omron PLC and return the read result. The unit of the read length is word. The address format is "D100", "C100", "W100", "H100", "A100"
      * @param address 读取地址，格式为"D100","C100","W100","H100","A100"
-     * @param length 读取的数据长度，字最大值960，位最大值7168
+     * @param length 读取的数据长度，超过 {@link #getReadSplits()} 的时候自动分批读取
      * @return 带成功标志的结果数据对象
      */
     @Override
     public OperateResultExOne<byte[]> Read(String address, short length) {
+        // 可以同时发送多个请求的时候，所有的分批请求一起发送
+        if (isPipelined()) return JoinResult(ReadAsync(address, length));
+
         // 获取指令
-        OperateResultExOne<byte[]> command = BuildReadCommand(address, length, false);
+        OperateResultExTwo<byte[][], short[]> command = OmronFinsNetHelper.BuildReadCommand(address, length, false, readSplits);
         if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
 
-        System.out.println("send----->    "+HexUtil.bytesToHexString(command.Content));
-        // 核心数据交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(command.Content);
-        if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < command.Content1.length; i++) {
+            byte[] send = PackCommand(command.Content1[i]);
 
-        // 数据有效性分析
-        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(read.Content, true);
-        if (!valid.IsSuccess) return OperateResultExOne.CreateFailedResult(valid);
+            // 核心数据交互
+            OperateResultExOne<byte[]> read = ReadFromCoreServer(send);
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+            // 数据有效性分析
+            OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(read.Content, true, send[25]);
+            if (!valid.IsSuccess) return OperateResultExOne.CreateFailedResult(valid);
+
+            stream.write(valid.Content, 0, valid.Content.length);
+        }
 
         // 读取到了正确的数据
-        return OperateResultExOne.CreateSuccessResult(valid.Content);
+        return OperateResultExOne.CreateSuccessResult(stream.toByteArray());
+    }
+
+    /**
+     * 异步从欧姆龙PLC中读取数据，在非阻塞的传输模式下不占用调用方的线程，如果设置了大于1的请求窗口，所有的分批请求将同时发送，并根据SID匹配返回的报文<br />
+     * Asynchronously read data from Omron PLC, and the calling thread is not occupied in non-blocking transport mode. If a request window greater than 1 is set,
+     * all batch requests will be sent at the same time, and the returned messages are matched according to the SID
+     * @param address 读取地址，格式为"D100","C100","W100","H100","A100"
+     * @param length 读取的数据长度
+     * @return 带成功标志的结果数据对象的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync(String address, short length) {
+        OperateResultExOne<CompiledAddress> compiled = CompileAddress(address, length);
+        if (!compiled.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[]>CreateFailedResult(compiled));
+        return ReadAsync(compiled.Content);
+    }
+
+    /**
+     * 将读取的地址和长度预先编译成完整的Fins报文，之后的读取不再解析地址，报文头里的节点信息在每次发送的时候按照当前的设置重新填写<br />
+     * Pre-compile the read address and length into a complete Fins message, and the address will no longer be parsed in subsequent reads.
+     * The node information in the message header is refilled according to the current settings each time it is sent
+     * @param address 读取地址，格式为"D100","C100","W100","H100","A100"
+     * @param length 读取的数据长度，超过 {@link #getReadSplits()} 的时候编译成多条报文
+     * @return 编译好的地址对象
+     */
+    @Override
+    public OperateResultExOne<CompiledAddress> CompileAddress(String address, short length) {
+        OperateResultExTwo<byte[][], short[]> command = OmronFinsNetHelper.BuildReadCommand(address, length, false, readSplits);
+        if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
+
+        byte[][] commands = new byte[command.Content1.length][];
+        for (int i = 0; i < commands.length; i++) commands[i] = PackCommand(command.Content1[i]);
+        return OperateResultExOne.CreateSuccessResult(new CompiledAddress(this, address, length, commands, command.Content2));
+    }
+
+    @Override
+    protected byte[] PrepareCompiledCommand(byte[] command) {
+        // 目标节点在连接的时候才确定，源节点在读取失败后可能改变，所以每次都按照当前的设置填写报文头
+        byte[] send = command.clone();
+        send[16] = ICF;
+        send[17] = RSV;
+        send[18] = GCT;
+        send[19] = DNA;
+        send[20] = DA1;
+        send[21] = DA2;
+        send[22] = SNA;
+        send[23] = getSA1();
+        send[24] = SA2;
+        send[25] = GetNextSid();
+        return send;
+    }
+
+    @Override
+    protected OperateResultExOne<byte[]> ExtractCompiledResponse(CompiledAddress compiled, int index, byte[] response) {
+        // 同时发送多个请求的时候，返回的报文已经按照SID匹配过了
+        if (isPipelined()) return OmronFinsNetHelper.ResponseValidAnalysis(response, true);
+        return OmronFinsNetHelper.ResponseValidAnalysis(response, true, SID);
     }
 
     /**
@@ -335,13 +447,37 @@ public class OmronFinsNet extends NetworkDeviceBase {
         if (!read.IsSuccess) return read;
 
         // 数据有效性分析
-        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(read.Content, false);
+        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(read.Content, false, command.Content[25]);
         if (!valid.IsSuccess) return valid;
 
         // 成功
         return OperateResult.CreateSuccessResult();
     }
 
+    /**
+     * 异步将原始的字节数据写入到欧姆龙PLC，在非阻塞的传输模式下不占用调用方的线程<br />
+     * Asynchronously write the original byte data to Omron PLC, and the calling thread is not occupied in non-blocking transport mode
+     * @param address 写入地址，格式为"D100","C100","W100","H100","A100"
+     * @param value 写入的数据
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResult> WriteAsync(String address, byte[] value) {
+        final OperateResultExOne<byte[]> command = BuildWriteCommand(address, value, false);
+        if (!command.IsSuccess) return CompletableFuture.<OperateResult>completedFuture(command);
+
+        return ThenCheck(ReadFromCoreServerAsync(command.Content), new FunctionOperateExOne<byte[], OperateResult>() {
+            @Override
+            public OperateResult Action(byte[] content) {
+                // 数据有效性分析
+                OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(content, false, command.Content[25]);
+                if (!valid.IsSuccess) return valid;
+
+                return OperateResult.CreateSuccessResult();
+            }
+        });
+    }
+
     /**
      * 从欧姆龙PLC中批量读取位软元件，地址格式为"D100.0","C100.0","W100.0","H100.0","A100.0"<br />
      * Read bit devices in batches from Omron PLC with address format "D100.0", "C100.0", "W100.0", "H100.0", "A100.0"
@@ -360,7 +496,7 @@ public class OmronFinsNet extends NetworkDeviceBase {
         if (!read.IsSuccess) return OperateResultExOne.<boolean[]>CreateFailedResult(read);
 
         // 数据有效性分析
-        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(read.Content, true);
+        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(read.Content, true, command.Content[25]);
         if (!valid.IsSuccess) return OperateResultExOne.<boolean[]>CreateFailedResult(valid);
 
         // 返回正确的数据信息
@@ -394,7 +530,7 @@ public class OmronFinsNet extends NetworkDeviceBase {
         if (!read.IsSuccess) return read;
 
         // 数据有效性分析
-        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(read.Content, false);
+        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.ResponseValidAnalysis(read.Content, false, command.Content[25]);
         if (!valid.IsSuccess) return valid;
 
         // 写入成功
@@ -414,6 +550,8 @@ public class OmronFinsNet extends NetworkDeviceBase {
             };
 
     private boolean IsChangeSA1AfterReadFailed = false;
+    private int readSplits = 960;                                                       // 一条报文最多读取的字数
+    private final SoftIncrementCount sidCount = new SoftIncrementCount(255, 0);         // 同时发送多个请求时的SID
 
     /**
      * 返回表示当前对象的字符串
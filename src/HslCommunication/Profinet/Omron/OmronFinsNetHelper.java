@@ -151,6 +151,36 @@ public class OmronFinsNetHelper {
         return OperateResultExOne.CreateSuccessResult(_PLCCommand);
     }
 
+    /**
+     * 根据读取的地址，长度，是否位读取创建Fins协议的核心报文，字读取的长度超过分批的长度时，按照地址顺序拆分成多条报文，位读取不拆分<br />
+     * According to the read address, length, whether to read the core message of the Fins protocol. When the length of the word reading exceeds the split length,
+     * it is split into multiple messages in the order of the address, and the bit reading is not split
+     * @param address 地址，具体格式请参照示例说明
+     * @param length 读取的数据长度
+     * @param isBit 是否使用位读取
+     * @param splitLength 每条报文最多读取的字数
+     * @return 带有成功标识的Fins核心报文，以及每条报文读取的长度
+     */
+    public static OperateResultExTwo<byte[][], short[]> BuildReadCommand(String address, int length, boolean isBit, int splitLength ) {
+        OperateResultExOne<byte[]> command = BuildReadCommand(address, (short) Math.min(length, isBit ? length : splitLength), isBit);
+        if (!command.IsSuccess) return OperateResultExTwo.CreateFailedResult(command);
+        if (isBit || length <= splitLength) return OperateResultExTwo.CreateSuccessResult(new byte[][]{command.Content}, new short[]{(short) length});
+
+        int count = (length + splitLength - 1) / splitLength;
+        byte[][] commands = new byte[count][];
+        short[] lengths = new short[count];
+        int start = (command.Content[3] & 0xff) * 256 + (command.Content[4] & 0xff);
+        for (int i = 0; i < count; i++) {
+            lengths[i] = (short) Math.min(splitLength, length - i * splitLength);
+            commands[i] = command.Content.clone();
+            commands[i][3] = Utilities.getBytes(start + i * splitLength)[1];
+            commands[i][4] = Utilities.getBytes(start + i * splitLength)[0];
+            commands[i][6] = Utilities.getBytes(lengths[i])[1];
+            commands[i][7] = Utilities.getBytes(lengths[i])[0];
+        }
+        return OperateResultExTwo.CreateSuccessResult(commands, lengths);
+    }
+
     /**
      * 根据写入的地址，数据，是否位写入生成Fins协议的核心报文<br />
      * According to the written address, data, whether the bit is written to generate the core message of the Fins protocol
@@ -238,6 +268,60 @@ public class OmronFinsNetHelper {
         return new OperateResultExOne<byte[]>(StringResources.Language.OmronReceiveDataError());
     }
 
+    /**
+     * 验证欧姆龙的Fins-TCP返回的数据是否正确的数据，并检查返回报文的SID和请求的SID是否一致，不一致时说明收到的是其他请求的报文<br />
+     * Verify that the data returned by Omron's Fins-TCP is correct data, and check whether the SID of the returned message is consistent with the SID of the request.
+     * If it is inconsistent, it means that the message of another request is received
+     * @param response 来自欧姆龙返回的数据内容
+     * @param isRead 是否读取
+     * @param sid 请求的SID
+     * @return 带有是否成功的结果对象
+     */
+    public static OperateResultExOne<byte[]> ResponseValidAnalysis( byte[] response, boolean isRead, int sid ) {
+        int receive = GetTcpSid(response);
+        if (receive >= 0 && receive != (sid & 0xff))
+            return new OperateResultExOne<byte[]>(StringResources.Language.OmronReceiveDataError() + " SID: " + receive + " != " + (sid & 0xff));
+
+        return ResponseValidAnalysis(response, isRead);
+    }
+
+    /**
+     * 验证欧姆龙的Fins-Udp返回的数据是否正确的数据，并检查返回报文的SID和请求的SID是否一致，不一致时说明收到的是其他请求的报文<br />
+     * Verify that the data returned by Omron's Fins-Udp is correct data, and check whether the SID of the returned message is consistent with the SID of the request.
+     * If it is inconsistent, it means that the message of another request is received
+     * @param response 来自欧姆龙返回的数据内容
+     * @param isRead 是否读取
+     * @param sid 请求的SID
+     * @return 带有是否成功的结果对象
+     */
+    public static OperateResultExOne<byte[]> UdpResponseValidAnalysis( byte[] response, boolean isRead, int sid ) {
+        int receive = GetUdpSid(response);
+        if (receive >= 0 && receive != (sid & 0xff))
+            return new OperateResultExOne<byte[]>(StringResources.Language.OmronReceiveDataError() + " SID: " + receive + " != " + (sid & 0xff));
+
+        return UdpResponseValidAnalysis(response, isRead);
+    }
+
+    /**
+     * 获取Fins-TCP报文里的SID，报文长度不够时返回-1<br />
+     * Get the SID in the Fins-TCP message, and return -1 when the message length is not enough
+     * @param frame Fins-TCP的完整报文
+     * @return SID的值
+     */
+    public static int GetTcpSid( byte[] frame ) {
+        return frame == null || frame.length < 26 ? -1 : frame[25] & 0xff;
+    }
+
+    /**
+     * 获取Fins-Udp报文里的SID，报文长度不够时返回-1<br />
+     * Get the SID in the Fins-Udp message, and return -1 when the message length is not enough
+     * @param frame Fins-Udp的完整报文
+     * @return SID的值
+     */
+    public static int GetUdpSid( byte[] frame ) {
+        return frame == null || frame.length < 10 ? -1 : frame[9] & 0xff;
+    }
+
     /**
      * 验证欧姆龙的Fins-Udp返回的数据是否正确的数据，如果正确的话，并返回所有的数据内容<br />
      * Verify that the data returned by Omron's Fins-Udp is correct data, if correct, and return all data content
@@ -1,10 +1,17 @@
 package HslCommunication.Profinet.Omron;
 
+import HslCommunication.BasicFramework.SoftIncrementCount;
 import HslCommunication.Core.Net.NetworkBase.NetworkUdpDeviceBase;
 import HslCommunication.Core.Transfer.DataFormat;
 import HslCommunication.Core.Transfer.ReverseWordTransform;
+import HslCommunication.Core.Types.FunctionOperateExOne;
 import HslCommunication.Core.Types.OperateResult;
 import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.Core.Types.OperateResultExTwo;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class OmronFinsUdp extends NetworkUdpDeviceBase {
     //region Constructor
@@ -104,11 +111,33 @@ public class OmronFinsUdp extends NetworkUdpDeviceBase {
     public byte SA2 = 0x00;
 
     /**
-     * 设备的标识号<br />
-     * Device identification number
+     * 设备的标识号，UDP通道是复用的，为了丢弃已经超时的请求的返回，每个请求都会使用自增的SID，本值不再写入报文<br />
+     * Device identification number. The UDP channel is reused. In order to discard the return of the request that has timed out,
+     * each request will use an auto-incrementing SID, and this value is no longer written into the message
      */
     public byte SID = 0x00;
 
+    /**
+     * 获取一条报文最多读取的字数，超过的时候自动分批读取，默认为960<br />
+     * Get the maximum number of words read by a message, and read in batches automatically when it exceeds, the default is 960
+     * @return 分批的长度
+     */
+    public int getReadSplits() {
+        return readSplits;
+    }
+
+    /**
+     * 设置一条报文最多读取的字数，超过的时候自动分批读取，在设置了大于1的请求窗口时，所有的分批请求将同时发送<br />
+     * Set the maximum number of words read by a message, and read in batches automatically when it exceeds.
+     * When a request window greater than 1 is set, all batch requests will be sent at the same time
+     * @param readSplits 分批的长度
+     */
+    public void setReadSplits(int readSplits) {
+        this.readSplits = Math.max(1, readSplits);
+    }
+
+    private int readSplits = 960;                                                       // 一条报文最多读取的字数
+    private final SoftIncrementCount sidCount = new SoftIncrementCount(255, 0);         // 自增的SID，用于匹配返回的报文
 
     //endregion
 
@@ -125,12 +154,34 @@ public class OmronFinsUdp extends NetworkUdpDeviceBase {
         buffer[6] = SNA;
         buffer[7] = SA1;
         buffer[8] = SA2;
-        buffer[9] = SID;
+        buffer[9] = (byte) sidCount.GetCurrentValue();
         System.arraycopy(cmd, 0, buffer, 10, cmd.length);
 
         return buffer;
     }
 
+    /**
+     * 从发送的报文中提取出SID，PLC返回的报文中携带相同的SID<br />
+     * Extract the SID from the sent message, the message returned by the PLC carries the same SID
+     * @param send 发送的完整的报文
+     * @return SID的值
+     */
+    @Override
+    protected int GetMessageIdentity(byte[] send) {
+        return OmronFinsNetHelper.GetUdpSid(send);
+    }
+
+    /**
+     * 从PLC返回的报文中提取出SID，用于匹配同时等待返回的多个请求<br />
+     * Extract the SID from the message returned by the PLC, which is used to match multiple requests waiting for return at the same time
+     * @param receive PLC返回的完整的报文
+     * @return SID的值
+     */
+    @Override
+    protected int GetResponseIdentity(byte[] receive) {
+        return OmronFinsNetHelper.GetUdpSid(receive);
+    }
+
     public OperateResultExOne<byte[]> BuildReadCommand(String address, short length, boolean isBit) {
         OperateResultExOne<byte[]> command = OmronFinsNetHelper.BuildReadCommand(address, length, isBit);
         if (!command.IsSuccess) return command;
@@ -149,21 +200,69 @@ public class OmronFinsUdp extends NetworkUdpDeviceBase {
 
     //region Read Write Support
 
+    /**
+     * 从欧姆龙PLC中读取想要的数据，超过 {@link #getReadSplits()} 个字时自动分批读取，如果设置了大于1的请求窗口，所有的分批请求将同时发送，并根据SID匹配返回的报文<br />
+     * Read the desired data from the Omron PLC, and automatically read in batches when it exceeds {@link #getReadSplits()} words. If a request window greater than 1 is set,
+     * all batch requests will be sent at the same time, and the returned messages are matched according to the SID
+     * @param address 读取地址，格式为"D100","C100","W100","H100","A100"
+     * @param length 读取的数据长度
+     * @return 带成功标志的结果数据对象
+     */
     public OperateResultExOne<byte[]> Read(String address, short length) {
         // 获取指令
-        OperateResultExOne<byte[]> command = BuildReadCommand(address, length, false);
+        OperateResultExOne<byte[][]> command = BuildReadCommands(address, length);
         if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
 
         // 核心数据交互
-        OperateResultExOne<byte[]> read = ReadFromCoreServer(command.Content);
+        OperateResultExOne<byte[][]> read = ReadFromCoreServer(command.Content);
         if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
 
-        // 数据有效性分析
-        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(read.Content, true);
-        if (!valid.IsSuccess) return OperateResultExOne.CreateFailedResult(valid);
+        return ExtractReadContent(command.Content, read.Content);
+    }
+
+    /**
+     * 异步从欧姆龙PLC中读取数据，设置了UDP多路复用对象的时候，等待PLC返回的时候不占用任何线程，分批的请求按照请求窗口同时发送<br />
+     * Asynchronously read data from Omron PLC. When the UDP multiplexing object is set, no thread is occupied while waiting for the PLC to return,
+     * and the batch requests are sent at the same time according to the request window
+     * @param address 读取地址，格式为"D100","C100","W100","H100","A100"
+     * @param length 读取的数据长度
+     * @return 带成功标志的结果数据对象的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResultExOne<byte[]>> ReadAsync(String address, short length) {
+        final OperateResultExOne<byte[][]> command = BuildReadCommands(address, length);
+        if (!command.IsSuccess) return CompletableFuture.completedFuture(OperateResultExOne.<byte[]>CreateFailedResult(command));
+
+        return ReadFromCoreServerAsync(command.Content).thenApply(new Function<OperateResultExOne<byte[][]>, OperateResultExOne<byte[]>>() {
+            @Override
+            public OperateResultExOne<byte[]> apply(OperateResultExOne<byte[][]> read) {
+                if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+                return ExtractReadContent(command.Content, read.Content);
+            }
+        });
+    }
+
+    private OperateResultExOne<byte[][]> BuildReadCommands(String address, short length) {
+        OperateResultExTwo<byte[][], short[]> command = OmronFinsNetHelper.BuildReadCommand(address, length, false, readSplits);
+        if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
+
+        byte[][] sends = new byte[command.Content1.length][];
+        for (int i = 0; i < sends.length; i++) sends[i] = PackCommand(command.Content1[i]);
+        return OperateResultExOne.CreateSuccessResult(sends);
+    }
+
+    private static OperateResultExOne<byte[]> ExtractReadContent(byte[][] sends, byte[][] receives) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        for (int i = 0; i < sends.length; i++) {
+            // 数据有效性分析
+            OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(receives[i], true, sends[i][9]);
+            if (!valid.IsSuccess) return OperateResultExOne.CreateFailedResult(valid);
+
+            stream.write(valid.Content, 0, valid.Content.length);
+        }
 
         // 读取到了正确的数据
-        return OperateResultExOne.CreateSuccessResult(valid.Content);
+        return OperateResultExOne.CreateSuccessResult(stream.toByteArray());
     }
 
     public OperateResult Write(String address, byte[] value) {
@@ -176,13 +275,37 @@ public class OmronFinsUdp extends NetworkUdpDeviceBase {
         if (!read.IsSuccess) return read;
 
         // 数据有效性分析
-        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(read.Content, false);
+        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(read.Content, false, command.Content[9]);
         if (!valid.IsSuccess) return valid;
 
         // 成功
         return OperateResult.CreateSuccessResult();
     }
 
+    /**
+     * 异步将原始的字节数据写入到欧姆龙PLC，设置了UDP多路复用对象的时候，等待PLC返回的时候不占用任何线程<br />
+     * Asynchronously write the original byte data to Omron PLC. When the UDP multiplexing object is set, no thread is occupied while waiting for the PLC to return
+     * @param address 写入地址，格式为"D100","C100","W100","H100","A100"
+     * @param value 写入的数据
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResult> WriteAsync(String address, byte[] value) {
+        final OperateResultExOne<byte[]> command = BuildWriteCommand(address, value, false);
+        if (!command.IsSuccess) return CompletableFuture.<OperateResult>completedFuture(command);
+
+        return ThenCheck(ReadFromCoreServerAsync(command.Content), new FunctionOperateExOne<byte[], OperateResult>() {
+            @Override
+            public OperateResult Action(byte[] content) {
+                // 数据有效性分析
+                OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(content, false, command.Content[9]);
+                if (!valid.IsSuccess) return valid;
+
+                return OperateResult.CreateSuccessResult();
+            }
+        });
+    }
+
     //endregion
 
     //region Read Write bool
@@ -197,7 +320,7 @@ public class OmronFinsUdp extends NetworkUdpDeviceBase {
         if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
 
         // 数据有效性分析
-        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(read.Content, true);
+        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(read.Content, true, command.Content[9]);
         if (!valid.IsSuccess) return OperateResultExOne.CreateFailedResult(valid);
 
         // 返回正确的数据信息
@@ -226,7 +349,7 @@ public class OmronFinsUdp extends NetworkUdpDeviceBase {
         if (!read.IsSuccess) return read;
 
         // 数据有效性分析
-        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(read.Content, false);
+        OperateResultExOne<byte[]> valid = OmronFinsNetHelper.UdpResponseValidAnalysis(read.Content, false, command.Content[9]);
         if (!valid.IsSuccess) return valid;
 
         // 写入成功
@@ -0,0 +1,303 @@
+package HslCommunication.Profinet.Siemens;
+
+import HslCommunication.Core.Types.OperateResultExOne;
+import HslCommunication.Core.Types.OperateResultExThree;
+import HslCommunication.StringResources;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+
+/**
+ * 西门子S7协议的批量读取计划，将任意数量的离散地址按照数据区及DB块分组，合并相邻或是重叠的地址范围，超过单个报文容量的范围拆分成多个数据项，
+ * 再按照PDU长度及单个报文的数据项数量限制，把所有的数据项分配到尽可能少的报文里。计划创建之后不能修改，可以在多个线程之间共享，
+ * 使用 {@link SiemensS7Net#Read(SiemensReadPlan)} 读取，结果按照调用方的地址顺序返回。<br />
+ * The batch read plan of the Siemens S7 protocol. Any number of discrete addresses are grouped according to the data area and DB block,
+ * adjacent or overlapping address ranges are merged, and ranges that exceed the capacity of a single telegram are split into multiple data items.
+ * Then, according to the PDU length and the limit of the number of data items in a single telegram, all data items are allocated to as few telegrams as possible.
+ * The plan cannot be modified after it is created and can be shared between multiple threads. Use {@link SiemensS7Net#Read(SiemensReadPlan)} to read,
+ * and the results are returned in the order of the caller's addresses.
+ */
+public class SiemensReadPlan {
+
+    private SiemensReadPlan(int pduLength, int itemCount) {
+        this.pduLength = pduLength;
+        this.itemCount = itemCount;
+    }
+
+    /**
+     * 获取创建计划时使用的PDU长度<br />
+     * Get the PDU length used when creating the plan
+     * @return PDU长度
+     */
+    public int getPduLength() {
+        return pduLength;
+    }
+
+    /**
+     * 获取调用方的地址数量<br />
+     * Get the number of addresses of the caller
+     * @return 地址数量
+     */
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * 获取合并之后的地址范围的数量<br />
+     * Get the number of address ranges after merging
+     * @return 范围数量
+     */
+    public int getRangeCount() {
+        return rangeLengths.length;
+    }
+
+    /**
+     * 获取读取一次需要发送的报文数量<br />
+     * Get the number of telegrams that need to be sent for one read
+     * @return 报文数量
+     */
+    public int getTelegramCount() {
+        return commands.length;
+    }
+
+    /**
+     * 根据地址列表创建一个读取计划，地址之间的间隔不超过4个字节时也会合并，因为每个数据项在应答报文里本身就需要4个字节的头<br />
+     * Create a read plan based on the address list, addresses are also merged when the gap between them does not exceed 4 bytes,
+     * because each data item itself requires a 4-byte header in the response telegram
+     * @param address 地址列表，格式为I100，M100，Q100，DB20.100
+     * @param length 每个地址读取的字节数
+     * @param pduLength 和PLC协商之后的PDU长度
+     * @return 读取计划
+     */
+    public static OperateResultExOne<SiemensReadPlan> Create(String[] address, short[] length, int pduLength) {
+        return Create(address, length, pduLength, 4);
+    }
+
+    /**
+     * 根据地址列表创建一个读取计划<br />
+     * Create a read plan based on the address list
+     * @param address 地址列表，格式为I100，M100，Q100，DB20.100
+     * @param length 每个地址读取的字节数，为0的地址不生成数据项，结果为空的数组
+     * @param pduLength 和PLC协商之后的PDU长度
+     * @param maxGap 同一个数据区里两个地址之间的间隔不超过该字节数时合并成一个范围，为0时只合并相邻或是重叠的地址
+     * @return 读取计划
+     */
+    public static OperateResultExOne<SiemensReadPlan> Create(String[] address, short[] length, int pduLength, int maxGap) {
+        if (address == null || length == null || address.length != length.length)
+            return new OperateResultExOne<SiemensReadPlan>(StringResources.Language.TwoParametersLengthIsNotSame());
+
+        // 解析所有的地址
+        final Item[] items = new Item[address.length];
+        for (int i = 0; i < address.length; i++) {
+            OperateResultExThree<Byte, Integer, Integer> analysis = SiemensS7Net.AnalysisAddress(address[i]);
+            if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
+
+            items[i] = new Item(analysis.Content1, analysis.Content3, analysis.Content2 / 8, Math.max(0, length[i]));
+        }
+
+        // 按照数据区，DB块，起始地址排序之后合并范围
+        Integer[] order = new Integer[items.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer o1, Integer o2) {
+                Item a = items[o1], b = items[o2];
+                if (a.area != b.area) return Integer.compare(a.area & 0xFF, b.area & 0xFF);
+                if (a.db != b.db) return Integer.compare(a.db, b.db);
+                return Integer.compare(a.start, b.start);
+            }
+        });
+
+        ArrayList<Item> ranges = new ArrayList<>();
+        int[] itemRange = new int[items.length];
+        int[] itemOffset = new int[items.length];
+        Item current = null;
+        for (int index : order) {
+            Item item = items[index];
+            if (item.length == 0) {
+                // 长度为0的地址不参与合并，也不生成长度为0的数据项
+                itemRange[index] = -1;
+                continue;
+            }
+            if (current == null || current.area != item.area || current.db != item.db || item.start > current.start + current.length + Math.max(0, maxGap)) {
+                current = new Item(item.area, item.db, item.start, item.length);
+                ranges.add(current);
+            } else {
+                current.length = Math.max(current.length, item.start + item.length - current.start);
+            }
+            itemRange[index] = ranges.size() - 1;
+            itemOffset[index] = item.start - current.start;
+        }
+
+        // 超过单个报文容量的范围拆分成多个数据项
+        int maxRead = pduLength - 18;
+        ArrayList<Segment> segments = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            Item range = ranges.get(i);
+            int alreadyFinished = 0;
+            while (alreadyFinished < range.length) {
+                int readLength = Math.min(range.length - alreadyFinished, maxRead);
+                segments.add(new Segment(i, alreadyFinished, readLength));
+                alreadyFinished += readLength;
+            }
+        }
+
+        // 按照长度从大到小首次适应的方式分配到报文里
+        Collections.sort(segments, new Comparator<Segment>() {
+            @Override
+            public int compare(Segment o1, Segment o2) {
+                return Integer.compare(o2.length, o1.length);
+            }
+        });
+        int capacity = pduLength - 14;
+        int maxItems = Math.min(19, (pduLength - 12) / 12);
+        ArrayList<ArrayList<Segment>> telegrams = new ArrayList<>();
+        ArrayList<Integer> used = new ArrayList<>();
+        for (Segment segment : segments) {
+            int size = 4 + segment.length + segment.length % 2;
+            int target = -1;
+            for (int i = 0; i < telegrams.size(); i++) {
+                if (telegrams.get(i).size() < maxItems && used.get(i) + size <= capacity) {
+                    target = i;
+                    break;
+                }
+            }
+            if (target < 0) {
+                telegrams.add(new ArrayList<Segment>());
+                used.add(0);
+                target = telegrams.size() - 1;
+            }
+            telegrams.get(target).add(segment);
+            used.set(target, used.get(target) + size);
+        }
+
+        // 生成每个报文的指令
+        SiemensReadPlan plan = new SiemensReadPlan(pduLength, items.length);
+        plan.commands = new byte[telegrams.size()][];
+        plan.telegramSegments = new Segment[telegrams.size()][];
+        for (int i = 0; i < telegrams.size(); i++) {
+            ArrayList<Segment> telegram = telegrams.get(i);
+            ArrayList<OperateResultExThree<Byte, Integer, Integer>> list = new ArrayList<>(telegram.size());
+            short[] lengths = new short[telegram.size()];
+            for (int j = 0; j < telegram.size(); j++) {
+                Segment segment = telegram.get(j);
+                Item range = ranges.get(segment.range);
+                list.add(OperateResultExThree.CreateSuccessResult(range.area, (range.start + segment.offset) * 8, range.db));
+                lengths[j] = (short) segment.length;
+            }
+
+            OperateResultExOne<byte[]> command = SiemensS7Net.BuildReadCommand(list, lengths);
+            if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
+            plan.commands[i] = command.Content;
+            plan.telegramSegments[i] = telegram.toArray(new Segment[0]);
+        }
+
+        plan.rangeLengths = new int[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) plan.rangeLengths[i] = ranges.get(i).length;
+        plan.itemRange = itemRange;
+        plan.itemOffset = itemOffset;
+        plan.itemLength = new int[items.length];
+        for (int i = 0; i < items.length; i++) plan.itemLength[i] = items[i].length;
+        return OperateResultExOne.CreateSuccessResult(plan);
+    }
+
+    /**
+     * 获取指定报文的完整指令
+     */
+    byte[] GetCommand(int telegram) {
+        return commands[telegram];
+    }
+
+    /**
+     * 获取指定报文里每个数据项的读取长度
+     */
+    short[] GetTelegramLengths(int telegram) {
+        Segment[] segments = telegramSegments[telegram];
+        short[] lengths = new short[segments.length];
+        for (int i = 0; i < segments.length; i++) lengths[i] = (short) segments[i].length;
+        return lengths;
+    }
+
+    /**
+     * 创建保存所有范围数据的缓存
+     */
+    byte[][] CreateRangeBuffers() {
+        byte[][] buffers = new byte[rangeLengths.length][];
+        for (int i = 0; i < buffers.length; i++) buffers[i] = new byte[rangeLengths[i]];
+        return buffers;
+    }
+
+    /**
+     * 将一个报文读取到的数据按照数据项的顺序复制到范围的缓存里
+     */
+    void FillRanges(int telegram, byte[] content, byte[][] buffers) {
+        int index = 0;
+        for (Segment segment : telegramSegments[telegram]) {
+            System.arraycopy(content, index, buffers[segment.range], segment.offset, segment.length);
+            index += segment.length;
+        }
+    }
+
+    /**
+     * 从范围的缓存里按照调用方的顺序提取出每个地址的数据
+     */
+    byte[][] ExtractItems(byte[][] buffers) {
+        byte[][] result = new byte[itemCount][];
+        for (int i = 0; i < itemCount; i++) {
+            result[i] = new byte[itemLength[i]];
+            if (itemRange[i] < 0) continue;
+            System.arraycopy(buffers[itemRange[i]], itemOffset[i], result[i], 0, itemLength[i]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SiemensReadPlan[" + itemCount + " items, " + getRangeCount() + " ranges, " + getTelegramCount() + " telegrams]";
+    }
+
+    private final int pduLength;                  // 创建计划时的PDU长度
+    private final int itemCount;                  // 调用方的地址数量
+    private byte[][] commands;                    // 每个报文的指令
+    private Segment[][] telegramSegments;         // 每个报文里的数据项
+    private int[] rangeLengths;                   // 每个范围的长度
+    private int[] itemRange;                      // 每个地址所在的范围，长度为0的地址为-1
+    private int[] itemOffset;                     // 每个地址在范围里的偏移
+    private int[] itemLength;                     // 每个地址的长度
+
+    /**
+     * 一个地址或是合并之后的地址范围，起始地址及长度以字节为单位
+     */
+    private static class Item {
+
+        Item(byte area, int db, int start, int length) {
+            this.area = area;
+            this.db = db;
+            this.start = start;
+            this.length = length;
+        }
+
+        final byte area;
+        final int db;
+        final int start;
+        int length;
+    }
+
+    /**
+     * 报文里的一个数据项，对应范围里的一段数据
+     */
+    private static class Segment {
+
+        Segment(int range, int offset, int length) {
+            this.range = range;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        final int range;
+        final int offset;
+        final int length;
+    }
+}
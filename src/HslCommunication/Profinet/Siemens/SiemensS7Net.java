@@ -1,6 +1,7 @@
 package HslCommunication.Profinet.Siemens;
 
 import HslCommunication.BasicFramework.SoftBasic;
+import HslCommunication.Core.Address.CompiledAddress;
 import HslCommunication.Core.IMessage.INetMessage;
 import HslCommunication.Core.IMessage.S7Message;
 import HslCommunication.Core.Net.NetworkBase.NetworkDeviceBase;
@@ -17,8 +18,12 @@ import java.io.ByteArrayOutputStream;
 import java.io.UnsupportedEncodingException;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * 西门子的数据交互类，采用s7协议实现
@@ -145,10 +150,49 @@ public class SiemensS7Net extends NetworkDeviceBase {
         OperateResultExOne<byte[]> read_second = ReadFromCoreServer(socket, plcHead2);
         if (!read_second.IsSuccess) return read_second;
 
+        // 提取PLC协商之后的PDU长度，后续的读写按照这个长度分批
+        if (read_second.Content.length >= 27) {
+            int negotiated = (read_second.Content[25] & 0xFF) * 256 + (read_second.Content[26] & 0xFF);
+            if (negotiated >= MinPduLength) pduLength = negotiated;
+        }
+
         // 返回成功的信号
         return OperateResult.CreateSuccessResult();
     }
 
+    /**
+     * 获取和PLC协商之后的PDU长度，连接成功之后才是PLC实际的值，在此之前为最小的240，S7-1500通常为960 ->
+     * Get the PDU length negotiated with the PLC, which is the actual value of the PLC after the connection is successful,
+     * before that it is the minimum 240, and the S7-1500 is usually 960
+     *
+     * @return PDU长度
+     */
+    public int getPduLength() {
+        return pduLength;
+    }
+
+    /**
+     * 获取单次请求最多可以读取的字节数，根据PDU长度计算，需要减去应答报文的头及数据项的头 ->
+     * Get the maximum number of bytes that can be read in a single request, calculated according to the PDU length,
+     * minus the header of the response message and the header of the data item
+     *
+     * @return 字节数
+     */
+    public int getMaxReadLength() {
+        return pduLength - 18;
+    }
+
+    /**
+     * 获取单次请求最多可以写入的字节数，根据PDU长度计算，需要减去请求报文的头，参数及数据项的头 ->
+     * Get the maximum number of bytes that can be written in a single request, calculated according to the PDU length,
+     * minus the header, parameters and data item header of the request message
+     *
+     * @return 字节数
+     */
+    public int getMaxWriteLength() {
+        return pduLength - 35;
+    }
+
     /**
      * 从PLC读取订货号信息
      *
@@ -182,39 +226,8 @@ public class SiemensS7Net extends NetworkDeviceBase {
         OperateResultExThree<Byte, Integer, Integer> addressResult = AnalysisAddress(address);
         if (!addressResult.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(addressResult);
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-
-        short alreadyFinished = 0;
-        while (alreadyFinished < length) {
-            short readLength = (short) Math.min(length - alreadyFinished, 200);
-
-            OperateResultExThree<Byte, Integer, Integer>[] list = new OperateResultExThree[1];
-            list[0] = addressResult;
-
-            OperateResultExOne<byte[]> read = Read(list, new short[]{readLength});
-            if (read.IsSuccess) {
-                try {
-                    outputStream.write(read.Content);
-                } catch (Exception ex) {
-
-                }
-            } else {
-                return read;
-            }
-
-            alreadyFinished += readLength;
-            addressResult.Content2 += readLength * 8;
-        }
-
-        byte[] buffer = outputStream.toByteArray();
-
-        try {
-            outputStream.close();
-        } catch (Exception ex) {
-
-        }
-
-        return OperateResultExOne.CreateSuccessResult(buffer);
+        // 超过PDU长度的时候自动分批读取，长度为0的时候不和PLC交互，直接返回空的数据
+        return Read(Collections.singletonList(addressResult), new short[]{length});
     }
 
 
@@ -260,12 +273,12 @@ public class SiemensS7Net extends NetworkDeviceBase {
      */
     public OperateResultExOne<byte[]> Read(String[] address, short[] length) {
 
-        OperateResultExThree<Byte, Integer, Integer>[] list = new OperateResultExThree[address.length];
+        List<OperateResultExThree<Byte, Integer, Integer>> list = new ArrayList<>(address.length);
         for (int i = 0; i < address.length; i++) {
             OperateResultExThree<Byte, Integer, Integer> tmp = AnalysisAddress(address[i]);
             if (!tmp.IsSuccess) return OperateResultExOne.CreateFailedResult(tmp);
 
-            list[i] = tmp;
+            list.add(tmp);
         }
 
         return Read(list, length);
@@ -273,36 +286,149 @@ public class SiemensS7Net extends NetworkDeviceBase {
 
 
     /**
-     * 读取真实的数据
+     * 根据当前协商的PDU长度创建一个批量读取计划，同一个数据区里相邻，重叠或是间隔不超过4个字节的地址合并读取，适合周期性的读取大量的离散地址，
+     * 计划只需要创建一次，之后使用 {@link #Read(SiemensReadPlan)} 读取，需要在连接成功之后创建才能使用PLC实际的PDU长度
+     *
+     * @param address 起始地址数组，格式为I100，M100，Q100，DB20.100
+     * @param length  每个地址读取的字节数
+     * @return 读取计划
+     */
+    public OperateResultExOne<SiemensReadPlan> CreateReadPlan(String[] address, short[] length) {
+        return SiemensReadPlan.Create(address, length, pduLength);
+    }
+
+
+    /**
+     * 根据当前协商的PDU长度创建一个批量读取计划，同一个数据区里间隔不超过指定字节数的地址合并读取
+     *
+     * @param address 起始地址数组，格式为I100，M100，Q100，DB20.100
+     * @param length  每个地址读取的字节数
+     * @param maxGap  允许合并的最大间隔字节数，为0时只合并相邻或是重叠的地址
+     * @return 读取计划
+     */
+    public OperateResultExOne<SiemensReadPlan> CreateReadPlan(String[] address, short[] length, int maxGap) {
+        return SiemensReadPlan.Create(address, length, pduLength, maxGap);
+    }
+
+
+    /**
+     * 按照读取计划从PLC读取所有的地址，结果按照创建计划时的地址顺序返回，每个地址一个数组，计划的PDU长度大于当前协商的PDU长度时返回失败，需要重新创建计划
+     *
+     * @param plan 读取计划
+     * @return 每个地址的数据
+     */
+    public OperateResultExOne<byte[][]> Read(SiemensReadPlan plan) {
+        if (plan.getPduLength() > pduLength)
+            return new OperateResultExOne<byte[][]>(StringResources.Language.SiemensReadPlanPduLengthMismatch() + plan.getPduLength() + "/" + pduLength);
+
+        byte[][] buffers = plan.CreateRangeBuffers();
+        for (int i = 0; i < plan.getTelegramCount(); i++) {
+            OperateResultExOne<byte[]> read = ReadFromCoreServer(plan.GetCommand(i));
+            if (!read.IsSuccess) return OperateResultExOne.CreateFailedResult(read);
+
+            OperateResultExOne<byte[]> analysis = AnalysisReadResponse(read.Content, plan.GetTelegramLengths(i));
+            if (!analysis.IsSuccess) return OperateResultExOne.CreateFailedResult(analysis);
+
+            plan.FillRanges(i, analysis.Content, buffers);
+        }
+        return OperateResultExOne.CreateSuccessResult(plan.ExtractItems(buffers));
+    }
+
+
+    /**
+     * 读取真实的数据，根据协商的PDU长度及单个报文的最大数据项数量，将所有的地址分配到尽可能少的报文里，超过单个报文容量的地址拆成多个数据项，
+     * 结果按照地址的顺序拼接，长度为0的地址不生成数据项
      *
      * @param address 起始地址
      * @param length  长度
      * @return 结果类对象
      */
-    private OperateResultExOne<byte[]> Read(OperateResultExThree<Byte, Integer, Integer>[] address, short[] length) {
+    private OperateResultExOne<byte[]> Read(List<OperateResultExThree<Byte, Integer, Integer>> address, short[] length) {
+        if (address.size() != length.length) return new OperateResultExOne<byte[]>(StringResources.Language.TwoParametersLengthIsNotSame());
+
+        int maxRead = getMaxReadLength();
+        int capacity = pduLength - 14;                                   // 应答报文里可以用于数据项的长度
+        int maxItems = Math.min(19, (pduLength - 12) / 12);              // 请求报文里最多的数据项数量
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ArrayList<OperateResultExThree<Byte, Integer, Integer>> items = new ArrayList<>();
+        ArrayList<Short> lengths = new ArrayList<>();
+        int used = 0;
+        for (int i = 0; i < address.size(); i++) {
+            OperateResultExThree<Byte, Integer, Integer> start = address.get(i);
+            int alreadyFinished = 0;
+            while (alreadyFinished < length[i]) {
+                short readLength = (short) Math.min(length[i] - alreadyFinished, maxRead);
+                int size = 4 + readLength + readLength % 2;              // 数据项的头加上按照偶数对齐的数据
+
+                if (!items.isEmpty() && (items.size() >= maxItems || used + size > capacity)) {
+                    OperateResultExOne<byte[]> read = ReadTelegram(items, lengths);
+                    if (!read.IsSuccess) return read;
+                    outputStream.write(read.Content, 0, read.Content.length);
+                    items.clear();
+                    lengths.clear();
+                    used = 0;
+                }
+
+                items.add(OperateResultExThree.CreateSuccessResult(start.Content1, start.Content2 + alreadyFinished * 8, start.Content3));
+                lengths.add(readLength);
+                used += size;
+                alreadyFinished += readLength;
+            }
+        }
+
+        if (!items.isEmpty()) {
+            OperateResultExOne<byte[]> read = ReadTelegram(items, lengths);
+            if (!read.IsSuccess) return read;
+            outputStream.write(read.Content, 0, read.Content.length);
+        }
+        return OperateResultExOne.CreateSuccessResult(outputStream.toByteArray());
+    }
+
+    /**
+     * 使用一个报文读取多个数据项，调用方需要保证数据项的数量及长度没有超过PDU的限制
+     *
+     * @param items   解析后的地址
+     * @param lengths 每个地址的读取长度
+     * @return 结果类对象
+     */
+    private OperateResultExOne<byte[]> ReadTelegram(ArrayList<OperateResultExThree<Byte, Integer, Integer>> items, ArrayList<Short> lengths) {
+        short[] length = new short[lengths.size()];
+        for (int i = 0; i < length.length; i++) length[i] = lengths.get(i);
 
-        OperateResultExOne<byte[]> command = BuildReadCommand(address, length);
+        OperateResultExOne<byte[]> command = BuildReadCommand(items, length);
         if (!command.IsSuccess) return command;
 
         OperateResultExOne<byte[]> read = ReadFromCoreServer(command.Content);
         if (!read.IsSuccess) return read;
 
+        return AnalysisReadResponse(read.Content, length);
+    }
+
+    /**
+     * 从PLC返回的读取报文中按照顺序提取出每个地址的数据，并拼接成一个数组
+     *
+     * @param content PLC返回的完整报文
+     * @param length  每个地址的读取长度
+     * @return 结果数据对象
+     */
+    private static OperateResultExOne<byte[]> AnalysisReadResponse(byte[] content, short[] length) {
         int receiveCount = 0;
         for (int i = 0; i < length.length; i++) {
             receiveCount += length[i];
         }
 
-        if (read.Content.length >= 21 && read.Content[20] == length.length) {
+        if (content.length >= 21 && content[20] == length.length) {
             // 分析结果
             byte[] buffer = new byte[receiveCount];
             int kk = 0;
             int ll = 0;
-            for (int ii = 21; ii < read.Content.length; ii++) {
-                if ((ii + 1) < read.Content.length) {
-                    if (read.Content[ii] == (byte) 0xFF &&
-                            read.Content[ii + 1] == 0x04) {
+            for (int ii = 21; ii < content.length; ii++) {
+                if ((ii + 1) < content.length) {
+                    if (content[ii] == (byte) 0xFF &&
+                            content[ii + 1] == 0x04) {
                         // 有数据
-                        System.arraycopy(read.Content, ii + 4, buffer, ll, length[kk]);
+                        System.arraycopy(content, ii + 4, buffer, ll, length[kk]);
                         ii += length[kk] + 3;
                         ll += length[kk];
                         kk++;
@@ -312,11 +438,45 @@ public class SiemensS7Net extends NetworkDeviceBase {
 
             return OperateResultExOne.CreateSuccessResult(buffer);
         } else {
-            return new OperateResultExOne<byte[]>(read.ErrorCode, StringResources.Language.SiemensDataLengthCheckFailed());
+            return new OperateResultExOne<byte[]>(StringResources.Language.SiemensDataLengthCheckFailed());
         }
     }
 
 
+    /**
+     * 将地址和读取的字节长度预先编译好，按照当前协商的PDU长度生成每一批读取的报文，之后的读取不再解析地址
+     *
+     * @param address 起始地址，格式为I100，M100，Q100，DB20.100
+     * @param length  读取的数量，以字节为单位
+     * @return 编译好的地址对象
+     */
+    @Override
+    public OperateResultExOne<CompiledAddress> CompileAddress(String address, short length) {
+        OperateResultExThree<Byte, Integer, Integer> addressResult = AnalysisAddress(address);
+        if (!addressResult.IsSuccess) return OperateResultExOne.CreateFailedResult(addressResult);
+
+        int maxRead = getMaxReadLength();
+        int count = length <= 0 ? 0 : (length + maxRead - 1) / maxRead;         // 长度为0的时候没有报文，读取时直接返回空的数据
+        byte[][] commands = new byte[count][];
+        short[] lengths = new short[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = (short) Math.min(length - i * maxRead, maxRead);
+
+            OperateResultExOne<byte[]> command = BuildReadCommand(Collections.singletonList(addressResult), new short[]{lengths[i]});
+            if (!command.IsSuccess) return OperateResultExOne.CreateFailedResult(command);
+
+            commands[i] = command.Content;
+            addressResult.Content2 += lengths[i] * 8;
+        }
+        return OperateResultExOne.CreateSuccessResult(new CompiledAddress(this, address, length, commands, lengths));
+    }
+
+    @Override
+    protected OperateResultExOne<byte[]> ExtractCompiledResponse(CompiledAddress compiled, int index, byte[] response) {
+        return AnalysisReadResponse(response, new short[]{compiled.GetCommandLength(index)});
+    }
+
+
     /**
      * 读取指定地址的bool数据
      *
@@ -355,8 +515,12 @@ public class SiemensS7Net extends NetworkDeviceBase {
         OperateResultExOne<byte[]> write = ReadFromCoreServer(entireValue);
         if (!write.IsSuccess) return write;
 
-        if (write.Content[write.Content.length - 1] != (byte) 0xFF) {
-            return new OperateResult(write.Content[write.Content.length - 1], StringResources.Language.SiemensWriteError() + write.Content[write.Content.length - 1]);
+        return CheckWriteResponse(write.Content);
+    }
+
+    private static OperateResult CheckWriteResponse(byte[] response) {
+        if (response[response.length - 1] != (byte) 0xFF) {
+            return new OperateResult(response[response.length - 1], StringResources.Language.SiemensWriteError() + response[response.length - 1]);
         } else {
             return OperateResult.CreateSuccessResult();
         }
@@ -377,7 +541,7 @@ public class SiemensS7Net extends NetworkDeviceBase {
         int length = value.length;
         int alreadyFinished = 0;
         while (alreadyFinished < length) {
-            short writeLength = (short) Math.min(length - alreadyFinished, 200);
+            short writeLength = (short) Math.min(length - alreadyFinished, getMaxWriteLength());
             byte[] buffer = getByteTransform().TransByte(value, alreadyFinished, writeLength);
 
             OperateResultExOne<byte[]> command = BuildWriteByteCommand(analysis, buffer);
@@ -393,6 +557,40 @@ public class SiemensS7Net extends NetworkDeviceBase {
         return OperateResult.CreateSuccessResult();
     }
 
+    /**
+     * 异步将数据写入到PLC数据，超过单次写入的最大长度时按顺序分批写入，在非阻塞的传输模式下不占用调用方的线程<br />
+     * Asynchronously write data to the PLC, and write in batches in sequence when the maximum length of a single write is exceeded,
+     * the calling thread is not occupied in non-blocking transport mode
+     * @param address 起始地址，格式为I100，M100，Q100，DB20.100
+     * @param value   写入的数据，长度根据data的长度来指示
+     * @return 带有成功标识的结果类对象的异步结果
+     */
+    @Override
+    public CompletableFuture<OperateResult> WriteAsync(String address, byte[] value) {
+        OperateResultExThree<Byte, Integer, Integer> analysis = AnalysisAddress(address);
+        if (!analysis.IsSuccess) return CompletableFuture.<OperateResult>completedFuture(analysis);
+
+        // 所有的分批报文预先生成，之后按顺序发送
+        List<byte[]> commands = new ArrayList<>();
+        int alreadyFinished = 0;
+        while (alreadyFinished < value.length) {
+            short writeLength = (short) Math.min(value.length - alreadyFinished, getMaxWriteLength());
+            OperateResultExOne<byte[]> command = BuildWriteByteCommand(analysis, getByteTransform().TransByte(value, alreadyFinished, writeLength));
+            if (!command.IsSuccess) return CompletableFuture.<OperateResult>completedFuture(command);
+
+            commands.add(command.Content);
+            alreadyFinished += writeLength;
+            analysis.Content2 += writeLength * 8;
+        }
+
+        return WriteSequenceAsync(commands, new FunctionOperateExOne<byte[], OperateResult>() {
+            @Override
+            public OperateResult Action(byte[] content) {
+                return CheckWriteResponse(content);
+            }
+        });
+    }
+
 
     /**
      * 写入PLC的一个位，例如"M100.6"，"I100.7"，"Q100.0"，"DB20.100.0"，如果只写了"M100"默认为"M100.0
@@ -566,6 +764,8 @@ public class SiemensS7Net extends NetworkDeviceBase {
 
     private byte plc_slot = 0;
     private byte plc_rack = 0;
+    private volatile int pduLength = MinPduLength;          // 和PLC协商之后的PDU长度
+    private static final int MinPduLength = 240;            // 协议规定的最小PDU长度
 
     /**
      * 返回表示当前对象的字符串
@@ -656,12 +856,10 @@ public class SiemensS7Net extends NetworkDeviceBase {
         OperateResultExThree<Byte, Integer, Integer> analysis = AnalysisAddress(address);
         if (!analysis.IsSuccess) return OperateResultExOne.<byte[]>CreateFailedResult(analysis);
 
-        OperateResultExThree<Byte, Integer, Integer>[] addressList = new OperateResultExThree[1];
-        addressList[0] = analysis;
         short[] lengthList = new short[1];
         lengthList[0] = length;
 
-        return BuildReadCommand(addressList, lengthList);
+        return BuildReadCommand(Collections.singletonList(analysis), lengthList);
     }
 
     /**
@@ -672,9 +870,21 @@ public class SiemensS7Net extends NetworkDeviceBase {
      * @return 携带有命令字节
      */
     public static OperateResultExOne<byte[]> BuildReadCommand(OperateResultExThree<Byte, Integer, Integer>[] address, short[] length) {
+        if (address == null) throw new RuntimeException("address is null");
+        return BuildReadCommand(Arrays.asList(address), length);
+    }
+
+    /**
+     * 生成一个读取字数据指令头的通用方法
+     *
+     * @param address 解析后的地址
+     * @param length  每个地址的读取长度
+     * @return 携带有命令字节
+     */
+    public static OperateResultExOne<byte[]> BuildReadCommand(List<OperateResultExThree<Byte, Integer, Integer>> address, short[] length) {
         if (address == null) throw new RuntimeException("address is null");
         if (length == null) throw new RuntimeException("count is null");
-        if (address.length != length.length)
+        if (address.size() != length.length)
             throw new RuntimeException(StringResources.Language.TwoParametersLengthIsNotSame());
         if (length.length > 19)
             throw new RuntimeException(StringResources.Language.SiemensReadLengthCannotLargerThan19());
@@ -737,14 +947,14 @@ public class SiemensS7Net extends NetworkDeviceBase {
             _PLCCommand[23 + ii * 12] = (byte) (length[ii] / 256);
             _PLCCommand[24 + ii * 12] = (byte) (length[ii] % 256);
             // DB块编号，如果访问的是DB块的话
-            _PLCCommand[25 + ii * 12] = (byte) (address[ii].Content3 / 256);
-            _PLCCommand[26 + ii * 12] = (byte) (address[ii].Content3 % 256);
+            _PLCCommand[25 + ii * 12] = (byte) (address.get(ii).Content3 / 256);
+            _PLCCommand[26 + ii * 12] = (byte) (address.get(ii).Content3 % 256);
             // 访问数据类型
-            _PLCCommand[27 + ii * 12] = address[ii].Content1;
+            _PLCCommand[27 + ii * 12] = address.get(ii).Content1;
             // 偏移位置
-            _PLCCommand[28 + ii * 12] = (byte) (address[ii].Content2 / 256 / 256 % 256);
-            _PLCCommand[29 + ii * 12] = (byte) (address[ii].Content2 / 256 % 256);
-            _PLCCommand[30 + ii * 12] = (byte) (address[ii].Content2 % 256);
+            _PLCCommand[28 + ii * 12] = (byte) (address.get(ii).Content2 / 256 / 256 % 256);
+            _PLCCommand[29 + ii * 12] = (byte) (address.get(ii).Content2 / 256 % 256);
+            _PLCCommand[30 + ii * 12] = (byte) (address.get(ii).Content2 % 256);
         }
 
         return OperateResultExOne.CreateSuccessResult(_PLCCommand);